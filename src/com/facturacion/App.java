@@ -1,11 +1,18 @@
 package com.facturacion;
 
+import com.facturacion.model.Factura;
+import com.facturacion.model.Pago;
+import com.facturacion.model.Producto;
+import com.facturacion.repository.AgregadoDiarioRepository;
 import com.facturacion.repository.ClienteRepository;
 import com.facturacion.repository.FacturaRepository;
 import com.facturacion.repository.ProductoRepository;
+import com.facturacion.repository.impl.AgregadoDiarioRepositoryImpl;
+import com.facturacion.repository.impl.ClienteRepositoryCache;
 import com.facturacion.repository.impl.ClienteRepositoryImpl;
 import com.facturacion.repository.impl.FacturaRepositoryImpl;
 import com.facturacion.repository.impl.ProductoRepositoryImpl;
+import com.facturacion.repository.impl.SecuenciaPersistente;
 import com.facturacion.service.ClienteService;
 import com.facturacion.service.FacturaService;
 import com.facturacion.service.ProductoService;
@@ -13,6 +20,7 @@ import com.facturacion.service.impl.ClienteServiceImpl;
 import com.facturacion.service.impl.FacturaServiceImpl;
 import com.facturacion.service.impl.ProductoServiceImpl;
 import com.facturacion.ui.MainWindow;
+import java.util.stream.Stream;
 import javax.swing.SwingUtilities;
 
 /**
@@ -21,10 +29,14 @@ import javax.swing.SwingUtilities;
  */
 public class App {
     
+    // Cantidad máxima de clientes que se mantienen en memoria
+    private static final int CAPACIDAD_CACHE_CLIENTES = 10_000;
+    
     // Repositorios
     private final ClienteRepository clienteRepository;
     private final ProductoRepository productoRepository;
     private final FacturaRepository facturaRepository;
+    private final AgregadoDiarioRepository agregadoDiarioRepository;
     
     // Servicios
     private final ClienteService clienteService;
@@ -40,9 +52,24 @@ public class App {
      */
     public App() {
         // Inicializar repositorios
-        this.clienteRepository = new ClienteRepositoryImpl();
+        this.clienteRepository = new ClienteRepositoryCache(new ClienteRepositoryImpl(), CAPACIDAD_CACHE_CLIENTES);
         this.productoRepository = new ProductoRepositoryImpl();
-        this.facturaRepository = new FacturaRepositoryImpl();
+        this.facturaRepository = new FacturaRepositoryImpl(FacturaRepositoryImpl.ModoAlmacenamiento.SEGMENTOS);
+        this.agregadoDiarioRepository = new AgregadoDiarioRepositoryImpl();
+        
+        // Inicializar las secuencias persistentes de números. El valor inicial
+        // sólo se calcula la primera vez, cuando el archivo de la secuencia no existe.
+        Factura.setGeneradorNumeros(new SecuenciaPersistente("facturas", () ->
+            facturaRepository.obtenerUltimaFactura()
+                .map(factura -> factura.getNumeroFactura() + 1)
+                .orElse(1)));
+        Producto.setGeneradorCodigos(new SecuenciaPersistente("productos", () ->
+            productoRepository.buscarTodos().stream()
+                .mapToInt(Producto::getCodigo)
+                .max()
+                .orElse(0) + 1));
+        Pago.setGeneradorNumeros(new SecuenciaPersistente("pagos", () ->
+            ultimoNumeroPago(facturaRepository) + 1));
         
         // Inicializar servicios
         this.clienteService = new ClienteServiceImpl(clienteRepository);
@@ -50,7 +77,8 @@ public class App {
         this.facturaService = new FacturaServiceImpl(
             facturaRepository, 
             clienteService,
-            productoService
+            productoService,
+            agregadoDiarioRepository
         );
         
         // Inicializar la interfaz de usuario en el hilo de eventos de Swing
@@ -60,6 +88,25 @@ public class App {
         });
     }
     
+    /**
+     * Obtiene el mayor número de pago registrado recorriendo las facturas una
+     * a una, sin cargarlas todas en memoria. Sólo se usa al crear la secuencia
+     * de pagos.
+     * 
+     * @param facturaRepository Repositorio de facturas
+     * @return Mayor número de pago, o 0 si no hay pagos
+     */
+    private static int ultimoNumeroPago(FacturaRepository facturaRepository) {
+        try (Stream<Factura> facturas = facturaRepository.recorrerTodas()) {
+            return facturas
+                .map(Factura::getPago)
+                .filter(pago -> pago != null)
+                .mapToInt(Pago::getNumeroPago)
+                .max()
+                .orElse(0);
+        }
+    }
+    
     /**
      * Punto de entrada de la aplicación.
      * 
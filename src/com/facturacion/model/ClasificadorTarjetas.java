@@ -0,0 +1,123 @@
+package com.facturacion.model;
+
+/**
+ * Clasificador de números de tarjeta por prefijo (BIN). Los prefijos de cada
+ * marca de {@link Tarjeta} se cargan en un árbol de prefijos de dígitos, y un
+ * número se clasifica y se valida (longitud y algoritmo de Luhn) en un único
+ * recorrido de sus caracteres, sin crear objetos. Se ignoran los guiones y
+ * los mismos espacios que {@code \s} en una expresión regular (espacio,
+ * tabulador, saltos de línea y de página, tabulador vertical).
+ */
+final class ClasificadorTarjetas {
+
+    private static final int SIN_HIJO = 0;
+
+    /** hijos[nodo][digito]: nodo siguiente, o SIN_HIJO. El nodo 0 es la raíz. */
+    private static final int[][] HIJOS;
+    /** Marca cuyo prefijo termina en cada nodo, o null. */
+    private static final Tarjeta[] MARCAS;
+
+    static {
+        int nodos = 1;
+        for (Tarjeta tarjeta : Tarjeta.values()) {
+            for (String prefijo : tarjeta.getPrefijos()) {
+                nodos += prefijo.length();
+            }
+        }
+
+        int[][] hijos = new int[nodos][10];
+        Tarjeta[] marcas = new Tarjeta[nodos];
+        int siguienteNodo = 1;
+        for (Tarjeta tarjeta : Tarjeta.values()) {
+            for (String prefijo : tarjeta.getPrefijos()) {
+                int nodo = 0;
+                for (int i = 0; i < prefijo.length(); i++) {
+                    int digito = prefijo.charAt(i) - '0';
+                    if (digito < 0 || digito > 9) {
+                        throw new IllegalStateException("Prefijo de tarjeta inválido: " + prefijo);
+                    }
+                    if (hijos[nodo][digito] == SIN_HIJO) {
+                        hijos[nodo][digito] = siguienteNodo++;
+                    }
+                    nodo = hijos[nodo][digito];
+                }
+                if (marcas[nodo] != null && marcas[nodo] != tarjeta) {
+                    throw new IllegalStateException("Prefijo de tarjeta repetido: " + prefijo);
+                }
+                marcas[nodo] = tarjeta;
+            }
+        }
+        HIJOS = hijos;
+        MARCAS = marcas;
+    }
+
+    private ClasificadorTarjetas() {
+    }
+
+    /**
+     * Determina la marca de un número de tarjeta y lo valida.
+     *
+     * @param numero Número de tarjeta (puede tener espacios o guiones)
+     * @return La marca si el número tiene un prefijo conocido, una longitud
+     *         válida para esa marca y pasa el algoritmo de Luhn; null en caso contrario
+     */
+    static Tarjeta clasificar(CharSequence numero) {
+        if (numero == null) {
+            return null;
+        }
+
+        int nodo = 0;
+        boolean enArbol = true;
+        Tarjeta marca = null;
+        int digitos = 0;
+        // Sumas de Luhn duplicando los dígitos de posición par o impar (desde la
+        // izquierda); al final la cantidad de dígitos indica cuál corresponde
+        int sumaDuplicandoPares = 0;
+        int sumaDuplicandoImpares = 0;
+
+        for (int i = 0; i < numero.length(); i++) {
+            char c = numero.charAt(i);
+            if (esSeparador(c)) {
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            int digito = c - '0';
+
+            if (enArbol) {
+                nodo = HIJOS[nodo][digito];
+                if (nodo == SIN_HIJO) {
+                    enArbol = false;
+                } else if (MARCAS[nodo] != null) {
+                    marca = MARCAS[nodo];
+                }
+            }
+
+            int duplicado = digito * 2;
+            if (duplicado > 9) {
+                duplicado -= 9;
+            }
+            if ((digitos & 1) == 0) {
+                sumaDuplicandoPares += duplicado;
+                sumaDuplicandoImpares += digito;
+            } else {
+                sumaDuplicandoPares += digito;
+                sumaDuplicandoImpares += duplicado;
+            }
+            digitos++;
+        }
+
+        if (marca == null || !marca.admiteLongitud(digitos)) {
+            return null;
+        }
+        // Luhn duplica cada segundo dígito desde la derecha: con una cantidad
+        // par de dígitos son los de posición par desde la izquierda
+        int suma = (digitos & 1) == 0 ? sumaDuplicandoPares : sumaDuplicandoImpares;
+        return suma % 10 == 0 ? marca : null;
+    }
+
+    private static boolean esSeparador(char c) {
+        return c == ' ' || c == '-' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
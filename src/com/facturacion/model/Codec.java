@@ -0,0 +1,32 @@
+package com.facturacion.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Interfaz para codificar y decodificar objetos del modelo en formato binario.
+ * Los repositorios reciben un Codec para persistir sus entidades.
+ * 
+ * @param <T> Tipo de objeto que se codifica
+ */
+public interface Codec<T> {
+    
+    /**
+     * Escribe el objeto en la salida indicada.
+     * 
+     * @param out Salida de datos
+     * @param valor Objeto a escribir
+     * @throws IOException Si ocurre un error de escritura
+     */
+    void escribir(DataOutput out, T valor) throws IOException;
+    
+    /**
+     * Lee un objeto de la entrada indicada.
+     * 
+     * @param in Entrada de datos
+     * @return El objeto leído
+     * @throws IOException Si ocurre un error de lectura o el formato no es válido
+     */
+    T leer(DataInput in) throws IOException;
+}
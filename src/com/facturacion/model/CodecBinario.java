@@ -0,0 +1,328 @@
+package com.facturacion.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Codificación binaria compacta y versionada de las entidades del modelo.
+ * Escribe los campos primitivos directamente y las enumeraciones como su
+ * ordinal; no usa reflexión ni requiere que las clases sean Serializable.
+ * 
+ * Cada registro de nivel superior (cliente, producto o factura) comienza con
+ * un byte de versión de formato, de modo que versiones futuras puedan seguir
+ * leyendo los datos ya guardados.
+ *
+ * Versiones:
+ * <ol>
+ * <li>Montos como double; la tarjeta de un pago con su número completo y su
+ *     código de seguridad.</li>
+ * <li>Montos en céntimos (long); de la tarjeta solo se guardan los últimos
+ *     cuatro dígitos, nunca el código de seguridad; el cliente de una factura
+ *     puede ser nulo. Al leer registros de la versión 1 se descartan el código
+ *     de seguridad y los dígitos restantes del número.</li>
+ * </ol>
+ */
+public final class CodecBinario {
+    
+    /** Versión actual del formato binario. */
+    public static final int VERSION = 2;
+    
+    private static final byte NULO = -1;
+    private static final byte PRODUCTO_NO_PERECEDERO = 0;
+    private static final byte PRODUCTO_PERECEDERO = 1;
+    
+    private static final Impuesto[] IMPUESTOS = Impuesto.values();
+    private static final Moneda[] MONEDAS = Moneda.values();
+    private static final TipoPago[] TIPOS_PAGO = TipoPago.values();
+    private static final TipoCliente[] TIPOS_CLIENTE = TipoCliente.values();
+    private static final Tarjeta[] TARJETAS = Tarjeta.values();
+    
+    /** Codec para clientes. */
+    public static final Codec<Cliente> CLIENTE = new Codec<Cliente>() {
+        @Override
+        public void escribir(DataOutput out, Cliente cliente) throws IOException {
+            out.writeByte(VERSION);
+            escribirCliente(out, cliente);
+        }
+        
+        @Override
+        public Cliente leer(DataInput in) throws IOException {
+            leerVersion(in);
+            return leerCliente(in);
+        }
+    };
+    
+    /** Codec para productos perecederos y no perecederos. */
+    public static final Codec<Producto> PRODUCTO = new Codec<Producto>() {
+        @Override
+        public void escribir(DataOutput out, Producto producto) throws IOException {
+            out.writeByte(VERSION);
+            escribirProducto(out, producto);
+        }
+        
+        @Override
+        public Producto leer(DataInput in) throws IOException {
+            return leerProducto(in, leerVersion(in));
+        }
+    };
+    
+    /** Codec para facturas, incluyendo cliente, líneas de detalle y pago. */
+    public static final Codec<Factura> FACTURA = new Codec<Factura>() {
+        @Override
+        public void escribir(DataOutput out, Factura factura) throws IOException {
+            out.writeByte(VERSION);
+            escribirFactura(out, factura);
+        }
+        
+        @Override
+        public Factura leer(DataInput in) throws IOException {
+            return leerFactura(in, leerVersion(in));
+        }
+    };
+    
+    private CodecBinario() {
+        // Clase de utilidad
+    }
+    
+    private static int leerVersion(DataInput in) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version < 1 || version > VERSION) {
+            throw new StreamCorruptedException("Versión de formato no soportada: " + version);
+        }
+        return version;
+    }
+    
+    // Cliente
+    
+    private static void escribirCliente(DataOutput out, Cliente cliente) throws IOException {
+        out.writeLong(cliente.getCedula());
+        out.writeUTF(cliente.getNombre());
+        escribirEnum(out, cliente.getTipo());
+        out.writeBoolean(cliente.isCiudadanoOro());
+        out.writeInt(cliente.getPuntos());
+        escribirTexto(out, cliente.getContacto());
+    }
+    
+    private static Cliente leerCliente(DataInput in) throws IOException {
+        long cedula = in.readLong();
+        String nombre = in.readUTF();
+        TipoCliente tipo = leerEnum(in, TIPOS_CLIENTE);
+        boolean ciudadanoOro = in.readBoolean();
+        int puntos = in.readInt();
+        String contacto = leerTexto(in);
+        
+        Cliente cliente = new Cliente(cedula, nombre, tipo, contacto);
+        cliente.setCiudadanoOro(ciudadanoOro);
+        cliente.agregarPuntos(puntos);
+        return cliente;
+    }
+    
+    // Producto
+    
+    private static void escribirProducto(DataOutput out, Producto producto) throws IOException {
+        boolean perecedero = producto instanceof ProductoPerecedero;
+        out.writeByte(perecedero ? PRODUCTO_PERECEDERO : PRODUCTO_NO_PERECEDERO);
+        out.writeInt(producto.getCodigo());
+        escribirTexto(out, producto.getNombre());
+        escribirTexto(out, producto.getDescripcion());
+        out.writeLong(producto.getPrecioCentimos());
+        escribirEnum(out, producto.getImpuesto());
+        out.writeInt(producto.getCantidadProducto());
+        escribirTexto(out, producto.getNumeroCodigo());
+        if (perecedero) {
+            out.writeLong(((ProductoPerecedero) producto).getFechaVencimientoLocal().toEpochDay());
+        }
+    }
+    
+    private static Producto leerProducto(DataInput in, int version) throws IOException {
+        byte tipo = in.readByte();
+        int codigo = in.readInt();
+        String nombre = leerTexto(in);
+        String descripcion = leerTexto(in);
+        long precio = leerMonto(in, version);
+        Impuesto impuesto = leerEnum(in, IMPUESTOS);
+        int cantidad = in.readInt();
+        String numeroCodigo = leerTexto(in);
+        
+        switch (tipo) {
+            case PRODUCTO_NO_PERECEDERO:
+                return new ProductoNoPerecedero(codigo, nombre, descripcion, precio, impuesto, cantidad, numeroCodigo);
+            case PRODUCTO_PERECEDERO:
+                LocalDate vencimiento = LocalDate.ofEpochDay(in.readLong());
+                return new ProductoPerecedero(codigo, nombre, descripcion, precio, impuesto, cantidad,
+                    numeroCodigo, vencimiento);
+            default:
+                throw new StreamCorruptedException("Tipo de producto desconocido: " + tipo);
+        }
+    }
+    
+    // Factura
+    
+    private static void escribirFactura(DataOutput out, Factura factura) throws IOException {
+        out.writeInt(factura.getNumeroFactura());
+        out.writeLong(factura.getFechaFactura().getTime());
+        out.writeBoolean(factura.getCliente() != null);
+        if (factura.getCliente() != null) {
+            escribirCliente(out, factura.getCliente());
+        }
+        
+        out.writeInt(factura.getCantidadLineas());
+        for (int i = 0; i < factura.getCantidadLineas(); i++) {
+            LineaDetalle linea = factura.getLinea(i);
+            out.writeInt(linea.getNumeroLinea());
+            out.writeInt(linea.getCantidadProducto());
+            escribirProducto(out, linea.getProducto());
+        }
+        
+        out.writeBoolean(factura.getPago() != null);
+        if (factura.getPago() != null) {
+            escribirPago(out, factura.getPago());
+        }
+        
+        out.writeLong(factura.getImpuestoCentimos());
+        out.writeDouble(factura.getDescuento());
+        out.writeLong(factura.getSubtotalCentimos());
+        out.writeLong(factura.getTotalCentimos());
+        out.writeBoolean(factura.isCerrada());
+        escribirTexto(out, factura.getMotivoAnulacion());
+        escribirFecha(out, factura.getFechaHoraPago());
+        escribirFecha(out, factura.getFechaHoraAnulacion());
+    }
+    
+    private static Factura leerFactura(DataInput in, int version) throws IOException {
+        int numeroFactura = in.readInt();
+        Date fechaFactura = new Date(in.readLong());
+        Cliente cliente = version == 1 || in.readBoolean() ? leerCliente(in) : null;
+        
+        int cantidadLineas = in.readInt();
+        List<LineaDetalle> lineas = new ArrayList<>(cantidadLineas);
+        for (int i = 0; i < cantidadLineas; i++) {
+            int numeroLinea = in.readInt();
+            int cantidad = in.readInt();
+            Producto producto = leerProducto(in, version);
+            lineas.add(new LineaDetalle(numeroLinea, producto, cantidad, false));
+        }
+        
+        Pago pago = in.readBoolean() ? leerPago(in, version) : null;
+        
+        long impuesto = leerMonto(in, version);
+        double descuento = in.readDouble();
+        long subtotal = leerMonto(in, version);
+        long total = leerMonto(in, version);
+        boolean cerrada = in.readBoolean();
+        String motivoAnulacion = leerTexto(in);
+        Date fechaHoraPago = leerFecha(in);
+        Date fechaHoraAnulacion = leerFecha(in);
+        
+        return new Factura(numeroFactura, fechaFactura, cliente, lineas, pago, impuesto, descuento,
+            subtotal, total, cerrada, motivoAnulacion, fechaHoraPago, fechaHoraAnulacion);
+    }
+    
+    // Pago
+    
+    private static void escribirPago(DataOutput out, Pago pago) throws IOException {
+        out.writeInt(pago.getNumeroPago());
+        out.writeLong(pago.getFechaHora().toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(pago.getFechaHora().getNano());
+        out.writeLong(pago.getMontoCentimos());
+        escribirEnum(out, pago.getMoneda());
+        escribirEnum(out, pago.getTipoPago());
+        out.writeDouble(pago.getTipoCambio());
+        out.writeLong(pago.getMontoEnColonesCentimos());
+        
+        // Solo los últimos cuatro dígitos: el número completo y el código de
+        // seguridad no se guardan en disco
+        TarjetaCredito tarjeta = pago.getTarjetaCredito();
+        out.writeBoolean(tarjeta != null);
+        if (tarjeta != null) {
+            out.writeUTF(tarjeta.getUltimosDigitos());
+            out.writeUTF(tarjeta.getNombreTitular());
+            out.writeInt(tarjeta.getFechaVencimiento().getYear());
+            out.writeByte(tarjeta.getFechaVencimiento().getMonthValue());
+            escribirEnum(out, tarjeta.getTipoTarjeta());
+        }
+    }
+    
+    private static Pago leerPago(DataInput in, int version) throws IOException {
+        int numeroPago = in.readInt();
+        LocalDateTime fechaHora = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+        long monto = leerMonto(in, version);
+        Moneda moneda = leerEnum(in, MONEDAS);
+        TipoPago tipoPago = leerEnum(in, TIPOS_PAGO);
+        double tipoCambio = in.readDouble();
+        long montoEnColones = leerMonto(in, version);
+        
+        TarjetaCredito tarjeta = null;
+        if (in.readBoolean()) {
+            String ultimosDigitos = in.readUTF();
+            String titular = in.readUTF();
+            YearMonth vencimiento = YearMonth.of(in.readInt(), in.readByte());
+            if (version == 1) {
+                // La versión 1 guardaba el número completo y el código de seguridad
+                in.readUTF();
+                if (ultimosDigitos.length() > 4) {
+                    ultimosDigitos = ultimosDigitos.substring(ultimosDigitos.length() - 4);
+                }
+            }
+            Tarjeta tipoTarjeta = leerEnum(in, TARJETAS);
+            tarjeta = new TarjetaCredito(ultimosDigitos, titular, vencimiento, tipoTarjeta);
+        }
+        
+        return new Pago(numeroPago, fechaHora, monto, moneda, tipoPago, tarjeta, tipoCambio, montoEnColones);
+    }
+    
+    // Tipos básicos
+    
+    /**
+     * Lee un monto en céntimos; la versión 1 lo guardaba como double.
+     */
+    private static long leerMonto(DataInput in, int version) throws IOException {
+        return version == 1 ? Dinero.deMonto(in.readDouble()) : in.readLong();
+    }
+    
+    private static void escribirTexto(DataOutput out, String texto) throws IOException {
+        out.writeBoolean(texto != null);
+        if (texto != null) {
+            out.writeUTF(texto);
+        }
+    }
+    
+    private static String leerTexto(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+    
+    private static void escribirFecha(DataOutput out, Date fecha) throws IOException {
+        out.writeBoolean(fecha != null);
+        if (fecha != null) {
+            out.writeLong(fecha.getTime());
+        }
+    }
+    
+    private static Date leerFecha(DataInput in) throws IOException {
+        return in.readBoolean() ? new Date(in.readLong()) : null;
+    }
+    
+    private static void escribirEnum(DataOutput out, Enum<?> valor) throws IOException {
+        out.writeByte(valor == null ? NULO : valor.ordinal());
+    }
+    
+    private static <E extends Enum<E>> E leerEnum(DataInput in, E[] valores) throws IOException {
+        byte ordinal = in.readByte();
+        if (ordinal == NULO) {
+            return null;
+        }
+        if (ordinal < 0 || ordinal >= valores.length) {
+            throw new StreamCorruptedException("Valor de enumeración inválido: " + ordinal);
+        }
+        return valores[ordinal];
+    }
+}
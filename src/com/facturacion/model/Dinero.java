@@ -0,0 +1,162 @@
+package com.facturacion.model;
+
+/**
+ * Operaciones sobre montos de dinero representados como céntimos enteros
+ * ({@code long}), sin crear objetos. Las sumas y restas en céntimos son
+ * exactas; los productos por porcentajes o tipos de cambio se redondean al
+ * céntimo más cercano (las mitades hacia arriba).
+ *
+ * La moneda de un monto la indica el campo {@link Moneda} que lo acompaña
+ * (por ejemplo, en {@link Pago}); los montos del resto del modelo están en colones.
+ */
+public final class Dinero {
+
+    /** Céntimos en una unidad de moneda. */
+    public static final long CENTIMOS_POR_UNIDAD = 100;
+
+    private static final int MAXIMO_CARACTERES = 32;
+    /** 2^63: el primer valor que ya no cabe en un long. */
+    private static final double LIMITE_LONG = 0x1p63;
+
+    private Dinero() {
+    }
+
+    /**
+     * Convierte un monto a céntimos, redondeando al céntimo más cercano.
+     *
+     * @param monto Monto en unidades de moneda
+     * @return Monto en céntimos
+     * @throws ArithmeticException Si el monto no es finito o excede el rango de un long
+     */
+    public static long deMonto(double monto) {
+        return redondear(monto * CENTIMOS_POR_UNIDAD);
+    }
+
+    /**
+     * Convierte céntimos a un monto en unidades de moneda.
+     *
+     * @param centimos Monto en céntimos
+     * @return Monto en unidades de moneda
+     */
+    public static double aMonto(long centimos) {
+        return (double) centimos / CENTIMOS_POR_UNIDAD;
+    }
+
+    /**
+     * Multiplica un monto por una cantidad de unidades.
+     *
+     * @throws ArithmeticException Si el resultado excede el rango de un long
+     */
+    public static long multiplicar(long centimos, int cantidad) {
+        return Math.multiplyExact(centimos, (long) cantidad);
+    }
+
+    /**
+     * Calcula un porcentaje de un monto, redondeado al céntimo.
+     *
+     * @param centimos Monto en céntimos
+     * @param porcentaje Porcentaje a aplicar (por ejemplo, 13.0 para el 13%)
+     * @return Porcentaje del monto, en céntimos
+     * @throws ArithmeticException Si el resultado no es finito o excede el rango de un long
+     */
+    public static long porcentaje(long centimos, double porcentaje) {
+        return redondear(centimos * porcentaje / 100.0);
+    }
+
+    /**
+     * Convierte un monto aplicando un tipo de cambio, redondeado al céntimo.
+     *
+     * @param centimos Monto en céntimos de la moneda de origen
+     * @param tipoCambio Unidades de la moneda de destino por unidad de la de origen
+     * @return Monto en céntimos de la moneda de destino
+     * @throws ArithmeticException Si el resultado no es finito o excede el rango de un long
+     */
+    public static long convertir(long centimos, double tipoCambio) {
+        return redondear(centimos * tipoCambio);
+    }
+
+    /**
+     * Convierte un monto dividiéndolo entre un tipo de cambio (la conversión
+     * inversa de {@link #convertir(long, double)}), redondeado al céntimo.
+     *
+     * @param centimos Monto en céntimos de la moneda de origen
+     * @param tipoCambio Unidades de la moneda de origen por unidad de la de destino
+     * @return Monto en céntimos de la moneda de destino
+     * @throws ArithmeticException Si el resultado no es finito o excede el rango de un long
+     */
+    public static long convertirInverso(long centimos, double tipoCambio) {
+        return redondear(centimos / tipoCambio);
+    }
+
+    /**
+     * Redondea al entero más cercano (las mitades hacia arriba). A diferencia
+     * de {@link Math#round(double)}, no satura en silencio en los extremos
+     * del rango de un long ni convierte NaN en cero.
+     */
+    private static long redondear(double valor) {
+        if (!(valor >= -LIMITE_LONG && valor < LIMITE_LONG)) {
+            throw new ArithmeticException("El monto excede el rango de un long: " + valor);
+        }
+        return Math.round(valor);
+    }
+
+    /**
+     * Da formato a un monto con dos decimales y punto decimal (por ejemplo, 1234.50).
+     */
+    public static String formatear(long centimos) {
+        return formatear(centimos, false);
+    }
+
+    /**
+     * Da formato a un monto con dos decimales y, si se indica, separador de
+     * miles (por ejemplo, 1,234.50).
+     */
+    public static String formatear(long centimos, boolean miles) {
+        char[] caracteres = new char[MAXIMO_CARACTERES];
+        int inicio = escribir(centimos, miles, caracteres);
+        return new String(caracteres, inicio, MAXIMO_CARACTERES - inicio);
+    }
+
+    /**
+     * Da formato a un monto precedido del símbolo de su moneda (por ejemplo, ₡1,234.50).
+     */
+    public static String formatear(long centimos, Moneda moneda) {
+        return moneda.getSimbolo() + formatear(centimos, true);
+    }
+
+    /**
+     * Escribe el monto con dos decimales al final del arreglo, de derecha a
+     * izquierda, para reutilizar el mismo arreglo en muchos montos.
+     *
+     * @param centimos Monto en céntimos
+     * @param miles true para agregar separadores de miles
+     * @param caracteres Arreglo de al menos 32 caracteres
+     * @return Posición del primer carácter escrito; el monto ocupa desde ahí
+     *         hasta el final del arreglo
+     */
+    public static int escribir(long centimos, boolean miles, char[] caracteres) {
+        boolean negativo = centimos < 0;
+        // Trabajar con el valor negativo evita el desborde de Long.MIN_VALUE
+        long resto = negativo ? centimos : -centimos;
+        int i = caracteres.length;
+        caracteres[--i] = (char) ('0' - resto % 10);
+        resto /= 10;
+        caracteres[--i] = (char) ('0' - resto % 10);
+        resto /= 10;
+        caracteres[--i] = '.';
+        int enGrupo = 0;
+        do {
+            if (miles && enGrupo == 3) {
+                caracteres[--i] = ',';
+                enGrupo = 0;
+            }
+            caracteres[--i] = (char) ('0' - resto % 10);
+            resto /= 10;
+            enGrupo++;
+        } while (resto != 0);
+        if (negativo) {
+            caracteres[--i] = '-';
+        }
+        return i;
+    }
+}
@@ -254,85 +254,6 @@ public class Empresa {
             .collect(Collectors.toList());
     }
     
-    /**
-     * Genera un informe de ventas del día.
-     * 
-     * @return String con el informe de ventas
-     */
-    public String generarInformeVentasDelDia() {
-        List<Factura> facturasHoy = obtenerFacturasDelDia();
-        
-        if (facturasHoy.isEmpty()) {
-            return "No hay ventas registradas para el día de hoy.";
-        }
-        
-        double totalVentasColones = 0;
-        double totalVentasDolares = 0;
-        double totalTarjetas = 0;
-        
-        for (Factura factura : facturasHoy) {
-            if (factura.getPago() != null) {
-                if (factura.getPago().esEfectivo()) {
-                    if (factura.getPago().esEnDolares()) {
-                        totalVentasDolares += factura.getTotal();
-                    } else {
-                        totalVentasColones += factura.getTotal();
-                    }
-                } else {
-                    totalTarjetas += factura.getTotal();
-                }
-            }
-        }
-        
-        StringBuilder sb = new StringBuilder();
-        sb.append("INFORME DE VENTAS - ").append(java.time.LocalDate.now()).append("\n");
-        sb.append("========================================\n");
-        sb.append(String.format("Total de facturas: %d%n", facturasHoy.size()));
-        sb.append(String.format("Ventas en efectivo (colones): ₡%,.2f%n", totalVentasColones));
-        sb.append(String.format("Ventas en efectivo (dólares): $%,.2f%n", totalVentasDolares));
-        sb.append(String.format("Ventas con tarjeta: ₡%,.2f%n", totalTarjetas));
-        sb.append("----------------------------------------\n");
-        sb.append(String.format("TOTAL GENERAL: ₡%,.2f%n", 
-            totalVentasColones + totalTarjetas + 
-            (totalVentasDolares * Moneda.DOLARES.getTipoCambio())));
-        
-        return sb.toString();
-    }
-    
-    /**
-     * Genera un informe de puntos de los clientes.
-     * 
-     * @return String con el informe de puntos
-     */
-    public String generarInformePuntosClientes() {
-        if (clientes.isEmpty()) {
-            return "No hay clientes registrados.";
-        }
-        
-        // Filtrar clientes con puntos y ordenar por puntos (de mayor a menor)
-        List<Cliente> clientesConPuntos = clientes.stream()
-            .filter(c -> c.getPuntos() > 0)
-            .sorted((c1, c2) -> Integer.compare(c2.getPuntos(), c1.getPuntos()))
-            .collect(Collectors.toList());
-        
-        if (clientesConPuntos.isEmpty()) {
-            return "Ningún cliente ha acumulado puntos aún.";
-        }
-        
-        StringBuilder sb = new StringBuilder();
-        sb.append("INFORME DE PUNTOS DE CLIENTES\n");
-        sb.append("========================================\n");
-        
-        for (Cliente cliente : clientesConPuntos) {
-            sb.append(String.format("%s (Cédula: %d): %,d puntos%n", 
-                cliente.getNombre(), 
-                cliente.getCedula(),
-                cliente.getPuntos()));
-        }
-        
-        return sb.toString();
-    }
-    
     @Override
     public String toString() {
         return String.format("%s (Cédula Jurídica: %d)\nClientes: %d, Productos: %d, Facturas: %d",
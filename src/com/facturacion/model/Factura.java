@@ -1,28 +1,49 @@
 package com.facturacion.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.text.SimpleDateFormat;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * Clase que representa una factura en el sistema.
  * Contiene la información del cliente, líneas de detalle, pagos y cálculos financieros.
+ *
+ * Los montos se guardan en céntimos enteros (ver {@link Dinero}). El subtotal
+ * y el impuesto se mantienen como sumas acumuladas: agregar o eliminar una
+ * línea, o cambiar su cantidad, los ajusta con la diferencia de esa línea, sin
+ * recorrer las demás. Como las sumas en céntimos son exactas, con
+ * {@link #setVerificarTotales(boolean)} cada ajuste se compara con un recálculo
+ * completo sin margen de tolerancia.
  */
 public class Factura {
-    private static int contadorFactura = 1;
+    private static GeneradorNumeros generadorNumeros = new AtomicInteger(1)::getAndIncrement;
+    private static volatile boolean verificarTotales;
     
     private final int numeroFactura;
     private final Date fechaFactura;
     private Cliente cliente;
     private final List<LineaDetalle> lineasDetalle;
+    /** Vista de solo lectura de las líneas, compartida por todas las llamadas. */
+    private final List<LineaDetalle> vistaLineas;
+    /** Línea de cada producto, por código, para ubicarla sin recorrer la lista. */
+    private final Map<Integer, LineaDetalle> lineaPorCodigo;
     private Pago pago;
-    private double impuesto;
+    /** Impuesto en céntimos. */
+    private long impuesto;
+    /** Porcentaje de descuento, como fracción (0.10 para el 10%). */
     private double descuento;
-    private double subtotal;
-    private double total;
+    /** Subtotal en céntimos. */
+    private long subtotal;
+    /** Total en céntimos. */
+    private long total;
     private boolean cerrada;
     private String motivoAnulacion;
     private Date fechaHoraPago;
@@ -38,14 +59,16 @@ public class Factura {
             throw new IllegalArgumentException("La factura debe estar asociada a un cliente");
         }
         
-        this.numeroFactura = contadorFactura++;
+        this.numeroFactura = generadorNumeros.siguiente();
         this.fechaFactura = new Date();
         this.cliente = cliente;
         this.lineasDetalle = new ArrayList<>();
-        this.impuesto = 0.0;
+        this.vistaLineas = Collections.unmodifiableList(lineasDetalle);
+        this.lineaPorCodigo = new HashMap<>();
+        this.impuesto = 0;
         this.descuento = 0.0;
-        this.subtotal = 0.0;
-        this.total = 0.0;
+        this.subtotal = 0;
+        this.total = 0;
         
         // Si el cliente es ocasional y ciudadano de oro, aplicar descuento
         if (cliente.getTipo() == TipoCliente.OCASIONALES && cliente.isCiudadanoOro()) {
@@ -53,14 +76,42 @@ public class Factura {
         }
     }
     
+    /**
+     * Constructor para restaurar una factura persistida con su número, fecha y
+     * estado originales. Los montos se reciben en céntimos.
+     */
+    Factura(int numeroFactura, Date fechaFactura, Cliente cliente, List<LineaDetalle> lineasDetalle,
+            Pago pago, long impuesto, double descuento, long subtotal, long total,
+            boolean cerrada, String motivoAnulacion, Date fechaHoraPago, Date fechaHoraAnulacion) {
+        this.numeroFactura = numeroFactura;
+        this.fechaFactura = fechaFactura;
+        this.cliente = cliente;
+        this.lineasDetalle = new ArrayList<>(lineasDetalle);
+        this.vistaLineas = Collections.unmodifiableList(this.lineasDetalle);
+        this.lineaPorCodigo = new HashMap<>();
+        for (LineaDetalle linea : this.lineasDetalle) {
+            linea.asignarFactura(this);
+            lineaPorCodigo.putIfAbsent(linea.getProducto().getCodigo(), linea);
+        }
+        this.pago = pago;
+        this.impuesto = impuesto;
+        this.descuento = descuento;
+        this.subtotal = subtotal;
+        this.total = total;
+        this.cerrada = cerrada;
+        this.motivoAnulacion = motivoAnulacion;
+        this.fechaHoraPago = fechaHoraPago;
+        this.fechaHoraAnulacion = fechaHoraAnulacion;
+    }
+    
     /**
      * Agrega un producto a la factura con la cantidad especificada.
      * 
      * @param producto Producto a agregar
      * @param cantidad Cantidad del producto
      * @return true si se pudo agregar el producto, false en caso contrario
+     * @throws IllegalArgumentException Si no hay suficiente inventario para una línea nueva
      */
-    /**
     public boolean agregarProducto(Producto producto, int cantidad) {
         if (cerrada) {
             throw new IllegalStateException("No se pueden agregar productos a una factura cerrada");
@@ -71,21 +122,18 @@ public class Factura {
         }
         
         // Verificar si el producto ya está en la factura
-        for (LineaDetalle linea : lineasDetalle) {
-            if (linea.getProducto().equals(producto)) {
-                // Actualizar cantidad en la línea existente
-                if (linea.setCantidad(linea.getCantidad() + cantidad)) {
-                    calcularTotal();
-                    return true;
-                }
-                return false;
-            }
+        LineaDetalle existente = lineaPorCodigo.get(producto.getCodigo());
+        if (existente != null && existente.getProducto().equals(producto)) {
+            // Actualizar cantidad en la línea existente; la línea ajusta los totales
+            return existente.setCantidadProducto(existente.getCantidadProducto() + cantidad);
         }
         
         // Crear nueva línea de detalle
         LineaDetalle nuevaLinea = new LineaDetalle(lineasDetalle.size() + 1, producto, cantidad);
+        nuevaLinea.asignarFactura(this);
         lineasDetalle.add(nuevaLinea);
-        calcularTotal();
+        lineaPorCodigo.putIfAbsent(producto.getCodigo(), nuevaLinea);
+        ajustarTotales(nuevaLinea.getSubtotalCentimos(), nuevaLinea.getImpuestoCentimos());
         return true;
     }
     
@@ -109,10 +157,21 @@ public class Factura {
         
         // No necesitamos actualizar los números de línea ya que LineaDetalle es inmutable
         // en cuanto a su número de línea
-        lineasDetalle.remove(indice);
+        LineaDetalle eliminada = lineasDetalle.remove(indice);
+        eliminada.asignarFactura(null);
+        int codigo = eliminada.getProducto().getCodigo();
+        if (lineaPorCodigo.remove(codigo, eliminada)) {
+            // Si había otra línea del mismo producto (factura restaurada), pasa a ser la indexada
+            for (LineaDetalle linea : lineasDetalle) {
+                if (linea.getProducto().getCodigo() == codigo) {
+                    lineaPorCodigo.put(codigo, linea);
+                    break;
+                }
+            }
+        }
         
-        // Recalcular totales
-        calcularTotal();
+        // Restar la línea de los totales
+        ajustarTotales(-eliminada.getSubtotalCentimos(), -eliminada.getImpuestoCentimos());
         return true;
     }
     
@@ -132,8 +191,7 @@ public class Factura {
         }
         
         // Verificar que el monto del pago cubra el total
-        double montoPago = pago.getMontoEnColones();
-        if (montoPago < total) {
+        if (pago.getMontoEnColonesCentimos() < total) {
             return false; // Pago insuficiente
         }
         
@@ -145,39 +203,70 @@ public class Factura {
     }
     
     /**
-     * Actualiza los totales de la factura (subtotal, impuesto, descuento y total).
+     * Ajusta las sumas acumuladas con la diferencia de una línea, en céntimos.
+     * Lo llaman la propia factura al agregar o eliminar líneas y
+     * {@link LineaDetalle} al cambiar su cantidad.
      */
-    private void actualizarTotales() {
-        // Recalcular todos los totales
-        calcularTotal();
+    void ajustarTotales(long diferenciaSubtotal, long diferenciaImpuesto) {
+        this.subtotal += diferenciaSubtotal;
+        this.impuesto += diferenciaImpuesto;
+        actualizarTotal();
+        if (verificarTotales) {
+            verificarTotales();
+        }
     }
     
     /**
-     * Calcula el total de la factura basado en las líneas de detalle.
-     * @return El total calculado de la factura
+     * Calcula el total a partir del subtotal y el impuesto acumulados.
      */
-    public double calcularTotal() {
-        // Calcular subtotal e impuestos
-        this.subtotal = lineasDetalle.stream()
-            .mapToDouble(LineaDetalle::getSubtotal)
-            .sum();
-            
-        this.impuesto = lineasDetalle.stream()
-            .mapToDouble(LineaDetalle::getImpuesto)
-            .sum();
-        
+    private void actualizarTotal() {
         // Aplicar descuento si el cliente es Ciudadano de Oro
-        double montoDescuento = 0;
         if (cliente != null && cliente.isCiudadanoOro()) {
-            montoDescuento = this.subtotal * 0.10; // 10% de descuento
-            this.descuento = 0.10;
+            this.descuento = 0.10; // 10% de descuento
         } else {
             this.descuento = 0.0;
         }
         
-        // Calcular total
-        this.total = (this.subtotal + this.impuesto) - montoDescuento;
-        return this.total;
+        this.total = (this.subtotal + this.impuesto) - montoDescuento();
+    }
+    
+    /**
+     * Monto del descuento en céntimos: el porcentaje de descuento sobre el subtotal.
+     */
+    private long montoDescuento() {
+        return Dinero.porcentaje(subtotal, descuento * 100);
+    }
+    
+    /**
+     * Calcula el total de la factura a partir de los totales acumulados de las
+     * líneas de detalle.
+     * @return El total calculado de la factura
+     */
+    public double calcularTotal() {
+        actualizarTotal();
+        return Dinero.aMonto(this.total);
+    }
+    
+    /**
+     * Compara el subtotal y el impuesto acumulados con los que resultan de
+     * recorrer todas las líneas de detalle.
+     * 
+     * @throws IllegalStateException Si los totales acumulados no coinciden con el recálculo
+     */
+    public void verificarTotales() {
+        long subtotalLineas = 0;
+        long impuestoLineas = 0;
+        for (LineaDetalle linea : lineasDetalle) {
+            subtotalLineas += linea.getSubtotalCentimos();
+            impuestoLineas += linea.getImpuestoCentimos();
+        }
+        
+        if (subtotal != subtotalLineas || impuesto != impuestoLineas) {
+            throw new IllegalStateException(String.format(
+                "Totales inconsistentes en la factura #%d: subtotal %s (líneas %s), impuesto %s (líneas %s)",
+                numeroFactura, Dinero.formatear(subtotal), Dinero.formatear(subtotalLineas),
+                Dinero.formatear(impuesto), Dinero.formatear(impuestoLineas)));
+        }
     }
     
     /**
@@ -208,7 +297,7 @@ public class Factura {
         if (pago == null || !pago.esEfectivo()) {
             return 0.0;
         }
-        return pago.getMontoEnColones() - total;
+        return Dinero.aMonto(pago.getMontoEnColonesCentimos() - total);
     }
     
     /**
@@ -217,18 +306,32 @@ public class Factura {
      * @return Total de puntos (1 punto por cada 1000 colones)
      */
     public int getTotalPuntos() {
-        return (int)(total / 1000);
+        return (int)(total / (1000 * Dinero.CENTIMOS_POR_UNIDAD));
+    }
+    
+    /**
+     * Establece el generador de números de factura. Por defecto se usa un contador en
+     * memoria que empieza en 1 en cada ejecución.
+     * 
+     * @param generador Generador a utilizar
+     */
+    public static void setGeneradorNumeros(GeneradorNumeros generador) {
+        if (generador == null) {
+            throw new IllegalArgumentException("El generador de números no puede ser nulo");
+        }
+        generadorNumeros = generador;
     }
     
     /**
-     * Obtiene el total de la factura en letras.
+     * Activa o desactiva la verificación de los totales acumulados contra un
+     * recálculo completo en cada cambio de las líneas. Es costosa (vuelve a
+     * hacer cuadrático el armado de una factura), por lo que está pensada para
+     * pruebas y diagnóstico; por defecto está desactivada.
      * 
-     * @return Total en letras
+     * @param verificar true para verificar los totales en cada cambio
      */
-    public String getTotalEnLetras() {
-        // Implementar conversión de número a letras
-        // Por ahora devolvemos el número como texto
-        return String.format("%.2f", total);
+    public static void setVerificarTotales(boolean verificar) {
+        verificarTotales = verificar;
     }
     
     // Getters
@@ -249,8 +352,77 @@ public class Factura {
         return cliente;
     }
 
+    /**
+     * Obtiene las líneas de detalle como una vista de solo lectura, sin copiarlas.
+     * La vista refleja los cambios posteriores de la factura; las líneas sólo se
+     * modifican con los métodos de la factura. Para conservar el estado actual,
+     * copiar la lista.
+     * 
+     * @return Vista no modificable de las líneas de detalle
+     */
     public List<LineaDetalle> getLineasDetalle() {
-        return new ArrayList<>(lineasDetalle); // Retorna una copia para evitar modificaciones externas
+        return vistaLineas;
+    }
+    
+    /**
+     * @return Cantidad de líneas de detalle de la factura
+     */
+    public int getCantidadLineas() {
+        return lineasDetalle.size();
+    }
+    
+    /**
+     * Obtiene una línea de detalle por su posición.
+     * 
+     * @param indice Posición de la línea (0 para la primera)
+     * @return La línea de detalle
+     * @throws IndexOutOfBoundsException Si la posición no existe
+     */
+    public LineaDetalle getLinea(int indice) {
+        return lineasDetalle.get(indice);
+    }
+    
+    /**
+     * Busca la línea de detalle de un producto.
+     * 
+     * @param codigoProducto Código del producto
+     * @return Optional con la línea si el producto está en la factura, vacío en caso contrario
+     */
+    public Optional<LineaDetalle> buscarLinea(int codigoProducto) {
+        return Optional.ofNullable(lineaPorCodigo.get(codigoProducto));
+    }
+    
+    /**
+     * Verifica si la factura tiene un producto.
+     * 
+     * @param codigoProducto Código del producto
+     * @return true si alguna línea tiene el producto
+     */
+    public boolean contieneProducto(int codigoProducto) {
+        return lineaPorCodigo.containsKey(codigoProducto);
+    }
+    
+    /**
+     * Verifica si algún producto aparece en más de una línea. Con
+     * {@link #agregarProducto(Producto, int)} las cantidades de un mismo
+     * producto se suman en una línea, pero una factura restaurada podría
+     * traer líneas repetidas.
+     * 
+     * @return true si hay productos repetidos
+     */
+    public boolean tieneProductosDuplicados() {
+        return lineaPorCodigo.size() < lineasDetalle.size();
+    }
+    
+    /**
+     * Recorre las líneas de detalle en orden, sin copiarlas.
+     * 
+     * @param accion Acción a ejecutar con cada línea
+     */
+    public void forEachLinea(Consumer<? super LineaDetalle> accion) {
+        for (int i = 0; i < lineasDetalle.size(); i++) {
+            accion.accept(lineasDetalle.get(i));
+        }
     }
 
     public Pago getPago() {
@@ -272,11 +444,11 @@ public class Factura {
     }
 
     public double getSubtotal() {
-        return subtotal;
+        return Dinero.aMonto(subtotal);
     }
 
     public double getImpuesto() {
-        return impuesto;
+        return Dinero.aMonto(impuesto);
     }
 
     public double getDescuento() {
@@ -284,9 +456,28 @@ public class Factura {
     }
 
     public double getTotal() {
+        return Dinero.aMonto(total);
+    }
+    
+    public long getSubtotalCentimos() {
+        return subtotal;
+    }
+    
+    public long getImpuestoCentimos() {
+        return impuesto;
+    }
+    
+    public long getTotalCentimos() {
         return total;
     }
     
+    /**
+     * @return Monto del descuento en céntimos
+     */
+    public long getDescuentoCentimos() {
+        return montoDescuento();
+    }
+    
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -307,9 +498,7 @@ public class Factura {
      * @return El total de impuestos
      */
     public double calcularTotalImpuestos() {
-        return lineasDetalle.stream()
-            .mapToDouble(LineaDetalle::getImpuesto)
-            .sum();
+        return Dinero.aMonto(impuesto);
     }
     
     /**
@@ -318,11 +507,24 @@ public class Factura {
      */
     public double calcularTotalDescuentos() {
         if (cliente != null && cliente.isCiudadanoOro()) {
-            return subtotal * 0.10; // 10% de descuento para clientes Ciudadano de Oro
+            // 10% de descuento para clientes Ciudadano de Oro
+            return Dinero.aMonto(Dinero.porcentaje(subtotal, 10.0));
         }
         return 0.0;
     }
     
+    public String getMotivoAnulacion() {
+        return motivoAnulacion;
+    }
+    
+    public Date getFechaHoraPago() {
+        return fechaHoraPago == null ? null : new Date(fechaHoraPago.getTime());
+    }
+    
+    public Date getFechaHoraAnulacion() {
+        return fechaHoraAnulacion == null ? null : new Date(fechaHoraAnulacion.getTime());
+    }
+    
     /**
      * Verifica si la factura está anulada.
      * @return true si la factura está anulada, false en caso contrario
@@ -346,61 +548,27 @@ public class Factura {
         return true;
     }
     
+    /**
+     * Descripción breve de la factura: número, cliente, líneas, total y
+     * estado. El recibo completo, en texto o ESC/POS, lo genera el
+     * renderizador de recibos de com.facturacion.util.
+     */
     @Override
     public String toString() {
-        SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
-        StringBuilder sb = new StringBuilder();
-        
-        // Encabezado
-        sb.append("========================================\n");
-        sb.append("FACTURA #").append(String.format("%06d", numeroFactura)).append("\n");
-        sb.append("Fecha: ").append(sdf.format(fechaFactura)).append("\n");
-        sb.append("Cliente: ").append(cliente.getNombre()).append(" (")
-          .append(cliente.getTipo()).append(")\n");
-        sb.append("----------------------------------------\n");
-        
-        // Detalle
-        sb.append(String.format("%-4s %-30s %8s %10s %10s\n", 
-            "#", "DESCRIPCIÓN", "CANT", "PRECIO", "TOTAL"));
-        
-        for (LineaDetalle linea : lineasDetalle) {
-            sb.append(linea.toString()).append("\n");
-        }
-        
-        // Totales
-        sb.append("----------------------------------------\n");
-        sb.append(String.format("SUBTOTAL: %35.2f\n", subtotal));
-        sb.append(String.format("IMPUESTO: %35.2f\n", impuesto));
-        
-        if (descuento > 0) {
-            sb.append(String.format("DESCUENTO (Ciudadano de Oro): %19.2f\n", 
-                subtotal * descuento));
+        StringBuilder sb = new StringBuilder(96);
+        sb.append("Factura #").append(numeroFactura);
+        if (cliente != null) {
+            sb.append(" - ").append(cliente.getNombre());
         }
-        
-        sb.append("----------------------------------------\n");
-        sb.append(String.format("TOTAL: %40.2f\n", total));
-        
-        // Estado de pago
-        sb.append("----------------------------------------\n");
-        if (isPagada()) {
-            sb.append("ESTADO: PAGADA\n");
-            sb.append("MÉTODO: ").append(pago.getTipoPago()).append("\n");
-            
-            if (pago.getTipoPago() == TipoPago.CONTADO) {
-                double montoPago = pago.getMonto();
-                if (pago.getMoneda() == Moneda.DOLARES) {
-                    montoPago *= pago.getTipoCambio();
-                }
-                double vuelto = montoPago - total;
-                if (vuelto > 0) {
-                    sb.append(String.format("VUELTO: %36.2f\n", vuelto));
-                }
-            }
+        sb.append(" - ").append(lineasDetalle.size()).append(lineasDetalle.size() == 1 ? " línea" : " líneas");
+        sb.append(" - Total: ").append(Dinero.formatear(total, Moneda.COLONES));
+        if (isAnulada()) {
+            sb.append(" (ANULADA)");
+        } else if (isPagada()) {
+            sb.append(" (PAGADA)");
         } else {
-            sb.append("ESTADO: PENDIENTE\n");
+            sb.append(" (PENDIENTE)");
         }
-        
-        sb.append("========================================\n");
         return sb.toString();
     }
 }
@@ -0,0 +1,16 @@
+package com.facturacion.model;
+
+/**
+ * Interfaz para obtener números consecutivos únicos, como los números de
+ * factura, los códigos de producto y los números de pago.
+ */
+@FunctionalInterface
+public interface GeneradorNumeros {
+    
+    /**
+     * Obtiene el siguiente número disponible.
+     * 
+     * @return Número único dentro de la secuencia
+     */
+    int siguiente();
+}
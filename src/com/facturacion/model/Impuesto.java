@@ -26,6 +26,15 @@ public enum Impuesto {
         return (monto * porcentaje) / 100.0;
     }
     
+    /**
+     * Calcula el impuesto sobre un monto en céntimos, redondeado al céntimo.
+     * @param centimos Monto en céntimos
+     * @return Impuesto en céntimos
+     */
+    public long calcularImpuestoCentimos(long centimos) {
+        return Dinero.porcentaje(centimos, porcentaje);
+    }
+    
     public String getDescripcion() {
         return descripcion;
     }
@@ -10,8 +10,12 @@ public class LineaDetalle {
     private final int numeroLinea;
     private int cantidadProducto;
     private final Producto producto;
-    private double subtotal;
-    private double impuesto;
+    /** Subtotal en céntimos. */
+    private long subtotal;
+    /** Impuesto en céntimos. */
+    private long impuesto;
+    /** Factura a la que pertenece la línea, para ajustar sus totales al cambiar la cantidad. */
+    private Factura factura;
 
     /**
      * Constructor para crear una línea de detalle.
@@ -21,13 +25,21 @@ public class LineaDetalle {
      * @param cantidad Cantidad del producto
      */
     public LineaDetalle(int numeroLinea, Producto producto, int cantidadProducto) {
+        this(numeroLinea, producto, cantidadProducto, true);
+    }
+    
+    /**
+     * Constructor que permite omitir la verificación de inventario, usado al
+     * restaurar líneas de facturas ya emitidas.
+     */
+    LineaDetalle(int numeroLinea, Producto producto, int cantidadProducto, boolean verificarInventario) {
         if (cantidadProducto <= 0) {
             throw new IllegalArgumentException("La cantidad debe ser mayor a cero");
         }
         if (producto == null) {
             throw new IllegalArgumentException("El producto no puede ser nulo");
         }
-        if (cantidadProducto > producto.getCantidadProducto()) {
+        if (verificarInventario && cantidadProducto > producto.getCantidadProducto()) {
             throw new IllegalArgumentException("No hay suficiente inventario para este producto");
         }
         
@@ -43,8 +55,8 @@ public class LineaDetalle {
      * Calcula los valores de subtotal, impuesto y total de la línea.
      */
     private void calcularValores() {
-        this.subtotal = producto.getPrecio() * cantidadProducto;
-        this.impuesto = producto.getImpuesto().calcularImpuesto(subtotal);
+        this.subtotal = Dinero.multiplicar(producto.getPrecioCentimos(), cantidadProducto);
+        this.impuesto = producto.getImpuesto().calcularImpuestoCentimos(subtotal);
     }
 
     // Getters
@@ -60,8 +72,15 @@ public class LineaDetalle {
      * Actualiza la cantidad del producto en la línea.
      * @param nuevaCantidad Nueva cantidad
      * @return true si la actualización fue exitosa, false si no hay suficiente inventario
+     * @throws IllegalStateException Si la línea pertenece a una factura cerrada o anulada
      */
     public boolean setCantidadProducto(int nuevaCantidad) {
+        if (factura != null && factura.isCerrada()) {
+            throw new IllegalStateException("No se pueden modificar productos de una factura cerrada");
+        }
+        if (factura != null && factura.isAnulada()) {
+            throw new IllegalStateException("No se pueden modificar productos de una factura anulada");
+        }
         if (nuevaCantidad <= 0) {
             return false;
         }
@@ -72,24 +91,53 @@ public class LineaDetalle {
             return false; // No hay suficiente inventario
         }
         
+        long subtotalAnterior = this.subtotal;
+        long impuestoAnterior = this.impuesto;
         this.cantidadProducto = nuevaCantidad;
         calcularValores();
+        if (factura != null) {
+            factura.ajustarTotales(subtotal - subtotalAnterior, impuesto - impuestoAnterior);
+        }
         return true;
     }
+    
+    /**
+     * Asocia la línea a una factura (o la desasocia con null).
+     * 
+     * @throws IllegalArgumentException Si la línea ya pertenece a otra factura
+     */
+    void asignarFactura(Factura factura) {
+        if (factura != null && this.factura != null && this.factura != factura) {
+            throw new IllegalArgumentException("La línea de detalle ya pertenece a otra factura");
+        }
+        this.factura = factura;
+    }
 
     public Producto getProducto() {
         return producto;
     }
 
     public double getSubtotal() {
-        return subtotal;
+        return Dinero.aMonto(subtotal);
     }
 
     public double getImpuesto() {
-        return impuesto;
+        return Dinero.aMonto(impuesto);
     }
 
     public double getTotalLinea() {
+        return Dinero.aMonto(subtotal + impuesto);
+    }
+    
+    public long getSubtotalCentimos() {
+        return subtotal;
+    }
+
+    public long getImpuestoCentimos() {
+        return impuesto;
+    }
+
+    public long getTotalLineaCentimos() {
         return subtotal + impuesto;
     }
     
@@ -126,15 +174,16 @@ public class LineaDetalle {
         return Objects.hash(numeroLinea, producto);
     }
 
+    /**
+     * Descripción breve de la línea, sin alinear en columnas. El renglón del
+     * recibo lo genera el renderizador de recibos de com.facturacion.util.
+     */
     @Override
     public String toString() {
-        return String.format("%d. %-40s %4d x %8.2f %8.2f %8.2f %8.2f",
-            numeroLinea,
-            producto.getNombre().substring(0, Math.min(40, producto.getNombre().length())),
-            cantidadProducto,
-            producto.getPrecio(),
-            subtotal,
-            impuesto,
-            getTotalLinea());
+        return new StringBuilder(64)
+            .append(numeroLinea).append(". ").append(producto.getNombre())
+            .append(" - ").append(cantidadProducto).append(" x ").append(Dinero.formatear(producto.getPrecioCentimos()))
+            .append(" = ").append(Dinero.formatear(getTotalLineaCentimos()))
+            .toString();
     }
 }
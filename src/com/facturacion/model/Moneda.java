@@ -54,6 +54,25 @@ public enum Moneda {
         return monto / tipoCambio;
     }
     
+    /**
+     * Convierte un monto en céntimos de esta moneda a céntimos de colón.
+     * @param centimos Monto en céntimos
+     * @return Monto equivalente en céntimos de colón
+     */
+    public long aColonesCentimos(long centimos) {
+        return Dinero.convertir(centimos, tipoCambio);
+    }
+    
+    /**
+     * Convierte un monto en céntimos de colón a céntimos de esta moneda.
+     * @param centimos Monto en céntimos de colón
+     * @return Monto equivalente en céntimos de esta moneda
+     */
+    public long deColonesCentimos(long centimos) {
+        if (tipoCambio == 0) return 0;
+        return Dinero.convertirInverso(centimos, tipoCambio);
+    }
+    
     @Override
     public String toString() {
         return String.format("%s %s", nombre, simbolo);
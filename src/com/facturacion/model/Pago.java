@@ -3,22 +3,26 @@ package com.facturacion.model;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Clase que representa un pago en el sistema.
  * Maneja diferentes tipos de pago (efectivo, tarjeta) y monedas (colones, dólares).
  */
 public class Pago {
-    private static int contadorPago = 1;
+    private static GeneradorNumeros generadorNumeros = new AtomicInteger(1)::getAndIncrement;
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
     
     private final int numeroPago;
     private final LocalDateTime fechaHora;
-    private final double monto;
+    /** Monto en céntimos de la moneda del pago. */
+    private final long monto;
     private final Moneda moneda;
     private final TipoPago tipoPago;
     private TarjetaCredito tarjetaCredito;
     private double tipoCambio;
-    private double montoEnColones;
+    /** Monto en céntimos de colón. */
+    private long montoEnColones;
 
     /**
      * Constructor para pagos en efectivo.
@@ -35,13 +39,14 @@ public class Pago {
             throw new IllegalArgumentException("La moneda no puede ser nula");
         }
         
-        this.numeroPago = contadorPago++;
+        this.numeroPago = generadorNumeros.siguiente();
         this.fechaHora = LocalDateTime.now();
-        this.monto = monto;
+        this.monto = Dinero.deMonto(monto);
         this.moneda = moneda;
         this.tipoPago = TipoPago.CONTADO;
         this.tipoCambio = (moneda == Moneda.DOLARES) ? tipoCambio : 1.0;
-        this.montoEnColones = (moneda == Moneda.DOLARES) ? monto * tipoCambio : monto;
+        this.montoEnColones = (moneda == Moneda.DOLARES)
+            ? Dinero.convertir(this.monto, tipoCambio) : this.monto;
     }
     
     /**
@@ -58,16 +63,45 @@ public class Pago {
             throw new IllegalArgumentException("La información de la tarjeta no puede ser nula");
         }
         
-        this.numeroPago = contadorPago++;
+        this.numeroPago = generadorNumeros.siguiente();
         this.fechaHora = LocalDateTime.now();
-        this.monto = monto;
+        this.monto = Dinero.deMonto(monto);
         this.moneda = Moneda.COLONES; // Los pagos con tarjeta siempre son en colones
         this.tipoPago = TipoPago.CREDITO;
         this.tarjetaCredito = tarjetaCredito;
         this.tipoCambio = 1.0;
-        this.montoEnColones = monto;
+        this.montoEnColones = this.monto;
     }
 
+    /**
+     * Constructor para restaurar un pago persistido con su número y fecha originales.
+     * Los montos se reciben en céntimos.
+     */
+    Pago(int numeroPago, LocalDateTime fechaHora, long monto, Moneda moneda, TipoPago tipoPago,
+         TarjetaCredito tarjetaCredito, double tipoCambio, long montoEnColones) {
+        this.numeroPago = numeroPago;
+        this.fechaHora = fechaHora;
+        this.monto = monto;
+        this.moneda = moneda;
+        this.tipoPago = tipoPago;
+        this.tarjetaCredito = tarjetaCredito;
+        this.tipoCambio = tipoCambio;
+        this.montoEnColones = montoEnColones;
+    }
+
+    /**
+     * Establece el generador de números de pago. Por defecto se usa un contador en
+     * memoria que empieza en 1 en cada ejecución.
+     * 
+     * @param generador Generador a utilizar
+     */
+    public static void setGeneradorNumeros(GeneradorNumeros generador) {
+        if (generador == null) {
+            throw new IllegalArgumentException("El generador de números no puede ser nulo");
+        }
+        generadorNumeros = generador;
+    }
+    
     // Getters
     public int getNumeroPago() {
         return numeroPago;
@@ -78,6 +112,10 @@ public class Pago {
     }
 
     public double getMonto() {
+        return Dinero.aMonto(monto);
+    }
+    
+    public long getMontoCentimos() {
         return monto;
     }
 
@@ -98,6 +136,10 @@ public class Pago {
     }
     
     public double getMontoEnColones() {
+        return Dinero.aMonto(montoEnColones);
+    }
+    
+    public long getMontoEnColonesCentimos() {
         return montoEnColones;
     }
     
@@ -108,13 +150,13 @@ public class Pago {
      */
     public double getMontoEnMoneda(Moneda monedaDestino) {
         if (monedaDestino == moneda) {
-            return monto;
+            return getMonto();
         }
         if (monedaDestino == Moneda.COLONES) {
-            return montoEnColones;
+            return getMontoEnColones();
         } else {
             // Convertir a dólares
-            return montoEnColones / tipoCambio;
+            return Dinero.aMonto(Dinero.convertirInverso(montoEnColones, tipoCambio));
         }
     }
     
@@ -157,20 +199,16 @@ public class Pago {
 
     @Override
     public String toString() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
-        String fechaStr = fechaHora.format(formatter);
-        
-        StringBuilder sb = new StringBuilder();
-        sb.append(String.format("Pago #%d - %s\n", numeroPago, fechaStr));
-        sb.append(String.format("Tipo: %s\n", tipoPago.getDescripcion()));
-        sb.append(String.format("Monto: %.2f %s", monto, moneda.getSimbolo()));
-        
+        StringBuilder sb = new StringBuilder(128);
+        sb.append("Pago #").append(numeroPago).append(" - ");
+        FORMATO_FECHA.formatTo(fechaHora, sb);
+        sb.append("\nTipo: ").append(tipoPago.getDescripcion());
+        sb.append("\nMonto: ").append(Dinero.formatear(monto)).append(' ').append(moneda.getSimbolo());
         if (moneda == Moneda.DOLARES) {
-            sb.append(String.format(" (Tipo de cambio: %.2f, Total: %.2f ₡)\n", 
-                tipoCambio, montoEnColones));
-        } else {
-            sb.append("\n");
+            sb.append(" (Tipo de cambio: ").append(Dinero.formatear(Dinero.deMonto(tipoCambio)))
+                .append(", Total: ").append(Dinero.formatear(montoEnColones)).append(" ₡)");
         }
+        sb.append('\n');
         
         if (tipoPago == TipoPago.CREDITO && tarjetaCredito != null) {
             sb.append(tarjetaCredito.toString());
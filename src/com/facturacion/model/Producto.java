@@ -1,18 +1,20 @@
 package com.facturacion.model;
 
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Clase abstracta que representa un producto en el sistema.
  * Define la estructura común para todos los tipos de productos.
  */
 public abstract class Producto {
-    private static int contadorCodigo = 1;
+    private static GeneradorNumeros generadorCodigos = new AtomicInteger(1)::getAndIncrement;
     
     private final int codigo;
     private String nombre;
     private String descripcion;
-    private double precio;
+    /** Precio en céntimos de colón. */
+    private long precio;
     private Impuesto impuesto;
     private int cantidadProducto;
     private String numeroCodigo;
@@ -28,7 +30,22 @@ public abstract class Producto {
      */
     public Producto(String nombre, String descripcion, double precio, 
                    Impuesto impuesto, int cantidadProducto, String numeroCodigo) {
-        this.codigo = contadorCodigo++;
+        this.codigo = generadorCodigos.siguiente();
+        this.nombre = nombre;
+        this.descripcion = descripcion;
+        this.precio = Dinero.deMonto(precio);
+        this.impuesto = impuesto;
+        this.cantidadProducto = cantidadProducto;
+        this.numeroCodigo = numeroCodigo;
+    }
+    
+    /**
+     * Constructor para restaurar un producto persistido con su código original.
+     * El precio se recibe en céntimos.
+     */
+    Producto(int codigo, String nombre, String descripcion, long precio,
+             Impuesto impuesto, int cantidadProducto, String numeroCodigo) {
+        this.codigo = codigo;
         this.nombre = nombre;
         this.descripcion = descripcion;
         this.precio = precio;
@@ -37,6 +54,19 @@ public abstract class Producto {
         this.numeroCodigo = numeroCodigo;
     }
 
+    /**
+     * Establece el generador de códigos de producto. Por defecto se usa un contador en
+     * memoria que empieza en 1 en cada ejecución.
+     * 
+     * @param generador Generador a utilizar
+     */
+    public static void setGeneradorCodigos(GeneradorNumeros generador) {
+        if (generador == null) {
+            throw new IllegalArgumentException("El generador de códigos no puede ser nulo");
+        }
+        generadorCodigos = generador;
+    }
+    
     // Getters y Setters
     public int getCodigo() {
         return codigo;
@@ -59,12 +89,19 @@ public abstract class Producto {
     }
 
     public double getPrecio() {
+        return Dinero.aMonto(precio);
+    }
+    
+    public long getPrecioCentimos() {
         return precio;
     }
 
+    /**
+     * Establece el precio, redondeado al céntimo.
+     */
     public void setPrecio(double precio) {
         if (precio >= 0) {
-            this.precio = precio;
+            this.precio = Dinero.deMonto(precio);
         }
     }
 
@@ -110,9 +147,9 @@ public abstract class Producto {
         if (cantidad <= 0 || cantidad > cantidadProducto) {
             throw new IllegalArgumentException("Cantidad inválida o insuficiente en inventario");
         }
-        double subtotal = precio * cantidad;
-        double montoImpuesto = impuesto.calcularImpuesto(subtotal);
-        return subtotal + montoImpuesto;
+        long subtotal = Dinero.multiplicar(precio, cantidad);
+        long montoImpuesto = impuesto.calcularImpuestoCentimos(subtotal);
+        return Dinero.aMonto(subtotal + montoImpuesto);
     }
 
     @Override
@@ -131,7 +168,7 @@ public abstract class Producto {
     @Override
     public String toString() {
         return String.format("%d - %s (Disponibles: %d, Precio: %.2f, %s, Código: %s)", 
-            codigo, nombre, cantidadProducto, precio, impuesto.getDescripcion(), numeroCodigo);
+            codigo, nombre, cantidadProducto, getPrecio(), impuesto.getDescripcion(), numeroCodigo);
     }
     
     /**
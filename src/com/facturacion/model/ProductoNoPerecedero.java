@@ -21,6 +21,14 @@ public class ProductoNoPerecedero extends Producto {
         super(nombre, descripcion, precio, impuesto, cantidadProducto, numeroCodigo);
     }
     
+    /**
+     * Constructor para restaurar un producto persistido con su código original.
+     */
+    ProductoNoPerecedero(int codigo, String nombre, String descripcion, long precio,
+                         Impuesto impuesto, int cantidadProducto, String numeroCodigo) {
+        super(codigo, nombre, descripcion, precio, impuesto, cantidadProducto, numeroCodigo);
+    }
+    
     @Override
     public String getTipoProducto() {
         return "No Perecedero";
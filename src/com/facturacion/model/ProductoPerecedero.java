@@ -29,6 +29,17 @@ public class ProductoPerecedero extends Producto {
         super(nombre, descripcion, precio, impuesto, cantidadProducto, numeroCodigo);
         setFechaVencimiento(fechaVencimiento);
     }
+    
+    /**
+     * Constructor para restaurar un producto persistido. No valida la fecha de
+     * vencimiento, que pudo haber pasado desde que se guardó.
+     */
+    ProductoPerecedero(int codigo, String nombre, String descripcion, long precio,
+                       Impuesto impuesto, int cantidadProducto, String numeroCodigo,
+                       LocalDate fechaVencimiento) {
+        super(codigo, nombre, descripcion, precio, impuesto, cantidadProducto, numeroCodigo);
+        this.fechaVencimiento = fechaVencimiento;
+    }
 
     /**
      * Obtiene la fecha de vencimiento del producto.
@@ -55,6 +66,14 @@ public class ProductoPerecedero extends Producto {
         }
     }
     
+    /**
+     * Obtiene la fecha de vencimiento sin formatear.
+     * @return Fecha de vencimiento
+     */
+    public LocalDate getFechaVencimientoLocal() {
+        return fechaVencimiento;
+    }
+    
     /**
      * Verifica si el producto está vencido.
      * @return true si el producto está vencido, false en caso contrario
@@ -1,50 +1,67 @@
 package com.facturacion.model;
 
-import java.util.regex.Pattern;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 
 /**
  * Enumeración que representa los tipos de tarjetas de crédito aceptadas en el sistema.
  * Incluye validación de números de tarjeta, fechas de vencimiento y códigos de seguridad.
+ *
+ * Cada marca se define por sus prefijos (BIN), las longitudes de número que
+ * admite y la longitud de su código de seguridad; para aceptar una marca nueva
+ * basta con agregar su constante.
  */
 public enum Tarjeta {
-    VISA("Visa", "^4[0-9]{12}(?:[0-9]{3})?$", "^[0-9]{3}$"),
-    MASTERCARD("MasterCard", "^5[1-5][0-9]{14}$", "^[0-9]{3}$"),
-    AMERICAN_EXPRESS("American Express", "^3[47][0-9]{13}$", "^[0-9]{4}$");
+    VISA("Visa", new String[] {"4"}, new int[] {13, 16}, 3),
+    MASTERCARD("MasterCard", new String[] {"51", "52", "53", "54", "55"}, new int[] {16}, 3),
+    AMERICAN_EXPRESS("American Express", new String[] {"34", "37"}, new int[] {15}, 4);
     
     private final String nombre;
-    private final Pattern numeroPattern;
-    private final Pattern codigoSeguridadPattern;
+    private final String[] prefijos;
+    private final int[] longitudes;
+    private final int longitudCodigoSeguridad;
     
-    private Tarjeta(String nombre, String numeroRegex, String codigoSeguridadRegex) {
+    private Tarjeta(String nombre, String[] prefijos, int[] longitudes, int longitudCodigoSeguridad) {
         this.nombre = nombre;
-        this.numeroPattern = Pattern.compile(numeroRegex);
-        this.codigoSeguridadPattern = Pattern.compile(codigoSeguridadRegex);
+        this.prefijos = prefijos;
+        this.longitudes = longitudes;
+        this.longitudCodigoSeguridad = longitudCodigoSeguridad;
     }
     
     public String getNombre() {
         return nombre;
     }
     
+    String[] getPrefijos() {
+        return prefijos.clone();
+    }
+    
+    boolean admiteLongitud(int cantidadDigitos) {
+        for (int longitud : longitudes) {
+            if (longitud == cantidadDigitos) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Determina el tipo de tarjeta de un número y lo valida (prefijo, longitud
+     * y algoritmo de Luhn) en un solo recorrido, sin crear objetos.
+     * @param numero Número de tarjeta (puede tener espacios o guiones)
+     * @return Tipo de tarjeta, o null si el número no es válido para ningún tipo soportado
+     */
+    public static Tarjeta determinar(CharSequence numero) {
+        return ClasificadorTarjetas.clasificar(numero);
+    }
+    
     /**
      * Valida el número de tarjeta según el tipo de tarjeta.
-     * @param numero Número de tarjeta a validar
+     * @param numero Número de tarjeta a validar (puede tener espacios o guiones)
      * @return true si el número es válido, false en caso contrario
      */
-    public boolean validarNumero(String numero) {
-        if (numero == null) return false;
-        
-        // Eliminar espacios y guiones
-        String numeroLimpio = numero.replaceAll("[\\s-]", "");
-        
-        // Validar formato
-        if (!numeroPattern.matcher(numeroLimpio).matches()) {
-            return false;
-        }
-        
-        // Validar con algoritmo de Luhn
-        return validarAlgoritmoLuhn(numeroLimpio);
+    public boolean validarNumero(CharSequence numero) {
+        return ClasificadorTarjetas.clasificar(numero) == this;
     }
     
     /**
@@ -52,9 +69,15 @@ public enum Tarjeta {
      * @param codigo Código de seguridad a validar
      * @return true si el código es válido, false en caso contrario
      */
-    public boolean validarCodigoSeguridad(String codigo) {
-        if (codigo == null) return false;
-        return codigoSeguridadPattern.matcher(codigo).matches();
+    public boolean validarCodigoSeguridad(CharSequence codigo) {
+        if (codigo == null || codigo.length() != longitudCodigoSeguridad) return false;
+        for (int i = 0; i < codigo.length(); i++) {
+            char c = codigo.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
     }
     
     /**
@@ -78,32 +101,6 @@ public enum Tarjeta {
         }
     }
     
-    /**
-     * Implementa el algoritmo de Luhn para validar números de tarjeta.
-     * @param numero Número de tarjeta a validar
-     * @return true si el número pasa la validación de Luhn, false en caso contrario
-     */
-    private boolean validarAlgoritmoLuhn(String numero) {
-        int suma = 0;
-        boolean doble = false;
-        
-        for (int i = numero.length() - 1; i >= 0; i--) {
-            int digito = Character.getNumericValue(numero.charAt(i));
-            
-            if (doble) {
-                digito *= 2;
-                if (digito > 9) {
-                    digito = (digito % 10) + 1;
-                }
-            }
-            
-            suma += digito;
-            doble = !doble;
-        }
-        
-        return (suma % 10) == 0;
-    }
-    
     @Override
     public String toString() {
         return nombre;
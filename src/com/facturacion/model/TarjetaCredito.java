@@ -8,6 +8,10 @@ import java.util.Objects;
 /**
  * Clase que representa la información de una tarjeta de crédito.
  * Incluye validación de número de tarjeta, fecha de vencimiento y código de seguridad.
+ *
+ * El número completo y el código de seguridad solo se conservan en memoria
+ * mientras se procesa el pago; una tarjeta restaurada de disco tiene
+ * únicamente los últimos cuatro dígitos y no tiene código de seguridad.
  */
 public class TarjetaCredito {
     private final String numeroTarjeta;
@@ -28,17 +32,13 @@ public class TarjetaCredito {
      */
     public TarjetaCredito(String numeroTarjeta, String nombreTitular, 
                          String fechaVencimiento, String codigoSeguridad) {
-        // Validar número de tarjeta
-        String numeroLimpio = numeroTarjeta.replaceAll("[\\s-]", "");
-        this.tipoTarjeta = determinarTipoTarjeta(numeroLimpio);
+        // Validar número de tarjeta: tipo, longitud y algoritmo de Luhn en un solo recorrido
+        this.tipoTarjeta = Tarjeta.determinar(numeroTarjeta);
         
         if (this.tipoTarjeta == null) {
             throw new IllegalArgumentException("Número de tarjeta no válido o tipo de tarjeta no soportado");
         }
-        
-        if (!this.tipoTarjeta.validarNumero(numeroLimpio)) {
-            throw new IllegalArgumentException("Número de tarjeta inválido para " + tipoTarjeta.getNombre());
-        }
+        String numeroLimpio = limpiarNumero(numeroTarjeta);
         
         // Validar nombre del titular
         if (nombreTitular == null || nombreTitular.trim().isEmpty()) {
@@ -62,29 +62,56 @@ public class TarjetaCredito {
     }
     
     /**
-     * Determina el tipo de tarjeta basado en el número.
-     * @param numeroTarjeta Número de tarjeta (sin espacios ni guiones)
-     * @return Tipo de tarjeta o null si no coincide con ningún tipo soportado
+     * Constructor para restaurar una tarjeta persistida. No vuelve a validar los
+     * datos, ya que la tarjeta pudo vencer desde que se registró el pago.
+     *
+     * @param ultimosDigitos Últimos cuatro dígitos del número
+     */
+    TarjetaCredito(String ultimosDigitos, String nombreTitular, YearMonth fechaVencimiento,
+                   Tarjeta tipoTarjeta) {
+        this.numeroTarjeta = ultimosDigitos;
+        this.nombreTitular = nombreTitular;
+        this.fechaVencimiento = fechaVencimiento;
+        this.codigoSeguridad = null;
+        this.tipoTarjeta = tipoTarjeta;
+    }
+    
+    /**
+     * Quita los espacios y guiones de un número de tarjeta ya validado.
      */
-    private Tarjeta determinarTipoTarjeta(String numeroTarjeta) {
-        for (Tarjeta tarjeta : Tarjeta.values()) {
-            if (tarjeta.validarNumero(numeroTarjeta)) {
-                return tarjeta;
+    private static String limpiarNumero(String numeroTarjeta) {
+        StringBuilder limpio = new StringBuilder(numeroTarjeta.length());
+        for (int i = 0; i < numeroTarjeta.length(); i++) {
+            char c = numeroTarjeta.charAt(i);
+            if (c >= '0' && c <= '9') {
+                limpio.append(c);
             }
         }
-        return null;
+        return limpio.toString();
     }
     
     // Getters
+    
+    /**
+     * @return Número de la tarjeta; en una tarjeta restaurada de disco, solo los
+     *         últimos cuatro dígitos
+     */
     public String getNumeroTarjeta() {
         return numeroTarjeta;
     }
     
+    /**
+     * @return Los últimos cuatro dígitos del número
+     */
+    public String getUltimosDigitos() {
+        return numeroTarjeta.length() <= 4 ? numeroTarjeta : numeroTarjeta.substring(numeroTarjeta.length() - 4);
+    }
+    
     public String getNumeroEnmascarado() {
         if (numeroTarjeta.length() < 4) {
             return "****";
         }
-        return "**** **** **** " + numeroTarjeta.substring(numeroTarjeta.length() - 4);
+        return "**** **** **** " + getUltimosDigitos();
     }
 
     public String getNombreTitular() {
@@ -99,6 +126,9 @@ public class TarjetaCredito {
         return fechaVencimiento.format(FORMATO_FECHA);
     }
 
+    /**
+     * @return Código de seguridad, o null si la tarjeta se restauró de disco
+     */
     public String getCodigoSeguridad() {
         return codigoSeguridad;
     }
@@ -123,7 +153,7 @@ public class TarjetaCredito {
         return numeroTarjeta.equals(that.numeroTarjeta) &&
                nombreTitular.equalsIgnoreCase(that.nombreTitular) &&
                fechaVencimiento.equals(that.fechaVencimiento) &&
-               codigoSeguridad.equals(that.codigoSeguridad);
+               Objects.equals(codigoSeguridad, that.codigoSeguridad);
     }
 
     @Override
@@ -133,13 +163,9 @@ public class TarjetaCredito {
 
     @Override
     public String toString() {
-        return String.format("Tarjeta %s\n" +
-                           "Titular: %s\n" +
-                           "Número: %s\n" +
-                           "Vence: %s",
-            tipoTarjeta.getNombre(),
-            nombreTitular,
-            getNumeroEnmascarado(),
-            getFechaVencimientoFormateada());
+        return "Tarjeta " + tipoTarjeta.getNombre()
+            + "\nTitular: " + nombreTitular
+            + "\nNúmero: " + getNumeroEnmascarado()
+            + "\nVence: " + getFechaVencimientoFormateada();
     }
 }
@@ -0,0 +1,75 @@
+package com.facturacion.repository;
+
+import com.facturacion.model.Factura;
+import com.facturacion.model.Moneda;
+import com.facturacion.model.TipoPago;
+import java.util.Date;
+import java.util.stream.Stream;
+
+/**
+ * Interfaz para el repositorio de agregados diarios de ventas.
+ * Mantiene, por día, la cantidad de facturas vigentes (no anuladas) y sus
+ * montos de ventas, impuestos y descuentos, separados por tipo de pago y
+ * moneda; las facturas aún sin pago forman su propio grupo.
+ * Se actualiza con cada cambio de estado de una factura, de modo que los
+ * totales de un rango cuestan lo mismo que la cantidad de días del rango.
+ */
+public interface AgregadoDiarioRepository {
+    
+    /**
+     * Registra el estado actual de una factura: una factura nueva entra al
+     * grupo sin pago, una pagada pasa al grupo de su tipo de pago y moneda y
+     * una anulada se retira de los agregados de su día.
+     * 
+     * El registro es idempotente por número de factura y estado: registrar de
+     * nuevo una factura que no cambió de estado no modifica los agregados, de
+     * modo que puede repetirse sin riesgo al conciliar con el repositorio de
+     * facturas.
+     * 
+     * @param factura Factura ya guardada
+     */
+    void registrar(Factura factura);
+    
+    /**
+     * Obtiene el estado con el que una factura quedó registrada en los agregados.
+     * 
+     * @param numeroFactura Número de la factura
+     * @return Estado registrado, o null si la factura no se ha registrado
+     */
+    ResumenFactura.Estado obtenerEstadoRegistrado(int numeroFactura);
+    
+    /**
+     * Obtiene los totales de todas las facturas vigentes de un rango de fechas.
+     * 
+     * @param fechaInicio Fecha de inicio (se ignorará la hora)
+     * @param fechaFin Fecha de fin (se ignorará la hora)
+     * @return Totales del rango
+     */
+    TotalesVentas obtenerTotales(Date fechaInicio, Date fechaFin);
+    
+    /**
+     * Obtiene los totales de las facturas vigentes de un rango de fechas con
+     * el tipo de pago y la moneda indicados.
+     * 
+     * @param fechaInicio Fecha de inicio (se ignorará la hora)
+     * @param fechaFin Fecha de fin (se ignorará la hora)
+     * @param tipoPago Tipo de pago, o null para las facturas sin pago
+     * @param moneda Moneda del pago (se ignora si tipoPago es null)
+     * @return Totales del rango para ese grupo
+     */
+    TotalesVentas obtenerTotales(Date fechaInicio, Date fechaFin, TipoPago tipoPago, Moneda moneda);
+    
+    /**
+     * Indica si el agregado se acaba de crear y aún no tiene datos.
+     * 
+     * @return true si el agregado está vacío
+     */
+    boolean estaVacio();
+    
+    /**
+     * Reemplaza los agregados por los calculados a partir de las facturas dadas.
+     * 
+     * @param facturas Todas las facturas del sistema
+     */
+    void reconstruir(Stream<Factura> facturas);
+}
@@ -10,6 +10,15 @@ import java.util.Optional;
  */
 public interface ClienteRepository {
     
+    /**
+     * Criterios de orden para la consulta paginada de clientes.
+     */
+    enum Orden {
+        CEDULA,
+        NOMBRE
+    }
+
+    
     /**
      * Guarda un cliente en el repositorio.
      * 
@@ -33,6 +42,18 @@ public interface ClienteRepository {
      */
     List<Cliente> buscarTodos();
     
+    /**
+     * Obtiene una página de clientes ordenados según el criterio indicado.
+     * El costo de una página no depende de la cantidad total de clientes.
+     * 
+     * @param orden Criterio de orden
+     * @param cursor Cursor devuelto por la página anterior, o null para la primera página
+     * @param limite Cantidad máxima de clientes en la página
+     * @return Página de clientes con el cursor de la siguiente
+     * @throws IllegalArgumentException Si el cursor o el límite no son válidos
+     */
+    Pagina<Cliente> buscarPagina(Orden orden, String cursor, int limite);
+    
     /**
      * Busca clientes por nombre (búsqueda parcial).
      * 
@@ -4,6 +4,8 @@ import com.facturacion.model.Factura;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Interfaz para el repositorio de facturas.
@@ -11,6 +13,19 @@ import java.util.Optional;
  */
 public interface FacturaRepository {
     
+    /**
+     * Criterios de orden para la consulta paginada de facturas.
+     */
+    enum Orden {
+        /** Por número de factura, ascendente. */
+        NUMERO,
+        /** Por fecha de la factura y luego por número, ascendente. */
+        FECHA,
+        /** Por fecha de la factura y luego por número, de la más reciente a la más antigua. */
+        RECIENTES
+    }
+
+    
     /**
      * Guarda una factura en el repositorio.
      * 
@@ -34,6 +49,18 @@ public interface FacturaRepository {
      */
     List<Factura> buscarTodas();
     
+    /**
+     * Obtiene una página de facturas ordenadas según el criterio indicado.
+     * El costo de una página no depende de la cantidad total de facturas.
+     * 
+     * @param orden Criterio de orden
+     * @param cursor Cursor devuelto por la página anterior, o null para la primera página
+     * @param limite Cantidad máxima de facturas en la página
+     * @return Página de facturas con el cursor de la siguiente
+     * @throws IllegalArgumentException Si el cursor o el límite no son válidos
+     */
+    Pagina<Factura> buscarPagina(Orden orden, String cursor, int limite);
+    
     /**
      * Busca facturas por cliente.
      * 
@@ -42,6 +69,14 @@ public interface FacturaRepository {
      */
     List<Factura> buscarPorCliente(long cedulaCliente);
     
+    /**
+     * Verifica si un cliente tiene al menos una factura registrada.
+     * 
+     * @param cedulaCliente Cédula del cliente
+     * @return true si el cliente tiene facturas, false en caso contrario
+     */
+    boolean existePorCliente(long cedulaCliente);
+    
     /**
      * Busca facturas por rango de fechas.
      * 
@@ -58,6 +93,70 @@ public interface FacturaRepository {
      */
     List<Factura> buscarPorRangoFechas(Date fechaInicio, Date fechaFin);
     
+    /**
+     * Recorre todas las facturas en el orden en que están almacenadas.
+     * Las facturas se leen a medida que se consumen, por lo que la memoria
+     * usada no depende de la cantidad de facturas. El stream mantiene archivos
+     * abiertos y debe cerrarse (por ejemplo, con try-with-resources).
+     * 
+     * @return Stream perezoso de las facturas
+     */
+    Stream<Factura> recorrerTodas();
+    
+    /**
+     * Recorre las facturas de un cliente en el orden en que se registraron.
+     * El stream debe cerrarse al terminar.
+     * 
+     * @param cedulaCliente Cédula del cliente
+     * @return Stream perezoso de las facturas del cliente
+     */
+    Stream<Factura> recorrerPorCliente(long cedulaCliente);
+    
+    /**
+     * Recorre las facturas dentro de un rango de fechas (inclusive) en el orden
+     * en que están almacenadas. El stream debe cerrarse al terminar.
+     * 
+     * @param fechaInicio Fecha de inicio (se ignorará la hora)
+     * @param fechaFin Fecha de fin (se ignorará la hora)
+     * @return Stream perezoso de las facturas dentro del rango de fechas
+     */
+    Stream<Factura> recorrerPorRangoFechas(Date fechaInicio, Date fechaFin);
+    
+    /**
+     * Recorre los resúmenes numéricos de las facturas dentro de un rango de
+     * fechas (inclusive), sin leer las facturas completas. Es la forma
+     * recomendada de calcular totales.
+     * 
+     * @param fechaInicio Fecha de inicio (se ignorará la hora)
+     * @param fechaFin Fecha de fin (se ignorará la hora)
+     * @param consumidor Recibe el resumen de cada factura; la instancia puede
+     *                   reutilizarse, por lo que no debe guardarse
+     */
+    void recorrerResumenes(Date fechaInicio, Date fechaFin, Consumer<ResumenFactura> consumidor);
+    
+    /**
+     * Obtiene la cantidad de posiciones del almacén de resúmenes, para dividir
+     * un recorrido en partes con {@link #recorrerResumenes(Date, Date, int, int, Consumer)}.
+     * 
+     * @return Cantidad de posiciones (una por factura)
+     */
+    int contarResumenes();
+    
+    /**
+     * Recorre los resúmenes de las facturas del rango de fechas que están en
+     * las posiciones [posicionDesde, posicionHasta) del almacén de resúmenes.
+     * Varios recorridos sobre posiciones distintas pueden ejecutarse en paralelo.
+     * 
+     * @param fechaInicio Fecha de inicio (se ignorará la hora)
+     * @param fechaFin Fecha de fin (se ignorará la hora)
+     * @param posicionDesde Primera posición (inclusive)
+     * @param posicionHasta Última posición (exclusive)
+     * @param consumidor Recibe el resumen de cada factura; la instancia puede
+     *                   reutilizarse, por lo que no debe guardarse
+     */
+    void recorrerResumenes(Date fechaInicio, Date fechaFin, int posicionDesde, int posicionHasta,
+                           Consumer<ResumenFactura> consumidor);
+    
     /**
      * Busca las facturas del día actual.
      * 
@@ -0,0 +1,48 @@
+package com.facturacion.repository;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Página de resultados de una consulta paginada.
+ * Contiene los elementos de la página y el cursor con el que se pide la
+ * siguiente; el cursor es opaco y sólo es válido para el mismo orden.
+ * 
+ * @param <T> Tipo de los elementos
+ */
+public final class Pagina<T> {
+    
+    private final List<T> elementos;
+    private final String siguienteCursor;
+    
+    /**
+     * Crea una página de resultados.
+     * 
+     * @param elementos Elementos de la página
+     * @param siguienteCursor Cursor de la página siguiente, o null si es la última
+     */
+    public Pagina(List<T> elementos, String siguienteCursor) {
+        if (elementos == null) {
+            throw new IllegalArgumentException("Los elementos no pueden ser nulos");
+        }
+        this.elementos = Collections.unmodifiableList(elementos);
+        this.siguienteCursor = siguienteCursor;
+    }
+    
+    public List<T> getElementos() {
+        return elementos;
+    }
+    
+    /**
+     * Obtiene el cursor para pedir la página siguiente.
+     * 
+     * @return El cursor, o null si no hay más páginas
+     */
+    public String getSiguienteCursor() {
+        return siguienteCursor;
+    }
+    
+    public boolean hayMas() {
+        return siguienteCursor != null;
+    }
+}
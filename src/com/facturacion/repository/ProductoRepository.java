@@ -10,6 +10,35 @@ import java.util.Optional;
  */
 public interface ProductoRepository {
     
+    /**
+     * Criterios de orden para la consulta paginada de productos.
+     */
+    enum Orden {
+        CODIGO,
+        NOMBRE
+    }
+    
+    /**
+     * Recibe los cambios que se escriben en el repositorio, para que las
+     * cachés construidas sobre él se invaliden sin importar quién escribió.
+     * Se notifica después de que el cambio queda escrito.
+     */
+    interface OyenteCambios {
+        
+        /**
+         * El producto con el código indicado se guardó, se eliminó o cambió
+         * su inventario.
+         * 
+         * @param codigo Código del producto
+         */
+        void productoCambiado(int codigo);
+        
+        /**
+         * Se eliminaron todos los productos.
+         */
+        void todosCambiados();
+    }
+    
     /**
      * Guarda un producto en el repositorio.
      * 
@@ -26,6 +55,15 @@ public interface ProductoRepository {
      */
     Optional<Producto> buscarPorCodigo(int codigo);
     
+    /**
+     * Busca un producto por su número de código (el código de barras que se
+     * escanea en caja). Se ignoran los espacios alrededor del número.
+     * 
+     * @param numeroCodigo Número de código a buscar
+     * @return Un Optional con el producto si se encuentra, o vacío si no
+     */
+    Optional<Producto> buscarPorNumeroCodigo(String numeroCodigo);
+    
     /**
      * Busca todos los productos en el repositorio.
      * 
@@ -33,8 +71,22 @@ public interface ProductoRepository {
      */
     List<Producto> buscarTodos();
     
+    /**
+     * Obtiene una página de productos ordenados según el criterio indicado.
+     * El costo de una página no depende de la cantidad total de productos.
+     * 
+     * @param orden Criterio de orden
+     * @param cursor Cursor devuelto por la página anterior, o null para la primera página
+     * @param limite Cantidad máxima de productos en la página
+     * @return Página de productos con el cursor de la siguiente
+     * @throws IllegalArgumentException Si el cursor o el límite no son válidos
+     */
+    Pagina<Producto> buscarPagina(Orden orden, String cursor, int limite);
+    
     /**
      * Busca productos por nombre (búsqueda parcial).
+     * El texto se busca en el nombre y en la descripción, sin distinguir
+     * mayúsculas, minúsculas ni tildes.
      * 
      * @param nombre Nombre o parte del nombre a buscar
      * @return Lista de productos que coinciden con la búsqueda
@@ -73,6 +125,15 @@ public interface ProductoRepository {
      */
     boolean eliminar(int codigo);
     
+    /**
+     * Ajusta las existencias de un producto sin reescribir el resto de sus datos.
+     * 
+     * @param codigo Código del producto
+     * @param cantidad Cantidad a sumar (puede ser negativa para restar)
+     * @return true si se ajustó correctamente, false si no existe el producto o no hay suficiente inventario
+     */
+    boolean actualizarInventario(int codigo, int cantidad);
+    
     /**
      * Verifica si existe un producto con el código especificado.
      * 
@@ -81,6 +142,13 @@ public interface ProductoRepository {
      */
     boolean existePorCodigo(int codigo);
     
+    /**
+     * Registra un oyente que se notifica de cada escritura en el repositorio.
+     * 
+     * @param oyente Oyente a registrar
+     */
+    void agregarOyente(OyenteCambios oyente);
+    
     /**
      * Elimina todos los productos del repositorio.
      * ¡Cuidado! Esta operación no se puede deshacer.
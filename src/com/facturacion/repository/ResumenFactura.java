@@ -0,0 +1,60 @@
+package com.facturacion.repository;
+
+import com.facturacion.model.TipoPago;
+
+/**
+ * Vista de sólo lectura de los campos numéricos de una factura y del nombre
+ * de su cliente, usada para calcular totales y reportes sin reconstruir la
+ * factura completa (cliente, líneas de detalle y productos).
+ * 
+ * Las instancias que entrega {@link FacturaRepository#recorrerResumenes}
+ * pueden reutilizarse entre llamadas, por lo que no deben guardarse: sólo son
+ * válidas dentro del consumidor que las recibe.
+ */
+public interface ResumenFactura {
+    
+    /**
+     * Estado de una factura.
+     */
+    enum Estado {
+        PENDIENTE,
+        PAGADA,
+        ANULADA
+    }
+    
+    int getNumeroFactura();
+    
+    /**
+     * @return Fecha de la factura en milisegundos desde la época
+     */
+    long getFechaMillis();
+    
+    long getCedulaCliente();
+    
+    /**
+     * @return Nombre del cliente tal como quedó en la factura, o cadena vacía
+     *         si la factura no tiene cliente
+     */
+    String getNombreCliente();
+    
+    double getSubtotal();
+    
+    /**
+     * @return Monto total de impuestos
+     */
+    double getImpuesto();
+    
+    /**
+     * @return Monto total de descuentos
+     */
+    double getDescuento();
+    
+    double getTotal();
+    
+    Estado getEstado();
+    
+    /**
+     * @return Tipo de pago, o null si la factura no tiene pago
+     */
+    TipoPago getTipoPago();
+}
@@ -0,0 +1,42 @@
+package com.facturacion.repository;
+
+/**
+ * Totales de ventas de un conjunto de facturas: cantidad de facturas y montos
+ * de ventas, impuestos y descuentos (en colones).
+ */
+public final class TotalesVentas {
+    
+    private final long cantidadFacturas;
+    private final double totalVentas;
+    private final double totalImpuestos;
+    private final double totalDescuentos;
+    
+    public TotalesVentas(long cantidadFacturas, double totalVentas, double totalImpuestos, double totalDescuentos) {
+        this.cantidadFacturas = cantidadFacturas;
+        this.totalVentas = totalVentas;
+        this.totalImpuestos = totalImpuestos;
+        this.totalDescuentos = totalDescuentos;
+    }
+    
+    public long getCantidadFacturas() {
+        return cantidadFacturas;
+    }
+    
+    public double getTotalVentas() {
+        return totalVentas;
+    }
+    
+    public double getTotalImpuestos() {
+        return totalImpuestos;
+    }
+    
+    public double getTotalDescuentos() {
+        return totalDescuentos;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("Facturas: %d, Ventas: %.2f, Impuestos: %.2f, Descuentos: %.2f",
+            cantidadFacturas, totalVentas, totalImpuestos, totalDescuentos);
+    }
+}
@@ -0,0 +1,475 @@
+package com.facturacion.repository.impl;
+
+import com.facturacion.model.Dinero;
+import com.facturacion.model.Factura;
+import com.facturacion.model.Moneda;
+import com.facturacion.model.Pago;
+import com.facturacion.model.TipoPago;
+import com.facturacion.repository.AgregadoDiarioRepository;
+import com.facturacion.repository.ResumenFactura;
+import com.facturacion.repository.TotalesVentas;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Implementación de AgregadoDiarioRepository respaldada por un diario de
+ * movimientos. Cada cambio de estado de una factura se escribe como un único
+ * registro con el número de la factura, su nuevo estado y todos sus
+ * movimientos (por ejemplo, un pago resta del grupo sin pago y suma al grupo
+ * del tipo de pago), protegido con CRC32 y sincronizado a disco antes de
+ * aplicarse en memoria; un registro incompleto por una escritura interrumpida
+ * se descarta completo al abrir el diario.
+ *
+ * Además de los acumulados, en memoria se guarda el estado registrado de cada
+ * factura (un byte por número de factura). Los movimientos de un cambio se
+ * calculan desde ese estado, así que registrar dos veces el mismo estado no
+ * cambia los agregados y una factura cuyo registro se perdió puede volver a
+ * registrarse al conciliar con el repositorio de facturas.
+ *
+ * En memoria los agregados se guardan en un TreeMap por día, por lo que los
+ * totales de un rango se obtienen recorriendo sólo los días del rango. Al
+ * abrirlo, si el diario tiene muchos más registros que celdas y estados, se
+ * reescribe con una sola entrada por día y los estados agrupados en bloques.
+ *
+ * Formato de cada registro: longitud (int), CRC32 (int) y tipo (byte),
+ * seguido de:
+ * <ul>
+ *   <li>Cambio de estado: número de factura (int), estado (byte), día (long)
+ *       y los movimientos.</li>
+ *   <li>Acumulado de un día (al compactar): día (long) y los movimientos.</li>
+ *   <li>Bloque de estados (al compactar): cantidad (int) y por cada factura
+ *       su número (int) y estado (byte).</li>
+ * </ul>
+ * Los movimientos son una cantidad (byte) y por cada uno: grupo (byte),
+ * cantidad de facturas (int), ventas, impuestos y descuentos (long, en
+ * céntimos), de modo que una anulación deja la celda exactamente como estaba.
+ */
+public class AgregadoDiarioRepositoryImpl implements AgregadoDiarioRepository, Closeable {
+
+    private static final String DATA_DIR = "data";
+    private static final String AGREGADOS_DIR = DATA_DIR + File.separator + "agregados";
+    private static final String AGREGADOS_FILE = AGREGADOS_DIR + File.separator + "ventas_diarias_v2.log";
+    /** Diario sin estados por factura de versiones anteriores; se reemplaza reconstruyendo. */
+    private static final String AGREGADOS_FILE_ANTERIOR = AGREGADOS_DIR + File.separator + "ventas_diarias.log";
+
+    private static final int TAMANO_ENCABEZADO = 8;
+    private static final int TAMANO_MOVIMIENTO = 1 + 4 + 3 * 8;
+    private static final int TAMANO_ESTADO = 4 + 1;
+    private static final int ESTADOS_POR_BLOQUE = 4096;
+
+    private static final byte TIPO_CAMBIO = 1;
+    private static final byte TIPO_ACUMULADO = 2;
+    private static final byte TIPO_ESTADOS = 3;
+    private static final int TAMANO_BUFFER_LECTURA = 1 << 16;
+
+    private static final Moneda[] MONEDAS = Moneda.values();
+    /** Grupo 0: facturas sin pago; luego un grupo por cada tipo de pago y moneda. */
+    private static final int GRUPOS = 1 + TipoPago.values().length * MONEDAS.length;
+    private static final int GRUPO_SIN_PAGO = 0;
+
+    /**
+     * Estados registrados por factura: 0 si no se ha registrado, -1 si está
+     * anulada y 1 + grupo si está vigente.
+     */
+    private static final byte SIN_REGISTRAR = 0;
+    private static final byte ANULADA = -1;
+
+    /**
+     * Acumulado de un grupo en un día.
+     */
+    private static final class Celda {
+        long cantidad;
+        /** Montos en céntimos. */
+        long ventas;
+        long impuestos;
+        long descuentos;
+
+        boolean isVacia() {
+            return cantidad == 0 && ventas == 0 && impuestos == 0 && descuentos == 0;
+        }
+    }
+
+    private final Path archivo;
+    private FileChannel canal;
+    private final TreeMap<Long, Celda[]> agregadosPorDia = new TreeMap<>();
+    private byte[] estadoPorFactura = new byte[1024];
+    private int facturasRegistradas;
+    private boolean vacio;
+
+    public AgregadoDiarioRepositoryImpl() {
+        this(Paths.get(AGREGADOS_FILE));
+        try {
+            Files.deleteIfExists(Paths.get(AGREGADOS_FILE_ANTERIOR));
+        } catch (IOException e) {
+            throw new RuntimeException("Error al eliminar el diario de agregados anterior", e);
+        }
+    }
+
+    /**
+     * Crea el repositorio sobre el archivo de diario indicado.
+     *
+     * @param archivo Archivo del diario de movimientos
+     */
+    public AgregadoDiarioRepositoryImpl(Path archivo) {
+        this.archivo = archivo;
+        try {
+            Files.createDirectories(archivo.toAbsolutePath().getParent());
+            this.canal = FileChannel.open(archivo,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.vacio = canal.size() == 0;
+            long registros = cargar();
+            long registrosCompactos = contarCeldas() + (facturasRegistradas + ESTADOS_POR_BLOQUE - 1) / ESTADOS_POR_BLOQUE;
+            if (registros > 4L * registrosCompactos && registros > 1024) {
+                compactar();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error al inicializar el repositorio de agregados diarios", e);
+        }
+    }
+
+    private long cargar() throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+            Channels.newInputStream(canal.position(0)), TAMANO_BUFFER_LECTURA));
+        long tamano = canal.size();
+        long posicion = 0;
+        long registros = 0;
+        try {
+            while (posicion + TAMANO_ENCABEZADO <= tamano) {
+                int longitud = in.readInt();
+                int crcEsperado = in.readInt();
+                if (longitud <= 0 || posicion + TAMANO_ENCABEZADO + longitud > tamano) {
+                    break;
+                }
+                byte[] datos = new byte[longitud];
+                in.readFully(datos);
+                CRC32 crc = new CRC32();
+                crc.update(datos);
+                if ((int) crc.getValue() != crcEsperado) {
+                    break;
+                }
+                aplicar(ByteBuffer.wrap(datos));
+                posicion += TAMANO_ENCABEZADO + longitud;
+                registros++;
+            }
+        } catch (EOFException e) {
+            // Registro incompleto al final del archivo
+        }
+        // Descartar un registro incompleto o corrupto por una escritura interrumpida
+        canal.truncate(posicion);
+        canal.position(posicion);
+        return registros;
+    }
+
+    private void aplicar(ByteBuffer registro) {
+        byte tipo = registro.get();
+        if (tipo == TIPO_ESTADOS) {
+            int cantidad = registro.getInt();
+            for (int i = 0; i < cantidad; i++) {
+                ponerEstado(registro.getInt(), registro.get());
+            }
+            return;
+        }
+        if (tipo == TIPO_CAMBIO) {
+            int numeroFactura = registro.getInt();
+            ponerEstado(numeroFactura, registro.get());
+        }
+        long dia = registro.getLong();
+        int movimientos = registro.get();
+        Celda[] celdas = celdasDelDia(dia);
+        for (int i = 0; i < movimientos; i++) {
+            Celda celda = celdas[registro.get()];
+            celda.cantidad += registro.getInt();
+            celda.ventas += registro.getLong();
+            celda.impuestos += registro.getLong();
+            celda.descuentos += registro.getLong();
+        }
+    }
+
+    private byte estadoDe(int numeroFactura) {
+        return numeroFactura >= 0 && numeroFactura < estadoPorFactura.length
+            ? estadoPorFactura[numeroFactura] : SIN_REGISTRAR;
+    }
+
+    private void ponerEstado(int numeroFactura, byte estado) {
+        if (numeroFactura < 0) {
+            throw new IllegalArgumentException("Número de factura inválido: " + numeroFactura);
+        }
+        if (numeroFactura >= estadoPorFactura.length) {
+            estadoPorFactura = Arrays.copyOf(estadoPorFactura,
+                Math.max(numeroFactura + 1, estadoPorFactura.length * 2));
+        }
+        if (estadoPorFactura[numeroFactura] == SIN_REGISTRAR && estado != SIN_REGISTRAR) {
+            facturasRegistradas++;
+        }
+        estadoPorFactura[numeroFactura] = estado;
+    }
+
+    private Celda[] celdasDelDia(long dia) {
+        Celda[] celdas = agregadosPorDia.get(dia);
+        if (celdas == null) {
+            celdas = new Celda[GRUPOS];
+            for (int i = 0; i < GRUPOS; i++) {
+                celdas[i] = new Celda();
+            }
+            agregadosPorDia.put(dia, celdas);
+        }
+        return celdas;
+    }
+
+    private long contarCeldas() {
+        long celdas = 0;
+        for (Celda[] dia : agregadosPorDia.values()) {
+            for (Celda celda : dia) {
+                if (!celda.isVacia()) {
+                    celdas++;
+                }
+            }
+        }
+        return celdas;
+    }
+
+    /**
+     * Reescribe el diario con un registro por día con el acumulado de cada
+     * grupo, seguido de los estados registrados en bloques.
+     */
+    private void compactar() throws IOException {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try (FileChannel nuevo = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Map.Entry<Long, Celda[]> entrada : agregadosPorDia.entrySet()) {
+                ByteBuffer datos = ByteBuffer.allocate(1 + 8 + 1 + GRUPOS * TAMANO_MOVIMIENTO);
+                datos.put(TIPO_ACUMULADO).putLong(entrada.getKey());
+                int posicionCantidad = datos.position();
+                datos.put((byte) 0);
+                byte movimientos = 0;
+                Celda[] celdas = entrada.getValue();
+                for (int grupo = 0; grupo < GRUPOS; grupo++) {
+                    Celda celda = celdas[grupo];
+                    if (!celda.isVacia()) {
+                        datos.put((byte) grupo).putInt((int) celda.cantidad)
+                            .putLong(celda.ventas).putLong(celda.impuestos).putLong(celda.descuentos);
+                        movimientos++;
+                    }
+                }
+                if (movimientos > 0) {
+                    datos.put(posicionCantidad, movimientos);
+                    escribirRegistro(nuevo, datos);
+                }
+            }
+
+            ByteBuffer bloque = ByteBuffer.allocate(1 + 4 + ESTADOS_POR_BLOQUE * TAMANO_ESTADO);
+            int enBloque = 0;
+            for (int numero = 0; numero < estadoPorFactura.length; numero++) {
+                if (estadoPorFactura[numero] == SIN_REGISTRAR) {
+                    continue;
+                }
+                if (enBloque == 0) {
+                    bloque.clear();
+                    bloque.put(TIPO_ESTADOS).putInt(0);
+                }
+                bloque.putInt(numero).put(estadoPorFactura[numero]);
+                if (++enBloque == ESTADOS_POR_BLOQUE) {
+                    bloque.putInt(1, enBloque);
+                    escribirRegistro(nuevo, bloque);
+                    enBloque = 0;
+                }
+            }
+            if (enBloque > 0) {
+                bloque.putInt(1, enBloque);
+                escribirRegistro(nuevo, bloque);
+            }
+            nuevo.force(true);
+        }
+        canal.close();
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        canal = FileChannel.open(archivo, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        canal.position(canal.size());
+    }
+
+    private static void escribirRegistro(FileChannel destino, ByteBuffer datos) throws IOException {
+        datos.flip();
+        CRC32 crc = new CRC32();
+        crc.update(datos.duplicate());
+        ByteBuffer registro = ByteBuffer.allocate(TAMANO_ENCABEZADO + datos.remaining());
+        registro.putInt(datos.remaining()).putInt((int) crc.getValue()).put(datos).flip();
+        while (registro.hasRemaining()) {
+            destino.write(registro);
+        }
+    }
+
+    /**
+     * Escribe y sincroniza el cambio de una factura a un nuevo estado y luego
+     * lo aplica en memoria. Los movimientos retiran la factura del grupo de su
+     * estado anterior y la suman al del nuevo.
+     *
+     * @param factura Factura cuyos montos se mueven
+     * @param anterior Estado registrado hasta ahora
+     * @param nuevo Estado actual de la factura
+     */
+    private void registrarCambio(Factura factura, byte anterior, byte nuevo) {
+        long ventas = factura.getTotalCentimos();
+        long impuestos = factura.getImpuestoCentimos();
+        long descuentos = factura.getDescuentoCentimos();
+        int movimientos = (anterior > 0 ? 1 : 0) + (nuevo > 0 ? 1 : 0);
+
+        ByteBuffer datos = ByteBuffer.allocate(1 + 4 + 1 + 8 + 1 + movimientos * TAMANO_MOVIMIENTO);
+        datos.put(TIPO_CAMBIO).putInt(factura.getNumeroFactura()).put(nuevo)
+            .putLong(diaDe(factura.getFechaFactura())).put((byte) movimientos);
+        if (anterior > 0) {
+            datos.put((byte) (anterior - 1)).putInt(-1).putLong(-ventas).putLong(-impuestos).putLong(-descuentos);
+        }
+        if (nuevo > 0) {
+            datos.put((byte) (nuevo - 1)).putInt(1).putLong(ventas).putLong(impuestos).putLong(descuentos);
+        }
+
+        try {
+            escribirRegistro(canal, datos);
+            canal.force(false);
+        } catch (IOException e) {
+            throw new RuntimeException("Error al registrar los agregados de la factura " + factura.getNumeroFactura(), e);
+        }
+        datos.rewind();
+        aplicar(datos);
+        vacio = false;
+    }
+
+    private static byte estadoDe(Factura factura) {
+        return factura.isAnulada() ? ANULADA : (byte) (1 + grupoDe(factura));
+    }
+
+    private static long diaDe(Date fecha) {
+        return fecha.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    private static int grupoDe(TipoPago tipoPago, Moneda moneda) {
+        if (tipoPago == null) {
+            return GRUPO_SIN_PAGO;
+        }
+        Moneda monedaGrupo = moneda == null ? Moneda.COLONES : moneda;
+        return 1 + tipoPago.ordinal() * MONEDAS.length + monedaGrupo.ordinal();
+    }
+
+    private static int grupoDe(Factura factura) {
+        Pago pago = factura.getPago();
+        return pago == null ? GRUPO_SIN_PAGO : grupoDe(pago.getTipoPago(), pago.getMoneda());
+    }
+
+    @Override
+    public synchronized void registrar(Factura factura) {
+        if (factura == null) {
+            throw new IllegalArgumentException("La factura no puede ser nula");
+        }
+        byte anterior = estadoDe(factura.getNumeroFactura());
+        byte nuevo = estadoDe(factura);
+        if (anterior != nuevo) {
+            registrarCambio(factura, anterior, nuevo);
+        }
+    }
+
+    @Override
+    public synchronized ResumenFactura.Estado obtenerEstadoRegistrado(int numeroFactura) {
+        byte estado = estadoDe(numeroFactura);
+        if (estado == SIN_REGISTRAR) {
+            return null;
+        }
+        if (estado == ANULADA) {
+            return ResumenFactura.Estado.ANULADA;
+        }
+        return estado - 1 == GRUPO_SIN_PAGO ? ResumenFactura.Estado.PENDIENTE : ResumenFactura.Estado.PAGADA;
+    }
+
+    @Override
+    public TotalesVentas obtenerTotales(Date fechaInicio, Date fechaFin) {
+        return sumar(fechaInicio, fechaFin, -1);
+    }
+
+    @Override
+    public TotalesVentas obtenerTotales(Date fechaInicio, Date fechaFin, TipoPago tipoPago, Moneda moneda) {
+        return sumar(fechaInicio, fechaFin, grupoDe(tipoPago, moneda));
+    }
+
+    /**
+     * Suma los agregados de los días del rango para un grupo, o para todos si grupo es -1.
+     */
+    private synchronized TotalesVentas sumar(Date fechaInicio, Date fechaFin, int grupo) {
+        if (fechaInicio == null || fechaFin == null) {
+            throw new IllegalArgumentException("Las fechas no pueden ser nulas");
+        }
+        long diaInicio = diaDe(fechaInicio);
+        long diaFin = diaDe(fechaFin);
+        if (diaInicio > diaFin) {
+            return new TotalesVentas(0, 0, 0, 0);
+        }
+
+        long cantidad = 0;
+        long ventas = 0;
+        long impuestos = 0;
+        long descuentos = 0;
+        for (Celda[] celdas : agregadosPorDia.subMap(diaInicio, true, diaFin, true).values()) {
+            for (int i = 0; i < GRUPOS; i++) {
+                if (grupo >= 0 && i != grupo) {
+                    continue;
+                }
+                cantidad += celdas[i].cantidad;
+                ventas += celdas[i].ventas;
+                impuestos += celdas[i].impuestos;
+                descuentos += celdas[i].descuentos;
+            }
+        }
+        return new TotalesVentas(cantidad, Dinero.aMonto(ventas), Dinero.aMonto(impuestos),
+            Dinero.aMonto(descuentos));
+    }
+
+    @Override
+    public synchronized boolean estaVacio() {
+        return vacio;
+    }
+
+    @Override
+    public synchronized void reconstruir(Stream<Factura> facturas) {
+        agregadosPorDia.clear();
+        Arrays.fill(estadoPorFactura, SIN_REGISTRAR);
+        facturasRegistradas = 0;
+        facturas.forEach(factura -> {
+            ponerEstado(factura.getNumeroFactura(), estadoDe(factura));
+            if (factura.isAnulada()) {
+                return;
+            }
+            Celda celda = celdasDelDia(diaDe(factura.getFechaFactura()))[grupoDe(factura)];
+            celda.cantidad++;
+            celda.ventas += factura.getTotalCentimos();
+            celda.impuestos += factura.getImpuestoCentimos();
+            celda.descuentos += factura.getDescuentoCentimos();
+        });
+        try {
+            compactar();
+        } catch (IOException e) {
+            throw new RuntimeException("Error al reconstruir los agregados diarios", e);
+        }
+        vacio = false;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        canal.close();
+    }
+}
@@ -0,0 +1,339 @@
+package com.facturacion.repository.impl;
+
+import com.facturacion.model.Cliente;
+import com.facturacion.model.Codec;
+import com.facturacion.model.CodecBinario;
+import com.facturacion.repository.ClienteRepository;
+import com.facturacion.repository.Pagina;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * Caché en memoria de escritura directa (write-through) para un ClienteRepository.
+ * Mantiene como máximo {@code capacidadMaxima} clientes, descartando los menos
+ * usados recientemente. Un {@link WatchService} sobre el directorio de clientes
+ * invalida las entradas cuyos archivos modifica otro proceso.
+ *
+ * Los clientes se guardan codificados y cada consulta devuelve una copia nueva,
+ * de modo que modificar un cliente obtenido no altera la caché hasta que se
+ * guarda o actualiza. Las escrituras propias se reconocen por una suma de
+ * verificación del contenido del archivo, no por su fecha de modificación,
+ * cuya resolución depende del sistema de archivos.
+ */
+public class ClienteRepositoryCache implements ClienteRepository, Closeable {
+
+    private static final String PREFIJO_ARCHIVO = "cliente_";
+    private static final String EXTENSION_ARCHIVO = ".dat";
+
+    private final ClienteRepository delegado;
+    private final Path directorio;
+    private final int capacidadMaxima;
+    private static final Codec<Cliente> CODEC = CodecBinario.CLIENTE;
+
+    private final LinkedHashMap<Long, byte[]> clientes;
+    /**
+     * CRC32 del contenido de los archivos escritos por este proceso, para ignorar
+     * sus propios eventos. Sólo contiene cédulas presentes en la caché.
+     */
+    private final Map<Long, Long> escriturasPropias = new HashMap<>();
+    /** Indica si la caché contiene todos los clientes del repositorio. */
+    private boolean completa;
+
+    private final WatchService watchService;
+    private final Thread vigilante;
+
+    /**
+     * Crea una caché sobre el repositorio de clientes en disco.
+     *
+     * @param delegado Repositorio con los datos persistentes
+     * @param capacidadMaxima Cantidad máxima de clientes en memoria
+     */
+    public ClienteRepositoryCache(ClienteRepository delegado, int capacidadMaxima) {
+        this(delegado, Paths.get(ClienteRepositoryImpl.CLIENTES_DIR), capacidadMaxima);
+    }
+
+    /**
+     * Crea una caché sobre un repositorio de clientes.
+     *
+     * @param delegado Repositorio con los datos persistentes
+     * @param directorio Directorio a vigilar para detectar cambios externos
+     * @param capacidadMaxima Cantidad máxima de clientes en memoria
+     */
+    public ClienteRepositoryCache(ClienteRepository delegado, Path directorio, int capacidadMaxima) {
+        if (delegado == null) {
+            throw new IllegalArgumentException("El repositorio de clientes no puede ser nulo");
+        }
+        if (capacidadMaxima <= 0) {
+            throw new IllegalArgumentException("La capacidad de la caché debe ser mayor que cero");
+        }
+
+        this.delegado = delegado;
+        this.directorio = directorio;
+        this.capacidadMaxima = capacidadMaxima;
+        this.clientes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+                if (size() > ClienteRepositoryCache.this.capacidadMaxima) {
+                    escriturasPropias.remove(eldest.getKey());
+                    completa = false;
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        try {
+            Files.createDirectories(directorio);
+            this.watchService = FileSystems.getDefault().newWatchService();
+            directorio.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            throw new RuntimeException("Error al inicializar la caché de clientes", e);
+        }
+
+        this.vigilante = new Thread(this::vigilarCambios, "vigilante-clientes");
+        this.vigilante.setDaemon(true);
+        this.vigilante.start();
+    }
+
+    @Override
+    public synchronized Cliente guardar(Cliente cliente) {
+        // La escritura se hace bajo el mismo candado que el hilo vigilante,
+        // para que éste vea registrada la escritura propia antes de procesar su evento
+        Cliente guardado = delegado.guardar(cliente);
+        if (guardado != null) {
+            clientes.put(guardado.getCedula(), codificar(guardado));
+            registrarEscrituraPropia(guardado.getCedula());
+        }
+        return guardado;
+    }
+
+    @Override
+    public synchronized Optional<Cliente> buscarPorCedula(long cedula) {
+        byte[] datos = clientes.get(cedula);
+        if (datos != null) {
+            return Optional.of(decodificar(datos));
+        }
+        if (completa) {
+            return Optional.empty();
+        }
+
+        Optional<Cliente> encontrado = delegado.buscarPorCedula(cedula);
+        encontrado.ifPresent(c -> clientes.put(cedula, codificar(c)));
+        return encontrado;
+    }
+
+    @Override
+    public synchronized List<Cliente> buscarTodos() {
+        if (completa) {
+            List<Cliente> copias = new ArrayList<>(clientes.size());
+            for (byte[] datos : clientes.values()) {
+                copias.add(decodificar(datos));
+            }
+            return copias;
+        }
+
+        List<Cliente> todos = delegado.buscarTodos();
+        if (todos.size() <= capacidadMaxima) {
+            clientes.clear();
+            escriturasPropias.clear();
+            for (Cliente cliente : todos) {
+                clientes.put(cliente.getCedula(), codificar(cliente));
+            }
+            completa = true;
+        }
+        return todos;
+    }
+
+    @Override
+    public Pagina<Cliente> buscarPagina(Orden orden, String cursor, int limite) {
+        // El orden de las páginas lo mantiene el repositorio persistente
+        return delegado.buscarPagina(orden, cursor, limite);
+    }
+    
+    @Override
+    public List<Cliente> buscarPorNombre(String nombre) {
+        if (nombre == null || nombre.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        String busqueda = nombre.toLowerCase();
+        return buscarTodos().stream()
+            .filter(cliente -> cliente != null && cliente.getNombre() != null &&
+                   cliente.getNombre().toLowerCase().contains(busqueda))
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public synchronized boolean actualizar(Cliente cliente) {
+        boolean actualizado = delegado.actualizar(cliente);
+        if (actualizado) {
+            clientes.put(cliente.getCedula(), codificar(cliente));
+            registrarEscrituraPropia(cliente.getCedula());
+        }
+        return actualizado;
+    }
+
+    @Override
+    public synchronized boolean eliminar(long cedula) {
+        boolean eliminado = delegado.eliminar(cedula);
+        clientes.remove(cedula);
+        escriturasPropias.remove(cedula);
+        return eliminado;
+    }
+
+    @Override
+    public synchronized boolean existePorCedula(long cedula) {
+        if (clientes.containsKey(cedula)) {
+            return true;
+        }
+        return !completa && delegado.existePorCedula(cedula);
+    }
+
+    @Override
+    public synchronized void eliminarTodos() {
+        delegado.eliminarTodos();
+        clientes.clear();
+        escriturasPropias.clear();
+        completa = false;
+    }
+
+    /**
+     * Detiene la vigilancia del directorio de clientes.
+     */
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        vigilante.interrupt();
+    }
+
+    private void registrarEscrituraPropia(long cedula) {
+        try {
+            escriturasPropias.put(cedula, sumaContenido(getClientePath(cedula)));
+        } catch (IOException e) {
+            escriturasPropias.remove(cedula);
+        }
+    }
+
+    private static long sumaContenido(Path archivo) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(Files.readAllBytes(archivo));
+        return crc.getValue();
+    }
+
+    private static byte[] codificar(Cliente cliente) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            CODEC.escribir(out, cliente);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException("Error al copiar el cliente en la caché", e);
+        }
+    }
+
+    private static Cliente decodificar(byte[] datos) {
+        try {
+            return CODEC.leer(new DataInputStream(new ByteArrayInputStream(datos)));
+        } catch (IOException e) {
+            throw new RuntimeException("Error al leer el cliente de la caché", e);
+        }
+    }
+
+    private Path getClientePath(long cedula) {
+        return directorio.resolve(PREFIJO_ARCHIVO + cedula + EXTENSION_ARCHIVO);
+    }
+
+    /**
+     * Ciclo del hilo vigilante: invalida las entradas cuyos archivos cambian
+     * por acción de otro proceso.
+     */
+    private void vigilarCambios() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> evento : key.pollEvents()) {
+                    procesarEvento(evento);
+                }
+                if (!key.reset()) {
+                    synchronized (this) {
+                        clientes.clear();
+                        escriturasPropias.clear();
+                        completa = false;
+                    }
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // La caché se cerró
+        }
+    }
+
+    private synchronized void procesarEvento(WatchEvent<?> evento) {
+        if (evento.kind() == StandardWatchEventKinds.OVERFLOW) {
+            clientes.clear();
+            escriturasPropias.clear();
+            completa = false;
+            return;
+        }
+
+        String nombre = ((Path) evento.context()).getFileName().toString();
+        if (!nombre.startsWith(PREFIJO_ARCHIVO) || !nombre.endsWith(EXTENSION_ARCHIVO)) {
+            return;
+        }
+
+        long cedula;
+        try {
+            cedula = Long.parseLong(nombre.substring(PREFIJO_ARCHIVO.length(),
+                nombre.length() - EXTENSION_ARCHIVO.length()));
+        } catch (NumberFormatException e) {
+            return;
+        }
+
+        if (evento.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+            clientes.remove(cedula);
+            escriturasPropias.remove(cedula);
+            return;
+        }
+
+        // Ignorar los eventos generados por las escrituras de este proceso
+        Long modificacionPropia = escriturasPropias.get(cedula);
+        if (modificacionPropia != null) {
+            try {
+                if (sumaContenido(getClientePath(cedula)) == modificacionPropia) {
+                    return;
+                }
+            } catch (IOException e) {
+                // El archivo ya no existe o no se puede leer: invalidar
+            }
+        }
+
+        clientes.remove(cedula);
+        escriturasPropias.remove(cedula);
+        completa = false;
+    }
+}
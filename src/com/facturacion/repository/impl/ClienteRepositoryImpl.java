@@ -1,34 +1,70 @@
 package com.facturacion.repository.impl;
 
 import com.facturacion.model.Cliente;
-import com.facturacion.model.TipoCliente;
+import com.facturacion.model.Codec;
+import com.facturacion.model.CodecBinario;
 import com.facturacion.repository.ClienteRepository;
+import com.facturacion.repository.Pagina;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
- * Implementación de ClienteRepository que almacena los datos en archivos JSON.
+ * Implementación de ClienteRepository que almacena los clientes en archivos
+ * binarios escritos con un {@link Codec} (por defecto {@link CodecBinario}).
  */
 public class ClienteRepositoryImpl implements ClienteRepository {
     
     private static final String DATA_DIR = "data";
-    private static final String CLIENTES_DIR = DATA_DIR + File.separator + "clientes";
+    static final String CLIENTES_DIR = DATA_DIR + File.separator + "clientes";
+    private static final String INDICE_NOMBRES_FILE = CLIENTES_DIR + File.separator + "indice_nombres.idx";
+    
+    private final Codec<Cliente> codec;
+    
+    // Índices para la paginación; se arman al abrir el repositorio a partir del
+    // índice persistente de nombres y se mantienen con cada escritura
+    private final IndiceCamposTexto indiceNombres;
+    private final IndiceOrdenado<Long> indicePorCedula = new IndiceOrdenado<>(Long::valueOf);
+    private final IndiceOrdenado<String> indicePorNombre = new IndiceOrdenado<>(valor -> valor);
     
     public ClienteRepositoryImpl() {
+        this(CodecBinario.CLIENTE);
+    }
+    
+    /**
+     * Crea el repositorio usando el codec indicado para leer y escribir los archivos.
+     * 
+     * @param codec Codec de clientes
+     */
+    public ClienteRepositoryImpl(Codec<Cliente> codec) {
+        if (codec == null) {
+            throw new IllegalArgumentException("El codec no puede ser nulo");
+        }
+        this.codec = codec;
+        
         // Crear directorios si no existen
         try {
             Files.createDirectories(Paths.get(CLIENTES_DIR));
+            this.indiceNombres = new IndiceCamposTexto(Paths.get(INDICE_NOMBRES_FILE));
+            if (indiceNombres.cantidad() != contarClientes()) {
+                // Clientes guardados antes de existir el índice o escritura interrumpida
+                reconstruirIndiceNombres();
+            }
+            indiceNombres.recorrer((cedula, campos) -> ponerEnIndices(cedula, campos[0]));
         } catch (IOException e) {
             throw new RuntimeException("Error al inicializar el repositorio de clientes", e);
         }
@@ -45,8 +81,10 @@ public class ClienteRepositoryImpl implements ClienteRepository {
         }
         
         try (FileOutputStream fileOut = new FileOutputStream(getClientePath(cliente.getCedula()).toFile());
-             ObjectOutputStream out = new ObjectOutputStream(fileOut)) {
-            out.writeObject(cliente);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+            codec.escribir(out, cliente);
+            out.flush();
+            indexar(cliente);
             return cliente;
         } catch (IOException e) {
             throw new RuntimeException("Error al guardar el cliente", e);
@@ -61,25 +99,45 @@ public class ClienteRepositoryImpl implements ClienteRepository {
         }
         
         try (FileInputStream fileIn = new FileInputStream(filePath.toFile());
-             ObjectInputStream in = new ObjectInputStream(fileIn)) {
-            Cliente cliente = (Cliente) in.readObject();
+             DataInputStream in = new DataInputStream(new BufferedInputStream(fileIn))) {
+            Cliente cliente = codec.leer(in);
             return Optional.of(cliente);
-        } catch (IOException | ClassNotFoundException e) {
+        } catch (IOException e) {
             throw new RuntimeException("Error al leer el cliente con cédula: " + cedula, e);
         }
     }
     
+    private long contarClientes() throws IOException {
+        try (Stream<Path> paths = Files.list(Paths.get(CLIENTES_DIR))) {
+            return paths
+                .filter(Files::isRegularFile)
+                .filter(path -> path.toString().endsWith(".dat"))
+                .count();
+        }
+    }
+    
+    private void reconstruirIndiceNombres() throws IOException {
+        indiceNombres.limpiar();
+        for (Cliente cliente : leerTodos()) {
+            indiceNombres.registrar(cliente.getCedula(), cliente.getNombre());
+        }
+    }
+    
     @Override
     public List<Cliente> buscarTodos() {
+        return leerTodos();
+    }
+    
+    private List<Cliente> leerTodos() {
         try {
             return Files.list(Paths.get(CLIENTES_DIR))
                 .filter(Files::isRegularFile)
                 .filter(path -> path.toString().endsWith(".dat"))
                 .map(path -> {
                     try (FileInputStream fileIn = new FileInputStream(path.toFile());
-                         ObjectInputStream in = new ObjectInputStream(fileIn)) {
-                        return (Cliente) in.readObject();
-                    } catch (IOException | ClassNotFoundException e) {
+                         DataInputStream in = new DataInputStream(new BufferedInputStream(fileIn))) {
+                        return codec.leer(in);
+                    } catch (IOException e) {
                         throw new RuntimeException("Error al leer el archivo: " + path, e);
                     }
                 })
@@ -89,6 +147,46 @@ public class ClienteRepositoryImpl implements ClienteRepository {
         }
     }
     
+    @Override
+    public Pagina<Cliente> buscarPagina(Orden orden, String cursor, int limite) {
+        if (orden == null) {
+            throw new IllegalArgumentException("El orden no puede ser nulo");
+        }
+        
+        Pagina<Long> cedulas;
+        synchronized (indicePorCedula) {
+            cedulas = orden == Orden.NOMBRE
+                ? indicePorNombre.pagina(cursor, limite, false)
+                : indicePorCedula.pagina(cursor, limite, false);
+        }
+        
+        List<Cliente> clientes = new ArrayList<>(cedulas.getElementos().size());
+        for (long cedula : cedulas.getElementos()) {
+            buscarPorCedula(cedula).ifPresent(clientes::add);
+        }
+        return new Pagina<>(clientes, cedulas.getSiguienteCursor());
+    }
+    
+    /**
+     * Registra el cliente en el índice persistente de nombres y en los índices
+     * de paginación.
+     */
+    private void indexar(Cliente cliente) throws IOException {
+        synchronized (indicePorCedula) {
+            indiceNombres.registrar(cliente.getCedula(), cliente.getNombre());
+            ponerEnIndices(cliente.getCedula(), cliente.getNombre());
+        }
+    }
+    
+    private void ponerEnIndices(long cedula, String nombre) {
+        indicePorCedula.poner(cedula, cedula);
+        indicePorNombre.poner(cedula, claveNombre(nombre));
+    }
+    
+    private static String claveNombre(String nombre) {
+        return nombre == null ? "" : nombre.toLowerCase(Locale.ROOT);
+    }
+    
     @Override
     public List<Cliente> buscarPorNombre(String nombre) {
         if (nombre == null || nombre.trim().isEmpty()) {
@@ -121,6 +219,11 @@ public class ClienteRepositoryImpl implements ClienteRepository {
     public boolean eliminar(long cedula) {
         try {
             Path filePath = getClientePath(cedula);
+            synchronized (indicePorCedula) {
+                indiceNombres.eliminar(cedula);
+                indicePorCedula.quitar(cedula);
+                indicePorNombre.quitar(cedula);
+            }
             return Files.deleteIfExists(filePath);
         } catch (IOException e) {
             throw new RuntimeException("Error al eliminar el cliente con cédula: " + cedula, e);
@@ -130,6 +233,11 @@ public class ClienteRepositoryImpl implements ClienteRepository {
     @Override
     public void eliminarTodos() {
         try {
+            synchronized (indicePorCedula) {
+                indiceNombres.limpiar();
+                indicePorCedula.limpiar();
+                indicePorNombre.limpiar();
+            }
             Files.list(Paths.get(CLIENTES_DIR))
                 .filter(Files::isRegularFile)
                 .filter(path -> path.toString().endsWith(".dat"))
@@ -1,54 +1,310 @@
 package com.facturacion.repository.impl;
 
+import com.facturacion.model.Codec;
+import com.facturacion.model.CodecBinario;
 import com.facturacion.model.Factura;
 import com.facturacion.repository.FacturaRepository;
+import com.facturacion.repository.Pagina;
+import com.facturacion.repository.ResumenFactura;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
- * Implementación de FacturaRepository que almacena los datos en archivos JSON.
+ * Implementación de FacturaRepository que almacena las facturas en archivos
+ * binarios escritos con un {@link Codec} (por defecto {@link CodecBinario}).
+ * Soporta dos modos de almacenamiento: un archivo por factura o un registro
+ * de solo-anexado dividido en segmentos (ver {@link ModoAlmacenamiento}).
+ * 
+ * En ambos modos las facturas se agrupan en particiones por día
+ * ({@link ParticionDiaria}), cada una con un manifiesto de sus números de
+ * factura; una búsqueda por rango de fechas sólo abre las particiones de los
+ * días del rango. En el modo de segmentos cada partición tiene sus propios
+ * segmentos.
+ * 
+ * Los datos escritos con la serialización de Java por versiones anteriores
+ * del repositorio (incluido el registro de segmentos sin particionar en
+ * data/facturas/segmentos) no son compatibles con este formato y no se
+ * migran: ese directorio se ignora y debe exportarse con la versión que lo
+ * escribió antes de actualizar.
  */
 public class FacturaRepositoryImpl implements FacturaRepository {
     
     private static final String DATA_DIR = "data";
     private static final String FACTURAS_DIR = DATA_DIR + File.separator + "facturas";
+    private static final String PARTICIONES_DIR = FACTURAS_DIR + File.separator + "particiones";
+    private static final String INDICE_CLIENTES_FILE = FACTURAS_DIR + File.separator + "indice_clientes.idx";
+    private static final String RESUMENES_FILE = FACTURAS_DIR + File.separator + "resumenes_v2.col";
+    /** Resúmenes sin el nombre del cliente; se descartan y se reconstruyen. */
+    private static final String RESUMENES_ANTERIOR_FILE = FACTURAS_DIR + File.separator + "resumenes.col";
+    
+    /** Cantidad máxima de particiones con sus segmentos abiertos al mismo tiempo. */
+    private static final int MAXIMO_PARTICIONES_ABIERTAS = 32;
+    
+    /**
+     * Modos de almacenamiento soportados por el repositorio.
+     */
+    public enum ModoAlmacenamiento {
+        /** Un archivo FACT_XXXXXX.dat por factura. */
+        ARCHIVO_POR_FACTURA,
+        /** Facturas anexadas a segmentos grandes con un índice de posiciones en memoria. */
+        SEGMENTOS
+    }
+    
+    private final ModoAlmacenamiento modo;
+    private final Codec<Factura> codec;
+    private final IndiceFacturasCliente indiceClientes;
+    private final ResumenesFacturas resumenes;
+    private final TreeMap<Long, ParticionDiaria> particiones = new TreeMap<>();
+    private final Map<Integer, Long> diaPorNumero = new HashMap<>();
+    private final IndiceOrdenado<Long> indicePorNumero = new IndiceOrdenado<>(Long::valueOf);
+    private final IndiceOrdenado<Long> indicePorDia = new IndiceOrdenado<>(Long::valueOf);
+    private final LinkedHashMap<Long, ParticionDiaria> particionesAbiertas =
+        new LinkedHashMap<>(16, 0.75f, true);
     
     public FacturaRepositoryImpl() {
+        this(ModoAlmacenamiento.ARCHIVO_POR_FACTURA);
+    }
+    
+    /**
+     * Crea el repositorio con el modo de almacenamiento indicado.
+     * 
+     * @param modo Modo de almacenamiento a utilizar
+     */
+    public FacturaRepositoryImpl(ModoAlmacenamiento modo) {
+        this(modo, CodecBinario.FACTURA);
+    }
+    
+    /**
+     * Crea el repositorio con el modo de almacenamiento y el codec indicados.
+     * 
+     * @param modo Modo de almacenamiento a utilizar
+     * @param codec Codec de facturas
+     */
+    public FacturaRepositoryImpl(ModoAlmacenamiento modo, Codec<Factura> codec) {
+        if (modo == null) {
+            throw new IllegalArgumentException("El modo de almacenamiento no puede ser nulo");
+        }
+        if (codec == null) {
+            throw new IllegalArgumentException("El codec no puede ser nulo");
+        }
+        this.modo = modo;
+        this.codec = codec;
+        
         // Crear directorios si no existen
         try {
             Files.createDirectories(Paths.get(FACTURAS_DIR));
+            Files.createDirectories(Paths.get(PARTICIONES_DIR));
+            this.indiceClientes = new IndiceFacturasCliente(Paths.get(INDICE_CLIENTES_FILE));
+            Files.deleteIfExists(Paths.get(RESUMENES_ANTERIOR_FILE));
+            this.resumenes = new ResumenesFacturas(Paths.get(RESUMENES_FILE));
+            cargarParticiones();
+            
+            if (modo == ModoAlmacenamiento.ARCHIVO_POR_FACTURA && diaPorNumero.size() != contarFacturas()) {
+                // Facturas guardadas antes de existir los manifiestos
+                reconstruirManifiestos();
+            }
+            
+            if (resumenes.cantidad() != contarFacturas()) {
+                reconstruirResumenes();
+            }
+            // Reconstruir el índice de clientes si no está sincronizado con las facturas
+            // (primera ejecución o escritura interrumpida entre la factura y el índice).
+            // Las facturas sin cliente no se indexan, así que se compara con las
+            // facturas con cliente según los resúmenes ya conciliados
+            if (indiceClientes.cantidad() != resumenes.cantidadConCliente()) {
+                reconstruirIndiceClientes();
+            }
         } catch (IOException e) {
             throw new RuntimeException("Error al inicializar el repositorio de facturas", e);
         }
     }
     
+    /**
+     * Carga los manifiestos de todas las particiones. En el modo de segmentos
+     * se abre además la partición más reciente, que es la única que pudo quedar
+     * con una escritura interrumpida, para conciliar su manifiesto.
+     */
+    private void cargarParticiones() throws IOException {
+        try (Stream<Path> paths = Files.list(Paths.get(PARTICIONES_DIR))) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                String nombre = path.getFileName().toString();
+                if (Files.isDirectory(path) && nombre.startsWith(ParticionDiaria.PREFIJO_DIRECTORIO)) {
+                    long dia = Long.parseLong(nombre.substring(ParticionDiaria.PREFIJO_DIRECTORIO.length()));
+                    particiones.put(dia, new ParticionDiaria(Paths.get(PARTICIONES_DIR), dia));
+                }
+            }
+        }
+        
+        if (modo == ModoAlmacenamiento.SEGMENTOS && !particiones.isEmpty()) {
+            obtenerRegistro(particiones.lastEntry().getValue());
+        }
+        for (ParticionDiaria particion : particiones.values()) {
+            for (int numeroFactura : particion.getNumeros()) {
+                diaPorNumero.put(numeroFactura, particion.getDia());
+                indicePorNumero.poner(numeroFactura, (long) numeroFactura);
+                indicePorDia.poner(numeroFactura, particion.getDia());
+            }
+        }
+    }
+    
+    /**
+     * Reconstruye los manifiestos de las particiones a partir de los archivos
+     * de factura existentes (modo de un archivo por factura).
+     */
+    private void reconstruirManifiestos() throws IOException {
+        try (Stream<Factura> facturas = recorrerAlmacen()) {
+            for (Factura factura : (Iterable<Factura>) facturas::iterator) {
+                if (factura != null && factura.getFechaFactura() != null) {
+                    registrarEnParticion(factura);
+                }
+            }
+        }
+    }
+    
+    private long contarFacturas() throws IOException {
+        if (modo == ModoAlmacenamiento.SEGMENTOS) {
+            return diaPorNumero.size();
+        }
+        try (Stream<Path> paths = Files.list(Paths.get(FACTURAS_DIR))) {
+            return paths
+                .filter(Files::isRegularFile)
+                .filter(path -> path.toString().endsWith(".dat"))
+                .count();
+        }
+    }
+    
+    private void reconstruirIndiceClientes() throws IOException {
+        indiceClientes.limpiar();
+        try (Stream<Factura> facturas = recorrerAlmacen()) {
+            for (Factura factura : (Iterable<Factura>) facturas::iterator) {
+                if (factura != null && factura.getCliente() != null) {
+                    indiceClientes.registrar(factura.getCliente().getCedula(), factura.getNumeroFactura());
+                }
+            }
+        }
+    }
+    
+    private void reconstruirResumenes() throws IOException {
+        resumenes.limpiar();
+        try (Stream<Factura> facturas = recorrerAlmacen()) {
+            for (Factura factura : (Iterable<Factura>) facturas::iterator) {
+                if (factura != null && factura.getFechaFactura() != null) {
+                    resumenes.registrar(factura);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Registra la factura en el índice de clientes y en los resúmenes una vez escrita.
+     */
+    private void indexar(Factura factura) throws IOException {
+        if (factura.getCliente() != null) {
+            indiceClientes.registrar(factura.getCliente().getCedula(), factura.getNumeroFactura());
+        }
+        resumenes.registrar(factura);
+    }
+    
+    /**
+     * Calcula el día época (en la zona horaria del sistema) de una fecha.
+     */
+    private static long diaDe(Date fecha) {
+        return fecha.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+    
+    private synchronized ParticionDiaria obtenerParticion(long dia) throws IOException {
+        ParticionDiaria particion = particiones.get(dia);
+        if (particion == null) {
+            particion = new ParticionDiaria(Paths.get(PARTICIONES_DIR), dia);
+            particiones.put(dia, particion);
+        }
+        return particion;
+    }
+    
+    private synchronized void registrarEnParticion(Factura factura) throws IOException {
+        long dia = diaDe(factura.getFechaFactura());
+        obtenerParticion(dia).registrar(factura.getNumeroFactura());
+        diaPorNumero.put(factura.getNumeroFactura(), dia);
+        indicePorNumero.poner(factura.getNumeroFactura(), (long) factura.getNumeroFactura());
+        indicePorDia.poner(factura.getNumeroFactura(), dia);
+    }
+    
+    /**
+     * Obtiene el registro de segmentos de una partición, manteniendo abiertas
+     * como máximo {@link #MAXIMO_PARTICIONES_ABIERTAS} particiones.
+     */
+    private synchronized RegistroSegmentos obtenerRegistro(ParticionDiaria particion) throws IOException {
+        particionesAbiertas.put(particion.getDia(), particion);
+        if (particionesAbiertas.size() > MAXIMO_PARTICIONES_ABIERTAS) {
+            Map.Entry<Long, ParticionDiaria> masAntigua = particionesAbiertas.entrySet().iterator().next();
+            particionesAbiertas.remove(masAntigua.getKey());
+            masAntigua.getValue().cerrarRegistro();
+        }
+        return particion.getRegistro();
+    }
+    
+    public ModoAlmacenamiento getModo() {
+        return modo;
+    }
+    
     private Path getFacturaPath(int numeroFactura) {
         return Paths.get(FACTURAS_DIR, String.format("FACT_%06d.dat", numeroFactura));
     }
     
     @Override
-    public Factura guardar(Factura factura) {
+    public synchronized Factura guardar(Factura factura) {
         if (factura == null) {
             return null;
         }
         
+        if (modo == ModoAlmacenamiento.SEGMENTOS) {
+            try {
+                ParticionDiaria particion = obtenerParticion(diaDe(factura.getFechaFactura()));
+                obtenerRegistro(particion).anexar(factura.getNumeroFactura(), serializar(factura));
+                registrarEnParticion(factura);
+                indexar(factura);
+                return factura;
+            } catch (IOException e) {
+                throw new RuntimeException("Error al guardar la factura", e);
+            }
+        }
+        
         try (FileOutputStream fileOut = new FileOutputStream(getFacturaPath(factura.getNumeroFactura()).toFile());
-             ObjectOutputStream out = new ObjectOutputStream(fileOut)) {
-            out.writeObject(factura);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+            codec.escribir(out, factura);
+            out.flush();
+            registrarEnParticion(factura);
+            indexar(factura);
             return factura;
         } catch (IOException e) {
             throw new RuntimeException("Error al guardar la factura", e);
@@ -56,49 +312,200 @@ public class FacturaRepositoryImpl implements FacturaRepository {
     }
     
     @Override
-    public Optional<Factura> buscarPorNumero(int numeroFactura) {
+    public synchronized Optional<Factura> buscarPorNumero(int numeroFactura) {
+        if (modo == ModoAlmacenamiento.SEGMENTOS) {
+            Long dia = diaPorNumero.get(numeroFactura);
+            if (dia == null) {
+                return Optional.empty();
+            }
+            try {
+                byte[] datos = obtenerRegistro(particiones.get(dia)).leer(numeroFactura);
+                return datos == null ? Optional.empty() : Optional.of(deserializar(datos));
+            } catch (IOException e) {
+                throw new RuntimeException("Error al leer la factura con número: " + numeroFactura, e);
+            }
+        }
+        
+        return leerArchivoFactura(numeroFactura);
+    }
+    
+    private Optional<Factura> leerArchivoFactura(int numeroFactura) {
         Path filePath = getFacturaPath(numeroFactura);
         if (!Files.exists(filePath)) {
             return Optional.empty();
         }
         
         try (FileInputStream fileIn = new FileInputStream(filePath.toFile());
-             ObjectInputStream in = new ObjectInputStream(fileIn)) {
-            Factura factura = (Factura) in.readObject();
+             DataInputStream in = new DataInputStream(new BufferedInputStream(fileIn))) {
+            Factura factura = codec.leer(in);
             return Optional.of(factura);
-        } catch (IOException | ClassNotFoundException e) {
+        } catch (IOException e) {
             throw new RuntimeException("Error al leer la factura con número: " + numeroFactura, e);
         }
     }
     
     @Override
     public List<Factura> buscarTodas() {
-        try (Stream<Path> paths = Files.list(Paths.get(FACTURAS_DIR))) {
+        try (Stream<Factura> facturas = recorrerTodas()) {
+            return facturas
+                .sorted(Comparator.comparingInt(Factura::getNumeroFactura).reversed())
+                .collect(Collectors.toList());
+        }
+    }
+    
+    @Override
+    public Stream<Factura> recorrerTodas() {
+        return recorrerAlmacen();
+    }
+    
+    /**
+     * Recorre todas las facturas almacenadas. Lo usan también las
+     * reconstrucciones del constructor, por lo que no debe ser sobrescribible.
+     */
+    private Stream<Factura> recorrerAlmacen() {
+        if (modo == ModoAlmacenamiento.SEGMENTOS) {
+            return recorrerParticiones(instantanea(particiones.values()));
+        }
+        
+        // En el modo de un archivo por factura se recorre el directorio, que no
+        // depende de los manifiestos (se usa también para reconstruirlos)
+        try {
+            Stream<Path> paths = Files.list(Paths.get(FACTURAS_DIR));
             return paths
                 .filter(Files::isRegularFile)
                 .filter(path -> path.toString().endsWith(".dat"))
-                .map(path -> {
-                    try (FileInputStream fileIn = new FileInputStream(path.toFile());
-                         ObjectInputStream in = new ObjectInputStream(fileIn)) {
-                        return (Factura) in.readObject();
-                    } catch (IOException | ClassNotFoundException e) {
-                        throw new RuntimeException("Error al leer el archivo: " + path, e);
-                    }
-                })
-                .sorted(Comparator.comparingInt(Factura::getNumeroFactura).reversed())
-                .collect(Collectors.toList());
+                .map(this::leerArchivo);
         } catch (IOException e) {
             throw new RuntimeException("Error al listar las facturas", e);
         }
     }
     
+    private synchronized List<ParticionDiaria> instantanea(Collection<ParticionDiaria> seleccion) {
+        return new ArrayList<>(seleccion);
+    }
+    
+    /**
+     * Recorre perezosamente las facturas de las particiones indicadas, en orden
+     * de almacenamiento. Cada partición se abre cuando el recorrido llega a ella
+     * y sus archivos se cierran al pasar a la siguiente.
+     */
+    private Stream<Factura> recorrerParticiones(List<ParticionDiaria> seleccion) {
+        return seleccion.stream().flatMap(this::recorrerParticion);
+    }
+    
+    private Stream<Factura> recorrerParticion(ParticionDiaria particion) {
+        if (modo == ModoAlmacenamiento.ARCHIVO_POR_FACTURA) {
+            return particion.getNumeros().stream()
+                .map(this::leerArchivoFactura)
+                .flatMap(Optional::stream);
+        }
+        
+        RegistroSegmentos.Cursor cursor;
+        try {
+            cursor = abrirCursor(particion);
+        } catch (IOException e) {
+            throw new RuntimeException("Error al leer la partición del día " + particion.getDia(), e);
+        }
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .map(datos -> {
+                try {
+                    return deserializar(datos);
+                } catch (IOException e) {
+                    throw new RuntimeException("Error al leer una factura de la partición del día " + particion.getDia(), e);
+                }
+            })
+            .onClose(cursor::close);
+    }
+    
+    private synchronized RegistroSegmentos.Cursor abrirCursor(ParticionDiaria particion) throws IOException {
+        return obtenerRegistro(particion).abrirCursor();
+    }
+    
+    private Factura leerArchivo(Path path) {
+        try (FileInputStream fileIn = new FileInputStream(path.toFile());
+             DataInputStream in = new DataInputStream(new BufferedInputStream(fileIn))) {
+            return codec.leer(in);
+        } catch (IOException e) {
+            throw new RuntimeException("Error al leer el archivo: " + path, e);
+        }
+    }
+    
+    @Override
+    public Pagina<Factura> buscarPagina(Orden orden, String cursor, int limite) {
+        if (orden == null) {
+            throw new IllegalArgumentException("El orden no puede ser nulo");
+        }
+        
+        Pagina<Long> numeros;
+        switch (orden) {
+            case FECHA:
+                numeros = indicePorDia.pagina(cursor, limite, false);
+                break;
+            case RECIENTES:
+                numeros = indicePorDia.pagina(cursor, limite, true);
+                break;
+            default:
+                numeros = indicePorNumero.pagina(cursor, limite, false);
+        }
+        
+        List<Factura> facturas = new ArrayList<>(numeros.getElementos().size());
+        for (long numeroFactura : numeros.getElementos()) {
+            buscarPorNumero((int) numeroFactura).ifPresent(facturas::add);
+        }
+        return new Pagina<>(facturas, numeros.getSiguienteCursor());
+    }
+    
     @Override
     public List<Factura> buscarPorCliente(long cedulaCliente) {
-        return buscarTodas().stream()
-            .filter(factura -> factura != null && 
-                             factura.getCliente() != null && 
-                             factura.getCliente().getCedula() == cedulaCliente)
-            .collect(Collectors.toList());
+        List<Factura> facturas = new ArrayList<>();
+        for (int numeroFactura : indiceClientes.buscar(cedulaCliente)) {
+            buscarPorNumero(numeroFactura).ifPresent(facturas::add);
+        }
+        return facturas;
+    }
+    
+    @Override
+    public Stream<Factura> recorrerPorCliente(long cedulaCliente) {
+        return indiceClientes.buscarEnOrdenDeRegistro(cedulaCliente).stream()
+            .map(this::buscarPorNumero)
+            .flatMap(Optional::stream);
+    }
+    
+    @Override
+    public boolean existePorCliente(long cedulaCliente) {
+        return indiceClientes.tieneFacturas(cedulaCliente);
+    }
+    
+    @Override
+    public void recorrerResumenes(Date fechaInicio, Date fechaFin, Consumer<ResumenFactura> consumidor) {
+        recorrerResumenes(fechaInicio, fechaFin, 0, Integer.MAX_VALUE, consumidor);
+    }
+    
+    @Override
+    public int contarResumenes() {
+        return resumenes.cantidad();
+    }
+    
+    @Override
+    public void recorrerResumenes(Date fechaInicio, Date fechaFin, int posicionDesde, int posicionHasta,
+                                  Consumer<ResumenFactura> consumidor) {
+        if (fechaInicio == null || fechaFin == null) {
+            throw new IllegalArgumentException("Las fechas no pueden ser nulas");
+        }
+        
+        // Igual que en las particiones, el rango abarca días completos
+        long diaInicio = diaDe(fechaInicio);
+        long diaFin = diaDe(fechaFin);
+        if (diaInicio > diaFin) {
+            return;
+        }
+        resumenes.recorrer(inicioDelDia(diaInicio), inicioDelDia(diaFin + 1),
+            posicionDesde, posicionHasta, consumidor);
+    }
+    
+    private static long inicioDelDia(long dia) {
+        return LocalDate.ofEpochDay(dia).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
     
     @Override
@@ -110,60 +517,55 @@ public class FacturaRepositoryImpl implements FacturaRepository {
     
     @Override
     public List<Factura> buscarPorRangoFechas(Date fechaInicio, Date fechaFin) {
+        try (Stream<Factura> facturas = recorrerPorRangoFechas(fechaInicio, fechaFin)) {
+            return facturas
+                .sorted(Comparator.comparingInt(Factura::getNumeroFactura).reversed())
+                .collect(Collectors.toList());
+        }
+    }
+    
+    @Override
+    public Stream<Factura> recorrerPorRangoFechas(Date fechaInicio, Date fechaFin) {
         if (fechaInicio == null || fechaFin == null) {
             throw new IllegalArgumentException("Las fechas no pueden ser nulas");
         }
         
-        // Normalizar fechas para comparación (sin hora/minuto/segundo)
-        Calendar calInicio = Calendar.getInstance();
-        calInicio.setTime(fechaInicio);
-        setToStartOfDay(calInicio);
-        
-        Calendar calFin = Calendar.getInstance();
-        calFin.setTime(fechaFin);
-        setToEndOfDay(calFin);
-        
-        final Date startDate = calInicio.getTime();
-        final Date endDate = calFin.getTime();
+        // Las fechas se comparan por día completo, por lo que basta con abrir
+        // las particiones de los días del rango
+        long diaInicio = diaDe(fechaInicio);
+        long diaFin = diaDe(fechaFin);
+        if (diaInicio > diaFin) {
+            return Stream.empty();
+        }
         
-        return buscarTodas().stream()
-            .filter(factura -> factura != null && factura.getFechaFactura() != null)
-            .filter(factura -> {
-                Date facturaDate = factura.getFechaFactura();
-                return (facturaDate.equals(startDate) || facturaDate.after(startDate)) &&
-                       (facturaDate.before(endDate) || facturaDate.equals(endDate));
-            })
-            .collect(Collectors.toList());
+        return recorrerParticiones(instantanea(particiones.subMap(diaInicio, true, diaFin, true).values()));
     }
     
-    /**
-     * Establece la hora, minuto, segundo y milisegundo al inicio del día (00:00:00.000).
-     */
-    private void setToStartOfDay(Calendar calendar) {
-        calendar.set(Calendar.HOUR_OF_DAY, 0);
-        calendar.set(Calendar.MINUTE, 0);
-        calendar.set(Calendar.SECOND, 0);
-        calendar.set(Calendar.MILLISECOND, 0);
+    @Override
+    public synchronized Optional<Factura> obtenerUltimaFactura() {
+        // Los manifiestos de las particiones ya tienen todos los números en memoria
+        return diaPorNumero.keySet().stream()
+            .max(Integer::compare)
+            .flatMap(this::buscarPorNumero);
     }
     
-    /**
-     * Establece la hora, minuto, segundo y milisegundo al final del día (23:59:59.999).
-     */
-    private void setToEndOfDay(Calendar calendar) {
-        calendar.set(Calendar.HOUR_OF_DAY, 23);
-        calendar.set(Calendar.MINUTE, 59);
-        calendar.set(Calendar.SECOND, 59);
-        calendar.set(Calendar.MILLISECOND, 999);
+    @Override
+    public synchronized boolean existePorNumero(int numeroFactura) {
+        if (modo == ModoAlmacenamiento.SEGMENTOS) {
+            return diaPorNumero.containsKey(numeroFactura);
+        }
+        return Files.exists(getFacturaPath(numeroFactura));
     }
     
-    @Override
-    public Optional<Factura> obtenerUltimaFactura() {
-        return buscarTodas().stream()
-            .max(Comparator.comparingInt(Factura::getNumeroFactura));
+    private byte[] serializar(Factura factura) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            codec.escribir(out, factura);
+        }
+        return bytes.toByteArray();
     }
     
-    @Override
-    public boolean existePorNumero(int numeroFactura) {
-        return Files.exists(getFacturaPath(numeroFactura));
+    private Factura deserializar(byte[] datos) throws IOException {
+        return codec.leer(new DataInputStream(new ByteArrayInputStream(datos)));
     }
 }
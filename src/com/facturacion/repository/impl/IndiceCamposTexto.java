@@ -0,0 +1,244 @@
+package com.facturacion.repository.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Índice persistente con los campos de texto (nombre, descripción) de cada
+ * entidad de un repositorio, a partir del cual se arman en memoria los índices
+ * de paginación y de búsqueda sin leer los archivos de las entidades.
+ *
+ * Se guarda como un archivo de solo-anexado con una entrada por cambio:
+ * identificador (long), cantidad de campos (short, -1 si la entidad se
+ * eliminó) y cada campo como largo en bytes (short, -1 si es null) seguido
+ * del texto en UTF-8. Al abrirlo se reproducen las entradas y el índice queda
+ * completo en memoria. Cuando las entradas obsoletas superan a las vigentes,
+ * el archivo se reescribe solo con estas.
+ */
+class IndiceCamposTexto implements Closeable {
+
+    private static final int TAMANO_ENCABEZADO = 10;
+    private static final short NULO = -1;
+    /** Cantidad mínima de entradas obsoletas antes de compactar el archivo. */
+    private static final int MINIMO_PARA_COMPACTAR = 1024;
+    /**
+     * Caracteres que se indexan de cada campo; a lo sumo 3 bytes UTF-8 por
+     * carácter, así el largo siempre cabe en un short.
+     */
+    private static final int LARGO_MAXIMO = 8000;
+
+    private final Path archivo;
+    private FileChannel canal;
+    private final Map<Long, String[]> camposPorId = new HashMap<>();
+    private int entradasEnArchivo;
+
+    IndiceCamposTexto(Path archivo) throws IOException {
+        Files.createDirectories(archivo.getParent());
+        this.archivo = archivo;
+        this.canal = FileChannel.open(archivo,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        cargar();
+    }
+
+    private void cargar() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) canal.size());
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+
+        long completo = 0;
+        while (buffer.remaining() >= TAMANO_ENCABEZADO) {
+            long id = buffer.getLong();
+            short cantidad = buffer.getShort();
+            if (cantidad == NULO) {
+                camposPorId.remove(id);
+            } else {
+                String[] campos = leerCampos(buffer, cantidad);
+                if (campos == null) {
+                    break;
+                }
+                camposPorId.put(id, campos);
+            }
+            entradasEnArchivo++;
+            completo = buffer.position();
+        }
+        // Descartar una entrada incompleta por una escritura interrumpida
+        canal.truncate(completo);
+    }
+
+    /**
+     * @return Los campos leídos, o null si la entrada está incompleta o dañada
+     */
+    private static String[] leerCampos(ByteBuffer buffer, short cantidad) {
+        if (cantidad < 0) {
+            return null;
+        }
+        String[] campos = new String[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            if (buffer.remaining() < Short.BYTES) {
+                return null;
+            }
+            short largo = buffer.getShort();
+            if (largo == NULO) {
+                continue;
+            }
+            if (largo < 0 || largo > buffer.remaining()) {
+                return null;
+            }
+            byte[] bytes = new byte[largo];
+            buffer.get(bytes);
+            campos[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return campos;
+    }
+
+    /**
+     * Registra los campos de una entidad, reemplazando los anteriores.
+     * Si los campos no cambiaron no se escribe nada.
+     *
+     * @param id Identificador de la entidad
+     * @param campos Campos de texto (pueden ser null)
+     * @throws IOException Si ocurre un error al escribir el índice
+     */
+    synchronized void registrar(long id, String... campos) throws IOException {
+        String[] recortados = recortar(campos);
+        if (Arrays.equals(camposPorId.get(id), recortados)) {
+            return;
+        }
+        ByteBuffer entrada = codificar(id, recortados);
+        camposPorId.put(id, recortados);
+        anexar(entrada);
+    }
+
+    private static String[] recortar(String[] campos) {
+        if (campos.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Demasiados campos para indexar");
+        }
+        String[] recortados = campos.clone();
+        for (int i = 0; i < recortados.length; i++) {
+            if (recortados[i] != null && recortados[i].length() > LARGO_MAXIMO) {
+                int fin = Character.isHighSurrogate(recortados[i].charAt(LARGO_MAXIMO - 1))
+                    ? LARGO_MAXIMO - 1 : LARGO_MAXIMO;
+                recortados[i] = recortados[i].substring(0, fin);
+            }
+        }
+        return recortados;
+    }
+
+    /**
+     * Quita una entidad del índice.
+     *
+     * @param id Identificador de la entidad
+     * @throws IOException Si ocurre un error al escribir el índice
+     */
+    synchronized void eliminar(long id) throws IOException {
+        if (camposPorId.remove(id) == null) {
+            return;
+        }
+        anexar(codificar(id, null));
+    }
+
+    /**
+     * Entrega al consumidor el identificador y los campos de cada entidad indexada.
+     */
+    synchronized void recorrer(BiConsumer<Long, String[]> consumidor) {
+        for (Map.Entry<Long, String[]> entrada : camposPorId.entrySet()) {
+            consumidor.accept(entrada.getKey(), entrada.getValue().clone());
+        }
+    }
+
+    synchronized int cantidad() {
+        return camposPorId.size();
+    }
+
+    /**
+     * Vacía el índice en memoria y en disco.
+     */
+    synchronized void limpiar() throws IOException {
+        camposPorId.clear();
+        entradasEnArchivo = 0;
+        canal.truncate(0);
+    }
+
+    private void anexar(ByteBuffer entrada) throws IOException {
+        long posicion = canal.size();
+        while (entrada.hasRemaining()) {
+            canal.write(entrada, posicion + entrada.position());
+        }
+        entradasEnArchivo++;
+
+        int obsoletas = entradasEnArchivo - camposPorId.size();
+        if (obsoletas >= MINIMO_PARA_COMPACTAR && obsoletas > camposPorId.size()) {
+            compactar();
+        }
+    }
+
+    private static ByteBuffer codificar(long id, String[] campos) {
+        if (campos == null) {
+            ByteBuffer entrada = ByteBuffer.allocate(TAMANO_ENCABEZADO);
+            entrada.putLong(id).putShort(NULO).flip();
+            return entrada;
+        }
+        byte[][] bytes = new byte[campos.length][];
+        int tamano = TAMANO_ENCABEZADO;
+        for (int i = 0; i < campos.length; i++) {
+            tamano += Short.BYTES;
+            if (campos[i] != null) {
+                bytes[i] = campos[i].getBytes(StandardCharsets.UTF_8);
+                tamano += bytes[i].length;
+            }
+        }
+        ByteBuffer entrada = ByteBuffer.allocate(tamano);
+        entrada.putLong(id).putShort((short) campos.length);
+        for (byte[] campo : bytes) {
+            if (campo == null) {
+                entrada.putShort(NULO);
+            } else {
+                entrada.putShort((short) campo.length).put(campo);
+            }
+        }
+        entrada.flip();
+        return entrada;
+    }
+
+    /**
+     * Reescribe el archivo con una entrada por entidad vigente, en un archivo
+     * temporal que luego reemplaza al original.
+     */
+    private void compactar() throws IOException {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try (FileChannel nuevo = FileChannel.open(temporal,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Map.Entry<Long, String[]> entrada : camposPorId.entrySet()) {
+                ByteBuffer bytes = codificar(entrada.getKey(), entrada.getValue());
+                while (bytes.hasRemaining()) {
+                    nuevo.write(bytes);
+                }
+            }
+            nuevo.force(true);
+        }
+        canal.close();
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        canal = FileChannel.open(archivo, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        entradasEnArchivo = camposPorId.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        canal.close();
+    }
+}
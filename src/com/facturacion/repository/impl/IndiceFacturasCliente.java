@@ -0,0 +1,129 @@
+package com.facturacion.repository.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice secundario persistente de cédula de cliente a números de factura.
+ * Se guarda como un archivo de solo-anexado con pares (cédula, número) de
+ * 12 bytes y se mantiene completo en memoria, de modo que obtener el historial
+ * de un cliente cuesta lo mismo que la cantidad de facturas de ese cliente.
+ */
+class IndiceFacturasCliente implements Closeable {
+
+    private static final int TAMANO_ENTRADA = 12;
+
+    private final FileChannel canal;
+    private final Map<Long, List<Integer>> facturasPorCliente = new HashMap<>();
+    private final Map<Integer, Long> clientePorFactura = new HashMap<>();
+
+    IndiceFacturasCliente(Path archivo) throws IOException {
+        Files.createDirectories(archivo.getParent());
+        this.canal = FileChannel.open(archivo,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        cargar();
+    }
+
+    private void cargar() throws IOException {
+        long entradas = canal.size() / TAMANO_ENTRADA;
+        ByteBuffer buffer = ByteBuffer.allocate((int) (entradas * TAMANO_ENTRADA));
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        while (buffer.remaining() >= TAMANO_ENTRADA) {
+            agregarEnMemoria(buffer.getLong(), buffer.getInt());
+        }
+        // Descartar una entrada incompleta por una escritura interrumpida
+        canal.truncate(entradas * TAMANO_ENTRADA);
+    }
+
+    private boolean agregarEnMemoria(long cedula, int numeroFactura) {
+        if (clientePorFactura.putIfAbsent(numeroFactura, cedula) != null) {
+            return false;
+        }
+        facturasPorCliente.computeIfAbsent(cedula, c -> new ArrayList<>()).add(numeroFactura);
+        return true;
+    }
+
+    /**
+     * Registra que una factura pertenece a un cliente. Si la factura ya estaba
+     * indexada no se hace nada.
+     *
+     * @param cedula Cédula del cliente
+     * @param numeroFactura Número de la factura
+     * @throws IOException Si ocurre un error al escribir el índice
+     */
+    synchronized void registrar(long cedula, int numeroFactura) throws IOException {
+        if (!agregarEnMemoria(cedula, numeroFactura)) {
+            return;
+        }
+        ByteBuffer entrada = ByteBuffer.allocate(TAMANO_ENTRADA);
+        entrada.putLong(cedula).putInt(numeroFactura).flip();
+        long posicion = canal.size();
+        while (entrada.hasRemaining()) {
+            canal.write(entrada, posicion + entrada.position());
+        }
+    }
+
+    /**
+     * Obtiene los números de las facturas de un cliente, en orden descendente.
+     *
+     * @param cedula Cédula del cliente
+     * @return Lista de números de factura (vacía si el cliente no tiene facturas)
+     */
+    synchronized List<Integer> buscar(long cedula) {
+        List<Integer> numeros = facturasPorCliente.get(cedula);
+        if (numeros == null) {
+            return new ArrayList<>();
+        }
+        List<Integer> copia = new ArrayList<>(numeros);
+        copia.sort(Collections.reverseOrder());
+        return copia;
+    }
+
+    /**
+     * Obtiene los números de las facturas de un cliente en el orden en que se registraron.
+     *
+     * @param cedula Cédula del cliente
+     * @return Lista de números de factura (vacía si el cliente no tiene facturas)
+     */
+    synchronized List<Integer> buscarEnOrdenDeRegistro(long cedula) {
+        List<Integer> numeros = facturasPorCliente.get(cedula);
+        return numeros == null ? new ArrayList<>() : new ArrayList<>(numeros);
+    }
+
+    synchronized boolean tieneFacturas(long cedula) {
+        return facturasPorCliente.containsKey(cedula);
+    }
+
+    synchronized int cantidad() {
+        return clientePorFactura.size();
+    }
+
+    /**
+     * Vacía el índice en memoria y en disco.
+     */
+    synchronized void limpiar() throws IOException {
+        facturasPorCliente.clear();
+        clientePorFactura.clear();
+        canal.truncate(0);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        canal.close();
+    }
+}
@@ -0,0 +1,255 @@
+package com.facturacion.repository.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice persistente de número de código (código de barras) a código de
+ * producto, para las búsquedas de las cajas registradoras.
+ *
+ * Se guarda como un archivo de solo-anexado con una entrada por cambio:
+ * código del producto (int), largo del número de código en bytes (short, -1
+ * si el producto se eliminó o dejó de tener número) y el número en UTF-8. Al
+ * abrirlo se reproducen las entradas y el índice queda completo en memoria,
+ * así que una búsqueda es una consulta a un HashMap. Cuando las entradas
+ * obsoletas superan a las vigentes, el archivo se reescribe solo con estas.
+ *
+ * Si varios productos comparten un número, la búsqueda devuelve el último que
+ * lo registró; los demás se conservan aparte y, si ese producto se elimina o
+ * cambia de número, el número pasa al último de los que quedan.
+ */
+class IndiceNumeroCodigo implements Closeable {
+
+    private static final int TAMANO_ENCABEZADO = 6;
+    private static final short ELIMINADO = -1;
+    /** Cantidad mínima de entradas obsoletas antes de compactar el archivo. */
+    private static final int MINIMO_PARA_COMPACTAR = 1024;
+
+    private final Path archivo;
+    private FileChannel canal;
+    private final Map<String, Integer> productoPorNumero = new HashMap<>();
+    private final Map<Integer, String> numeroPorProducto = new HashMap<>();
+    /** Productos que comparten un número con el de productoPorNumero, en orden de registro. */
+    private final Map<String, List<Integer>> otrosPorNumero = new HashMap<>();
+    private int entradasEnArchivo;
+
+    IndiceNumeroCodigo(Path archivo) throws IOException {
+        Files.createDirectories(archivo.getParent());
+        this.archivo = archivo;
+        this.canal = FileChannel.open(archivo,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        cargar();
+    }
+
+    private void cargar() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) canal.size());
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+
+        long completo = 0;
+        while (buffer.remaining() >= TAMANO_ENCABEZADO) {
+            int codigo = buffer.getInt();
+            short largo = buffer.getShort();
+            if (largo < ELIMINADO || largo > buffer.remaining()) {
+                break;
+            }
+            if (largo == ELIMINADO) {
+                quitarEnMemoria(codigo);
+            } else {
+                byte[] bytes = new byte[largo];
+                buffer.get(bytes);
+                ponerEnMemoria(codigo, new String(bytes, StandardCharsets.UTF_8));
+            }
+            entradasEnArchivo++;
+            completo = buffer.position();
+        }
+        // Descartar una entrada incompleta por una escritura interrumpida
+        canal.truncate(completo);
+    }
+
+    /**
+     * Normaliza un número de código para indexarlo o buscarlo.
+     *
+     * @return El número sin espacios alrededor, o null si está vacío
+     */
+    static String normalizar(String numeroCodigo) {
+        if (numeroCodigo == null) {
+            return null;
+        }
+        String normalizado = numeroCodigo.trim();
+        return normalizado.isEmpty() ? null : normalizado;
+    }
+
+    private void ponerEnMemoria(int codigo, String numeroCodigo) {
+        quitarEnMemoria(codigo);
+        Integer anterior = productoPorNumero.put(numeroCodigo, codigo);
+        if (anterior != null) {
+            otrosPorNumero.computeIfAbsent(numeroCodigo, numero -> new ArrayList<>(2)).add(anterior);
+        }
+        numeroPorProducto.put(codigo, numeroCodigo);
+    }
+
+    private void quitarEnMemoria(int codigo) {
+        String anterior = numeroPorProducto.remove(codigo);
+        if (anterior == null) {
+            return;
+        }
+        List<Integer> otros = otrosPorNumero.get(anterior);
+        if (Integer.valueOf(codigo).equals(productoPorNumero.get(anterior))) {
+            if (otros == null) {
+                productoPorNumero.remove(anterior);
+            } else {
+                // El número pasa al último de los productos que lo comparten
+                productoPorNumero.put(anterior, otros.remove(otros.size() - 1));
+            }
+        } else if (otros != null) {
+            otros.remove(Integer.valueOf(codigo));
+        }
+        if (otros != null && otros.isEmpty()) {
+            otrosPorNumero.remove(anterior);
+        }
+    }
+
+    /**
+     * Registra el número de código de un producto, reemplazando el anterior.
+     * Si el número no cambió no se escribe nada.
+     *
+     * @param codigo Código del producto
+     * @param numeroCodigo Número de código (null o vacío para quitarlo del índice)
+     * @throws IOException Si ocurre un error al escribir el índice
+     */
+    synchronized void registrar(int codigo, String numeroCodigo) throws IOException {
+        String normalizado = normalizar(numeroCodigo);
+        String actual = numeroPorProducto.get(codigo);
+        if (normalizado == null) {
+            eliminar(codigo);
+            return;
+        }
+        if (normalizado.equals(actual) && Integer.valueOf(codigo).equals(productoPorNumero.get(normalizado))) {
+            return;
+        }
+        ByteBuffer entrada = codificar(codigo, normalizado);
+        ponerEnMemoria(codigo, normalizado);
+        anexar(entrada);
+    }
+
+    /**
+     * Quita un producto del índice.
+     *
+     * @param codigo Código del producto
+     * @throws IOException Si ocurre un error al escribir el índice
+     */
+    synchronized void eliminar(int codigo) throws IOException {
+        if (!numeroPorProducto.containsKey(codigo)) {
+            return;
+        }
+        quitarEnMemoria(codigo);
+        anexar(codificar(codigo, null));
+    }
+
+    /**
+     * @param numeroCodigo Número de código a buscar
+     * @return Código del producto con ese número, o null si no hay ninguno
+     */
+    synchronized Integer buscar(String numeroCodigo) {
+        String normalizado = normalizar(numeroCodigo);
+        return normalizado == null ? null : productoPorNumero.get(normalizado);
+    }
+
+    /**
+     * @return true si ningún producto tiene número registrado
+     */
+    synchronized boolean isVacio() {
+        return numeroPorProducto.isEmpty();
+    }
+
+    /**
+     * Vacía el índice en memoria y en disco.
+     */
+    synchronized void limpiar() throws IOException {
+        productoPorNumero.clear();
+        numeroPorProducto.clear();
+        otrosPorNumero.clear();
+        entradasEnArchivo = 0;
+        canal.truncate(0);
+    }
+
+    private void anexar(ByteBuffer entrada) throws IOException {
+        long posicion = canal.size();
+        while (entrada.hasRemaining()) {
+            canal.write(entrada, posicion + entrada.position());
+        }
+        entradasEnArchivo++;
+
+        int obsoletas = entradasEnArchivo - numeroPorProducto.size();
+        if (obsoletas >= MINIMO_PARA_COMPACTAR && obsoletas > numeroPorProducto.size()) {
+            compactar();
+        }
+    }
+
+    private static ByteBuffer codificar(int codigo, String numeroCodigo) {
+        if (numeroCodigo == null) {
+            ByteBuffer entrada = ByteBuffer.allocate(TAMANO_ENCABEZADO);
+            entrada.putInt(codigo).putShort(ELIMINADO).flip();
+            return entrada;
+        }
+        byte[] bytes = numeroCodigo.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("El número de código es demasiado largo");
+        }
+        ByteBuffer entrada = ByteBuffer.allocate(TAMANO_ENCABEZADO + bytes.length);
+        entrada.putInt(codigo).putShort((short) bytes.length).put(bytes).flip();
+        return entrada;
+    }
+
+    /**
+     * Reescribe el archivo con una entrada por producto vigente, en un archivo
+     * temporal que luego reemplaza al original. Los productos que comparten un
+     * número se escriben en su orden de registro y el que lo tiene asignado
+     * al final, para que al recargar el orden sea el mismo.
+     */
+    private void compactar() throws IOException {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try (FileChannel nuevo = FileChannel.open(temporal,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Map.Entry<String, Integer> entrada : productoPorNumero.entrySet()) {
+                for (int otro : otrosPorNumero.getOrDefault(entrada.getKey(), Collections.emptyList())) {
+                    escribirCompleto(nuevo, codificar(otro, entrada.getKey()));
+                }
+                escribirCompleto(nuevo, codificar(entrada.getValue(), entrada.getKey()));
+            }
+            nuevo.force(true);
+        }
+        canal.close();
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        canal = FileChannel.open(archivo, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        entradasEnArchivo = numeroPorProducto.size();
+    }
+
+    private static void escribirCompleto(FileChannel destino, ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            destino.write(bytes);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        canal.close();
+    }
+}
@@ -0,0 +1,125 @@
+package com.facturacion.repository.impl;
+
+import com.facturacion.repository.Pagina;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Índice en memoria de identificadores ordenados por una clave de orden,
+ * usado para la paginación por clave (keyset). Cada entrada es el par
+ * (valor, id), de modo que el orden es total aunque haya valores repetidos.
+ * Una página se obtiene en O(log n + límite), sin importar el tamaño de la tabla.
+ *
+ * El cursor de una página es el texto "id:valor" de su último elemento.
+ *
+ * @param <K> Tipo del valor por el que se ordena
+ */
+class IndiceOrdenado<K extends Comparable<K>> {
+
+    private static final char SEPARADOR_CURSOR = ':';
+
+    private static final class Entrada<K extends Comparable<K>> implements Comparable<Entrada<K>> {
+        final K valor;
+        final long id;
+
+        Entrada(K valor, long id) {
+            this.valor = valor;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Entrada<K> otra) {
+            int comparacion = valor.compareTo(otra.valor);
+            return comparacion != 0 ? comparacion : Long.compare(id, otra.id);
+        }
+    }
+
+    private final TreeSet<Entrada<K>> entradas = new TreeSet<>();
+    private final Map<Long, K> valorPorId = new HashMap<>();
+    private final Function<String, K> lectorValor;
+
+    /**
+     * @param lectorValor Convierte el texto de un valor (tal como lo produce
+     *                    {@code toString()}) de vuelta al valor, para leer cursores
+     */
+    IndiceOrdenado(Function<String, K> lectorValor) {
+        this.lectorValor = lectorValor;
+    }
+
+    /**
+     * Agrega un identificador o actualiza su valor de orden.
+     */
+    synchronized void poner(long id, K valor) {
+        K anterior = valorPorId.put(id, valor);
+        if (anterior != null) {
+            entradas.remove(new Entrada<>(anterior, id));
+        }
+        entradas.add(new Entrada<>(valor, id));
+    }
+
+    synchronized void quitar(long id) {
+        K anterior = valorPorId.remove(id);
+        if (anterior != null) {
+            entradas.remove(new Entrada<>(anterior, id));
+        }
+    }
+
+    synchronized void limpiar() {
+        entradas.clear();
+        valorPorId.clear();
+    }
+
+    /**
+     * Obtiene los identificadores de una página.
+     *
+     * @param cursor Cursor devuelto por la página anterior, o null para la primera
+     * @param limite Cantidad máxima de identificadores
+     * @param descendente true para recorrer de mayor a menor
+     * @return Página de identificadores con el cursor de la siguiente
+     * @throws IllegalArgumentException Si el cursor o el límite no son válidos
+     */
+    synchronized Pagina<Long> pagina(String cursor, int limite, boolean descendente) {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("El límite de la página debe ser mayor que cero");
+        }
+
+        NavigableSet<Entrada<K>> restantes;
+        if (cursor == null) {
+            restantes = descendente ? entradas.descendingSet() : entradas;
+        } else {
+            Entrada<K> desde = leerCursor(cursor);
+            restantes = descendente ? entradas.headSet(desde, false).descendingSet()
+                                    : entradas.tailSet(desde, false);
+        }
+
+        List<Long> ids = new ArrayList<>(Math.min(limite, 64));
+        Iterator<Entrada<K>> iterador = restantes.iterator();
+        Entrada<K> ultima = null;
+        while (ids.size() < limite && iterador.hasNext()) {
+            ultima = iterador.next();
+            ids.add(ultima.id);
+        }
+
+        String siguienteCursor = iterador.hasNext() ? ultima.id + String.valueOf(SEPARADOR_CURSOR) + ultima.valor : null;
+        return new Pagina<>(ids, siguienteCursor);
+    }
+
+    private Entrada<K> leerCursor(String cursor) {
+        int separador = cursor.indexOf(SEPARADOR_CURSOR);
+        if (separador <= 0) {
+            throw new IllegalArgumentException("Cursor de paginación inválido: " + cursor);
+        }
+        try {
+            long id = Long.parseLong(cursor.substring(0, separador));
+            return new Entrada<>(lectorValor.apply(cursor.substring(separador + 1)), id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido: " + cursor, e);
+        }
+    }
+}
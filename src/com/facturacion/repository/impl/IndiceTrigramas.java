@@ -0,0 +1,151 @@
+package com.facturacion.repository.impl;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido de trigramas para la búsqueda de subcadenas en textos
+ * cortos (nombre y descripción de productos). Los textos se normalizan a
+ * minúsculas y sin tildes ni diéresis, por lo que "cafe" encuentra "Café" y
+ * "pina" encuentra "Piña".
+ *
+ * Una búsqueda intersecta las listas de los trigramas de la consulta,
+ * empezando por la más corta, y confirma cada candidato contra el texto
+ * normalizado; su costo depende del tamaño de esas listas y no de la
+ * cantidad de textos indexados. Las consultas de menos de tres caracteres
+ * no tienen trigramas y se resuelven recorriendo los textos en memoria.
+ */
+class IndiceTrigramas {
+
+    private static final int LONGITUD_TRIGRAMA = 3;
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+
+    private final Map<Long, Set<Integer>> listasPorTrigrama = new HashMap<>();
+    private final Map<Integer, String[]> textosPorId = new HashMap<>();
+
+    /**
+     * Normaliza un texto para la búsqueda: sin marcas diacríticas y en minúsculas.
+     */
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String descompuesto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        return MARCAS_DIACRITICAS.matcher(descompuesto).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private static long trigrama(String texto, int inicio) {
+        return ((long) texto.charAt(inicio) << 32)
+            | ((long) texto.charAt(inicio + 1) << 16)
+            | texto.charAt(inicio + 2);
+    }
+
+    private static Set<Long> trigramas(String texto) {
+        Set<Long> resultado = new LinkedHashSet<>();
+        for (int i = 0; i + LONGITUD_TRIGRAMA <= texto.length(); i++) {
+            resultado.add(trigrama(texto, i));
+        }
+        return resultado;
+    }
+
+    /**
+     * Indexa (o reindexa) los campos de texto de un identificador.
+     *
+     * @param id Identificador del elemento
+     * @param campos Textos a indexar; cada uno se busca por separado
+     */
+    synchronized void poner(int id, String... campos) {
+        quitar(id);
+        String[] normalizados = new String[campos.length];
+        for (int i = 0; i < campos.length; i++) {
+            normalizados[i] = normalizar(campos[i]);
+            for (long trigrama : trigramas(normalizados[i])) {
+                listasPorTrigrama.computeIfAbsent(trigrama, t -> new HashSet<>()).add(id);
+            }
+        }
+        textosPorId.put(id, normalizados);
+    }
+
+    synchronized void quitar(int id) {
+        String[] anteriores = textosPorId.remove(id);
+        if (anteriores == null) {
+            return;
+        }
+        for (String texto : anteriores) {
+            for (long trigrama : trigramas(texto)) {
+                Set<Integer> lista = listasPorTrigrama.get(trigrama);
+                if (lista != null && lista.remove(id) && lista.isEmpty()) {
+                    listasPorTrigrama.remove(trigrama);
+                }
+            }
+        }
+    }
+
+    synchronized void limpiar() {
+        listasPorTrigrama.clear();
+        textosPorId.clear();
+    }
+
+    /**
+     * Busca los identificadores cuyo texto contiene la consulta en alguno de sus campos.
+     *
+     * @param consulta Texto a buscar
+     * @return Identificadores que coinciden, en orden ascendente
+     */
+    synchronized List<Integer> buscar(String consulta) {
+        String busqueda = normalizar(consulta);
+        if (busqueda.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Integer> resultado = new ArrayList<>();
+        if (busqueda.length() < LONGITUD_TRIGRAMA) {
+            for (Map.Entry<Integer, String[]> entrada : textosPorId.entrySet()) {
+                if (contiene(entrada.getValue(), busqueda)) {
+                    resultado.add(entrada.getKey());
+                }
+            }
+            resultado.sort(null);
+            return resultado;
+        }
+
+        List<Set<Integer>> listas = new ArrayList<>();
+        for (long trigrama : trigramas(busqueda)) {
+            Set<Integer> lista = listasPorTrigrama.get(trigrama);
+            if (lista == null) {
+                return resultado;
+            }
+            listas.add(lista);
+        }
+        listas.sort(Comparator.comparingInt(Set::size));
+
+        Set<Integer> menor = listas.get(0);
+        List<Set<Integer>> resto = listas.subList(1, listas.size());
+        for (int id : menor) {
+            if (resto.stream().allMatch(lista -> lista.contains(id))
+                    && contiene(textosPorId.get(id), busqueda)) {
+                resultado.add(id);
+            }
+        }
+        resultado.sort(null);
+        return resultado;
+    }
+
+    /**
+     * Confirma la coincidencia: tener todos los trigramas no garantiza que
+     * aparezcan contiguos y en orden.
+     */
+    private static boolean contiene(String[] textos, String busqueda) {
+        return Arrays.stream(textos).anyMatch(texto -> texto.contains(busqueda));
+    }
+}
@@ -0,0 +1,118 @@
+package com.facturacion.repository.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Partición de facturas correspondiente a un día (día época, en la zona
+ * horaria del sistema). Cada partición tiene un manifiesto con los números de
+ * las facturas del día y, en el modo de segmentos, su propio
+ * {@link RegistroSegmentos}, que se abre sólo cuando se necesita.
+ */
+class ParticionDiaria implements Closeable {
+
+    static final String PREFIJO_DIRECTORIO = "dia_";
+    private static final String MANIFIESTO_FILE = "manifiesto.dat";
+
+    private final long dia;
+    private final Path directorio;
+    private final Set<Integer> numeros = new LinkedHashSet<>();
+    private final FileChannel manifiesto;
+    private RegistroSegmentos registro;
+
+    ParticionDiaria(Path directorioBase, long dia) throws IOException {
+        this.dia = dia;
+        this.directorio = directorioBase.resolve(PREFIJO_DIRECTORIO + dia);
+        Files.createDirectories(directorio);
+        this.manifiesto = FileChannel.open(directorio.resolve(MANIFIESTO_FILE),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        cargarManifiesto();
+    }
+
+    private void cargarManifiesto() throws IOException {
+        long entradas = manifiesto.size() / Integer.BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate((int) (entradas * Integer.BYTES));
+        while (buffer.hasRemaining()) {
+            if (manifiesto.read(buffer, buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        while (buffer.remaining() >= Integer.BYTES) {
+            numeros.add(buffer.getInt());
+        }
+        manifiesto.truncate(entradas * Integer.BYTES);
+    }
+
+    long getDia() {
+        return dia;
+    }
+
+    /**
+     * Agrega un número de factura al manifiesto si aún no estaba.
+     *
+     * @param numeroFactura Número de la factura
+     * @return true si el número es nuevo en la partición
+     * @throws IOException Si ocurre un error al escribir el manifiesto
+     */
+    synchronized boolean registrar(int numeroFactura) throws IOException {
+        if (!numeros.add(numeroFactura)) {
+            return false;
+        }
+        ByteBuffer entrada = ByteBuffer.allocate(Integer.BYTES);
+        entrada.putInt(numeroFactura).flip();
+        long posicion = manifiesto.size();
+        while (entrada.hasRemaining()) {
+            manifiesto.write(entrada, posicion + entrada.position());
+        }
+        return true;
+    }
+
+    synchronized List<Integer> getNumeros() {
+        return new ArrayList<>(numeros);
+    }
+
+    synchronized boolean isAbierta() {
+        return registro != null;
+    }
+
+    /**
+     * Obtiene el registro de segmentos de la partición, abriéndolo si hace falta.
+     * Al abrirlo se agregan al manifiesto las facturas escritas en los segmentos
+     * que no alcanzaron a registrarse por una escritura interrumpida.
+     */
+    synchronized RegistroSegmentos getRegistro() throws IOException {
+        if (registro == null) {
+            registro = new RegistroSegmentos(directorio);
+            for (int numeroFactura : registro.claves()) {
+                registrar(numeroFactura);
+            }
+        }
+        return registro;
+    }
+
+    /**
+     * Cierra el registro de segmentos; el manifiesto sigue disponible.
+     */
+    synchronized void cerrarRegistro() throws IOException {
+        if (registro != null) {
+            registro.close();
+            registro = null;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        cerrarRegistro();
+        manifiesto.close();
+    }
+}
@@ -1,39 +1,115 @@
 package com.facturacion.repository.impl;
 
+import com.facturacion.model.Codec;
+import com.facturacion.model.CodecBinario;
 import com.facturacion.model.Producto;
 import com.facturacion.model.ProductoPerecedero;
+import com.facturacion.repository.Pagina;
 import com.facturacion.repository.ProductoRepository;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
- * Implementación de ProductoRepository que almacena los datos en archivos JSON.
+ * Implementación de ProductoRepository que almacena los productos en archivos
+ * binarios escritos con un {@link Codec} (por defecto {@link CodecBinario}).
+ * El nombre, la descripción y demás datos descriptivos se guardan en un archivo
+ * por producto, que se reescribe con poca frecuencia. Las existencias, el precio
+ * y el impuesto viven en una {@link TablaInventario} mapeada en memoria, de modo
+ * que los cambios de inventario se escriben en sitio.
  */
 public class ProductoRepositoryImpl implements ProductoRepository {
     
     private static final String DATA_DIR = "data";
     private static final String PRODUCTOS_DIR = DATA_DIR + File.separator + "productos";
+    private static final String INVENTARIO_FILE = PRODUCTOS_DIR + File.separator + "inventario.tbl";
+    private static final String INDICE_NUMEROS_FILE = PRODUCTOS_DIR + File.separator + "numeros_codigo.idx";
+    private static final String INDICE_TEXTOS_FILE = PRODUCTOS_DIR + File.separator + "textos.idx";
+    
+    private final TablaInventario inventario;
+    private final IndiceNumeroCodigo indiceNumeros;
+    private final Codec<Producto> codec;
+    private final List<OyenteCambios> oyentes = new CopyOnWriteArrayList<>();
+    
+    // Índices para la paginación y la búsqueda por texto; se arman al abrir el
+    // repositorio a partir del índice persistente de textos y se mantienen con
+    // cada escritura
+    private final IndiceCamposTexto indiceTextos;
+    private final IndiceOrdenado<Long> indicePorCodigo = new IndiceOrdenado<>(Long::valueOf);
+    private final IndiceOrdenado<String> indicePorNombre = new IndiceOrdenado<>(valor -> valor);
+    private final IndiceTrigramas indiceTexto = new IndiceTrigramas();
     
     public ProductoRepositoryImpl() {
+        this(CodecBinario.PRODUCTO);
+    }
+    
+    /**
+     * Crea el repositorio usando el codec indicado para leer y escribir los archivos.
+     * 
+     * @param codec Codec de productos
+     */
+    public ProductoRepositoryImpl(Codec<Producto> codec) {
+        if (codec == null) {
+            throw new IllegalArgumentException("El codec no puede ser nulo");
+        }
+        this.codec = codec;
+        
         // Crear directorios si no existen
         try {
             Files.createDirectories(Paths.get(PRODUCTOS_DIR));
+            this.inventario = new TablaInventario(Paths.get(INVENTARIO_FILE));
+            
+            boolean indiceNumerosExistia = Files.exists(Paths.get(INDICE_NUMEROS_FILE));
+            this.indiceNumeros = new IndiceNumeroCodigo(Paths.get(INDICE_NUMEROS_FILE));
+            this.indiceTextos = new IndiceCamposTexto(Paths.get(INDICE_TEXTOS_FILE));
+            // El índice de textos tiene una entrada por producto y se escribe
+            // después del de números, así que si su cantidad coincide con los
+            // archivos de producto ninguna escritura quedó a medias en ninguno
+            // de los dos. Se reconstruyen si no coincide (productos guardados
+            // antes de existir los índices o escritura interrumpida) o si el
+            // archivo del índice de números no existía
+            if (!indiceNumerosExistia || indiceTextos.cantidad() != contarProductos()) {
+                reconstruirIndices();
+            }
+            indiceTextos.recorrer((codigo, campos) -> ponerEnIndices(codigo.intValue(), campos[0], campos[1]));
         } catch (IOException e) {
             throw new RuntimeException("Error al inicializar el repositorio de productos", e);
         }
     }
     
+    private long contarProductos() throws IOException {
+        try (Stream<Path> paths = Files.list(Paths.get(PRODUCTOS_DIR))) {
+            return paths
+                .filter(Files::isRegularFile)
+                .filter(path -> path.toString().endsWith(".dat"))
+                .count();
+        }
+    }
+    
+    private void reconstruirIndices() throws IOException {
+        indiceNumeros.limpiar();
+        indiceTextos.limpiar();
+        for (Producto producto : leerTodos()) {
+            indiceNumeros.registrar(producto.getCodigo(), producto.getNumeroCodigo());
+            indiceTextos.registrar(producto.getCodigo(), producto.getNombre(), producto.getDescripcion());
+        }
+    }
+    
     private Path getProductoPath(int codigo) {
         return Paths.get(PRODUCTOS_DIR, "PROD_" + codigo + ".dat");
     }
@@ -45,8 +121,14 @@ public class ProductoRepositoryImpl implements ProductoRepository {
         }
         
         try (FileOutputStream fileOut = new FileOutputStream(getProductoPath(producto.getCodigo()).toFile());
-             ObjectOutputStream out = new ObjectOutputStream(fileOut)) {
-            out.writeObject(producto);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+            codec.escribir(out, producto);
+            out.flush();
+            inventario.escribir(producto.getCodigo(), producto.getCantidadProducto(),
+                producto.getPrecio(), producto.getImpuesto());
+            indiceNumeros.registrar(producto.getCodigo(), producto.getNumeroCodigo());
+            indexar(producto);
+            notificarCambio(producto.getCodigo());
             return producto;
         } catch (IOException e) {
             throw new RuntimeException("Error al guardar el producto", e);
@@ -61,24 +143,34 @@ public class ProductoRepositoryImpl implements ProductoRepository {
         }
         
         try (FileInputStream fileIn = new FileInputStream(filePath.toFile());
-             ObjectInputStream in = new ObjectInputStream(fileIn)) {
-            return Optional.ofNullable((Producto) in.readObject());
-        } catch (IOException | ClassNotFoundException e) {
+             DataInputStream in = new DataInputStream(new BufferedInputStream(fileIn))) {
+            return Optional.ofNullable(aplicarInventario(codec.leer(in)));
+        } catch (IOException e) {
             throw new RuntimeException("Error al leer el producto con código: " + codigo, e);
         }
     }
     
+    @Override
+    public Optional<Producto> buscarPorNumeroCodigo(String numeroCodigo) {
+        Integer codigo = indiceNumeros.buscar(numeroCodigo);
+        return codigo == null ? Optional.empty() : buscarPorCodigo(codigo);
+    }
+    
     @Override
     public List<Producto> buscarTodos() {
+        return leerTodos();
+    }
+    
+    private List<Producto> leerTodos() {
         try {
             return Files.list(Paths.get(PRODUCTOS_DIR))
                 .filter(Files::isRegularFile)
                 .filter(path -> path.toString().endsWith(".dat"))
                 .map(path -> {
                     try (FileInputStream fileIn = new FileInputStream(path.toFile());
-                         ObjectInputStream in = new ObjectInputStream(fileIn)) {
-                        return (Producto) in.readObject();
-                    } catch (IOException | ClassNotFoundException e) {
+                         DataInputStream in = new DataInputStream(new BufferedInputStream(fileIn))) {
+                        return aplicarInventario(codec.leer(in));
+                    } catch (IOException e) {
                         throw new RuntimeException("Error al leer el archivo: " + path, e);
                     }
                 })
@@ -88,16 +180,65 @@ public class ProductoRepositoryImpl implements ProductoRepository {
         }
     }
     
+    @Override
+    public Pagina<Producto> buscarPagina(Orden orden, String cursor, int limite) {
+        if (orden == null) {
+            throw new IllegalArgumentException("El orden no puede ser nulo");
+        }
+        
+        Pagina<Long> codigos;
+        synchronized (indicePorCodigo) {
+            codigos = orden == Orden.NOMBRE
+                ? indicePorNombre.pagina(cursor, limite, false)
+                : indicePorCodigo.pagina(cursor, limite, false);
+        }
+        
+        List<Producto> productos = new ArrayList<>(codigos.getElementos().size());
+        for (long codigo : codigos.getElementos()) {
+            buscarPorCodigo((int) codigo).ifPresent(productos::add);
+        }
+        return new Pagina<>(productos, codigos.getSiguienteCursor());
+    }
+    
+    /**
+     * Registra el producto en el índice persistente de textos y en los índices
+     * de paginación y búsqueda.
+     */
+    private void indexar(Producto producto) throws IOException {
+        synchronized (indicePorCodigo) {
+            indiceTextos.registrar(producto.getCodigo(), producto.getNombre(), producto.getDescripcion());
+            ponerEnIndices(producto.getCodigo(), producto.getNombre(), producto.getDescripcion());
+        }
+    }
+    
+    private void ponerEnIndices(int codigo, String nombre, String descripcion) {
+        indicePorCodigo.poner(codigo, (long) codigo);
+        indicePorNombre.poner(codigo, claveNombre(nombre));
+        indiceTexto.poner(codigo, nombre, descripcion);
+    }
+    
+    private static String claveNombre(String nombre) {
+        return nombre == null ? "" : nombre.toLowerCase(Locale.ROOT);
+    }
+    
     @Override
     public List<Producto> buscarPorNombre(String nombre) {
         if (nombre == null || nombre.trim().isEmpty()) {
             return new ArrayList<>();
         }
         
-        String busqueda = nombre.toLowerCase();
-        return buscarTodos().stream()
-            .filter(producto -> producto.getNombre().toLowerCase().contains(busqueda))
-            .collect(Collectors.toList());
+        // El índice de trigramas resuelve la búsqueda; sólo se leen del disco
+        // los productos que coinciden
+        List<Integer> codigos;
+        synchronized (indicePorCodigo) {
+            codigos = indiceTexto.buscar(nombre);
+        }
+        
+        List<Producto> productos = new ArrayList<>(codigos.size());
+        for (int codigo : codigos) {
+            buscarPorCodigo(codigo).ifPresent(productos::add);
+        }
+        return productos;
     }
     
     @Override
@@ -128,11 +269,30 @@ public class ProductoRepositoryImpl implements ProductoRepository {
         }
     }
     
+    @Override
+    public boolean actualizarInventario(int codigo, int cantidad) {
+        boolean ajustado = inventario.ajustarExistencias(codigo, cantidad);
+        if (ajustado) {
+            notificarCambio(codigo);
+        }
+        return ajustado;
+    }
+    
     @Override
     public boolean eliminar(int codigo) {
         try {
             Path filePath = getProductoPath(codigo);
-            return Files.deleteIfExists(filePath);
+            inventario.eliminar(codigo);
+            indiceNumeros.eliminar(codigo);
+            synchronized (indicePorCodigo) {
+                indiceTextos.eliminar(codigo);
+                indicePorCodigo.quitar(codigo);
+                indicePorNombre.quitar(codigo);
+                indiceTexto.quitar(codigo);
+            }
+            boolean eliminado = Files.deleteIfExists(filePath);
+            notificarCambio(codigo);
+            return eliminado;
         } catch (IOException e) {
             throw new RuntimeException("Error al eliminar el producto con código: " + codigo, e);
         }
@@ -140,6 +300,18 @@ public class ProductoRepositoryImpl implements ProductoRepository {
     
     @Override
     public void eliminarTodos() {
+        inventario.eliminarTodos();
+        try {
+            indiceNumeros.limpiar();
+            synchronized (indicePorCodigo) {
+                indiceTextos.limpiar();
+                indicePorCodigo.limpiar();
+                indicePorNombre.limpiar();
+                indiceTexto.limpiar();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error al limpiar los índices de productos", e);
+        }
         try {
             Files.list(Paths.get(PRODUCTOS_DIR))
                 .filter(Files::isRegularFile)
@@ -153,11 +325,48 @@ public class ProductoRepositoryImpl implements ProductoRepository {
                 });
         } catch (IOException e) {
             throw new RuntimeException("Error al limpiar el repositorio de productos", e);
+        } finally {
+            for (OyenteCambios oyente : oyentes) {
+                oyente.todosCambiados();
+            }
+        }
+    }
+    
+    @Override
+    public void agregarOyente(OyenteCambios oyente) {
+        if (oyente == null) {
+            throw new IllegalArgumentException("El oyente no puede ser nulo");
+        }
+        oyentes.add(oyente);
+    }
+    
+    private void notificarCambio(int codigo) {
+        for (OyenteCambios oyente : oyentes) {
+            oyente.productoCambiado(codigo);
         }
     }
     
     @Override
     public boolean existePorCodigo(int codigo) {
-        return Files.exists(getProductoPath(codigo));
+        return inventario.contiene(codigo) || Files.exists(getProductoPath(codigo));
+    }
+    
+    /**
+     * Aplica al producto leído del archivo los campos vigentes de la tabla de
+     * inventario. Los productos guardados antes de existir la tabla conservan
+     * los valores de su archivo.
+     * 
+     * @param producto Producto leído del archivo
+     * @return El mismo producto con existencias, precio e impuesto actualizados
+     */
+    private Producto aplicarInventario(Producto producto) {
+        if (producto == null || !inventario.contiene(producto.getCodigo())) {
+            return producto;
+        }
+        int codigo = producto.getCodigo();
+        producto.ajustarCantidad(inventario.getExistencias(codigo) - producto.getCantidadProducto());
+        producto.setPrecio(inventario.getPrecio(codigo));
+        producto.setImpuesto(inventario.getImpuesto(codigo));
+        return producto;
     }
 }
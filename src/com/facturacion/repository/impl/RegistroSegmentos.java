@@ -0,0 +1,359 @@
+package com.facturacion.repository.impl;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Registro de solo-anexado dividido en segmentos de tamaño máximo fijo.
+ * Cada registro se identifica por una clave entera; un índice en memoria
+ * guarda la ubicación de la versión más reciente de cada clave, de modo que
+ * una búsqueda por clave es una única lectura posicionada.
+ *
+ * Formato de cada registro: clave (int), longitud (int), CRC32 (int), datos.
+ */
+class RegistroSegmentos implements Closeable {
+
+    private static final String PREFIJO_SEGMENTO = "seg_";
+    private static final String EXTENSION_SEGMENTO = ".log";
+    private static final int TAMANO_ENCABEZADO = 12;
+    private static final int TAMANO_BUFFER_LECTURA = 1 << 16;
+
+    /** Tamaño a partir del cual se abre un nuevo segmento (64 MB). */
+    static final long TAMANO_MAXIMO_SEGMENTO = 64L * 1024 * 1024;
+
+    /**
+     * Ubicación física de un registro dentro del registro segmentado.
+     */
+    static final class Ubicacion {
+        final int segmento;
+        final long posicion;
+        final int longitud;
+
+        Ubicacion(int segmento, long posicion, int longitud) {
+            this.segmento = segmento;
+            this.posicion = posicion;
+            this.longitud = longitud;
+        }
+    }
+
+    private final Path directorio;
+    private final long tamanoMaximoSegmento;
+    private final TreeMap<Integer, FileChannel> segmentos = new TreeMap<>();
+    private final Map<Integer, Ubicacion> indice = new HashMap<>();
+    private FileChannel segmentoActivo;
+    private int numeroSegmentoActivo;
+
+    RegistroSegmentos(Path directorio) throws IOException {
+        this(directorio, TAMANO_MAXIMO_SEGMENTO);
+    }
+
+    RegistroSegmentos(Path directorio, long tamanoMaximoSegmento) throws IOException {
+        this.directorio = directorio;
+        this.tamanoMaximoSegmento = tamanoMaximoSegmento;
+        Files.createDirectories(directorio);
+        abrirSegmentosExistentes();
+    }
+
+    private Path getSegmentoPath(int numero) {
+        return directorio.resolve(String.format("%s%06d%s", PREFIJO_SEGMENTO, numero, EXTENSION_SEGMENTO));
+    }
+
+    /**
+     * Abre los segmentos existentes en orden y reconstruye el índice. Un
+     * registro incompleto o corrupto al final de un segmento (escritura
+     * interrumpida) se descarta truncando el archivo.
+     */
+    private void abrirSegmentosExistentes() throws IOException {
+        List<Integer> numeros = new ArrayList<>();
+        try (Stream<Path> paths = Files.list(directorio)) {
+            paths.map(path -> path.getFileName().toString())
+                .filter(nombre -> nombre.startsWith(PREFIJO_SEGMENTO) && nombre.endsWith(EXTENSION_SEGMENTO))
+                .forEach(nombre -> numeros.add(Integer.parseInt(
+                    nombre.substring(PREFIJO_SEGMENTO.length(), nombre.length() - EXTENSION_SEGMENTO.length()))));
+        }
+        numeros.sort(null);
+
+        for (int numero : numeros) {
+            FileChannel canal = FileChannel.open(getSegmentoPath(numero),
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+            segmentos.put(numero, canal);
+            reconstruirIndice(numero, canal);
+        }
+
+        if (segmentos.isEmpty()) {
+            abrirNuevoSegmento(1);
+        } else {
+            numeroSegmentoActivo = segmentos.lastKey();
+            segmentoActivo = segmentos.get(numeroSegmentoActivo);
+            segmentoActivo.position(segmentoActivo.size());
+        }
+    }
+
+    /**
+     * Lee cada registro del segmento verificando su CRC. Al primer registro
+     * incompleto o corrupto (por ejemplo, espacio relleno con ceros tras una
+     * caída) se trunca el segmento, de modo que nunca reemplace en el índice
+     * a la última versión válida de su clave.
+     */
+    private void reconstruirIndice(int numeroSegmento, FileChannel canal) throws IOException {
+        long tamano = canal.size();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+            Channels.newInputStream(canal.position(0)), TAMANO_BUFFER_LECTURA));
+        CRC32 crc = new CRC32();
+        byte[] datos = new byte[0];
+        long posicion = 0;
+
+        while (posicion + TAMANO_ENCABEZADO <= tamano) {
+            int clave = in.readInt();
+            int longitud = in.readInt();
+            int crcEsperado = in.readInt();
+            if (longitud < 0 || posicion + TAMANO_ENCABEZADO + longitud > tamano) {
+                break;
+            }
+            if (datos.length < longitud) {
+                datos = new byte[longitud];
+            }
+            in.readFully(datos, 0, longitud);
+            crc.reset();
+            crc.update(datos, 0, longitud);
+            if ((int) crc.getValue() != crcEsperado) {
+                break;
+            }
+            indice.put(clave, new Ubicacion(numeroSegmento, posicion, longitud));
+            posicion += TAMANO_ENCABEZADO + longitud;
+        }
+
+        if (posicion < tamano) {
+            canal.truncate(posicion);
+        }
+    }
+
+    private void abrirNuevoSegmento(int numero) throws IOException {
+        FileChannel canal = FileChannel.open(getSegmentoPath(numero),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        segmentos.put(numero, canal);
+        segmentoActivo = canal;
+        numeroSegmentoActivo = numero;
+        segmentoActivo.position(segmentoActivo.size());
+    }
+
+    /**
+     * Anexa una nueva versión del registro con la clave indicada.
+     *
+     * @param clave Clave del registro
+     * @param datos Contenido del registro
+     * @throws IOException Si ocurre un error de escritura
+     */
+    synchronized void anexar(int clave, byte[] datos) throws IOException {
+        if (segmentoActivo.size() > 0 && segmentoActivo.size() + TAMANO_ENCABEZADO + datos.length > tamanoMaximoSegmento) {
+            abrirNuevoSegmento(numeroSegmentoActivo + 1);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(datos);
+
+        ByteBuffer buffer = ByteBuffer.allocate(TAMANO_ENCABEZADO + datos.length);
+        buffer.putInt(clave).putInt(datos.length).putInt((int) crc.getValue()).put(datos);
+        buffer.flip();
+
+        long posicion = segmentoActivo.size();
+        while (buffer.hasRemaining()) {
+            segmentoActivo.write(buffer, posicion + buffer.position());
+        }
+        indice.put(clave, new Ubicacion(numeroSegmentoActivo, posicion, datos.length));
+    }
+
+    /**
+     * Lee la versión más reciente del registro con la clave indicada.
+     *
+     * @param clave Clave del registro
+     * @return Contenido del registro, o null si no existe
+     * @throws IOException Si ocurre un error de lectura o el registro está corrupto
+     */
+    synchronized byte[] leer(int clave) throws IOException {
+        Ubicacion ubicacion = indice.get(clave);
+        if (ubicacion == null) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(TAMANO_ENCABEZADO + ubicacion.longitud);
+        leerCompleto(segmentos.get(ubicacion.segmento), buffer, ubicacion.posicion);
+        buffer.flip();
+        return extraerDatos(buffer, ubicacion.longitud);
+    }
+
+    /**
+     * Abre un cursor que recorre secuencialmente la versión vigente de cada
+     * registro. El cursor usa sus propios descriptores de archivo y una copia
+     * del índice tomada al abrirlo, por lo que no se ve afectado por escrituras
+     * posteriores ni por el cierre de este registro. Debe cerrarse al terminar.
+     *
+     * @return Cursor sobre los registros vigentes
+     */
+    synchronized Cursor abrirCursor() {
+        List<Path> rutas = new ArrayList<>();
+        List<Long> tamanos = new ArrayList<>();
+        try {
+            for (Map.Entry<Integer, FileChannel> entrada : segmentos.entrySet()) {
+                rutas.add(getSegmentoPath(entrada.getKey()));
+                tamanos.add(entrada.getValue().size());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error al abrir el cursor en " + directorio, e);
+        }
+        return new Cursor(new ArrayList<>(segmentos.keySet()), rutas, tamanos, new HashMap<>(indice));
+    }
+
+    /**
+     * Recorrido secuencial y perezoso de los registros vigentes; cada elemento
+     * es el contenido de un registro. Sólo mantiene abierto un segmento a la vez.
+     */
+    final class Cursor implements Iterator<byte[]>, Closeable {
+        private final List<Integer> numeros;
+        private final List<Path> rutas;
+        private final List<Long> tamanos;
+        private final Map<Integer, Ubicacion> vigentes;
+        private int indiceSegmento = -1;
+        private FileChannel canal;
+        private DataInputStream in;
+        private long posicion;
+        private long tamano;
+        private byte[] siguiente;
+
+        private Cursor(List<Integer> numeros, List<Path> rutas, List<Long> tamanos,
+                       Map<Integer, Ubicacion> vigentes) {
+            this.numeros = numeros;
+            this.rutas = rutas;
+            this.tamanos = tamanos;
+            this.vigentes = vigentes;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (siguiente == null) {
+                try {
+                    siguiente = avanzar();
+                } catch (IOException e) {
+                    throw new RuntimeException("Error al recorrer los segmentos de " + directorio, e);
+                }
+            }
+            return siguiente != null;
+        }
+
+        @Override
+        public byte[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            byte[] datos = siguiente;
+            siguiente = null;
+            return datos;
+        }
+
+        private byte[] avanzar() throws IOException {
+            while (true) {
+                if (in == null || posicion + TAMANO_ENCABEZADO > tamano) {
+                    cerrarSegmento();
+                    if (++indiceSegmento >= rutas.size()) {
+                        return null;
+                    }
+                    canal = FileChannel.open(rutas.get(indiceSegmento), StandardOpenOption.READ);
+                    in = new DataInputStream(new BufferedInputStream(
+                        Channels.newInputStream(canal), TAMANO_BUFFER_LECTURA));
+                    posicion = 0;
+                    tamano = tamanos.get(indiceSegmento);
+                    continue;
+                }
+
+                int clave = in.readInt();
+                int longitud = in.readInt();
+                int crcEsperado = in.readInt();
+                Ubicacion vigente = vigentes.get(clave);
+                boolean esVigente = vigente != null && vigente.segmento == numeros.get(indiceSegmento)
+                    && vigente.posicion == posicion;
+                posicion += TAMANO_ENCABEZADO + longitud;
+                if (esVigente) {
+                    byte[] datos = new byte[longitud];
+                    in.readFully(datos);
+                    verificarCrc(datos, crcEsperado);
+                    return datos;
+                }
+                in.skipNBytes(longitud);
+            }
+        }
+
+        private void cerrarSegmento() throws IOException {
+            if (canal != null) {
+                canal.close();
+                canal = null;
+                in = null;
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                cerrarSegmento();
+            } catch (IOException e) {
+                throw new RuntimeException("Error al cerrar el cursor de " + directorio, e);
+            }
+            indiceSegmento = rutas.size();
+        }
+    }
+
+    private byte[] extraerDatos(ByteBuffer buffer, int longitud) throws IOException {
+        buffer.getInt(); // clave
+        buffer.getInt(); // longitud
+        int crcEsperado = buffer.getInt();
+        byte[] datos = new byte[longitud];
+        buffer.get(datos);
+        verificarCrc(datos, crcEsperado);
+        return datos;
+    }
+
+    private void verificarCrc(byte[] datos, int crcEsperado) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(datos);
+        if ((int) crc.getValue() != crcEsperado) {
+            throw new IOException("Registro corrupto en " + directorio);
+        }
+    }
+
+    private static void leerCompleto(FileChannel canal, ByteBuffer buffer, long posicion) throws IOException {
+        while (buffer.hasRemaining()) {
+            int leidos = canal.read(buffer, posicion + buffer.position());
+            if (leidos < 0) {
+                throw new IOException("Fin de archivo inesperado");
+            }
+        }
+    }
+
+    synchronized List<Integer> claves() {
+        return new ArrayList<>(indice.keySet());
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (FileChannel canal : segmentos.values()) {
+            canal.close();
+        }
+        segmentos.clear();
+    }
+}
@@ -0,0 +1,425 @@
+package com.facturacion.repository.impl;
+
+import com.facturacion.model.Factura;
+import com.facturacion.model.TipoPago;
+import com.facturacion.repository.ResumenFactura;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Almacén columnar con los campos numéricos de cada factura: número, fecha,
+ * cédula y nombre del cliente, subtotal, impuesto, descuento, total, estado y
+ * tipo de pago. En memoria cada campo es un arreglo de primitivos con una fila
+ * por factura, de modo que sumar una columna no crea objetos.
+ *
+ * El nombre del cliente es el que quedó guardado en la factura. Cada fila
+ * guarda el número de ese nombre en un diccionario aparte (archivo
+ * {@code .nombres}, también de solo-anexado), que se escribe antes que la fila.
+ *
+ * En disco se guarda como un archivo de solo-anexado con una fila de
+ * {@value #TAMANO_FILA} bytes por cada vez que se guarda una factura; al
+ * cargarlo, la última fila de cada número reemplaza a las anteriores. Si el
+ * archivo tiene muchas más filas que facturas, se compacta al abrirlo.
+ *
+ * Los recorridos toman un candado de lectura compartido, por lo que varios
+ * hilos pueden recorrer rangos de filas distintos al mismo tiempo.
+ */
+class ResumenesFacturas implements Closeable {
+
+    static final int TAMANO_FILA = 58;
+    private static final int CAPACIDAD_INICIAL = 1024;
+    private static final int TAMANO_BUFFER_LECTURA = 1 << 16;
+
+    private static final ResumenFactura.Estado[] ESTADOS = ResumenFactura.Estado.values();
+    private static final TipoPago[] TIPOS_PAGO = TipoPago.values();
+    private static final byte SIN_TIPO_PAGO = -1;
+    private static final int SIN_NOMBRE = -1;
+
+    private final Path archivo;
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+    private FileChannel canal;
+    private final FileChannel canalNombres;
+    private final List<String> nombres = new ArrayList<>();
+    private final Map<String, Integer> idPorNombre = new HashMap<>();
+    private final Map<Integer, Integer> filaPorNumero = new HashMap<>();
+    private int filas;
+    private int[] numeros = new int[CAPACIDAD_INICIAL];
+    private long[] fechas = new long[CAPACIDAD_INICIAL];
+    private long[] cedulas = new long[CAPACIDAD_INICIAL];
+    private int[] idsNombre = new int[CAPACIDAD_INICIAL];
+    private double[] subtotales = new double[CAPACIDAD_INICIAL];
+    private double[] impuestos = new double[CAPACIDAD_INICIAL];
+    private double[] descuentos = new double[CAPACIDAD_INICIAL];
+    private double[] totales = new double[CAPACIDAD_INICIAL];
+    private byte[] estados = new byte[CAPACIDAD_INICIAL];
+    private byte[] tiposPago = new byte[CAPACIDAD_INICIAL];
+
+    ResumenesFacturas(Path archivo) throws IOException {
+        this.archivo = archivo;
+        Files.createDirectories(archivo.getParent());
+        this.canal = FileChannel.open(archivo,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.canalNombres = FileChannel.open(archivo.resolveSibling(archivo.getFileName() + ".nombres"),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        cargarNombres();
+        long registros = cargar();
+        if (registros > 2L * filas && registros > CAPACIDAD_INICIAL) {
+            compactar();
+        }
+    }
+
+    /**
+     * Carga el diccionario de nombres. Cada entrada es la longitud (int) y los
+     * bytes UTF-8 del nombre; el número de un nombre es su posición.
+     */
+    private void cargarNombres() throws IOException {
+        long tamano = canalNombres.size();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+            Channels.newInputStream(canalNombres.position(0)), TAMANO_BUFFER_LECTURA));
+        long leido = 0;
+        while (tamano - leido >= Integer.BYTES) {
+            int longitud = in.readInt();
+            if (longitud < 0 || tamano - leido - Integer.BYTES < longitud) {
+                break;
+            }
+            byte[] bytes = new byte[longitud];
+            in.readFully(bytes);
+            leido += Integer.BYTES + longitud;
+            String nombre = new String(bytes, StandardCharsets.UTF_8);
+            idPorNombre.put(nombre, nombres.size());
+            nombres.add(nombre);
+        }
+        // Descartar un nombre incompleto por una escritura interrumpida
+        canalNombres.truncate(leido);
+    }
+
+    private long cargar() throws IOException {
+        long registros = canal.size() / TAMANO_FILA;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(
+            Channels.newInputStream(canal.position(0)), TAMANO_BUFFER_LECTURA));
+        for (long i = 0; i < registros; i++) {
+            int numero = in.readInt();
+            ponerFila(numero, in.readLong(), in.readLong(), in.readInt(), in.readDouble(), in.readDouble(),
+                in.readDouble(), in.readDouble(), in.readByte(), in.readByte());
+        }
+        // Descartar una fila incompleta por una escritura interrumpida
+        canal.truncate(registros * TAMANO_FILA);
+        return registros;
+    }
+
+    /**
+     * Reescribe el archivo con una sola fila por factura.
+     */
+    private void compactar() throws IOException {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try (FileChannel nuevo = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(TAMANO_FILA * 1024);
+            for (int fila = 0; fila < filas; fila++) {
+                if (buffer.remaining() < TAMANO_FILA) {
+                    escribirCompleto(nuevo, buffer);
+                }
+                serializarFila(buffer, fila);
+            }
+            escribirCompleto(nuevo, buffer);
+            nuevo.force(true);
+        }
+        canal.close();
+        Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        canal = FileChannel.open(archivo, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static void escribirCompleto(FileChannel destino, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            destino.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void ponerFila(int numero, long fecha, long cedula, int idNombre, double subtotal,
+                           double impuesto, double descuento, double total, byte estado, byte tipoPago) {
+        Integer existente = filaPorNumero.get(numero);
+        int fila;
+        if (existente != null) {
+            fila = existente;
+        } else {
+            asegurarCapacidad();
+            fila = filas++;
+            filaPorNumero.put(numero, fila);
+        }
+        numeros[fila] = numero;
+        fechas[fila] = fecha;
+        cedulas[fila] = cedula;
+        idsNombre[fila] = idNombre;
+        subtotales[fila] = subtotal;
+        impuestos[fila] = impuesto;
+        descuentos[fila] = descuento;
+        totales[fila] = total;
+        estados[fila] = estado;
+        tiposPago[fila] = tipoPago;
+    }
+
+    private void asegurarCapacidad() {
+        if (filas < numeros.length) {
+            return;
+        }
+        int nuevaCapacidad = numeros.length * 2;
+        numeros = Arrays.copyOf(numeros, nuevaCapacidad);
+        fechas = Arrays.copyOf(fechas, nuevaCapacidad);
+        cedulas = Arrays.copyOf(cedulas, nuevaCapacidad);
+        idsNombre = Arrays.copyOf(idsNombre, nuevaCapacidad);
+        subtotales = Arrays.copyOf(subtotales, nuevaCapacidad);
+        impuestos = Arrays.copyOf(impuestos, nuevaCapacidad);
+        descuentos = Arrays.copyOf(descuentos, nuevaCapacidad);
+        totales = Arrays.copyOf(totales, nuevaCapacidad);
+        estados = Arrays.copyOf(estados, nuevaCapacidad);
+        tiposPago = Arrays.copyOf(tiposPago, nuevaCapacidad);
+    }
+
+    private void serializarFila(ByteBuffer buffer, int fila) {
+        buffer.putInt(numeros[fila])
+            .putLong(fechas[fila])
+            .putLong(cedulas[fila])
+            .putInt(idsNombre[fila])
+            .putDouble(subtotales[fila])
+            .putDouble(impuestos[fila])
+            .putDouble(descuentos[fila])
+            .putDouble(totales[fila])
+            .put(estados[fila])
+            .put(tiposPago[fila]);
+    }
+
+    static ResumenFactura.Estado estadoDe(Factura factura) {
+        if (factura.isAnulada()) {
+            return ResumenFactura.Estado.ANULADA;
+        }
+        return factura.isPagada() ? ResumenFactura.Estado.PAGADA : ResumenFactura.Estado.PENDIENTE;
+    }
+
+    /**
+     * Registra el estado actual de una factura, agregando una fila al archivo.
+     *
+     * @param factura Factura guardada
+     * @throws IOException Si ocurre un error al escribir el archivo
+     */
+    void registrar(Factura factura) throws IOException {
+        candado.writeLock().lock();
+        try {
+            registrarFila(factura);
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    private void registrarFila(Factura factura) throws IOException {
+        byte tipoPago = factura.getPago() == null || factura.getPago().getTipoPago() == null
+            ? SIN_TIPO_PAGO : (byte) factura.getPago().getTipoPago().ordinal();
+        ponerFila(factura.getNumeroFactura(),
+            factura.getFechaFactura().getTime(),
+            factura.getCliente() == null ? 0 : factura.getCliente().getCedula(),
+            idNombre(factura.getCliente() == null ? null : factura.getCliente().getNombre()),
+            factura.getSubtotal(),
+            factura.calcularTotalImpuestos(),
+            factura.calcularTotalDescuentos(),
+            factura.getTotal(),
+            (byte) estadoDe(factura).ordinal(),
+            tipoPago);
+
+        ByteBuffer buffer = ByteBuffer.allocate(TAMANO_FILA);
+        serializarFila(buffer, filaPorNumero.get(factura.getNumeroFactura()));
+        buffer.flip();
+        long posicion = canal.size();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer, posicion + buffer.position());
+        }
+    }
+
+    /**
+     * Obtiene el número del nombre en el diccionario, agregándolo al archivo
+     * si es nuevo.
+     */
+    private int idNombre(String nombre) throws IOException {
+        if (nombre == null) {
+            return SIN_NOMBRE;
+        }
+        Integer existente = idPorNombre.get(nombre);
+        if (existente != null) {
+            return existente;
+        }
+        byte[] bytes = nombre.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + bytes.length);
+        buffer.putInt(bytes.length).put(bytes).flip();
+        long posicion = canalNombres.size();
+        while (buffer.hasRemaining()) {
+            canalNombres.write(buffer, posicion + buffer.position());
+        }
+        int id = nombres.size();
+        idPorNombre.put(nombre, id);
+        nombres.add(nombre);
+        return id;
+    }
+
+    /**
+     * Recorre las filas cuya fecha está en [desdeMillis, hastaMillis), en orden
+     * de registro. El consumidor recibe siempre la misma instancia, apuntando a
+     * la fila actual.
+     */
+    void recorrer(long desdeMillis, long hastaMillis, Consumer<ResumenFactura> consumidor) {
+        recorrer(desdeMillis, hastaMillis, 0, Integer.MAX_VALUE, consumidor);
+    }
+
+    /**
+     * Recorre, dentro de las filas [filaDesde, filaHasta), las que tienen la
+     * fecha en [desdeMillis, hastaMillis).
+     */
+    void recorrer(long desdeMillis, long hastaMillis, int filaDesde, int filaHasta,
+                  Consumer<ResumenFactura> consumidor) {
+        candado.readLock().lock();
+        try {
+            Fila fila = new Fila();
+            int fin = Math.min(filaHasta, filas);
+            for (int i = Math.max(0, filaDesde); i < fin; i++) {
+                long fecha = fechas[i];
+                if (fecha >= desdeMillis && fecha < hastaMillis) {
+                    fila.indice = i;
+                    consumidor.accept(fila);
+                }
+            }
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    int cantidad() {
+        candado.readLock().lock();
+        try {
+            return filas;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cuenta las filas de facturas con cliente, que son las que registra el
+     * índice de facturas por cliente.
+     */
+    int cantidadConCliente() {
+        candado.readLock().lock();
+        try {
+            int cantidad = 0;
+            for (int i = 0; i < filas; i++) {
+                if (cedulas[i] != 0) {
+                    cantidad++;
+                }
+            }
+            return cantidad;
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+
+    /**
+     * Vacía el almacén en memoria y en disco.
+     */
+    void limpiar() throws IOException {
+        candado.writeLock().lock();
+        try {
+            filaPorNumero.clear();
+            filas = 0;
+            canal.truncate(0);
+            nombres.clear();
+            idPorNombre.clear();
+            canalNombres.truncate(0);
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        candado.writeLock().lock();
+        try {
+            canal.close();
+            canalNombres.close();
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Cursor sobre una fila de los arreglos.
+     */
+    private final class Fila implements ResumenFactura {
+        int indice;
+
+        @Override
+        public int getNumeroFactura() {
+            return numeros[indice];
+        }
+
+        @Override
+        public long getFechaMillis() {
+            return fechas[indice];
+        }
+
+        @Override
+        public long getCedulaCliente() {
+            return cedulas[indice];
+        }
+
+        @Override
+        public String getNombreCliente() {
+            int id = idsNombre[indice];
+            return id >= 0 && id < nombres.size() ? nombres.get(id) : "";
+        }
+
+        @Override
+        public double getSubtotal() {
+            return subtotales[indice];
+        }
+
+        @Override
+        public double getImpuesto() {
+            return impuestos[indice];
+        }
+
+        @Override
+        public double getDescuento() {
+            return descuentos[indice];
+        }
+
+        @Override
+        public double getTotal() {
+            return totales[indice];
+        }
+
+        @Override
+        public Estado getEstado() {
+            return ESTADOS[estados[indice]];
+        }
+
+        @Override
+        public TipoPago getTipoPago() {
+            byte tipo = tiposPago[indice];
+            return tipo == SIN_TIPO_PAGO ? null : TIPOS_PAGO[tipo];
+        }
+    }
+}
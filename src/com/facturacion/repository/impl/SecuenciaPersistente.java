@@ -0,0 +1,160 @@
+package com.facturacion.repository.impl;
+
+import com.facturacion.model.GeneradorNumeros;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * Secuencia de números persistente que reserva bloques de números en disco.
+ * El archivo de la secuencia guarda el primer número aún no reservado; cada
+ * reserva lo avanza un bloque completo con una única escritura sincronizada
+ * a disco, bajo un bloqueo de archivo para que varias terminales no reciban
+ * el mismo bloque. Dentro del bloque reservado, obtener un número es un
+ * incremento atómico sin bloqueos.
+ *
+ * Los números de un bloque que no se usan antes de cerrar la aplicación se
+ * pierden: la secuencia garantiza unicidad, no ausencia de huecos.
+ *
+ * Los bloqueos de archivo son por proceso, por lo que dentro de una misma
+ * aplicación debe existir una sola instancia por archivo de secuencia.
+ */
+public class SecuenciaPersistente implements GeneradorNumeros, Closeable {
+
+    private static final String DATA_DIR = "data";
+    private static final String SECUENCIAS_DIR = DATA_DIR + File.separator + "secuencias";
+    private static final String EXTENSION_ARCHIVO = ".seq";
+
+    /** Cantidad de números que se reservan por defecto en cada escritura a disco. */
+    public static final int TAMANO_BLOQUE = 1000;
+
+    /**
+     * Bloque de números reservado: [siguiente, limite).
+     */
+    private static final class Bloque {
+        final AtomicInteger siguiente;
+        final int limite;
+
+        Bloque(int inicio, int limite) {
+            this.siguiente = new AtomicInteger(inicio);
+            this.limite = limite;
+        }
+    }
+
+    private final FileChannel canal;
+    private final int tamanoBloque;
+    private volatile Bloque bloque = new Bloque(0, 0);
+
+    /**
+     * Crea o abre la secuencia con el nombre indicado en el directorio de datos.
+     *
+     * @param nombre Nombre de la secuencia (por ejemplo "facturas")
+     * @param valorInicial Proporciona el primer número cuando la secuencia se crea;
+     *                     se consulta sólo si el archivo de la secuencia no existe
+     */
+    public SecuenciaPersistente(String nombre, IntSupplier valorInicial) {
+        this(Paths.get(SECUENCIAS_DIR, nombre + EXTENSION_ARCHIVO), TAMANO_BLOQUE, valorInicial);
+    }
+
+    /**
+     * Crea o abre una secuencia persistente.
+     *
+     * @param archivo Archivo donde se guarda la secuencia
+     * @param tamanoBloque Cantidad de números a reservar en cada escritura
+     * @param valorInicial Proporciona el primer número cuando la secuencia se crea
+     */
+    public SecuenciaPersistente(Path archivo, int tamanoBloque, IntSupplier valorInicial) {
+        if (tamanoBloque <= 0) {
+            throw new IllegalArgumentException("El tamaño del bloque debe ser mayor que cero");
+        }
+        if (valorInicial == null) {
+            throw new IllegalArgumentException("El valor inicial no puede ser nulo");
+        }
+        this.tamanoBloque = tamanoBloque;
+
+        try {
+            Files.createDirectories(archivo.toAbsolutePath().getParent());
+            this.canal = FileChannel.open(archivo,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            FileLock bloqueo = canal.lock();
+            try {
+                if (canal.size() < Integer.BYTES) {
+                    escribirProximo(Math.max(1, valorInicial.getAsInt()));
+                }
+            } finally {
+                bloqueo.release();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error al abrir la secuencia " + archivo, e);
+        }
+    }
+
+    @Override
+    public int siguiente() {
+        while (true) {
+            Bloque actual = bloque;
+            int numero = actual.siguiente.getAndIncrement();
+            if (numero < actual.limite) {
+                return numero;
+            }
+            reservarBloque(actual);
+        }
+    }
+
+    /**
+     * Reserva un nuevo bloque si el bloque agotado sigue siendo el vigente;
+     * si otro hilo ya lo reemplazó no hace nada.
+     */
+    private synchronized void reservarBloque(Bloque agotado) {
+        if (bloque != agotado) {
+            return;
+        }
+        try {
+            FileLock bloqueo = canal.lock();
+            try {
+                int inicio = leerProximo();
+                int limite = Math.addExact(inicio, tamanoBloque);
+                escribirProximo(limite);
+                bloque = new Bloque(inicio, limite);
+            } finally {
+                bloqueo.release();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error al reservar números de la secuencia", e);
+        }
+    }
+
+    private int leerProximo() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES);
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, buffer.position()) < 0) {
+                throw new IOException("Archivo de secuencia incompleto");
+            }
+        }
+        buffer.flip();
+        return buffer.getInt();
+    }
+
+    private void escribirProximo(int proximo) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES);
+        buffer.putInt(proximo).flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer, buffer.position());
+        }
+        canal.force(true);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        canal.close();
+    }
+}
@@ -0,0 +1,144 @@
+package com.facturacion.repository.impl;
+
+import com.facturacion.model.Impuesto;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Tabla de registros de ancho fijo mapeada en memoria con los campos numéricos
+ * de uso frecuente de cada producto: existencias, precio e impuesto.
+ * El registro de un producto se ubica directamente por su código
+ * (posición = código * TAMANO_REGISTRO), por lo que leer o ajustar las
+ * existencias no requiere deserializar ni reescribir el archivo del producto.
+ *
+ * Formato de cada registro (16 bytes): estado (byte), ordinal del impuesto (byte),
+ * relleno (short), existencias (int), precio (double).
+ *
+ * Las escrituras se hacen sobre el mapeo en memoria; el sistema operativo las
+ * persiste aunque el proceso termine inesperadamente. {@link #close()} fuerza
+ * la escritura a disco.
+ */
+class TablaInventario implements Closeable {
+
+    static final int TAMANO_REGISTRO = 16;
+    private static final int CAPACIDAD_INICIAL = 1024;
+
+    private static final byte ESTADO_VACIO = 0;
+    private static final byte ESTADO_ACTIVO = 1;
+
+    private static final int OFFSET_ESTADO = 0;
+    private static final int OFFSET_IMPUESTO = 1;
+    private static final int OFFSET_EXISTENCIAS = 4;
+    private static final int OFFSET_PRECIO = 8;
+
+    private static final Impuesto[] IMPUESTOS = Impuesto.values();
+
+    private final FileChannel canal;
+    private MappedByteBuffer buffer;
+    private int capacidad;
+
+    TablaInventario(Path archivo) throws IOException {
+        Files.createDirectories(archivo.getParent());
+        this.canal = FileChannel.open(archivo,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long registros = canal.size() / TAMANO_REGISTRO;
+        mapear((int) Math.max(CAPACIDAD_INICIAL, registros));
+    }
+
+    private void mapear(int nuevaCapacidad) throws IOException {
+        if (buffer != null) {
+            buffer.force();
+        }
+        this.buffer = canal.map(FileChannel.MapMode.READ_WRITE, 0, (long) nuevaCapacidad * TAMANO_REGISTRO);
+        this.capacidad = nuevaCapacidad;
+    }
+
+    private void asegurarCapacidad(int codigo) throws IOException {
+        if (codigo < 0) {
+            throw new IllegalArgumentException("El código no puede ser negativo: " + codigo);
+        }
+        if (codigo >= capacidad) {
+            int nuevaCapacidad = capacidad;
+            while (codigo >= nuevaCapacidad) {
+                nuevaCapacidad *= 2;
+            }
+            mapear(nuevaCapacidad);
+        }
+    }
+
+    private static int posicion(int codigo) {
+        return codigo * TAMANO_REGISTRO;
+    }
+
+    /**
+     * Escribe (o reemplaza) el registro completo de un producto.
+     */
+    synchronized void escribir(int codigo, int existencias, double precio, Impuesto impuesto) throws IOException {
+        asegurarCapacidad(codigo);
+        int base = posicion(codigo);
+        buffer.put(base + OFFSET_IMPUESTO, (byte) impuesto.ordinal());
+        buffer.putInt(base + OFFSET_EXISTENCIAS, existencias);
+        buffer.putDouble(base + OFFSET_PRECIO, precio);
+        buffer.put(base + OFFSET_ESTADO, ESTADO_ACTIVO);
+    }
+
+    synchronized boolean contiene(int codigo) {
+        return codigo >= 0 && codigo < capacidad
+            && buffer.get(posicion(codigo) + OFFSET_ESTADO) == ESTADO_ACTIVO;
+    }
+
+    synchronized int getExistencias(int codigo) {
+        return buffer.getInt(posicion(codigo) + OFFSET_EXISTENCIAS);
+    }
+
+    synchronized double getPrecio(int codigo) {
+        return buffer.getDouble(posicion(codigo) + OFFSET_PRECIO);
+    }
+
+    synchronized Impuesto getImpuesto(int codigo) {
+        return IMPUESTOS[buffer.get(posicion(codigo) + OFFSET_IMPUESTO)];
+    }
+
+    /**
+     * Ajusta en sitio las existencias de un producto.
+     *
+     * @param codigo Código del producto
+     * @param cantidad Cantidad a sumar (negativa para restar)
+     * @return true si se ajustó, false si el producto no existe o no hay suficiente inventario
+     */
+    synchronized boolean ajustarExistencias(int codigo, int cantidad) {
+        if (!contiene(codigo)) {
+            return false;
+        }
+        int base = posicion(codigo);
+        int nuevaCantidad = buffer.getInt(base + OFFSET_EXISTENCIAS) + cantidad;
+        if (nuevaCantidad < 0) {
+            return false;
+        }
+        buffer.putInt(base + OFFSET_EXISTENCIAS, nuevaCantidad);
+        return true;
+    }
+
+    synchronized void eliminar(int codigo) {
+        if (contiene(codigo)) {
+            buffer.put(posicion(codigo) + OFFSET_ESTADO, ESTADO_VACIO);
+        }
+    }
+
+    synchronized void eliminarTodos() {
+        for (int codigo = 0; codigo < capacidad; codigo++) {
+            buffer.put(posicion(codigo) + OFFSET_ESTADO, ESTADO_VACIO);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        canal.close();
+    }
+}
@@ -1,6 +1,8 @@
 package com.facturacion.service;
 
 import com.facturacion.model.Cliente;
+import com.facturacion.repository.ClienteRepository;
+import com.facturacion.repository.Pagina;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,6 +36,17 @@ public interface ClienteService {
      */
     List<Cliente> listarTodos();
     
+    /**
+     * Obtiene una página de clientes ordenados según el criterio indicado.
+     * 
+     * @param orden Criterio de orden
+     * @param cursor Cursor devuelto por la página anterior, o null para la primera página
+     * @param limite Cantidad máxima de elementos en la página
+     * @return Página de clientes con el cursor de la siguiente
+     * @throws IllegalArgumentException Si el orden, el cursor o el límite no son válidos
+     */
+    Pagina<Cliente> listarPagina(ClienteRepository.Orden orden, String cursor, int limite);
+    
     /**
      * Busca clientes por nombre (búsqueda parcial).
      * 
@@ -1,7 +1,13 @@
 package com.facturacion.service;
 
 import com.facturacion.model.Factura;
+import com.facturacion.repository.FacturaRepository;
+import com.facturacion.repository.Pagina;
+import com.facturacion.repository.TotalesVentas;
 import com.facturacion.model.Pago;
+import com.facturacion.util.EscritorReporte;
+import com.facturacion.util.FormatoRecibo;
+import java.io.Writer;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -36,6 +42,17 @@ public interface FacturaService {
      */
     List<Factura> listarTodas();
     
+    /**
+     * Obtiene una página de facturas ordenados según el criterio indicado.
+     * 
+     * @param orden Criterio de orden
+     * @param cursor Cursor devuelto por la página anterior, o null para la primera página
+     * @param limite Cantidad máxima de elementos en la página
+     * @return Página de facturas con el cursor de la siguiente
+     * @throws IllegalArgumentException Si el orden, el cursor o el límite no son válidos
+     */
+    Pagina<Factura> listarPagina(FacturaRepository.Orden orden, String cursor, int limite);
+    
     /**
      * Busca facturas por cliente.
      * 
@@ -44,6 +61,14 @@ public interface FacturaService {
      */
     List<Factura> buscarPorCliente(long cedulaCliente);
     
+    /**
+     * Verifica si un cliente tiene facturas registradas.
+     * 
+     * @param cedulaCliente Cédula del cliente
+     * @return true si el cliente tiene al menos una factura, false en caso contrario
+     */
+    boolean tieneFacturas(long cedulaCliente);
+    
     /**
      * Busca facturas por rango de fechas.
      * 
@@ -119,6 +144,19 @@ public interface FacturaService {
      */
     double obtenerTotalDescuentos(Date fechaInicio, Date fechaFin);
     
+    /**
+     * Calcula los totales de un rango de fechas recorriendo los resúmenes de
+     * todas sus facturas, sin usar los agregados diarios. En modo paralelo el
+     * recorrido se divide en tareas de fork/join; el resultado es exactamente
+     * el mismo que en modo secuencial.
+     * 
+     * @param fechaInicio Fecha de inicio (inclusive)
+     * @param fechaFin Fecha de fin (inclusive)
+     * @param paralelo true para repartir el recorrido entre varios hilos
+     * @return Cantidad de facturas vigentes y totales de ventas, impuestos y descuentos
+     */
+    TotalesVentas calcularTotales(Date fechaInicio, Date fechaFin, boolean paralelo);
+    
     /**
      * Genera un reporte de ventas en formato de texto.
      * 
@@ -127,4 +165,36 @@ public interface FacturaService {
      * @return Reporte de ventas en formato de texto
      */
     String generarReporteVentas(Date fechaInicio, Date fechaFin);
+    
+    /**
+     * Escribe el reporte de ventas en un destino a medida que se genera, sin
+     * mantenerlo completo en memoria. El destino no se cierra.
+     * 
+     * @param fechaInicio Fecha de inicio (inclusive)
+     * @param fechaFin Fecha de fin (inclusive)
+     * @param formato Formato de salida (texto, CSV o JSONL)
+     * @param destino Writer donde se escribe el reporte
+     */
+    void generarReporteVentas(Date fechaInicio, Date fechaFin, EscritorReporte.Formato formato, Writer destino);
+    
+    /**
+     * Genera el recibo de una factura como texto, con el total en letras.
+     * 
+     * @param numeroFactura Número de la factura
+     * @param formato Formato de papel del recibo
+     * @return Texto del recibo
+     * @throws IllegalArgumentException Si el formato es nulo o la factura no existe
+     */
+    String generarRecibo(int numeroFactura, FormatoRecibo formato);
+    
+    /**
+     * Genera el recibo de una factura como bytes ESC/POS, listos para enviar
+     * a una impresora térmica.
+     * 
+     * @param numeroFactura Número de la factura
+     * @param formato Formato de papel del recibo
+     * @return Bytes del recibo
+     * @throws IllegalArgumentException Si el formato es nulo o la factura no existe
+     */
+    byte[] generarReciboEscPos(int numeroFactura, FormatoRecibo formato);
 }
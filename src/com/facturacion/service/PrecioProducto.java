@@ -0,0 +1,67 @@
+package com.facturacion.service;
+
+import com.facturacion.model.Dinero;
+import com.facturacion.model.Impuesto;
+
+/**
+ * Precio de un producto desglosado: precio sin impuesto, monto del impuesto y
+ * precio con impuesto (en céntimos de colón). El impuesto se calcula igual que
+ * en las líneas de detalle, de modo que coincide con lo que se factura.
+ */
+public final class PrecioProducto {
+
+    private final int codigo;
+    private final Impuesto impuesto;
+    private final long neto;
+    private final long montoImpuesto;
+    private final long bruto;
+
+    public PrecioProducto(int codigo, long neto, Impuesto impuesto) {
+        if (impuesto == null) {
+            throw new IllegalArgumentException("El impuesto no puede ser nulo");
+        }
+        this.codigo = codigo;
+        this.impuesto = impuesto;
+        this.neto = neto;
+        this.montoImpuesto = impuesto.calcularImpuestoCentimos(neto);
+        this.bruto = neto + montoImpuesto;
+    }
+
+    public int getCodigo() {
+        return codigo;
+    }
+
+    public Impuesto getImpuesto() {
+        return impuesto;
+    }
+
+    public double getNeto() {
+        return Dinero.aMonto(neto);
+    }
+
+    public double getMontoImpuesto() {
+        return Dinero.aMonto(montoImpuesto);
+    }
+
+    public double getBruto() {
+        return Dinero.aMonto(bruto);
+    }
+
+    public long getNetoCentimos() {
+        return neto;
+    }
+
+    public long getMontoImpuestoCentimos() {
+        return montoImpuesto;
+    }
+
+    public long getBrutoCentimos() {
+        return bruto;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Producto %d: %s + %s = %s",
+            codigo, Dinero.formatear(neto), Dinero.formatear(montoImpuesto), Dinero.formatear(bruto));
+    }
+}
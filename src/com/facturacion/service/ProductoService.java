@@ -1,7 +1,11 @@
 package com.facturacion.service;
 
 import com.facturacion.model.Producto;
+import com.facturacion.repository.ProductoRepository;
+import com.facturacion.repository.Pagina;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -19,6 +23,16 @@ public interface ProductoService {
      */
     Producto registrarProducto(Producto producto);
     
+    /**
+     * Verifica los datos de un producto sin registrarlo, por ejemplo antes de
+     * una importación masiva del catálogo.
+     * 
+     * @param producto Producto a validar
+     * @return Mensajes de todas las reglas incumplidas; vacía si el producto es válido
+     * @throws IllegalArgumentException Si el producto es nulo
+     */
+    List<String> validarProducto(Producto producto);
+    
     /**
      * Busca un producto por su código.
      * 
@@ -27,6 +41,14 @@ public interface ProductoService {
      */
     Optional<Producto> buscarPorCodigo(int codigo);
     
+    /**
+     * Busca un producto por su número de código (código de barras).
+     * 
+     * @param numeroCodigo Número de código escaneado
+     * @return Un Optional con el producto si se encuentra, o vacío si no
+     */
+    Optional<Producto> buscarPorNumeroCodigo(String numeroCodigo);
+    
     /**
      * Busca todos los productos registrados.
      * 
@@ -34,6 +56,17 @@ public interface ProductoService {
      */
     List<Producto> listarTodos();
     
+    /**
+     * Obtiene una página de productos ordenados según el criterio indicado.
+     * 
+     * @param orden Criterio de orden
+     * @param cursor Cursor devuelto por la página anterior, o null para la primera página
+     * @param limite Cantidad máxima de elementos en la página
+     * @return Página de productos con el cursor de la siguiente
+     * @throws IllegalArgumentException Si el orden, el cursor o el límite no son válidos
+     */
+    Pagina<Producto> listarPagina(ProductoRepository.Orden orden, String cursor, int limite);
+    
     /**
      * Busca productos por nombre (búsqueda parcial).
      * 
@@ -101,4 +134,32 @@ public interface ProductoService {
      * @return El precio del producto, o -1 si no existe
      */
     double obtenerPrecio(int codigo, boolean incluirImpuestos);
+    
+    /**
+     * Obtiene el precio desglosado de un producto: sin impuesto, impuesto y con impuesto.
+     * 
+     * @param codigo Código del producto
+     * @return Un Optional con el precio, o vacío si el producto no existe
+     */
+    Optional<PrecioProducto> obtenerDesglosePrecio(int codigo);
+    
+    /**
+     * Obtiene en una sola llamada los precios de varios productos, por ejemplo
+     * los de una canasta de compra.
+     * 
+     * @param codigos Códigos de los productos (los repetidos se consultan una vez)
+     * @return Precios por código, en el orden de la consulta; los códigos
+     *         inexistentes no aparecen
+     */
+    Map<Integer, PrecioProducto> obtenerPrecios(Collection<Integer> codigos);
+    
+    /**
+     * Cambia el precio de varios productos. Todos los precios se validan antes
+     * de modificar el primero.
+     * 
+     * @param nuevosPrecios Precio nuevo (sin impuesto) por código de producto
+     * @return Cantidad de productos actualizados (los códigos inexistentes se ignoran)
+     * @throws IllegalArgumentException Si algún precio no es mayor que cero
+     */
+    int cambiarPrecios(Map<Integer, Double> nuevosPrecios);
 }
@@ -0,0 +1,50 @@
+package com.facturacion.service.impl;
+
+import com.facturacion.repository.FacturaRepository;
+import java.util.Date;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Tarea de fork/join que acumula los resúmenes de un rango de posiciones del
+ * almacén de resúmenes. Divide el rango a la mitad hasta llegar a
+ * {@link #UMBRAL} posiciones; cada parte se recorre con su propio
+ * {@link AcumuladorVentas} y los resultados se combinan al volver.
+ */
+class AcumulacionParalela extends RecursiveTask<AcumuladorVentas> {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Cantidad de posiciones a partir de la cual ya no se divide la tarea. */
+    static final int UMBRAL = 1 << 15;
+
+    private final transient FacturaRepository facturaRepository;
+    private final Date fechaInicio;
+    private final Date fechaFin;
+    private final int desde;
+    private final int hasta;
+
+    AcumulacionParalela(FacturaRepository facturaRepository, Date fechaInicio, Date fechaFin,
+                        int desde, int hasta) {
+        this.facturaRepository = facturaRepository;
+        this.fechaInicio = fechaInicio;
+        this.fechaFin = fechaFin;
+        this.desde = desde;
+        this.hasta = hasta;
+    }
+
+    @Override
+    protected AcumuladorVentas compute() {
+        if (hasta - desde <= UMBRAL) {
+            AcumuladorVentas acumulador = new AcumuladorVentas();
+            facturaRepository.recorrerResumenes(fechaInicio, fechaFin, desde, hasta, acumulador::agregar);
+            return acumulador;
+        }
+
+        int mitad = desde + (hasta - desde) / 2;
+        AcumulacionParalela izquierda = new AcumulacionParalela(facturaRepository, fechaInicio, fechaFin, desde, mitad);
+        AcumulacionParalela derecha = new AcumulacionParalela(facturaRepository, fechaInicio, fechaFin, mitad, hasta);
+        izquierda.fork();
+        AcumuladorVentas resultadoDerecha = derecha.compute();
+        return izquierda.join().combinar(resultadoDerecha);
+    }
+}
@@ -0,0 +1,89 @@
+package com.facturacion.service.impl;
+
+import com.facturacion.model.Dinero;
+import com.facturacion.repository.ResumenFactura;
+
+/**
+ * Acumulador de los totales de ventas de un conjunto de facturas.
+ * Se alimenta con resúmenes de factura y dos acumuladores pueden combinarse,
+ * de modo que cada parte de un rango (por ejemplo, cada partición) puede
+ * acumularse por separado y luego unirse.
+ *
+ * Los montos se acumulan en céntimos enteros (cada factura se redondea al
+ * céntimo), por lo que la suma es exacta y no depende del orden en que se
+ * agregan las facturas ni de cómo se divide el rango: el recorrido secuencial
+ * y el paralelo dan exactamente el mismo resultado.
+ *
+ * Las facturas anuladas se cuentan, pero no suman a los montos.
+ */
+final class AcumuladorVentas {
+
+    private int cantidadFacturas;
+    private int cantidadAnuladas;
+    private int cantidadPagadas;
+    private long centimosVentas;
+    private long centimosImpuestos;
+    private long centimosDescuentos;
+
+    /**
+     * Agrega una factura al acumulado.
+     *
+     * @param resumen Resumen de la factura
+     */
+    void agregar(ResumenFactura resumen) {
+        cantidadFacturas++;
+        switch (resumen.getEstado()) {
+            case ANULADA:
+                cantidadAnuladas++;
+                return;
+            case PAGADA:
+                cantidadPagadas++;
+                break;
+            default:
+                break;
+        }
+        centimosVentas += Dinero.deMonto(resumen.getTotal());
+        centimosImpuestos += Dinero.deMonto(resumen.getImpuesto());
+        centimosDescuentos += Dinero.deMonto(resumen.getDescuento());
+    }
+
+    /**
+     * Suma a este acumulador los valores de otro.
+     *
+     * @param otro Acumulador a combinar
+     * @return Este acumulador
+     */
+    AcumuladorVentas combinar(AcumuladorVentas otro) {
+        cantidadFacturas += otro.cantidadFacturas;
+        cantidadAnuladas += otro.cantidadAnuladas;
+        cantidadPagadas += otro.cantidadPagadas;
+        centimosVentas += otro.centimosVentas;
+        centimosImpuestos += otro.centimosImpuestos;
+        centimosDescuentos += otro.centimosDescuentos;
+        return this;
+    }
+
+    int getCantidadFacturas() {
+        return cantidadFacturas;
+    }
+
+    int getCantidadAnuladas() {
+        return cantidadAnuladas;
+    }
+
+    int getCantidadPagadas() {
+        return cantidadPagadas;
+    }
+
+    double getTotalVentas() {
+        return Dinero.aMonto(centimosVentas);
+    }
+
+    double getTotalImpuestos() {
+        return Dinero.aMonto(centimosImpuestos);
+    }
+
+    double getTotalDescuentos() {
+        return Dinero.aMonto(centimosDescuentos);
+    }
+}
@@ -0,0 +1,93 @@
+package com.facturacion.service.impl;
+
+import com.facturacion.model.Producto;
+import com.facturacion.repository.ProductoRepository;
+import com.facturacion.service.PrecioProducto;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caché de precios por código de producto. Cada entrada guarda el precio ya
+ * desglosado, así que consultar el precio de un producto en caché no lee el
+ * repositorio ni recalcula el impuesto.
+ *
+ * Guarda como máximo {@code capacidadMaxima} precios, descartando los menos
+ * usados recientemente. Se invalida como oyente del repositorio, por lo que
+ * cualquier escritura en él (incluidos los ajustes de inventario y los
+ * cambios hechos sin pasar por el servicio) descarta la entrada. Un contador
+ * de versión evita que una carga que leyó el valor anterior lo guarde después
+ * de la invalidación.
+ */
+class CachePrecios implements ProductoRepository.OyenteCambios {
+
+    private final ProductoRepository productoRepository;
+    private final int capacidadMaxima;
+    private final LinkedHashMap<Integer, PrecioProducto> precios;
+    /** Aumenta con cada invalidación; protegido por el candado de la caché. */
+    private long version;
+
+    CachePrecios(ProductoRepository productoRepository, int capacidadMaxima) {
+        if (capacidadMaxima <= 0) {
+            throw new IllegalArgumentException("La capacidad de la caché debe ser mayor que cero");
+        }
+        this.productoRepository = productoRepository;
+        this.capacidadMaxima = capacidadMaxima;
+        this.precios = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, PrecioProducto> eldest) {
+                return size() > CachePrecios.this.capacidadMaxima;
+            }
+        };
+    }
+
+    /**
+     * Obtiene el precio de un producto, cargándolo del repositorio la primera vez.
+     * La lectura del repositorio se hace fuera del candado de la caché.
+     *
+     * @param codigo Código del producto
+     * @return El precio, o null si el producto no existe (los códigos
+     *         inexistentes no se guardan en la caché)
+     */
+    PrecioProducto obtener(int codigo) {
+        long versionLeida;
+        synchronized (this) {
+            PrecioProducto precio = precios.get(codigo);
+            if (precio != null) {
+                return precio;
+            }
+            versionLeida = version;
+        }
+
+        PrecioProducto precio = productoRepository.buscarPorCodigo(codigo)
+            .map(CachePrecios::desglosar)
+            .orElse(null);
+        if (precio != null) {
+            synchronized (this) {
+                if (version == versionLeida) {
+                    precios.put(codigo, precio);
+                }
+            }
+        }
+        return precio;
+    }
+
+    synchronized int tamano() {
+        return precios.size();
+    }
+
+    @Override
+    public synchronized void productoCambiado(int codigo) {
+        version++;
+        precios.remove(codigo);
+    }
+
+    @Override
+    public synchronized void todosCambiados() {
+        version++;
+        precios.clear();
+    }
+
+    static PrecioProducto desglosar(Producto producto) {
+        return new PrecioProducto(producto.getCodigo(), producto.getPrecioCentimos(), producto.getImpuesto());
+    }
+}
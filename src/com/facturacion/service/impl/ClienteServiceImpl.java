@@ -3,7 +3,9 @@ package com.facturacion.service.impl;
 import com.facturacion.model.Cliente;
 import com.facturacion.model.TipoCliente;
 import com.facturacion.repository.ClienteRepository;
+import com.facturacion.repository.Pagina;
 import com.facturacion.service.ClienteService;
+import com.facturacion.util.Validador;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +17,16 @@ public class ClienteServiceImpl implements ClienteService {
     private static final int PUNTOS_POR_COMPRA = 10; // Puntos por cada compra
     private static final int EDAD_MINIMA_CIUDADANO_ORO = 65; // Edad mínima para ser Ciudadano de Oro
     
+    /** Reglas de los datos obligatorios de un cliente. */
+    private static final Validador<Cliente> VALIDADOR_CLIENTE = Validador.<Cliente>nuevo()
+        .regla(c -> c.getCedula() > 0, "La cédula debe ser un número positivo")
+        .requerido(Cliente::getNombre, "El nombre es obligatorio")
+        .regla(c -> c.getTipo() != null, "El tipo de cliente es obligatorio")
+        .regla(c -> c.getTipo() != TipoCliente.CORPORATIVOS
+                || (c.getContacto() != null && !c.getContacto().trim().isEmpty()),
+            "El contacto es obligatorio para clientes corporativos")
+        .regla(c -> c.getPuntos() >= 0, "Los puntos no pueden ser negativos");
+    
     private final ClienteRepository clienteRepository;
     
     /**
@@ -85,6 +97,17 @@ public class ClienteServiceImpl implements ClienteService {
         return clienteRepository.buscarTodos();
     }
     
+    @Override
+    public Pagina<Cliente> listarPagina(ClienteRepository.Orden orden, String cursor, int limite) {
+        if (orden == null) {
+            throw new IllegalArgumentException("El orden no puede ser nulo");
+        }
+        if (limite <= 0) {
+            throw new IllegalArgumentException("El límite de la página debe ser mayor que cero");
+        }
+        return clienteRepository.buscarPagina(orden, cursor, limite);
+    }
+    
     @Override
     public List<Cliente> buscarPorNombre(String nombre) {
         if (nombre == null || nombre.trim().isEmpty()) {
@@ -176,29 +199,10 @@ public class ClienteServiceImpl implements ClienteService {
      * Valida que los datos obligatorios del cliente sean correctos.
      * 
      * @param cliente Cliente a validar
-     * @throws IllegalArgumentException Si algún dato es inválido
+     * @throws IllegalArgumentException Si algún dato es inválido; el mensaje
+     *         contiene todas las reglas que no se cumplen
      */
     private void validarCliente(Cliente cliente) {
-        if (cliente.getCedula() <= 0) {
-            throw new IllegalArgumentException("La cédula debe ser un número positivo");
-        }
-        
-        if (cliente.getNombre() == null || cliente.getNombre().trim().isEmpty()) {
-            throw new IllegalArgumentException("El nombre es obligatorio");
-        }
-        
-        if (cliente.getTipo() == null) {
-            throw new IllegalArgumentException("El tipo de cliente es obligatorio");
-        }
-        
-        // Validar que los clientes corporativos tengan un contacto
-        if (cliente.getTipo() == TipoCliente.CORPORATIVOS && 
-            (cliente.getContacto() == null || cliente.getContacto().trim().isEmpty())) {
-            throw new IllegalArgumentException("El contacto es obligatorio para clientes corporativos");
-        }
-        
-        if (cliente.getPuntos() < 0) {
-            throw new IllegalArgumentException("Los puntos no pueden ser negativos");
-        }
+        VALIDADOR_CLIENTE.validar(cliente);
     }
 }
@@ -8,27 +8,52 @@ import com.facturacion.model.Producto;
 import com.facturacion.model.Tarjeta;
 import com.facturacion.model.TipoCliente;
 import com.facturacion.model.TipoPago;
+import com.facturacion.repository.AgregadoDiarioRepository;
 import com.facturacion.repository.FacturaRepository;
+import com.facturacion.repository.Pagina;
+import com.facturacion.repository.TotalesVentas;
 import com.facturacion.service.ClienteService;
 import com.facturacion.service.FacturaService;
 import com.facturacion.service.ProductoService;
+import com.facturacion.util.EscritorReporte;
+import com.facturacion.util.FormatoRecibo;
+import com.facturacion.util.RenderizadorRecibo;
+import com.facturacion.util.Validador;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 /**
  * Implementación del servicio de gestión de facturas.
  */
 public class FacturaServiceImpl implements FacturaService {
     
+    /** Rango de fechas que abarca todas las facturas al conciliar los agregados. */
+    private static final Date INICIO_CONCILIACION = new Date(0);
+    private static final Date FIN_CONCILIACION = new Date(253402214400000L);
+    
+    /** Reglas de una factura nueva, evaluadas en un solo recorrido. */
+    private static final Validador<Factura> VALIDADOR_FACTURA = Validador.<Factura>nuevo()
+        .regla(f -> f.getCliente() != null, "La factura debe tener un cliente asociado")
+        .regla(f -> f.getCantidadLineas() > 0, "La factura debe tener al menos una línea de detalle")
+        .regla(f -> !f.tieneProductosDuplicados(), "No se pueden incluir productos duplicados en la factura")
+        .regla(FacturaServiceImpl::cantidadesPositivas, "La cantidad debe ser mayor que cero");
+    
     private final FacturaRepository facturaRepository;
     private final ClienteService clienteService;
     private final ProductoService productoService;
+    private final MotorReporteVentas motorReporte;
+    private final AgregadoDiarioRepository agregadoDiarioRepository;
     
     /**
      * Constructor que recibe las dependencias necesarias.
+     * Los totales de ventas se calculan a partir de los resúmenes de factura.
      * 
      * @param facturaRepository Repositorio de facturas
      * @param clienteService Servicio de clientes
@@ -38,12 +63,62 @@ public class FacturaServiceImpl implements FacturaService {
     public FacturaServiceImpl(FacturaRepository facturaRepository, 
                              ClienteService clienteService,
                              ProductoService productoService) {
+        this(facturaRepository, clienteService, productoService, null);
+    }
+    
+    /**
+     * Constructor que recibe además el repositorio de agregados diarios, que se
+     * actualiza al crear, pagar y anular facturas y resuelve los totales de
+     * ventas en tiempo proporcional a la cantidad de días del rango.
+     * Si el repositorio de agregados está vacío se reconstruye a partir de las
+     * facturas existentes; si no, se concilia con el estado de cada factura
+     * guardada (ver {@link #conciliarAgregados()}).
+     * 
+     * @param facturaRepository Repositorio de facturas
+     * @param clienteService Servicio de clientes
+     * @param productoService Servicio de productos
+     * @param agregadoDiarioRepository Repositorio de agregados diarios, o null para no usarlo
+     * @throws IllegalArgumentException Si alguno de los primeros tres parámetros es nulo
+     */
+    public FacturaServiceImpl(FacturaRepository facturaRepository, 
+                             ClienteService clienteService,
+                             ProductoService productoService,
+                             AgregadoDiarioRepository agregadoDiarioRepository) {
         if (facturaRepository == null || clienteService == null || productoService == null) {
             throw new IllegalArgumentException("Los parámetros no pueden ser nulos");
         }
         this.facturaRepository = facturaRepository;
         this.clienteService = clienteService;
         this.productoService = productoService;
+        this.motorReporte = new MotorReporteVentas(facturaRepository);
+        this.agregadoDiarioRepository = agregadoDiarioRepository;
+        
+        if (agregadoDiarioRepository != null && agregadoDiarioRepository.estaVacio()) {
+            try (Stream<Factura> facturas = facturaRepository.recorrerTodas()) {
+                agregadoDiarioRepository.reconstruir(facturas);
+            }
+        } else if (agregadoDiarioRepository != null) {
+            conciliarAgregados();
+        }
+    }
+    
+    /**
+     * Vuelve a registrar en los agregados las facturas cuyo estado guardado no
+     * coincide con el registrado, por ejemplo porque la aplicación se detuvo
+     * entre guardar la factura y registrarla. Compara con los resúmenes de las
+     * facturas, así que sólo se leen completas las que hay que corregir.
+     */
+    private void conciliarAgregados() {
+        AgregadoDiarioRepository agregados = agregadoDiarioRepository;
+        List<Integer> desincronizadas = new ArrayList<>();
+        facturaRepository.recorrerResumenes(INICIO_CONCILIACION, FIN_CONCILIACION, resumen -> {
+            if (resumen.getEstado() != agregados.obtenerEstadoRegistrado(resumen.getNumeroFactura())) {
+                desincronizadas.add(resumen.getNumeroFactura());
+            }
+        });
+        for (int numeroFactura : desincronizadas) {
+            facturaRepository.buscarPorNumero(numeroFactura).ifPresent(agregados::registrar);
+        }
     }
     
     @Override
@@ -75,22 +150,10 @@ public class FacturaServiceImpl implements FacturaService {
                 .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado: " + linea.getProducto().getCodigo()));
                 
             try {
-                // Crear y agregar la línea de detalle directamente a la factura
-                LineaDetalle nuevaLinea = new LineaDetalle(
-                    nuevaFactura.getLineasDetalle().size() + 1, // número de línea
-                    producto,
-                    linea.getCantidadProducto()
-                );
-                
-                // Agregar la línea de detalle a la factura
-                nuevaFactura.getLineasDetalle().add(nuevaLinea);
-                
-                // Calcular los totales de la factura
-                nuevaFactura.calcularTotal();
-                
-                // Actualizar el inventario del producto usando el servicio
-                if (!productoService.actualizarInventario(producto.getCodigo(), -linea.getCantidadProducto())) {
-                    throw new IllegalStateException("No hay suficiente inventario para el producto: " + producto.getNombre());
+                // Agregar la línea a la factura; los totales se ajustan con cada línea.
+                // El inventario se descuenta más abajo, una vez verificadas todas las líneas
+                if (!nuevaFactura.agregarProducto(producto, linea.getCantidadProducto())) {
+                    throw new IllegalStateException("No se pudo agregar el producto a la factura: " + producto.getNombre());
                 }
             } catch (IllegalArgumentException e) {
                 throw new IllegalStateException("Error al agregar el producto a la factura: " + e.getMessage(), e);
@@ -123,8 +186,12 @@ public class FacturaServiceImpl implements FacturaService {
             clienteService.actualizarPuntos(clienteExistente.getCedula(), factura.getTotalPuntos());
         }
         
-        // Guardar la factura
-        return facturaRepository.guardar(factura);
+        // Guardar la factura y registrarla en los agregados del día
+        Factura guardada = facturaRepository.guardar(factura);
+        if (guardada != null && agregadoDiarioRepository != null) {
+            agregadoDiarioRepository.registrar(guardada);
+        }
+        return guardada;
     }
     
     @Override
@@ -140,6 +207,17 @@ public class FacturaServiceImpl implements FacturaService {
         return facturaRepository.buscarTodas();
     }
     
+    @Override
+    public Pagina<Factura> listarPagina(FacturaRepository.Orden orden, String cursor, int limite) {
+        if (orden == null) {
+            throw new IllegalArgumentException("El orden no puede ser nulo");
+        }
+        if (limite <= 0) {
+            throw new IllegalArgumentException("El límite de la página debe ser mayor que cero");
+        }
+        return facturaRepository.buscarPagina(orden, cursor, limite);
+    }
+    
     @Override
     public List<Factura> buscarPorCliente(long cedulaCliente) {
         if (cedulaCliente <= 0) {
@@ -148,6 +226,14 @@ public class FacturaServiceImpl implements FacturaService {
         return facturaRepository.buscarPorCliente(cedulaCliente);
     }
     
+    @Override
+    public boolean tieneFacturas(long cedulaCliente) {
+        if (cedulaCliente <= 0) {
+            throw new IllegalArgumentException("La cédula debe ser un número positivo");
+        }
+        return facturaRepository.existePorCliente(cedulaCliente);
+    }
+    
     @Override
     public List<Factura> buscarPorRangoFechas(Date fechaInicio, Date fechaFin) {
         if (fechaInicio == null || fechaFin == null) {
@@ -204,7 +290,13 @@ public class FacturaServiceImpl implements FacturaService {
                 }
                 
                 // Actualizar la factura en el repositorio
-                return pagoExitoso && facturaRepository.guardar(factura) != null;
+                if (!pagoExitoso || facturaRepository.guardar(factura) == null) {
+                    return false;
+                }
+                if (agregadoDiarioRepository != null) {
+                    agregadoDiarioRepository.registrar(factura);
+                }
+                return true;
             })
             .orElse(false);
     }
@@ -229,10 +321,8 @@ public class FacturaServiceImpl implements FacturaService {
                     }
                     
                     // Devolver el inventario de productos
-                    for (LineaDetalle linea : factura.getLineasDetalle()) {
-                        Producto producto = linea.getProducto();
-                        productoService.actualizarInventario(producto.getCodigo(), linea.getCantidadProducto());
-                    }
+                    factura.forEachLinea(linea ->
+                        productoService.actualizarInventario(linea.getProducto().getCodigo(), linea.getCantidadProducto()));
                     
                     // Actualizar los puntos del cliente si aplica
                     if (factura.getCliente().getTipo() == TipoCliente.OCASIONALES && 
@@ -247,7 +337,13 @@ public class FacturaServiceImpl implements FacturaService {
                     
                     // Anular la factura usando el método del modelo
                     factura.anular(motivo);
-                    return facturaRepository.guardar(factura) != null;
+                    if (facturaRepository.guardar(factura) == null) {
+                        return false;
+                    }
+                    if (agregadoDiarioRepository != null) {
+                        agregadoDiarioRepository.registrar(factura);
+                    }
+                    return true;
                     
                 } catch (IllegalStateException e) {
                     return false; // No se pudo anular
@@ -258,99 +354,131 @@ public class FacturaServiceImpl implements FacturaService {
     
     @Override
     public double obtenerTotalVentas(Date fechaInicio, Date fechaFin) {
-        return buscarPorRangoFechas(fechaInicio, fechaFin).stream()
-            .filter(factura -> !factura.isAnulada())
-            .mapToDouble(Factura::calcularTotal)
-            .sum();
+        if (agregadoDiarioRepository != null) {
+            validarRango(fechaInicio, fechaFin);
+            return agregadoDiarioRepository.obtenerTotales(fechaInicio, fechaFin).getTotalVentas();
+        }
+        return acumular(fechaInicio, fechaFin).getTotalVentas();
     }
     
     @Override
     public double obtenerTotalImpuestos(Date fechaInicio, Date fechaFin) {
-        return buscarPorRangoFechas(fechaInicio, fechaFin).stream()
-            .filter(factura -> !factura.isAnulada())
-            .mapToDouble(Factura::calcularTotalImpuestos)
-            .sum();
+        if (agregadoDiarioRepository != null) {
+            validarRango(fechaInicio, fechaFin);
+            return agregadoDiarioRepository.obtenerTotales(fechaInicio, fechaFin).getTotalImpuestos();
+        }
+        return acumular(fechaInicio, fechaFin).getTotalImpuestos();
     }
     
     @Override
     public double obtenerTotalDescuentos(Date fechaInicio, Date fechaFin) {
-        return buscarPorRangoFechas(fechaInicio, fechaFin).stream()
-            .filter(factura -> !factura.isAnulada())
-            .mapToDouble(Factura::calcularTotalDescuentos)
-            .sum();
+        if (agregadoDiarioRepository != null) {
+            validarRango(fechaInicio, fechaFin);
+            return agregadoDiarioRepository.obtenerTotales(fechaInicio, fechaFin).getTotalDescuentos();
+        }
+        return acumular(fechaInicio, fechaFin).getTotalDescuentos();
+    }
+    
+    @Override
+    public TotalesVentas calcularTotales(Date fechaInicio, Date fechaFin, boolean paralelo) {
+        AcumuladorVentas acumulador = paralelo
+            ? acumularEnParalelo(fechaInicio, fechaFin, ForkJoinPool.commonPool())
+            : acumular(fechaInicio, fechaFin);
+        return new TotalesVentas(
+            acumulador.getCantidadFacturas() - acumulador.getCantidadAnuladas(),
+            acumulador.getTotalVentas(),
+            acumulador.getTotalImpuestos(),
+            acumulador.getTotalDescuentos());
+    }
+    
+    /**
+     * Acumula los totales del rango repartiendo los resúmenes de factura entre
+     * los hilos del pool indicado.
+     */
+    AcumuladorVentas acumularEnParalelo(Date fechaInicio, Date fechaFin, ForkJoinPool pool) {
+        validarRango(fechaInicio, fechaFin);
+        int posiciones = facturaRepository.contarResumenes();
+        return pool.invoke(new AcumulacionParalela(facturaRepository, fechaInicio, fechaFin, 0, posiciones));
+    }
+    
+    /**
+     * Acumula los totales del rango a partir de los resúmenes de factura.
+     */
+    private AcumuladorVentas acumular(Date fechaInicio, Date fechaFin) {
+        validarRango(fechaInicio, fechaFin);
+        AcumuladorVentas acumulador = new AcumuladorVentas();
+        facturaRepository.recorrerResumenes(fechaInicio, fechaFin, acumulador::agregar);
+        return acumulador;
     }
     
     @Override
     public String generarReporteVentas(Date fechaInicio, Date fechaFin) {
-        List<Factura> facturas = buscarPorRangoFechas(fechaInicio, fechaFin);
-        
-        StringBuilder reporte = new StringBuilder();
-        reporte.append("REPORTE DE VENTAS\n");
-        reporte.append("=================\n\n");
-        reporte.append(String.format("Período: %s a %s\n\n", fechaInicio, fechaFin));
-        
-        // Resumen
-        double totalVentas = obtenerTotalVentas(fechaInicio, fechaFin);
-        double totalImpuestos = obtenerTotalImpuestos(fechaInicio, fechaFin);
-        double totalDescuentos = obtenerTotalDescuentos(fechaInicio, fechaFin);
-        
-        reporte.append("RESUMEN\n");
-        reporte.append("-------\n");
-        reporte.append(String.format("Total de facturas: %d\n", facturas.size()));
-        reporte.append(String.format("Total de ventas: %.2f\n", totalVentas));
-        reporte.append(String.format("Total de impuestos: %.2f\n", totalImpuestos));
-        reporte.append(String.format("Total de descuentos: %.2f\n\n", totalDescuentos));
-        
-        // Detalle de facturas
-        reporte.append("DETALLE DE FACTURAS\n");
-        reporte.append("------------------\n");
-        
-        for (Factura factura : facturas) {
-            String estado = factura.isAnulada() ? "ANULADA" : 
-                          (factura.getPago() != null ? "PAGADA" : "PENDIENTE");
-            
-            reporte.append(String.format("Factura #%d - %s - %s - %s - %.2f\n",
-                factura.getNumeroFactura(),
-                factura.getFechaHora().toInstant().atZone(java.time.ZoneId.systemDefault()).toLocalDate(),
-                factura.getCliente().getNombre(),
-                estado,
-                factura.calcularTotal()
-            ));
+        validarRango(fechaInicio, fechaFin);
+        return motorReporte.generar(fechaInicio, fechaFin);
+    }
+    
+    @Override
+    public void generarReporteVentas(Date fechaInicio, Date fechaFin, EscritorReporte.Formato formato, Writer destino) {
+        validarRango(fechaInicio, fechaFin);
+        if (formato == null || destino == null) {
+            throw new IllegalArgumentException("El formato y el destino del reporte no pueden ser nulos");
+        }
+        try {
+            motorReporte.generar(fechaInicio, fechaFin, formato, destino);
+        } catch (IOException e) {
+            throw new RuntimeException("Error al escribir el reporte de ventas", e);
+        }
+    }
+    
+    @Override
+    public String generarRecibo(int numeroFactura, FormatoRecibo formato) {
+        return RenderizadorRecibo.para(validarFormato(formato)).renderizarTexto(obtenerFactura(numeroFactura));
+    }
+    
+    @Override
+    public byte[] generarReciboEscPos(int numeroFactura, FormatoRecibo formato) {
+        return RenderizadorRecibo.para(validarFormato(formato)).renderizarEscPos(obtenerFactura(numeroFactura));
+    }
+    
+    private static FormatoRecibo validarFormato(FormatoRecibo formato) {
+        if (formato == null) {
+            throw new IllegalArgumentException("El formato del recibo no puede ser nulo");
+        }
+        return formato;
+    }
+    
+    private Factura obtenerFactura(int numeroFactura) {
+        return facturaRepository.buscarPorNumero(numeroFactura)
+            .orElseThrow(() -> new IllegalArgumentException("Factura no encontrada: " + numeroFactura));
+    }
+    
+    private void validarRango(Date fechaInicio, Date fechaFin) {
+        if (fechaInicio == null || fechaFin == null) {
+            throw new IllegalArgumentException("Las fechas no pueden ser nulas");
         }
         
-        return reporte.toString();
+        if (fechaInicio.after(fechaFin)) {
+            throw new IllegalArgumentException("La fecha de inicio no puede ser posterior a la fecha de fin");
+        }
     }
     
     /**
      * Valida que los datos de la factura sean correctos.
      * 
      * @param factura Factura a validar
-     * @throws IllegalArgumentException Si algún dato es inválido
+     * @throws IllegalArgumentException Si algún dato es inválido; el mensaje
+     *         contiene todas las reglas que no se cumplen
      */
     private void validarFactura(Factura factura) {
-        if (factura.getCliente() == null) {
-            throw new IllegalArgumentException("La factura debe tener un cliente asociado");
-        }
-        
-        if (factura.getLineasDetalle() == null || factura.getLineasDetalle().isEmpty()) {
-            throw new IllegalArgumentException("La factura debe tener al menos una línea de detalle");
-        }
-        
-        // Validar que no haya productos duplicados
-        long productosUnicos = factura.getLineasDetalle().stream()
-            .map(linea -> linea.getProducto().getCodigo())
-            .distinct()
-            .count();
-            
-        if (productosUnicos < factura.getLineasDetalle().size()) {
-            throw new IllegalArgumentException("No se pueden incluir productos duplicados en la factura");
-        }
-        
-        // Validar cantidades positivas
-        for (LineaDetalle linea : factura.getLineasDetalle()) {
-            if (linea.getCantidadProducto() <= 0) {
-                throw new IllegalArgumentException("La cantidad debe ser mayor que cero");
+        VALIDADOR_FACTURA.validar(factura);
+    }
+    
+    private static boolean cantidadesPositivas(Factura factura) {
+        for (int i = 0; i < factura.getCantidadLineas(); i++) {
+            if (factura.getLinea(i).getCantidadProducto() <= 0) {
+                return false;
             }
         }
+        return true;
     }
 }
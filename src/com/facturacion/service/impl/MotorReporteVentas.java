@@ -0,0 +1,180 @@
+package com.facturacion.service.impl;
+
+import com.facturacion.repository.FacturaRepository;
+import com.facturacion.repository.ResumenFactura;
+import com.facturacion.util.EscritorReporte;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * Genera el reporte de ventas de un rango de fechas a partir de los resúmenes
+ * de factura, escribiendo el detalle directamente en el destino a medida que
+ * se recorre, sin guardarlo en memoria.
+ *
+ * En formato de texto el resumen va antes del detalle, por lo que se hace un
+ * primer recorrido (sólo columnas numéricas) para acumular los totales y un
+ * segundo para escribir las líneas. En CSV y JSONL se escribe una línea por
+ * factura en un único recorrido.
+ */
+class MotorReporteVentas {
+
+    private final FacturaRepository facturaRepository;
+
+    /**
+     * @param facturaRepository Repositorio de facturas
+     */
+    MotorReporteVentas(FacturaRepository facturaRepository) {
+        this.facturaRepository = facturaRepository;
+    }
+
+    /**
+     * Genera el reporte de ventas del rango (inclusive) en formato de texto.
+     */
+    String generar(Date fechaInicio, Date fechaFin) {
+        StringWriter reporte = new StringWriter();
+        try {
+            generar(fechaInicio, fechaFin, EscritorReporte.Formato.TEXTO, reporte);
+        } catch (IOException e) {
+            // Un StringWriter no produce errores de escritura
+            throw new UncheckedIOException(e);
+        }
+        return reporte.toString();
+    }
+
+    /**
+     * Escribe el reporte de ventas del rango (inclusive) en el destino. El
+     * destino se vacía (flush) al terminar, pero no se cierra.
+     */
+    void generar(Date fechaInicio, Date fechaFin, EscritorReporte.Formato formato, Writer destino) throws IOException {
+        EscritorReporte escritor = new EscritorReporte(destino);
+        switch (formato) {
+            case TEXTO:
+                escribirEncabezadoTexto(escritor, fechaInicio, fechaFin);
+                break;
+            case CSV:
+                escritor.texto("numero,fecha,cliente,estado,total").nuevaLinea();
+                break;
+            default:
+                break;
+        }
+
+        Linea linea = new Linea(escritor, formato);
+        try {
+            facturaRepository.recorrerResumenes(fechaInicio, fechaFin, linea::escribir);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        escritor.flush();
+    }
+
+    private void escribirEncabezadoTexto(EscritorReporte escritor, Date fechaInicio, Date fechaFin) throws IOException {
+        AcumuladorVentas acumulador = new AcumuladorVentas();
+        facturaRepository.recorrerResumenes(fechaInicio, fechaFin, acumulador::agregar);
+
+        escritor.texto("REPORTE DE VENTAS\n");
+        escritor.texto("=================\n\n");
+        escritor.texto("Período: ").texto(String.valueOf(fechaInicio))
+            .texto(" a ").texto(String.valueOf(fechaFin)).texto("\n\n");
+
+        escritor.texto("RESUMEN\n");
+        escritor.texto("-------\n");
+        escritor.texto("Total de facturas: ").entero(acumulador.getCantidadFacturas()).nuevaLinea();
+        escritor.texto("Total de ventas: ").monto(acumulador.getTotalVentas()).nuevaLinea();
+        escritor.texto("Total de impuestos: ").monto(acumulador.getTotalImpuestos()).nuevaLinea();
+        escritor.texto("Total de descuentos: ").monto(acumulador.getTotalDescuentos()).texto("\n\n");
+
+        escritor.texto("DETALLE DE FACTURAS\n");
+        escritor.texto("------------------\n");
+    }
+
+    /**
+     * Escribe la línea de cada factura, con el nombre del cliente guardado en
+     * la factura. Guarda el último día convertido para no crear una fecha por
+     * factura.
+     */
+    private final class Linea {
+
+        private final EscritorReporte escritor;
+        private final EscritorReporte.Formato formato;
+        private final ZoneId zona = ZoneId.systemDefault();
+        private LocalDate dia;
+        private long inicioDia = Long.MAX_VALUE;
+        private long finDia = Long.MIN_VALUE;
+
+        Linea(EscritorReporte escritor, EscritorReporte.Formato formato) {
+            this.escritor = escritor;
+            this.formato = formato;
+        }
+
+        void escribir(ResumenFactura resumen) {
+            try {
+                switch (formato) {
+                    case CSV:
+                        escribirCsv(resumen);
+                        break;
+                    case JSONL:
+                        escribirJson(resumen);
+                        break;
+                    default:
+                        escribirTexto(resumen);
+                        break;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void escribirTexto(ResumenFactura resumen) throws IOException {
+            escritor.texto("Factura #").entero(resumen.getNumeroFactura())
+                .texto(" - ").fecha(dia(resumen.getFechaMillis()))
+                .texto(" - ").texto(resumen.getNombreCliente())
+                .texto(" - ").texto(estado(resumen.getEstado()))
+                .texto(" - ").monto(resumen.getTotal())
+                .nuevaLinea();
+        }
+
+        private void escribirCsv(ResumenFactura resumen) throws IOException {
+            escritor.entero(resumen.getNumeroFactura()).caracter(',')
+                .fecha(dia(resumen.getFechaMillis())).caracter(',')
+                .campoCsv(resumen.getNombreCliente()).caracter(',')
+                .texto(estado(resumen.getEstado())).caracter(',')
+                .monto(resumen.getTotal())
+                .nuevaLinea();
+        }
+
+        private void escribirJson(ResumenFactura resumen) throws IOException {
+            escritor.texto("{\"numero\":").entero(resumen.getNumeroFactura())
+                .texto(",\"fecha\":\"").fecha(dia(resumen.getFechaMillis()))
+                .texto("\",\"cliente\":").cadenaJson(resumen.getNombreCliente())
+                .texto(",\"estado\":\"").texto(estado(resumen.getEstado()))
+                .texto("\",\"total\":").monto(resumen.getTotal())
+                .caracter('}').nuevaLinea();
+        }
+
+        private LocalDate dia(long fechaMillis) {
+            if (fechaMillis < inicioDia || fechaMillis >= finDia) {
+                dia = Instant.ofEpochMilli(fechaMillis).atZone(zona).toLocalDate();
+                inicioDia = dia.atStartOfDay(zona).toInstant().toEpochMilli();
+                finDia = dia.plusDays(1).atStartOfDay(zona).toInstant().toEpochMilli();
+            }
+            return dia;
+        }
+    }
+
+    private static String estado(ResumenFactura.Estado estado) {
+        switch (estado) {
+            case ANULADA:
+                return "ANULADA";
+            case PAGADA:
+                return "PAGADA";
+            default:
+                return "PENDIENTE";
+        }
+    }
+}
@@ -1,14 +1,19 @@
 package com.facturacion.service.impl;
 
-import com.facturacion.model.Impuesto;
+import com.facturacion.model.Dinero;
 import com.facturacion.model.Producto;
 import com.facturacion.model.ProductoPerecedero;
 import com.facturacion.repository.ProductoRepository;
+import com.facturacion.repository.Pagina;
+import com.facturacion.service.PrecioProducto;
 import com.facturacion.service.ProductoService;
+import com.facturacion.util.Validador;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -17,7 +22,35 @@ import java.util.stream.Collectors;
  */
 public class ProductoServiceImpl implements ProductoService {
     
+    private static final int AÑOS_MAXIMOS_VENCIMIENTO = 10;
+    
+    /**
+     * Reglas de los productos perecederos, además de las comunes. Se evalúan
+     * sobre la fecha ya interpretada; el texto solo se arma para los mensajes.
+     */
+    private static final Validador<ProductoPerecedero> VALIDADOR_PERECEDERO = Validador.<ProductoPerecedero>nuevo()
+        .regla(p -> p.getFechaVencimientoLocal() != null,
+            "La fecha de vencimiento es obligatoria para productos perecederos")
+        .regla(p -> p.getFechaVencimientoLocal() == null || !p.getFechaVencimientoLocal().isBefore(LocalDate.now()),
+            p -> "La fecha de vencimiento " + p.getFechaVencimiento() + " ya ha pasado")
+        .regla(p -> p.getFechaVencimientoLocal() == null
+                || !p.getFechaVencimientoLocal().isAfter(LocalDate.now().plusYears(AÑOS_MAXIMOS_VENCIMIENTO)),
+            p -> "La fecha de vencimiento no puede ser posterior a "
+                + LocalDate.now().plusYears(AÑOS_MAXIMOS_VENCIMIENTO).format(DateTimeFormatter.ISO_LOCAL_DATE));
+    
+    /** Reglas de todos los productos, evaluadas en un solo recorrido. */
+    private static final Validador<Producto> VALIDADOR_PRODUCTO = Validador.<Producto>nuevo()
+        .requerido(Producto::getNombre, "El nombre es obligatorio")
+        .regla(p -> p.getPrecioCentimos() > 0, "El precio debe ser mayor que cero")
+        .regla(p -> p.getCantidadProducto() >= 0, "La cantidad de producto no puede ser negativa")
+        .regla(p -> p.getImpuesto() != null, "El impuesto es obligatorio")
+        .cuando(ProductoPerecedero.class, VALIDADOR_PERECEDERO);
+    
+    /** Cantidad máxima de precios desglosados en memoria. */
+    private static final int CAPACIDAD_CACHE_PRECIOS = 10_000;
+    
     private final ProductoRepository productoRepository;
+    private final CachePrecios cachePrecios;
     
     /**
      * Constructor que recibe el repositorio de productos.
@@ -30,6 +63,8 @@ public class ProductoServiceImpl implements ProductoService {
             throw new IllegalArgumentException("El repositorio de productos no puede ser nulo");
         }
         this.productoRepository = productoRepository;
+        this.cachePrecios = new CachePrecios(productoRepository, CAPACIDAD_CACHE_PRECIOS);
+        productoRepository.agregarOyente(cachePrecios);
     }
     
     @Override
@@ -38,21 +73,14 @@ public class ProductoServiceImpl implements ProductoService {
             throw new IllegalArgumentException("El producto no puede ser nulo");
         }
         
-        validarProducto(producto);
+        // Validar datos obligatorios (y la fecha de vencimiento si es perecedero)
+        VALIDADOR_PRODUCTO.validar(producto);
         
         // Validar que no exista un producto con el mismo código
         if (producto.getCodigo() > 0 && productoRepository.existePorCodigo(producto.getCodigo())) {
             throw new IllegalArgumentException("Ya existe un producto con el código: " + producto.getCodigo());
         }
         
-        // Validar datos obligatorios
-        validarProducto(producto);
-        
-        // Si es un producto perecedero, validar la fecha de vencimiento
-        if (producto instanceof ProductoPerecedero) {
-            validarProductoPerecedero((ProductoPerecedero) producto);
-        }
-        
         // Guardar el producto
         return productoRepository.guardar(producto);
     }
@@ -65,11 +93,30 @@ public class ProductoServiceImpl implements ProductoService {
         return productoRepository.buscarPorCodigo(codigo);
     }
     
+    @Override
+    public Optional<Producto> buscarPorNumeroCodigo(String numeroCodigo) {
+        if (numeroCodigo == null || numeroCodigo.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        return productoRepository.buscarPorNumeroCodigo(numeroCodigo);
+    }
+    
     @Override
     public List<Producto> listarTodos() {
         return productoRepository.buscarTodos();
     }
     
+    @Override
+    public Pagina<Producto> listarPagina(ProductoRepository.Orden orden, String cursor, int limite) {
+        if (orden == null) {
+            throw new IllegalArgumentException("El orden no puede ser nulo");
+        }
+        if (limite <= 0) {
+            throw new IllegalArgumentException("El límite de la página debe ser mayor que cero");
+        }
+        return productoRepository.buscarPagina(orden, cursor, limite);
+    }
+    
     @Override
     public List<Producto> buscarPorNombre(String nombre) {
         if (nombre == null || nombre.trim().isEmpty()) {
@@ -94,13 +141,8 @@ public class ProductoServiceImpl implements ProductoService {
             throw new IllegalArgumentException("No existe un producto con el código: " + producto.getCodigo());
         }
         
-        // Validar datos obligatorios
-        validarProducto(producto);
-        
-        // Si es un producto perecedero, validar la fecha de vencimiento
-        if (producto instanceof ProductoPerecedero) {
-            validarProductoPerecedero((ProductoPerecedero) producto);
-        }
+        // Validar datos obligatorios (y la fecha de vencimiento si es perecedero)
+        VALIDADOR_PRODUCTO.validar(producto);
         
         // Actualizar el producto
         if (!productoRepository.actualizar(producto)) {
@@ -135,24 +177,9 @@ public class ProductoServiceImpl implements ProductoService {
             return false;
         }
         
-        return buscarPorCodigo(codigo)
-            .map(producto -> {
-                int nuevaCantidad = producto.getCantidadProducto() + cantidad;
-                if (nuevaCantidad < 0) {
-                    return false; // No permitir cantidades negativas
-                }
-                
-                try {
-                    // Usar reflexión para acceder al campo cantidadProducto
-                    java.lang.reflect.Field field = Producto.class.getDeclaredField("cantidadProducto");
-                    field.setAccessible(true);
-                    field.setInt(producto, nuevaCantidad);
-                    return actualizarProducto(producto) != null;
-                } catch (Exception e) {
-                    throw new RuntimeException("Error al actualizar el inventario", e);
-                }
-            })
-            .orElse(false);
+        // Las existencias se ajustan en sitio en la tabla de inventario,
+        // sin deserializar ni reescribir el producto completo
+        return productoRepository.actualizarInventario(codigo, cantidad);
     }
     
     @Override
@@ -161,15 +188,64 @@ public class ProductoServiceImpl implements ProductoService {
             return -1;
         }
         
-        return buscarPorCodigo(codigo)
-            .map(producto -> {
-                if (incluirImpuestos) {
-                    double subtotal = producto.getPrecio();
-                    return subtotal + (subtotal * producto.getImpuesto().getPorcentaje() / 100);
-                }
-                return producto.getPrecio();
-            })
-            .orElse(-1.0);
+        PrecioProducto precio = cachePrecios.obtener(codigo);
+        if (precio == null) {
+            return -1;
+        }
+        return incluirImpuestos ? precio.getBruto() : precio.getNeto();
+    }
+    
+    @Override
+    public Optional<PrecioProducto> obtenerDesglosePrecio(int codigo) {
+        if (codigo <= 0) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cachePrecios.obtener(codigo));
+    }
+    
+    @Override
+    public Map<Integer, PrecioProducto> obtenerPrecios(Collection<Integer> codigos) {
+        if (codigos == null) {
+            throw new IllegalArgumentException("La lista de códigos no puede ser nula");
+        }
+        
+        Map<Integer, PrecioProducto> precios = new LinkedHashMap<>();
+        for (Integer codigo : codigos) {
+            if (codigo == null || codigo <= 0 || precios.containsKey(codigo)) {
+                continue;
+            }
+            PrecioProducto precio = cachePrecios.obtener(codigo);
+            if (precio != null) {
+                precios.put(codigo, precio);
+            }
+        }
+        return precios;
+    }
+    
+    @Override
+    public int cambiarPrecios(Map<Integer, Double> nuevosPrecios) {
+        if (nuevosPrecios == null) {
+            throw new IllegalArgumentException("Los precios no pueden ser nulos");
+        }
+        for (Map.Entry<Integer, Double> entrada : nuevosPrecios.entrySet()) {
+            if (entrada.getValue() == null || Dinero.deMonto(entrada.getValue()) <= 0) {
+                throw new IllegalArgumentException("El precio del producto " + entrada.getKey()
+                    + " debe ser mayor que cero");
+            }
+        }
+        
+        int actualizados = 0;
+        for (Map.Entry<Integer, Double> entrada : nuevosPrecios.entrySet()) {
+            Optional<Producto> producto = buscarPorCodigo(entrada.getKey());
+            if (!producto.isPresent()) {
+                continue;
+            }
+            producto.get().setPrecio(entrada.getValue());
+            if (productoRepository.actualizar(producto.get())) {
+                actualizados++;
+            }
+        }
+        return actualizados;
     }
     
     @Override
@@ -191,99 +267,11 @@ public class ProductoServiceImpl implements ProductoService {
         }
     }
     
-    /**
-     * Valida que los datos obligatorios del producto sean correctos.
-     * 
-     * @param producto Producto a validar
-     * @throws IllegalArgumentException Si algún dato es inválido
-     */
-    private void validarProducto(Producto producto) {
-        if (producto.getNombre() == null || producto.getNombre().trim().isEmpty()) {
-            throw new IllegalArgumentException("El nombre es obligatorio");
-        }
-        
-        try {
-            // Usar reflexión para obtener el campo precio
-            java.lang.reflect.Field precioField = Producto.class.getDeclaredField("precio");
-            precioField.setAccessible(true);
-            double precio = precioField.getDouble(producto);
-            
-            if (precio <= 0) {
-                throw new IllegalArgumentException("El precio debe ser mayor que cero");
-            }
-            
-            // Usar reflexión para obtener el campo cantidadProducto
-            java.lang.reflect.Field cantidadField = Producto.class.getDeclaredField("cantidadProducto");
-            cantidadField.setAccessible(true);
-            int cantidad = cantidadField.getInt(producto);
-            
-            if (cantidad < 0) {
-                throw new IllegalArgumentException("La cantidad de producto no puede ser negativa");
-            }
-            
-            if (producto.getImpuesto() == null) {
-                throw new IllegalArgumentException("El impuesto es obligatorio");
-            }
-            
-            // Validar que el impuesto sea uno de los valores permitidos
-            Impuesto impuesto = producto.getImpuesto();
-            boolean esValido = false;
-            for (Impuesto i : Impuesto.values()) {
-                if (i == impuesto) {
-                    esValido = true;
-                    break;
-                }
-            }
-            if (!esValido) {
-                throw new IllegalArgumentException("Tipo de impuesto no válido");
-            }
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            throw new RuntimeException("Error al validar el producto: " + e.getMessage(), e);
-        }
-    }
-    
-    /**
-     * Valida los datos específicos de un producto perecedero.
-     * 
-     * @param producto Producto perecedero a validar
-     * @throws IllegalArgumentException Si algún dato es inválido
-     */
-    private void validarProductoPerecedero(ProductoPerecedero producto) {
+    @Override
+    public List<String> validarProducto(Producto producto) {
         if (producto == null) {
             throw new IllegalArgumentException("El producto no puede ser nulo");
         }
-        
-        String fechaStr = producto.getFechaVencimiento();
-        if (fechaStr == null || fechaStr.trim().isEmpty()) {
-            throw new IllegalArgumentException("La fecha de vencimiento es obligatoria para productos perecederos");
-        }
-        
-        try {
-            // Try parsing with ISO format (yyyy-MM-dd) first
-            LocalDate fechaVencimiento;
-            try {
-                fechaVencimiento = LocalDate.parse(fechaStr);
-            } catch (DateTimeParseException e) {
-                // If ISO format fails, try with common format (dd/MM/yyyy)
-                DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-                fechaVencimiento = LocalDate.parse(fechaStr, formatter);
-            }
-            
-            LocalDate hoy = LocalDate.now();
-            if (fechaVencimiento.isBefore(hoy)) {
-                throw new IllegalArgumentException("La fecha de vencimiento " + fechaStr + " ya ha pasado");
-            }
-            
-            // Optional: Validate that the date is not too far in the future (e.g., 10 years)
-            LocalDate maxFecha = hoy.plusYears(10);
-            if (fechaVencimiento.isAfter(maxFecha)) {
-                throw new IllegalArgumentException("La fecha de vencimiento no puede ser posterior a " + maxFecha.format(DateTimeFormatter.ISO_LOCAL_DATE));
-            }
-            
-        } catch (DateTimeParseException e) {
-            throw new IllegalArgumentException("Formato de fecha inválido. Use yyyy-MM-dd o dd/MM/yyyy: " + fechaStr, e);
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Error al validar la fecha de vencimiento: " + e.getMessage(), e);
-        }
+        return VALIDADOR_PRODUCTO.violaciones(producto);
     }
 }
@@ -379,7 +379,7 @@ public class ClientePanel extends BasePanel {
         }
         
         // Verificar si el cliente tiene facturas asociadas
-        if (!app.getFacturaService().buscarPorCliente(cliente.getCedula()).isEmpty()) {
+        if (app.getFacturaService().tieneFacturas(cliente.getCedula())) {
             mostrarError("No se puede eliminar el cliente porque tiene facturas asociadas.");
             return;
         }
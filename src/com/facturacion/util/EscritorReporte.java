@@ -0,0 +1,274 @@
+package com.facturacion.util;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Escritor de reportes con un búfer de tamaño fijo sobre un {@link Writer}.
+ * Escribe números, montos y fechas directamente en el búfer, sin crear
+ * cadenas intermedias ni usar {@code String.format}, de modo que un reporte
+ * de millones de líneas se genera con memoria constante.
+ *
+ * Los montos se escriben con dos decimales y punto decimal, redondeados al
+ * céntimo. El escritor no cierra el destino salvo que se llame a {@link #close()}.
+ */
+public class EscritorReporte implements Flushable, Closeable {
+
+    /**
+     * Formatos de salida de los reportes.
+     */
+    public enum Formato {
+        /** Texto legible, con encabezado y resumen. */
+        TEXTO,
+        /** Valores separados por comas, con una fila de encabezado. */
+        CSV,
+        /** Un objeto JSON por línea. */
+        JSONL
+    }
+
+    private static final int TAMANO_BUFFER = 8192;
+    /** Suficiente para el número más largo con separadores de miles y signo. */
+    private static final int MAXIMO_DIGITOS = 32;
+
+    private final Writer destino;
+    private final char[] buffer = new char[TAMANO_BUFFER];
+    private final char[] digitos = new char[MAXIMO_DIGITOS];
+    private int posicion;
+
+    /**
+     * @param destino Writer donde se escribe el reporte
+     */
+    public EscritorReporte(Writer destino) {
+        if (destino == null) {
+            throw new IllegalArgumentException("El destino del reporte no puede ser nulo");
+        }
+        this.destino = destino;
+    }
+
+    /**
+     * @param destino Flujo donde se escribe el reporte, codificado en UTF-8
+     */
+    public EscritorReporte(OutputStream destino) {
+        this(new OutputStreamWriter(destino, StandardCharsets.UTF_8));
+    }
+
+    public EscritorReporte texto(CharSequence texto) throws IOException {
+        String valor = texto == null ? "" : texto.toString();
+        int longitud = valor.length();
+        int inicio = 0;
+        while (inicio < longitud) {
+            if (posicion == TAMANO_BUFFER) {
+                vaciar();
+            }
+            int cantidad = Math.min(longitud - inicio, TAMANO_BUFFER - posicion);
+            valor.getChars(inicio, inicio + cantidad, buffer, posicion);
+            posicion += cantidad;
+            inicio += cantidad;
+        }
+        return this;
+    }
+
+    public EscritorReporte caracter(char c) throws IOException {
+        if (posicion == TAMANO_BUFFER) {
+            vaciar();
+        }
+        buffer[posicion++] = c;
+        return this;
+    }
+
+    public EscritorReporte nuevaLinea() throws IOException {
+        return caracter('\n');
+    }
+
+    /**
+     * Escribe un número entero sin separadores.
+     */
+    public EscritorReporte entero(long numero) throws IOException {
+        return escribirNumero(numero, -1, false);
+    }
+
+    /**
+     * Escribe un monto con dos decimales (por ejemplo, 1234.50).
+     */
+    public EscritorReporte monto(double monto) throws IOException {
+        return escribirNumero(Math.round(monto * 100), 2, false);
+    }
+
+    /**
+     * Escribe un monto en céntimos con dos decimales (por ejemplo, 123450 como 1234.50).
+     */
+    public EscritorReporte centimos(long centimos) throws IOException {
+        return escribirNumero(centimos, 2, false);
+    }
+
+    /**
+     * Escribe un monto en céntimos con dos decimales y separador de miles.
+     */
+    public EscritorReporte centimosConMiles(long centimos) throws IOException {
+        return escribirNumero(centimos, 2, true);
+    }
+
+    /**
+     * Escribe un monto con dos decimales y separador de miles (por ejemplo, 1,234.50).
+     */
+    public EscritorReporte montoConMiles(double monto) throws IOException {
+        return escribirNumero(Math.round(monto * 100), 2, true);
+    }
+
+    /**
+     * Escribe un entero con separador de miles (por ejemplo, 12,345).
+     */
+    public EscritorReporte enteroConMiles(long numero) throws IOException {
+        return escribirNumero(numero, -1, true);
+    }
+
+    /**
+     * Escribe un valor con {@code decimales} dígitos después del punto
+     * (-1 para un entero), de derecha a izquierda en el arreglo de dígitos.
+     */
+    private EscritorReporte escribirNumero(long valor, int decimales, boolean miles) throws IOException {
+        boolean negativo = valor < 0;
+        // Trabajar con el valor negativo evita el desborde de Long.MIN_VALUE
+        long resto = negativo ? valor : -valor;
+        int i = MAXIMO_DIGITOS;
+        for (int d = 0; d < decimales; d++) {
+            digitos[--i] = (char) ('0' - resto % 10);
+            resto /= 10;
+        }
+        if (decimales > 0) {
+            digitos[--i] = '.';
+        }
+        int enGrupo = 0;
+        do {
+            if (miles && enGrupo == 3) {
+                digitos[--i] = ',';
+                enGrupo = 0;
+            }
+            digitos[--i] = (char) ('0' - resto % 10);
+            resto /= 10;
+            enGrupo++;
+        } while (resto != 0);
+        if (negativo) {
+            digitos[--i] = '-';
+        }
+
+        int cantidad = MAXIMO_DIGITOS - i;
+        if (TAMANO_BUFFER - posicion < cantidad) {
+            vaciar();
+        }
+        System.arraycopy(digitos, i, buffer, posicion, cantidad);
+        posicion += cantidad;
+        return this;
+    }
+
+    /**
+     * Escribe una fecha en formato ISO (aaaa-mm-dd).
+     */
+    public EscritorReporte fecha(LocalDate fecha) throws IOException {
+        escribirRelleno(fecha.getYear(), 4);
+        caracter('-');
+        escribirRelleno(fecha.getMonthValue(), 2);
+        caracter('-');
+        escribirRelleno(fecha.getDayOfMonth(), 2);
+        return this;
+    }
+
+    private void escribirRelleno(int numero, int ancho) throws IOException {
+        for (int divisor = (int) Math.pow(10, ancho - 1); divisor > numero && divisor > 1; divisor /= 10) {
+            caracter('0');
+        }
+        entero(numero);
+    }
+
+    /**
+     * Escribe un campo de CSV, entre comillas si contiene comas, comillas o saltos de línea.
+     */
+    public EscritorReporte campoCsv(CharSequence campo) throws IOException {
+        String valor = campo == null ? "" : campo.toString();
+        boolean requiereComillas = false;
+        for (int i = 0; i < valor.length() && !requiereComillas; i++) {
+            char c = valor.charAt(i);
+            requiereComillas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!requiereComillas) {
+            return texto(valor);
+        }
+        caracter('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                caracter('"');
+            }
+            caracter(c);
+        }
+        return caracter('"');
+    }
+
+    /**
+     * Escribe una cadena JSON entre comillas, escapando los caracteres especiales.
+     */
+    public EscritorReporte cadenaJson(CharSequence cadena) throws IOException {
+        if (cadena == null) {
+            return texto("null");
+        }
+        caracter('"');
+        for (int i = 0; i < cadena.length(); i++) {
+            char c = cadena.charAt(i);
+            switch (c) {
+                case '"':
+                    texto("\\\"");
+                    break;
+                case '\\':
+                    texto("\\\\");
+                    break;
+                case '\n':
+                    texto("\\n");
+                    break;
+                case '\r':
+                    texto("\\r");
+                    break;
+                case '\t':
+                    texto("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        texto("\\u00");
+                        caracter(Character.forDigit(c >> 4, 16));
+                        caracter(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        caracter(c);
+                    }
+            }
+        }
+        return caracter('"');
+    }
+
+    private void vaciar() throws IOException {
+        destino.write(buffer, 0, posicion);
+        posicion = 0;
+    }
+
+    /**
+     * Escribe el contenido del búfer en el destino y lo vacía.
+     */
+    @Override
+    public void flush() throws IOException {
+        vaciar();
+        destino.flush();
+    }
+
+    /**
+     * Escribe el contenido pendiente y cierra el destino.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        destino.close();
+    }
+}
@@ -0,0 +1,37 @@
+package com.facturacion.util;
+
+/**
+ * Formatos de papel para los recibos, con la cantidad de caracteres por línea
+ * de cada uno.
+ */
+public enum FormatoRecibo {
+    /** Impresora térmica de 58 mm (fuente A). */
+    MM_58(32, true),
+    /** Impresora térmica de 80 mm (fuente A). */
+    MM_80(48, true),
+    /** Hoja A4 en fuente monoespaciada. */
+    A4(80, false);
+
+    private final int columnas;
+    private final boolean detalleEnDosLineas;
+
+    private FormatoRecibo(int columnas, boolean detalleEnDosLineas) {
+        this.columnas = columnas;
+        this.detalleEnDosLineas = detalleEnDosLineas;
+    }
+
+    /**
+     * @return Caracteres por línea
+     */
+    public int getColumnas() {
+        return columnas;
+    }
+
+    /**
+     * @return true si cada línea de detalle ocupa dos renglones (descripción y
+     *         montos), false si se imprime en columnas en un solo renglón
+     */
+    public boolean isDetalleEnDosLineas() {
+        return detalleEnDosLineas;
+    }
+}
@@ -0,0 +1,155 @@
+package com.facturacion.util;
+
+import com.facturacion.model.Cliente;
+import com.facturacion.model.Empresa;
+import com.facturacion.model.Factura;
+import com.facturacion.model.Moneda;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Informes de ventas y de puntos de una {@link Empresa}, escritos con
+ * {@link EscritorReporte}. Están fuera del modelo para que éste no dependa
+ * del paquete de utilidades.
+ */
+public final class InformesEmpresa {
+
+    private InformesEmpresa() {
+    }
+
+    /**
+     * Genera un informe de ventas del día.
+     * 
+     * @param empresa Empresa cuyas facturas se incluyen
+     * @return String con el informe de ventas
+     */
+    public static String ventasDelDia(Empresa empresa) {
+        StringWriter informe = new StringWriter();
+        escribirVentasDelDia(empresa, informe);
+        return informe.toString();
+    }
+    
+    /**
+     * Escribe el informe de ventas del día en un destino. El destino no se cierra.
+     * 
+     * @param empresa Empresa cuyas facturas se incluyen
+     * @param destino Writer donde se escribe el informe
+     */
+    public static void escribirVentasDelDia(Empresa empresa, Writer destino) {
+        List<Factura> facturasHoy = empresa.obtenerFacturasDelDia();
+        
+        // Montos en céntimos
+        long totalVentasColones = 0;
+        long totalVentasDolares = 0;
+        long totalTarjetas = 0;
+        
+        for (Factura factura : facturasHoy) {
+            if (factura.getPago() != null) {
+                if (factura.getPago().esEfectivo()) {
+                    if (factura.getPago().esEnDolares()) {
+                        totalVentasDolares += factura.getTotalCentimos();
+                    } else {
+                        totalVentasColones += factura.getTotalCentimos();
+                    }
+                } else {
+                    totalTarjetas += factura.getTotalCentimos();
+                }
+            }
+        }
+        
+        try {
+            EscritorReporte escritor = new EscritorReporte(destino);
+            if (facturasHoy.isEmpty()) {
+                escritor.texto("No hay ventas registradas para el día de hoy.");
+            } else {
+                escritor.texto("INFORME DE VENTAS - ").fecha(java.time.LocalDate.now()).nuevaLinea();
+                escritor.texto("========================================\n");
+                escritor.texto("Total de facturas: ").entero(facturasHoy.size()).nuevaLinea();
+                escritor.texto("Ventas en efectivo (colones): ₡").centimosConMiles(totalVentasColones).nuevaLinea();
+                escritor.texto("Ventas en efectivo (dólares): $").centimosConMiles(totalVentasDolares).nuevaLinea();
+                escritor.texto("Ventas con tarjeta: ₡").centimosConMiles(totalTarjetas).nuevaLinea();
+                escritor.texto("----------------------------------------\n");
+                escritor.texto("TOTAL GENERAL: ₡").centimosConMiles(
+                    totalVentasColones + totalTarjetas + 
+                    Moneda.DOLARES.aColonesCentimos(totalVentasDolares)).nuevaLinea();
+            }
+            escritor.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("Error al escribir el informe de ventas", e);
+        }
+    }
+    
+    /**
+     * Genera un informe de puntos de los clientes.
+     * 
+     * @param empresa Empresa cuyos clientes se incluyen
+     * @return String con el informe de puntos
+     */
+    public static String puntosClientes(Empresa empresa) {
+        StringWriter informe = new StringWriter();
+        escribirPuntosClientes(empresa, informe, EscritorReporte.Formato.TEXTO);
+        return informe.toString();
+    }
+    
+    /**
+     * Escribe el informe de puntos de los clientes en un destino, ordenado de
+     * mayor a menor cantidad de puntos. En CSV y JSONL se escribe una línea por
+     * cliente, sin encabezado de texto ni mensajes. El destino no se cierra.
+     * 
+     * @param empresa Empresa cuyos clientes se incluyen
+     * @param destino Writer donde se escribe el informe
+     * @param formato Formato de salida (texto, CSV o JSONL)
+     */
+    public static void escribirPuntosClientes(Empresa empresa, Writer destino, EscritorReporte.Formato formato) {
+        // Filtrar clientes con puntos y ordenar por puntos (de mayor a menor)
+        List<Cliente> clientes = empresa.getClientes();
+        List<Cliente> clientesConPuntos = clientes.stream()
+            .filter(c -> c.getPuntos() > 0)
+            .sorted((c1, c2) -> Integer.compare(c2.getPuntos(), c1.getPuntos()))
+            .collect(Collectors.toList());
+        
+        try {
+            EscritorReporte escritor = new EscritorReporte(destino);
+            switch (formato) {
+                case CSV:
+                    escritor.texto("cedula,nombre,puntos").nuevaLinea();
+                    for (Cliente cliente : clientesConPuntos) {
+                        escritor.entero(cliente.getCedula()).caracter(',')
+                            .campoCsv(cliente.getNombre()).caracter(',')
+                            .entero(cliente.getPuntos()).nuevaLinea();
+                    }
+                    break;
+                case JSONL:
+                    for (Cliente cliente : clientesConPuntos) {
+                        escritor.texto("{\"cedula\":").entero(cliente.getCedula())
+                            .texto(",\"nombre\":").cadenaJson(cliente.getNombre())
+                            .texto(",\"puntos\":").entero(cliente.getPuntos())
+                            .caracter('}').nuevaLinea();
+                    }
+                    break;
+                default:
+                    if (clientes.isEmpty()) {
+                        escritor.texto("No hay clientes registrados.");
+                    } else if (clientesConPuntos.isEmpty()) {
+                        escritor.texto("Ningún cliente ha acumulado puntos aún.");
+                    } else {
+                        escritor.texto("INFORME DE PUNTOS DE CLIENTES\n");
+                        escritor.texto("========================================\n");
+                        for (Cliente cliente : clientesConPuntos) {
+                            escritor.texto(cliente.getNombre())
+                                .texto(" (Cédula: ").entero(cliente.getCedula())
+                                .texto("): ").enteroConMiles(cliente.getPuntos())
+                                .texto(" puntos").nuevaLinea();
+                        }
+                    }
+                    break;
+            }
+            escritor.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("Error al escribir el informe de puntos", e);
+        }
+    }
+}
@@ -1,116 +1,217 @@
 package com.facturacion.util;
 
+import com.facturacion.model.Dinero;
+import com.facturacion.model.Moneda;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 /**
- * Utilidad para convertir números a su representación en letras en español.
- * Soporta números enteros y decimales (hasta céntimos).
+ * Utilidad para convertir montos a su representación en letras en español,
+ * por ejemplo "MIL DOSCIENTOS VEINTIÚN COLONES CON 50/100".
+ * Soporta colones y dólares, montos negativos y hasta céntimos.
+ *
+ * El texto de cada grupo de tres cifras (0 a 999) se calcula una sola vez, y
+ * la conversión escribe directamente en un {@link Appendable} proporcionado
+ * por quien llama, sin concatenar cadenas intermedias.
  */
 public class NumeroALetras {
-    
+
     private static final String[] UNIDADES = {
-        "", "UN ", "DOS ", "TRES ", "CUATRO ", "CINCO ", "SEIS ", "SIETE ", "OCHO ", "NUEVE "
+        "", "UN", "DOS", "TRES", "CUATRO", "CINCO", "SEIS", "SIETE", "OCHO", "NUEVE"
+    };
+
+    private static final String[] DIEZ_A_VEINTINUEVE = {
+        "DIEZ", "ONCE", "DOCE", "TRECE", "CATORCE", "QUINCE", "DIECISÉIS", "DIECISIETE", "DIECIOCHO", "DIECINUEVE",
+        "VEINTE", "VEINTIÚN", "VEINTIDÓS", "VEINTITRÉS", "VEINTICUATRO", "VEINTICINCO", "VEINTISÉIS",
+        "VEINTISIETE", "VEINTIOCHO", "VEINTINUEVE"
     };
-    
+
     private static final String[] DECENAS = {
-        "DIEZ ", "ONCE ", "DOCE ", "TRECE ", "CATORCE ", "QUINCE ", "DIECISEIS", "DIECISIETE", "DIECIOCHO", "DIECINUEVE",
-        "VEINTE ", "TREINTA ", "CUARENTA ", "CINCUENTA ", "SESENTA ", "SETENTA ", "OCHENTA ", "NOVENTA "
+        "", "", "", "TREINTA", "CUARENTA", "CINCUENTA", "SESENTA", "SETENTA", "OCHENTA", "NOVENTA"
     };
-    
+
     private static final String[] CENTENAS = {
-        "CIENTO ", "DOSCIENTOS ", "TRESCIENTOS ", "CUATROCIENTOS ", "QUINIENTOS ",
-        "SEISCIENTOS ", "SETECIENTOS ", "OCHOCIENTOS ", "NOVECIENTOS "
+        "", "CIENTO", "DOSCIENTOS", "TRESCIENTOS", "CUATROCIENTOS", "QUINIENTOS",
+        "SEISCIENTOS", "SETECIENTOS", "OCHOCIENTOS", "NOVECIENTOS"
     };
-    
+
+    /** Texto de cada número de 0 a 999 ("" para el 0). */
+    private static final String[] GRUPOS = new String[1000];
+
+    static {
+        for (int numero = 0; numero < GRUPOS.length; numero++) {
+            GRUPOS[numero] = convertirNumeroMenorAMil(numero);
+        }
+    }
+
+    private static final long MIL = 1_000L;
+    private static final long MILLON = 1_000_000L;
+    private static final long BILLON = 1_000_000_000_000L;
+
     /**
-     * Convierte un número a su representación en letras.
-     * 
-     * @param numero Número a convertir (puede tener decimales)
-     * @return Representación en letras del número
+     * Convierte un monto en colones a su representación en letras.
+     *
+     * @param numero Monto a convertir (puede tener decimales)
+     * @return Representación en letras del monto
      */
     public static String convertir(double numero) {
-        long parteEntera = (long) Math.floor(numero);
-        int centavos = (int) Math.round((numero - parteEntera) * 100);
-        
-        String resultado = convertirNumero(parteEntera).trim();
-        
-        // Manejar el plural
-        if (parteEntera == 1) {
-            resultado += " COLÓN CON ";
-        } else {
-            resultado += " COLONES CON ";
+        return convertir(numero, Moneda.COLONES);
+    }
+
+    /**
+     * Convierte un monto a su representación en letras.
+     *
+     * @param monto Monto a convertir (se redondea al céntimo)
+     * @param moneda Moneda del monto
+     * @return Representación en letras del monto
+     */
+    public static String convertir(double monto, Moneda moneda) {
+        return convertirCentimos(Dinero.deMonto(monto), moneda);
+    }
+
+    /**
+     * Convierte un monto en céntimos a su representación en letras.
+     *
+     * @param centimos Monto en céntimos
+     * @param moneda Moneda del monto
+     * @return Representación en letras del monto
+     */
+    public static String convertirCentimos(long centimos, Moneda moneda) {
+        StringBuilder resultado = new StringBuilder(96);
+        try {
+            escribir(centimos, moneda, resultado);
+        } catch (IOException e) {
+            // Un StringBuilder no produce errores de escritura
+            throw new UncheckedIOException(e);
         }
-        
-        // Agregar céntimos
-        if (centavos > 0) {
-            resultado += String.format("%02d/100", centavos);
-        } else {
-            resultado += "00/100";
+        return resultado.toString();
+    }
+
+    /**
+     * Escribe un monto en letras en un destino.
+     *
+     * @param centimos Monto en céntimos
+     * @param moneda Moneda del monto
+     * @param destino Destino donde se escribe el texto
+     * @throws IOException Si el destino produce un error de escritura
+     */
+    public static void escribir(long centimos, Moneda moneda, Appendable destino) throws IOException {
+        if (moneda == null) {
+            throw new IllegalArgumentException("La moneda no puede ser nula");
+        }
+        if (centimos == Long.MIN_VALUE) {
+            throw new IllegalArgumentException("Monto fuera de rango");
+        }
+
+        if (centimos < 0) {
+            destino.append("MENOS ");
+            centimos = -centimos;
+        }
+        long parteEntera = centimos / Dinero.CENTIMOS_POR_UNIDAD;
+        int fraccion = (int) (centimos % Dinero.CENTIMOS_POR_UNIDAD);
+
+        escribirEntero(parteEntera, destino);
+
+        // "UN MILLÓN DE COLONES", pero "UN MILLÓN CIEN COLONES"
+        if (parteEntera >= MILLON && parteEntera % MILLON == 0) {
+            destino.append(" DE");
+        }
+        destino.append(' ').append(nombreMoneda(moneda, parteEntera == 1)).append(" CON ");
+        destino.append((char) ('0' + fraccion / 10)).append((char) ('0' + fraccion % 10)).append("/100");
+    }
+
+    private static String nombreMoneda(Moneda moneda, boolean singular) {
+        switch (moneda) {
+            case DOLARES:
+                return singular ? "DÓLAR" : "DÓLARES";
+            default:
+                return singular ? "COLÓN" : "COLONES";
         }
-        
-        return resultado;
     }
-    
-    private static String convertirNumero(long numero) {
+
+    /**
+     * Escribe un número entero no negativo en letras, por grupos: billones,
+     * millones y el resto (cada uno menor que un millón).
+     */
+    private static void escribirEntero(long numero, Appendable destino) throws IOException {
         if (numero == 0) {
-            return "CERO ";
-        }
-        
-        String resultado = "";
-        
-        // Miles de millón
-        if ((numero / 1000000000) > 0) {
-            resultado += convertirNumero(numero / 1000000000) + "MIL MILLONES ";
-            numero = numero % 1000000000;
-        }
-        
-        // Millones
-        if ((numero / 1000000) > 0) {
-            resultado += convertirNumeroMenorAMil((int) (numero / 1000000)) + "MILLONES ";
-            numero = numero % 1000000;
-        }
-        
-        // Miles
-        if ((numero / 1000) > 0) {
-            if (numero / 1000 == 1) {
-                resultado += "MIL ";
-            } else {
-                resultado += convertirNumeroMenorAMil((int) (numero / 1000)) + "MIL ";
-            }
-            numero = numero % 1000;
+            destino.append("CERO");
+            return;
+        }
+
+        boolean escrito = false;
+        long billones = numero / BILLON;
+        if (billones > 0) {
+            escrito = escribirEscala(billones, "BILLÓN", "BILLONES", destino, escrito);
+        }
+        long millones = numero % BILLON / MILLON;
+        if (millones > 0) {
+            escrito = escribirEscala(millones, "MILLÓN", "MILLONES", destino, escrito);
+        }
+        int resto = (int) (numero % MILLON);
+        if (resto > 0) {
+            escribirMenorAMillon(resto, destino, escrito);
+        }
+    }
+
+    private static boolean escribirEscala(long cantidad, String singular, String plural,
+                                          Appendable destino, boolean escrito) throws IOException {
+        if (cantidad == 1) {
+            separar(destino, escrito).append("UN ").append(singular);
+        } else {
+            escribirMenorAMillon((int) cantidad, destino, escrito);
+            destino.append(' ').append(plural);
+        }
+        return true;
+    }
+
+    private static void escribirMenorAMillon(int numero, Appendable destino, boolean escrito) throws IOException {
+        int miles = numero / (int) MIL;
+        int unidades = numero % (int) MIL;
+        if (miles == 1) {
+            separar(destino, escrito).append("MIL");
+            escrito = true;
+        } else if (miles > 1) {
+            separar(destino, escrito).append(GRUPOS[miles]).append(" MIL");
+            escrito = true;
         }
-        
-        // Centenas, decenas y unidades
-        if (numero > 0) {
-            resultado += convertirNumeroMenorAMil((int) numero);
+        if (unidades > 0) {
+            separar(destino, escrito).append(GRUPOS[unidades]);
         }
-        
-        return resultado;
     }
-    
+
+    private static Appendable separar(Appendable destino, boolean escrito) throws IOException {
+        return escrito ? destino.append(' ') : destino;
+    }
+
     private static String convertirNumeroMenorAMil(int numero) {
-        String resultado = "";
-        
+        if (numero == 100) {
+            return "CIEN";
+        }
+
+        StringBuilder resultado = new StringBuilder();
+
         // Centenas
-        if ((numero / 100) > 0) {
-            if (numero == 100) {
-                return "CIEN ";
-            }
-            resultado += CENTENAS[(numero / 100) - 1];
+        if (numero >= 100) {
+            resultado.append(CENTENAS[numero / 100]);
             numero = numero % 100;
+            if (numero > 0) {
+                resultado.append(' ');
+            }
         }
-        
-        // Decenas
-        if (numero >= 10 && numero < 20) {
-            resultado += DECENAS[numero - 10];
-        } else if (numero >= 20) {
-            resultado += DECENAS[8 + (numero / 10)];
+
+        // Decenas y unidades
+        if (numero >= 30) {
+            resultado.append(DECENAS[numero / 10]);
             if (numero % 10 > 0) {
-                resultado = resultado.substring(0, resultado.length() - 1) + "I" + UNIDADES[numero % 10];
+                resultado.append(" Y ").append(UNIDADES[numero % 10]);
             }
+        } else if (numero >= 10) {
+            resultado.append(DIEZ_A_VEINTINUEVE[numero - 10]);
         } else if (numero > 0) {
-            // Unidades
-            resultado += UNIDADES[numero];
+            resultado.append(UNIDADES[numero]);
         }
-        
-        return resultado;
+
+        return resultado.toString();
     }
 }
@@ -0,0 +1,576 @@
+package com.facturacion.util;
+
+import com.facturacion.model.Dinero;
+import com.facturacion.model.Factura;
+import com.facturacion.model.LineaDetalle;
+import com.facturacion.model.Moneda;
+import com.facturacion.model.Pago;
+import com.facturacion.model.TipoPago;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Genera el recibo de una factura como texto o como secuencia de bytes ESC/POS
+ * para impresoras térmicas.
+ *
+ * La plantilla de cada {@link FormatoRecibo} (separadores, anchos de columna y
+ * encabezados) se arma una sola vez al crear el renderizador, y cada renglón
+ * se compone en un búfer que se reutiliza entre recibos. Por eso una instancia
+ * no debe usarse desde varios hilos a la vez; {@link #para(FormatoRecibo)}
+ * entrega una instancia propia de cada hilo.
+ */
+public final class RenderizadorRecibo {
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+
+    private static final ThreadLocal<RenderizadorRecibo[]> POR_HILO =
+        ThreadLocal.withInitial(() -> new RenderizadorRecibo[FormatoRecibo.values().length]);
+
+    /** Página de códigos 850 (multilingüe), que incluye las letras acentuadas y la ñ. */
+    private static final Charset CHARSET_ESC_POS = Charset.forName("IBM850");
+
+    private static final byte[] ESC_POS_INICIAR = {0x1B, 0x40};
+    private static final byte[] ESC_POS_PAGINA_850 = {0x1B, 0x74, 2};
+    private static final byte[] ESC_POS_NEGRITA = {0x1B, 0x45, 1};
+    private static final byte[] ESC_POS_SIN_NEGRITA = {0x1B, 0x45, 0};
+    private static final byte[] ESC_POS_CENTRAR = {0x1B, 0x61, 1};
+    private static final byte[] ESC_POS_IZQUIERDA = {0x1B, 0x61, 0};
+    /** Avanza el papel y hace un corte parcial. */
+    private static final byte[] ESC_POS_CORTAR = {0x1D, 0x56, 0x42, 0x03};
+    private static final byte SALTO_DE_LINEA = '\n';
+
+    private static final int ANCHO_NUMERO_LINEA = 4;
+    private static final int ANCHO_CANTIDAD = 6;
+    private static final int ANCHO_MONTO = 12;
+
+    private final FormatoRecibo formato;
+    private final int ancho;
+
+    // Plantilla precompilada
+    private final String separadorDoble;
+    private final String separadorSimple;
+    private final String encabezadoColumnas;
+    private final int anchoDescripcion;
+
+    // Búferes reutilizables
+    private final StringBuilder linea = new StringBuilder(128);
+    private final char[] digitos = new char[32];
+    private final CharsetEncoder codificador = CHARSET_ESC_POS.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer bytesLinea;
+
+    /**
+     * @param formato Formato de papel del recibo
+     */
+    public RenderizadorRecibo(FormatoRecibo formato) {
+        if (formato == null) {
+            throw new IllegalArgumentException("El formato del recibo no puede ser nulo");
+        }
+        this.formato = formato;
+        this.ancho = formato.getColumnas();
+        this.separadorDoble = repetir('=', ancho);
+        this.separadorSimple = repetir('-', ancho);
+        this.anchoDescripcion = ancho - ANCHO_NUMERO_LINEA - ANCHO_CANTIDAD - 3 * ANCHO_MONTO;
+        this.encabezadoColumnas = formato.isDetalleEnDosLineas() ? null : armarEncabezadoColumnas();
+        this.bytesLinea = ByteBuffer.allocate((int) Math.ceil(ancho * codificador.maxBytesPerChar()) + 1);
+    }
+
+    /**
+     * Obtiene el renderizador del hilo actual para un formato. La instancia se
+     * crea la primera vez y se reutiliza en las siguientes llamadas del mismo hilo.
+     *
+     * @param formato Formato de papel del recibo
+     * @return Renderizador propio del hilo actual
+     */
+    public static RenderizadorRecibo para(FormatoRecibo formato) {
+        RenderizadorRecibo[] renderizadores = POR_HILO.get();
+        RenderizadorRecibo renderizador = renderizadores[formato.ordinal()];
+        if (renderizador == null) {
+            renderizador = new RenderizadorRecibo(formato);
+            renderizadores[formato.ordinal()] = renderizador;
+        }
+        return renderizador;
+    }
+
+    public FormatoRecibo getFormato() {
+        return formato;
+    }
+
+    /**
+     * Genera el recibo como texto.
+     *
+     * @param factura Factura a imprimir
+     * @return Texto del recibo
+     */
+    public String renderizarTexto(Factura factura) {
+        StringBuilder recibo = new StringBuilder(ancho * 24);
+        try {
+            renderizarTexto(factura, recibo);
+        } catch (IOException e) {
+            // Un StringBuilder no produce errores de escritura
+            throw new UncheckedIOException(e);
+        }
+        return recibo.toString();
+    }
+
+    /**
+     * Escribe el recibo como texto en un destino.
+     *
+     * @param factura Factura a imprimir
+     * @param destino Destino del texto
+     * @throws IOException Si el destino produce un error de escritura
+     */
+    public void renderizarTexto(Factura factura, Appendable destino) throws IOException {
+        renderizar(factura, new SalidaTexto(destino));
+    }
+
+    /**
+     * Genera el recibo como secuencia de comandos ESC/POS.
+     *
+     * @param factura Factura a imprimir
+     * @return Bytes a enviar a la impresora
+     */
+    public byte[] renderizarEscPos(Factura factura) {
+        ByteArrayOutputStream recibo = new ByteArrayOutputStream(ancho * 32);
+        try {
+            renderizarEscPos(factura, recibo);
+        } catch (IOException e) {
+            // Un ByteArrayOutputStream no produce errores de escritura
+            throw new UncheckedIOException(e);
+        }
+        return recibo.toByteArray();
+    }
+
+    /**
+     * Escribe el recibo como comandos ESC/POS: inicializa la impresora,
+     * selecciona la página de códigos 850, imprime y corta el papel.
+     *
+     * @param factura Factura a imprimir
+     * @param destino Flujo hacia la impresora
+     * @throws IOException Si el destino produce un error de escritura
+     */
+    public void renderizarEscPos(Factura factura, OutputStream destino) throws IOException {
+        destino.write(ESC_POS_INICIAR);
+        destino.write(ESC_POS_PAGINA_850);
+        renderizar(factura, new SalidaEscPos(destino));
+        destino.write(ESC_POS_CORTAR);
+        destino.flush();
+    }
+
+    /**
+     * Genera el renglón de una línea de detalle tal como aparece en el recibo
+     * (dos renglones en los formatos angostos).
+     *
+     * @param detalle Línea de detalle
+     * @return Texto de la línea, terminado en salto de línea
+     */
+    public String renderizarLinea(LineaDetalle detalle) {
+        if (detalle == null) {
+            throw new IllegalArgumentException("La línea de detalle no puede ser nula");
+        }
+        StringBuilder texto = new StringBuilder(ancho * 2 + 2);
+        try {
+            escribirDetalle(detalle, new SalidaTexto(texto));
+        } catch (IOException e) {
+            // Un StringBuilder no produce errores de escritura
+            throw new UncheckedIOException(e);
+        }
+        return texto.toString();
+    }
+
+    /**
+     * Genera el comprobante de un pago con las columnas del formato: número y
+     * fecha, tipo de pago, monto (con el tipo de cambio y el equivalente en
+     * colones si se pagó en dólares) y la tarjeta enmascarada si la hay.
+     *
+     * @param pago Pago a imprimir
+     * @return Texto del comprobante
+     */
+    public String renderizarPago(Pago pago) {
+        if (pago == null) {
+            throw new IllegalArgumentException("El pago no puede ser nulo");
+        }
+        StringBuilder texto = new StringBuilder(ancho * 8);
+        try {
+            escribirPago(pago, new SalidaTexto(texto));
+        } catch (IOException e) {
+            // Un StringBuilder no produce errores de escritura
+            throw new UncheckedIOException(e);
+        }
+        return texto.toString();
+    }
+
+    private void escribirPago(Pago pago, Salida salida) throws IOException {
+        linea.setLength(0);
+        linea.append("PAGO #").append(pago.getNumeroPago());
+        recortar();
+        salida.linea(linea);
+
+        linea.setLength(0);
+        linea.append("Fecha: ");
+        FORMATO_FECHA.formatTo(pago.getFechaHora(), linea);
+        recortar();
+        salida.linea(linea);
+
+        linea.setLength(0);
+        linea.append("MÉTODO: ").append(pago.getTipoPago().getDescripcion());
+        recortar();
+        salida.linea(linea);
+
+        if (pago.getMoneda() == Moneda.DOLARES) {
+            escribirMonto("MONTO (" + pago.getMoneda().getSimbolo() + "):", pago.getMontoCentimos(), salida);
+            escribirMonto("TIPO DE CAMBIO:", Dinero.deMonto(pago.getTipoCambio()), salida);
+        }
+        escribirMonto("MONTO (₡):", pago.getMontoEnColonesCentimos(), salida);
+
+        if (pago.getTarjetaCredito() != null) {
+            linea.setLength(0);
+            linea.append("TARJETA: ").append(pago.getTarjetaCredito().getTipoTarjeta().getNombre())
+                .append(' ').append(pago.getTarjetaCredito().getNumeroEnmascarado());
+            recortar();
+            salida.linea(linea);
+        }
+    }
+
+    private void renderizar(Factura factura, Salida salida) throws IOException {
+        if (factura == null) {
+            throw new IllegalArgumentException("La factura no puede ser nula");
+        }
+
+        // Encabezado
+        salida.linea(separadorDoble);
+        salida.centrar(true);
+        salida.negrita(true);
+        linea.setLength(0);
+        linea.append("FACTURA #");
+        int inicio = linea.length();
+        linea.append(factura.getNumeroFactura());
+        rellenarIzquierda(inicio, 6, '0');
+        salida.linea(linea);
+        salida.negrita(false);
+        salida.centrar(false);
+
+        linea.setLength(0);
+        linea.append("Fecha: ");
+        FORMATO_FECHA.formatTo(LocalDateTime.ofInstant(factura.getFechaFactura().toInstant(), ZoneId.systemDefault()), linea);
+        salida.linea(linea);
+
+        if (factura.getCliente() != null) {
+            linea.setLength(0);
+            linea.append("Cliente: ").append(factura.getCliente().getNombre())
+                .append(" (").append(factura.getCliente().getTipo()).append(')');
+            recortar();
+            salida.linea(linea);
+        }
+        salida.linea(separadorSimple);
+
+        // Detalle
+        if (encabezadoColumnas != null) {
+            salida.linea(encabezadoColumnas);
+        }
+        for (int i = 0; i < factura.getCantidadLineas(); i++) {
+            escribirDetalle(factura.getLinea(i), salida);
+        }
+
+        // Totales
+        salida.linea(separadorSimple);
+        escribirMonto("SUBTOTAL:", factura.getSubtotalCentimos(), salida);
+        escribirMonto("IMPUESTO:", factura.getImpuestoCentimos(), salida);
+        if (factura.getDescuentoCentimos() > 0) {
+            escribirMonto("DESCUENTO (Ciudadano de Oro):", factura.getDescuentoCentimos(), salida);
+        }
+        salida.linea(separadorSimple);
+        salida.negrita(true);
+        escribirMonto("TOTAL:", factura.getTotalCentimos(), salida);
+        salida.negrita(false);
+        escribirEnLetras(factura.getTotalCentimos(), salida);
+
+        // Estado de pago
+        salida.linea(separadorSimple);
+        Pago pago = factura.getPago();
+        if (factura.isAnulada()) {
+            salida.linea("ESTADO: ANULADA");
+        } else if (pago != null) {
+            salida.linea("ESTADO: PAGADA");
+            linea.setLength(0);
+            linea.append("MÉTODO: ").append(pago.getTipoPago().getDescripcion());
+            recortar();
+            salida.linea(linea);
+            if (pago.getTipoPago() == TipoPago.CONTADO) {
+                long vuelto = pago.getMontoEnColonesCentimos() - factura.getTotalCentimos();
+                if (vuelto > 0) {
+                    escribirMonto("VUELTO:", vuelto, salida);
+                }
+            } else if (pago.getTarjetaCredito() != null) {
+                linea.setLength(0);
+                linea.append("TARJETA: ").append(pago.getTarjetaCredito().getNumeroEnmascarado());
+                recortar();
+                salida.linea(linea);
+            }
+        } else {
+            salida.linea("ESTADO: PENDIENTE");
+        }
+        salida.linea(separadorDoble);
+    }
+
+    private void escribirDetalle(LineaDetalle detalle, Salida salida) throws IOException {
+        if (formato.isDetalleEnDosLineas()) {
+            escribirDetalleEnDosLineas(detalle, salida);
+            return;
+        }
+
+        String nombre = detalle.getProducto().getNombre();
+        linea.setLength(0);
+        linea.append(detalle.getNumeroLinea()).append('.');
+        rellenarHasta(ANCHO_NUMERO_LINEA);
+        int inicio = linea.length();
+        linea.append(nombre, 0, Math.min(nombre.length(), anchoDescripcion - 1));
+        rellenarHasta(inicio + anchoDescripcion);
+        inicio = linea.length();
+        linea.append(detalle.getCantidadProducto());
+        rellenarIzquierda(inicio, ANCHO_CANTIDAD, ' ');
+        separarColumna(inicio);
+        columnaMonto(detalle.getProducto().getPrecioCentimos());
+        columnaMonto(detalle.getImpuestoCentimos());
+        columnaMonto(detalle.getTotalLineaCentimos());
+        if (linea.length() > ancho) {
+            // Montos más anchos que sus columnas: se usa el detalle en dos renglones
+            escribirDetalleEnDosLineas(detalle, salida);
+            return;
+        }
+        salida.linea(linea);
+    }
+
+    /**
+     * Renglón 1: número y descripción; renglón 2: cantidad x precio y total.
+     */
+    private void escribirDetalleEnDosLineas(LineaDetalle detalle, Salida salida) throws IOException {
+        linea.setLength(0);
+        linea.append(detalle.getNumeroLinea()).append(". ").append(detalle.getProducto().getNombre());
+        recortar();
+        salida.linea(linea);
+
+        linea.setLength(0);
+        linea.append("   ").append(detalle.getCantidadProducto()).append(" x ");
+        agregarMonto(detalle.getProducto().getPrecioCentimos());
+        if (!cabeMonto(detalle.getTotalLineaCentimos())) {
+            // Si el total no cabe junto al precio, va en su propio renglón
+            salida.linea(linea);
+            linea.setLength(0);
+        }
+        alinearMontoDerecha(detalle.getTotalLineaCentimos());
+        salida.linea(linea);
+    }
+
+    private String armarEncabezadoColumnas() {
+        linea.setLength(0);
+        linea.append('#');
+        rellenarHasta(ANCHO_NUMERO_LINEA);
+        linea.append("DESCRIPCIÓN");
+        rellenarHasta(ANCHO_NUMERO_LINEA + anchoDescripcion);
+        agregarColumna("CANT", ANCHO_CANTIDAD);
+        agregarColumna("PRECIO", ANCHO_MONTO);
+        agregarColumna("IMPUESTO", ANCHO_MONTO);
+        agregarColumna("TOTAL", ANCHO_MONTO);
+        return linea.toString();
+    }
+
+    private void agregarColumna(String titulo, int anchoColumna) {
+        int inicio = linea.length();
+        linea.append(titulo);
+        rellenarIzquierda(inicio, anchoColumna, ' ');
+    }
+
+    /**
+     * Escribe un renglón con la etiqueta a la izquierda y el monto alineado a la derecha.
+     */
+    private void escribirMonto(String etiqueta, long centimos, Salida salida) throws IOException {
+        linea.setLength(0);
+        linea.append(etiqueta);
+        alinearMontoDerecha(centimos);
+        salida.linea(linea);
+    }
+
+    /**
+     * Escribe el total en letras, partido en renglones del ancho del recibo.
+     */
+    private void escribirEnLetras(long centimos, Salida salida) throws IOException {
+        linea.setLength(0);
+        NumeroALetras.escribir(centimos, Moneda.COLONES, linea);
+        int inicio = 0;
+        int fin = linea.length();
+        while (fin - inicio > ancho) {
+            int corte = inicio + ancho;
+            while (corte > inicio && linea.charAt(corte) != ' ') {
+                corte--;
+            }
+            if (corte == inicio) {
+                corte = inicio + ancho;
+            }
+            salida.linea(linea.subSequence(inicio, corte));
+            inicio = corte < fin && linea.charAt(corte) == ' ' ? corte + 1 : corte;
+        }
+        salida.linea(linea.subSequence(inicio, fin));
+    }
+
+    private void agregarMonto(long centimos) {
+        int inicio = Dinero.escribir(centimos, true, digitos);
+        linea.append(digitos, inicio, digitos.length - inicio);
+    }
+
+    private void columnaMonto(long centimos) {
+        int inicio = Dinero.escribir(centimos, true, digitos);
+        int largo = digitos.length - inicio;
+        int columna = linea.length();
+        for (int i = largo; i < ANCHO_MONTO; i++) {
+            linea.append(' ');
+        }
+        linea.append(digitos, inicio, largo);
+        separarColumna(columna);
+    }
+
+    /**
+     * Si el valor desbordó su columna, deja al menos un espacio con la anterior.
+     */
+    private void separarColumna(int inicioColumna) {
+        if (inicioColumna > 0 && linea.charAt(inicioColumna) != ' ') {
+            linea.insert(inicioColumna, ' ');
+        }
+    }
+
+    private boolean cabeMonto(long centimos) {
+        int largo = digitos.length - Dinero.escribir(centimos, true, digitos);
+        return linea.length() + 1 + largo <= ancho;
+    }
+
+    /**
+     * Completa el renglón actual con el monto alineado al borde derecho,
+     * recortando el texto previo si no cabe.
+     */
+    private void alinearMontoDerecha(long centimos) {
+        int inicio = Dinero.escribir(centimos, true, digitos);
+        int largo = digitos.length - inicio;
+        int columnaMonto = Math.max(0, ancho - largo);
+        if (linea.length() > columnaMonto - 1) {
+            linea.setLength(Math.max(0, columnaMonto - 1));
+        }
+        rellenarHasta(columnaMonto);
+        linea.append(digitos, inicio, largo);
+    }
+
+    private void rellenarHasta(int columna) {
+        while (linea.length() < columna) {
+            linea.append(' ');
+        }
+    }
+
+    /**
+     * Alinea a la derecha, dentro de {@code anchoCampo}, el texto agregado desde {@code inicio}.
+     */
+    private void rellenarIzquierda(int inicio, int anchoCampo, char relleno) {
+        int faltan = anchoCampo - (linea.length() - inicio);
+        for (int i = 0; i < faltan; i++) {
+            linea.insert(inicio, relleno);
+        }
+    }
+
+    private void recortar() {
+        if (linea.length() > ancho) {
+            linea.setLength(ancho);
+        }
+    }
+
+    private static String repetir(char c, int veces) {
+        StringBuilder texto = new StringBuilder(veces);
+        for (int i = 0; i < veces; i++) {
+            texto.append(c);
+        }
+        return texto.toString();
+    }
+
+    /**
+     * Destino de los renglones del recibo.
+     */
+    private interface Salida {
+        void linea(CharSequence texto) throws IOException;
+
+        void negrita(boolean activa) throws IOException;
+
+        void centrar(boolean activo) throws IOException;
+    }
+
+    /**
+     * Salida de texto plano; ignora los estilos.
+     */
+    private static final class SalidaTexto implements Salida {
+        private final Appendable destino;
+
+        SalidaTexto(Appendable destino) {
+            this.destino = destino;
+        }
+
+        @Override
+        public void linea(CharSequence texto) throws IOException {
+            destino.append(texto).append('\n');
+        }
+
+        @Override
+        public void negrita(boolean activa) {
+        }
+
+        @Override
+        public void centrar(boolean activo) {
+        }
+    }
+
+    /**
+     * Salida ESC/POS: codifica cada renglón en la página de códigos 850 con el
+     * codificador y el búfer del renderizador, y traduce los estilos a comandos.
+     */
+    private final class SalidaEscPos implements Salida {
+        private final OutputStream destino;
+
+        SalidaEscPos(OutputStream destino) {
+            this.destino = destino;
+        }
+
+        @Override
+        public void linea(CharSequence texto) throws IOException {
+            CharBuffer caracteres = CharBuffer.wrap(texto);
+            codificador.reset();
+            while (true) {
+                bytesLinea.clear();
+                boolean pendiente = codificador.encode(caracteres, bytesLinea, true).isOverflow();
+                if (!pendiente) {
+                    codificador.flush(bytesLinea);
+                }
+                destino.write(bytesLinea.array(), 0, bytesLinea.position());
+                if (!pendiente) {
+                    break;
+                }
+            }
+            destino.write(SALTO_DE_LINEA);
+        }
+
+        @Override
+        public void negrita(boolean activa) throws IOException {
+            destino.write(activa ? ESC_POS_NEGRITA : ESC_POS_SIN_NEGRITA);
+        }
+
+        @Override
+        public void centrar(boolean activo) throws IOException {
+            destino.write(activo ? ESC_POS_CENTRAR : ESC_POS_IZQUIERDA);
+        }
+    }
+}
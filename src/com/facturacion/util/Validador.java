@@ -0,0 +1,189 @@
+package com.facturacion.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Conjunto inmutable de reglas de validación para objetos de tipo {@code T}.
+ *
+ * Las reglas se declaran una sola vez como lambdas o referencias a métodos, y
+ * {@link #violaciones(Object)} las evalúa todas en un solo recorrido,
+ * devolviendo el mensaje de cada regla que no se cumple. Cada método de
+ * declaración devuelve un validador nuevo, de modo que una instancia puede
+ * guardarse en una constante y usarse desde varios hilos.
+ *
+ * <pre>
+ * Validador&lt;Producto&gt; validador = Validador.&lt;Producto&gt;nuevo()
+ *     .requerido(Producto::getNombre, "El nombre es obligatorio")
+ *     .regla(p -&gt; p.getPrecioCentimos() &gt; 0, "El precio debe ser mayor que cero");
+ * </pre>
+ *
+ * @param <T> Tipo de los objetos a validar
+ */
+public final class Validador<T> {
+
+    private final List<Regla<? super T>> reglas;
+
+    private Validador(List<Regla<? super T>> reglas) {
+        this.reglas = reglas;
+    }
+
+    /**
+     * @return Validador sin reglas
+     */
+    public static <T> Validador<T> nuevo() {
+        return new Validador<>(Collections.emptyList());
+    }
+
+    /**
+     * Agrega una regla con un mensaje fijo.
+     *
+     * @param condicion Condición que debe cumplir el objeto
+     * @param mensaje Mensaje cuando la condición no se cumple
+     * @return Validador con la regla agregada
+     */
+    public Validador<T> regla(Predicate<? super T> condicion, String mensaje) {
+        if (mensaje == null) {
+            throw new IllegalArgumentException("El mensaje de la regla no puede ser nulo");
+        }
+        return regla(condicion, objeto -> mensaje);
+    }
+
+    /**
+     * Agrega una regla cuyo mensaje depende del objeto validado. El mensaje
+     * solo se construye cuando la regla no se cumple.
+     *
+     * @param condicion Condición que debe cumplir el objeto
+     * @param mensaje Función que construye el mensaje cuando la condición no se cumple
+     * @return Validador con la regla agregada
+     */
+    public Validador<T> regla(Predicate<? super T> condicion, Function<? super T, String> mensaje) {
+        if (condicion == null || mensaje == null) {
+            throw new IllegalArgumentException("La condición y el mensaje de la regla no pueden ser nulos");
+        }
+        return agregar(new Regla<T>() {
+            @Override
+            public List<String> evaluar(T objeto, List<String> violaciones) {
+                return condicion.test(objeto) ? violaciones : agregarViolacion(violaciones, mensaje.apply(objeto));
+            }
+        });
+    }
+
+    /**
+     * Agrega una regla que exige que un texto no sea nulo ni esté en blanco.
+     *
+     * @param campo Función que obtiene el texto del objeto
+     * @param mensaje Mensaje cuando el texto falta
+     * @return Validador con la regla agregada
+     */
+    public Validador<T> requerido(Function<? super T, ? extends CharSequence> campo, String mensaje) {
+        return regla(objeto -> !enBlanco(campo.apply(objeto)), mensaje);
+    }
+
+    /**
+     * Agrega las reglas de otro validador que solo se aplican a los objetos de
+     * un subtipo, por ejemplo las reglas de los productos perecederos dentro de
+     * las reglas de productos.
+     *
+     * @param tipo Subtipo al que se aplican las reglas
+     * @param validador Reglas del subtipo
+     * @return Validador con las reglas agregadas
+     */
+    public <S extends T> Validador<T> cuando(Class<S> tipo, Validador<? super S> validador) {
+        if (tipo == null || validador == null) {
+            throw new IllegalArgumentException("El tipo y el validador no pueden ser nulos");
+        }
+        return agregar(new Regla<T>() {
+            @Override
+            public List<String> evaluar(T objeto, List<String> violaciones) {
+                return tipo.isInstance(objeto) ? validador.evaluar(tipo.cast(objeto), violaciones) : violaciones;
+            }
+        });
+    }
+
+    /**
+     * Evalúa todas las reglas sobre un objeto.
+     *
+     * @param objeto Objeto a validar (no nulo)
+     * @return Mensajes de las reglas que no se cumplen, en orden de declaración;
+     *         vacía si el objeto es válido
+     */
+    public List<String> violaciones(T objeto) {
+        if (objeto == null) {
+            throw new IllegalArgumentException("El objeto a validar no puede ser nulo");
+        }
+        List<String> violaciones = evaluar(objeto, null);
+        return violaciones == null ? Collections.emptyList() : violaciones;
+    }
+
+    /**
+     * Valida un objeto y lanza una excepción con todas las violaciones encontradas.
+     *
+     * @param objeto Objeto a validar
+     * @throws IllegalArgumentException Si alguna regla no se cumple; el mensaje
+     *         contiene una violación por línea
+     */
+    public void validar(T objeto) {
+        List<String> violaciones = violaciones(objeto);
+        if (!violaciones.isEmpty()) {
+            throw new IllegalArgumentException(String.join("\n", violaciones));
+        }
+    }
+
+    /**
+     * @param objeto Objeto a validar
+     * @return true si el objeto cumple todas las reglas
+     */
+    public boolean esValido(T objeto) {
+        return violaciones(objeto).isEmpty();
+    }
+
+    private List<String> evaluar(T objeto, List<String> violaciones) {
+        for (Regla<? super T> regla : reglas) {
+            violaciones = regla.evaluar(objeto, violaciones);
+        }
+        return violaciones;
+    }
+
+    /**
+     * Agrega una violación, creando la lista con la primera. Así validar un
+     * objeto correcto no reserva memoria.
+     */
+    private static List<String> agregarViolacion(List<String> violaciones, String mensaje) {
+        if (violaciones == null) {
+            violaciones = new ArrayList<>(4);
+        }
+        violaciones.add(mensaje);
+        return violaciones;
+    }
+
+    private Validador<T> agregar(Regla<? super T> regla) {
+        List<Regla<? super T>> nuevas = new ArrayList<>(reglas.size() + 1);
+        nuevas.addAll(reglas);
+        nuevas.add(regla);
+        return new Validador<T>(Collections.unmodifiableList(nuevas));
+    }
+
+    private static boolean enBlanco(CharSequence texto) {
+        if (texto == null) {
+            return true;
+        }
+        for (int i = 0; i < texto.length(); i++) {
+            if (!Character.isWhitespace(texto.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Regla precompilada: agrega sus violaciones sobre el objeto a la lista
+     * recibida (que puede ser null si aún no hay ninguna) y devuelve la lista.
+     */
+    private interface Regla<T> {
+        List<String> evaluar(T objeto, List<String> violaciones);
+    }
+}
@@ -0,0 +1,153 @@
+package com.facturacion.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+/**
+ * Compara el clasificador por prefijos con la validación por expresiones
+ * regulares que usaba {@link Tarjeta} antes: para cualquier texto ambos deben
+ * aceptar exactamente los mismos números y códigos de seguridad.
+ */
+public class ClasificadorTarjetasTest {
+
+    private static final Pattern[] NUMEROS = {
+        Pattern.compile("^4[0-9]{12}(?:[0-9]{3})?$"),
+        Pattern.compile("^5[1-5][0-9]{14}$"),
+        Pattern.compile("^3[47][0-9]{13}$")
+    };
+    private static final Pattern[] CODIGOS = {
+        Pattern.compile("^[0-9]{3}$"),
+        Pattern.compile("^[0-9]{3}$"),
+        Pattern.compile("^[0-9]{4}$")
+    };
+    private static final String SEPARADORES = " -\t\n\u000B\f\r\u00A0\u2003\u001C";
+
+    /** Validación original: limpiar con [\s-], comparar con la expresión y aplicar Luhn. */
+    private static boolean validarConRegex(Tarjeta tarjeta, String numero) {
+        if (numero == null) {
+            return false;
+        }
+        String numeroLimpio = numero.replaceAll("[\\s-]", "");
+        if (!NUMEROS[tarjeta.ordinal()].matcher(numeroLimpio).matches()) {
+            return false;
+        }
+        int suma = 0;
+        boolean doble = false;
+        for (int i = numeroLimpio.length() - 1; i >= 0; i--) {
+            int digito = Character.getNumericValue(numeroLimpio.charAt(i));
+            if (doble) {
+                digito *= 2;
+                if (digito > 9) {
+                    digito = (digito % 10) + 1;
+                }
+            }
+            suma += digito;
+            doble = !doble;
+        }
+        return suma % 10 == 0;
+    }
+
+    private static Tarjeta determinarConRegex(String numero) {
+        for (Tarjeta tarjeta : Tarjeta.values()) {
+            if (validarConRegex(tarjeta, numero)) {
+                return tarjeta;
+            }
+        }
+        return null;
+    }
+
+    private static void assertMismaClasificacion(String numero) {
+        Tarjeta esperada = determinarConRegex(numero);
+        assertEquals("Número: " + numero, esperada, Tarjeta.determinar(numero));
+        for (Tarjeta tarjeta : Tarjeta.values()) {
+            assertEquals(tarjeta + " con " + numero, validarConRegex(tarjeta, numero), tarjeta.validarNumero(numero));
+        }
+    }
+
+    /** Completa el número con el dígito verificador de Luhn. */
+    private static String conDigitoVerificador(String sinVerificador) {
+        for (char verificador = '0'; verificador <= '9'; verificador++) {
+            String numero = sinVerificador + verificador;
+            if (luhn(numero)) {
+                return numero;
+            }
+        }
+        throw new AssertionError("Sin dígito verificador para " + sinVerificador);
+    }
+
+    private static boolean luhn(String numero) {
+        int suma = 0;
+        for (int i = numero.length() - 1, posicion = 0; i >= 0; i--, posicion++) {
+            int digito = numero.charAt(i) - '0';
+            if ((posicion & 1) == 1) {
+                digito = digito * 2 > 9 ? digito * 2 - 9 : digito * 2;
+            }
+            suma += digito;
+        }
+        return suma % 10 == 0;
+    }
+
+    @Test
+    public void losNumerosDePruebaDeCadaMarcaSeClasificanIgual() {
+        String[] numeros = {
+            "4111111111111111", "4012888888881881", "4222222222222", "5555555555554444", "5105105105105100",
+            "378282246310005", "371449635398431", "6011111111111117", "3530111333300000", "2223003122003222",
+            "4111 1111 1111 1111", "4111-1111-1111-1111", "3782 822463 10005", "4111111111111112",
+            "", " ", "4", "41111111111111111", "411111111111111", null
+        };
+        for (String numero : numeros) {
+            assertMismaClasificacion(numero);
+        }
+        assertEquals(Tarjeta.VISA, Tarjeta.determinar("4111111111111111"));
+        assertEquals(Tarjeta.MASTERCARD, Tarjeta.determinar("5555555555554444"));
+        assertEquals(Tarjeta.AMERICAN_EXPRESS, Tarjeta.determinar("378282246310005"));
+        assertNull(Tarjeta.determinar("6011111111111117"));
+    }
+
+    @Test
+    public void losNumerosAleatoriosSeClasificanIgual() {
+        Random random = new Random(2024);
+        String[] prefijos = {"4", "51", "55", "56", "50", "34", "37", "35", "3", "5", "6", "2221"};
+        for (int i = 0; i < 200_000; i++) {
+            StringBuilder numero = new StringBuilder(prefijos[random.nextInt(prefijos.length)]);
+            int longitud = 11 + random.nextInt(8);
+            while (numero.length() < longitud - 1) {
+                numero.append((char) ('0' + random.nextInt(10)));
+            }
+            String completo = random.nextBoolean() ? conDigitoVerificador(numero.toString())
+                                                   : numero.append((char) ('0' + random.nextInt(10))).toString();
+            assertMismaClasificacion(completo);
+        }
+    }
+
+    @Test
+    public void losSeparadoresYCaracteresExtranosSeTratanIgual() {
+        Random random = new Random(99);
+        String[] validos = {"4111111111111111", "5555555555554444", "378282246310005", "4222222222222"};
+        String extranos = "a.+/_\u0663\uFF10";
+        for (int i = 0; i < 50_000; i++) {
+            StringBuilder numero = new StringBuilder(validos[random.nextInt(validos.length)]);
+            int inserciones = 1 + random.nextInt(4);
+            for (int j = 0; j < inserciones; j++) {
+                String origen = random.nextInt(5) == 0 ? extranos : SEPARADORES;
+                numero.insert(random.nextInt(numero.length() + 1), origen.charAt(random.nextInt(origen.length())));
+            }
+            assertMismaClasificacion(numero.toString());
+        }
+    }
+
+    @Test
+    public void losCodigosDeSeguridadSeValidanIgual() {
+        String[] codigos = {"123", "1234", "12", "12345", "12a", "abc", "", " 123", "123 ", "123\n", "\u0663\u0663\u0663", "\uFF10\uFF11\uFF12", null};
+        for (Tarjeta tarjeta : Tarjeta.values()) {
+            for (String codigo : codigos) {
+                boolean esperado = codigo != null && CODIGOS[tarjeta.ordinal()].matcher(codigo).matches();
+                assertEquals(tarjeta + " con " + codigo, esperado, tarjeta.validarCodigoSeguridad(codigo));
+            }
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.facturacion.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Compara {@link CodecBinario} con la serialización de Java al escribir y leer
+ * facturas. Las entidades del modelo no son serializables, así que para Java
+ * se usa una copia serializable con los mismos campos.
+ *
+ * Uso: {@code java com.facturacion.model.CodecBinarioBenchmark [facturas] [rondas]}
+ */
+public class CodecBinarioBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int cantidad = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int rondas = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        List<Factura> facturas = generarFacturas(cantidad);
+        List<FacturaSerializable> copias = new ArrayList<>(cantidad);
+        for (Factura factura : facturas) {
+            copias.add(new FacturaSerializable(factura));
+        }
+
+        System.out.printf("%d facturas, %d rondas%n", cantidad, rondas);
+        for (int ronda = 1; ronda <= rondas; ronda++) {
+            long inicio = System.nanoTime();
+            byte[] binario = escribirBinario(facturas);
+            long escrituraBinario = System.nanoTime() - inicio;
+            inicio = System.nanoTime();
+            int leidasBinario = leerBinario(binario, cantidad);
+            long lecturaBinario = System.nanoTime() - inicio;
+
+            inicio = System.nanoTime();
+            byte[] java = escribirJava(copias);
+            long escrituraJava = System.nanoTime() - inicio;
+            inicio = System.nanoTime();
+            int leidasJava = leerJava(java, cantidad);
+            long lecturaJava = System.nanoTime() - inicio;
+
+            if (leidasBinario != cantidad || leidasJava != cantidad) {
+                throw new IllegalStateException("No se leyeron todas las facturas");
+            }
+            System.out.printf("Ronda %d  binario: %,d bytes, escritura %d ms, lectura %d ms"
+                + " | java: %,d bytes, escritura %d ms, lectura %d ms%n",
+                ronda, binario.length, escrituraBinario / 1_000_000, lecturaBinario / 1_000_000,
+                java.length, escrituraJava / 1_000_000, lecturaJava / 1_000_000);
+        }
+    }
+
+    private static List<Factura> generarFacturas(int cantidad) {
+        String vencimiento = LocalDate.now().plusDays(30).format(DateTimeFormatter.ofPattern("dd/MM/yyyy"));
+        Producto[] productos = new Producto[50];
+        for (int i = 0; i < productos.length; i++) {
+            productos[i] = i % 5 == 0
+                ? new ProductoPerecedero("Perecedero " + i, "Producto fresco", 500 + i * 13.25,
+                    Impuesto.values()[i % Impuesto.values().length], 1_000_000, null, vencimiento)
+                : new ProductoNoPerecedero("Producto " + i, null, 1000 + i * 7.5,
+                    Impuesto.values()[i % Impuesto.values().length], 1_000_000, "744100" + i);
+        }
+        List<Factura> facturas = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            Factura factura = new Factura(new Cliente(100_000_000L + i, "Cliente " + i, TipoCliente.OCASIONALES, null));
+            for (int j = 0; j < 1 + i % 8; j++) {
+                factura.agregarProducto(productos[(i + j * 7) % productos.length], 1 + j);
+            }
+            if (i % 2 == 0) {
+                factura.registrarPago(new Pago(factura.getTotal(), Moneda.COLONES, 1.0));
+            }
+            facturas.add(factura);
+        }
+        return facturas;
+    }
+
+    private static byte[] escribirBinario(List<Factura> facturas) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (Factura factura : facturas) {
+                CodecBinario.FACTURA.escribir(out, factura);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static int leerBinario(byte[] datos, int cantidad) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(datos));
+        int leidas = 0;
+        for (int i = 0; i < cantidad; i++) {
+            if (CodecBinario.FACTURA.leer(in) != null) {
+                leidas++;
+            }
+        }
+        return leidas;
+    }
+
+    private static byte[] escribirJava(List<FacturaSerializable> facturas) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            for (FacturaSerializable factura : facturas) {
+                out.writeObject(factura);
+                // Cada factura se guarda por separado, como en el repositorio
+                out.reset();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static int leerJava(byte[] datos, int cantidad) throws IOException, ClassNotFoundException {
+        int leidas = 0;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(datos))) {
+            for (int i = 0; i < cantidad; i++) {
+                if (in.readObject() != null) {
+                    leidas++;
+                }
+            }
+        }
+        return leidas;
+    }
+
+    private static class ClienteSerializable implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final long cedula;
+        final String nombre;
+        final TipoCliente tipo;
+        final boolean ciudadanoOro;
+        final int puntos;
+        final String contacto;
+
+        ClienteSerializable(Cliente cliente) {
+            cedula = cliente.getCedula();
+            nombre = cliente.getNombre();
+            tipo = cliente.getTipo();
+            ciudadanoOro = cliente.isCiudadanoOro();
+            puntos = cliente.getPuntos();
+            contacto = cliente.getContacto();
+        }
+    }
+
+    private static class ProductoSerializable implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final int codigo;
+        final String nombre;
+        final String descripcion;
+        final long precio;
+        final Impuesto impuesto;
+        final int cantidad;
+        final String numeroCodigo;
+        final LocalDate fechaVencimiento;
+
+        ProductoSerializable(Producto producto) {
+            codigo = producto.getCodigo();
+            nombre = producto.getNombre();
+            descripcion = producto.getDescripcion();
+            precio = producto.getPrecioCentimos();
+            impuesto = producto.getImpuesto();
+            cantidad = producto.getCantidadProducto();
+            numeroCodigo = producto.getNumeroCodigo();
+            fechaVencimiento = producto instanceof ProductoPerecedero
+                ? ((ProductoPerecedero) producto).getFechaVencimientoLocal() : null;
+        }
+    }
+
+    private static class LineaSerializable implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final int numeroLinea;
+        final int cantidad;
+        final ProductoSerializable producto;
+
+        LineaSerializable(LineaDetalle linea) {
+            numeroLinea = linea.getNumeroLinea();
+            cantidad = linea.getCantidadProducto();
+            producto = new ProductoSerializable(linea.getProducto());
+        }
+    }
+
+    private static class PagoSerializable implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final int numeroPago;
+        final java.time.LocalDateTime fechaHora;
+        final long monto;
+        final Moneda moneda;
+        final TipoPago tipoPago;
+        final double tipoCambio;
+        final long montoEnColones;
+
+        PagoSerializable(Pago pago) {
+            numeroPago = pago.getNumeroPago();
+            fechaHora = pago.getFechaHora();
+            monto = pago.getMontoCentimos();
+            moneda = pago.getMoneda();
+            tipoPago = pago.getTipoPago();
+            tipoCambio = pago.getTipoCambio();
+            montoEnColones = pago.getMontoEnColonesCentimos();
+        }
+    }
+
+    private static class FacturaSerializable implements Serializable {
+        private static final long serialVersionUID = 1L;
+        final int numeroFactura;
+        final Date fechaFactura;
+        final ClienteSerializable cliente;
+        final ArrayList<LineaSerializable> lineas = new ArrayList<>();
+        final PagoSerializable pago;
+        final long impuesto;
+        final double descuento;
+        final long subtotal;
+        final long total;
+        final boolean cerrada;
+        final String motivoAnulacion;
+
+        FacturaSerializable(Factura factura) {
+            numeroFactura = factura.getNumeroFactura();
+            fechaFactura = factura.getFechaFactura();
+            cliente = factura.getCliente() == null ? null : new ClienteSerializable(factura.getCliente());
+            for (int i = 0; i < factura.getCantidadLineas(); i++) {
+                lineas.add(new LineaSerializable(factura.getLinea(i)));
+            }
+            pago = factura.getPago() == null ? null : new PagoSerializable(factura.getPago());
+            impuesto = factura.getImpuestoCentimos();
+            descuento = factura.getDescuento();
+            subtotal = factura.getSubtotalCentimos();
+            total = factura.getTotalCentimos();
+            cerrada = factura.isCerrada();
+            motivoAnulacion = factura.getMotivoAnulacion();
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.facturacion.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Pruebas de ida y vuelta de {@link CodecBinario} para cada entidad y sus variantes.
+ */
+public class CodecBinarioTest {
+
+    private static final String NUMERO_VISA = "4111111111111111";
+    private static final String CODIGO_SEGURIDAD = "987";
+
+    private static <T> byte[] escribir(Codec<T> codec, T valor) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            codec.escribir(out, valor);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static <T> T leer(Codec<T> codec, byte[] datos) throws IOException {
+        return codec.leer(new DataInputStream(new ByteArrayInputStream(datos)));
+    }
+
+    private static <T> T idaYVuelta(Codec<T> codec, T valor) throws IOException {
+        return leer(codec, escribir(codec, valor));
+    }
+
+    private static Cliente cliente() {
+        Cliente cliente = new Cliente(101110222L, "Ana Peña", TipoCliente.OCASIONALES, "ana@correo.cr");
+        cliente.setCiudadanoOro(true);
+        cliente.agregarPuntos(42);
+        return cliente;
+    }
+
+    private static ProductoNoPerecedero arroz() {
+        return new ProductoNoPerecedero("Arroz", "Bolsa de 2 kg", 1850.35, Impuesto.values()[1], 30, "7441000000017");
+    }
+
+    private static ProductoPerecedero leche() {
+        String vencimiento = LocalDate.now().plusDays(20).format(java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy"));
+        return new ProductoPerecedero("Leche", null, 975.5, Impuesto.values()[0], 12, null, vencimiento);
+    }
+
+    private static Factura facturaConLineas() {
+        Factura factura = new Factura(cliente());
+        factura.agregarProducto(arroz(), 3);
+        factura.agregarProducto(leche(), 2);
+        return factura;
+    }
+
+    private static void assertMismaFactura(Factura esperada, Factura leida) {
+        assertEquals(esperada.getNumeroFactura(), leida.getNumeroFactura());
+        assertEquals(esperada.getFechaFactura(), leida.getFechaFactura());
+        assertEquals(esperada.getCantidadLineas(), leida.getCantidadLineas());
+        for (int i = 0; i < esperada.getCantidadLineas(); i++) {
+            LineaDetalle linea = esperada.getLinea(i);
+            LineaDetalle otra = leida.getLinea(i);
+            assertEquals(linea.getNumeroLinea(), otra.getNumeroLinea());
+            assertEquals(linea.getCantidadProducto(), otra.getCantidadProducto());
+            assertEquals(linea.getProducto().getCodigo(), otra.getProducto().getCodigo());
+            assertEquals(linea.getTotalLineaCentimos(), otra.getTotalLineaCentimos());
+        }
+        assertEquals(esperada.getSubtotalCentimos(), leida.getSubtotalCentimos());
+        assertEquals(esperada.getImpuestoCentimos(), leida.getImpuestoCentimos());
+        assertEquals(esperada.getDescuento(), leida.getDescuento(), 0.0);
+        assertEquals(esperada.getTotalCentimos(), leida.getTotalCentimos());
+        assertEquals(esperada.isCerrada(), leida.isCerrada());
+        assertEquals(esperada.getMotivoAnulacion(), leida.getMotivoAnulacion());
+        assertEquals(esperada.getFechaHoraPago(), leida.getFechaHoraPago());
+        assertEquals(esperada.getFechaHoraAnulacion(), leida.getFechaHoraAnulacion());
+    }
+
+    @Test
+    public void clienteConservaTodosSusCampos() throws IOException {
+        Cliente original = cliente();
+        Cliente leido = idaYVuelta(CodecBinario.CLIENTE, original);
+
+        assertEquals(original.getCedula(), leido.getCedula());
+        assertEquals(original.getNombre(), leido.getNombre());
+        assertEquals(original.getTipo(), leido.getTipo());
+        assertEquals(original.isCiudadanoOro(), leido.isCiudadanoOro());
+        assertEquals(original.getPuntos(), leido.getPuntos());
+        assertEquals(original.getContacto(), leido.getContacto());
+    }
+
+    @Test
+    public void clienteSinContactoConservaElNulo() throws IOException {
+        Cliente original = new Cliente(5L, "Luis", TipoCliente.OCASIONALES, null);
+        assertNull(idaYVuelta(CodecBinario.CLIENTE, original).getContacto());
+    }
+
+    @Test
+    public void productoNoPerecederoConservaPrecioEnCentimos() throws IOException {
+        ProductoNoPerecedero original = arroz();
+        Producto leido = idaYVuelta(CodecBinario.PRODUCTO, original);
+
+        assertTrue(leido instanceof ProductoNoPerecedero);
+        assertEquals(original.getCodigo(), leido.getCodigo());
+        assertEquals(original.getNombre(), leido.getNombre());
+        assertEquals(original.getDescripcion(), leido.getDescripcion());
+        assertEquals(185035L, leido.getPrecioCentimos());
+        assertEquals(original.getImpuesto(), leido.getImpuesto());
+        assertEquals(original.getCantidadProducto(), leido.getCantidadProducto());
+        assertEquals(original.getNumeroCodigo(), leido.getNumeroCodigo());
+    }
+
+    @Test
+    public void productoPerecederoConservaVencimientoYCamposNulos() throws IOException {
+        ProductoPerecedero original = leche();
+        Producto leido = idaYVuelta(CodecBinario.PRODUCTO, original);
+
+        assertTrue(leido instanceof ProductoPerecedero);
+        assertEquals(original.getFechaVencimientoLocal(), ((ProductoPerecedero) leido).getFechaVencimientoLocal());
+        assertEquals(original.getPrecioCentimos(), leido.getPrecioCentimos());
+        assertNull(leido.getDescripcion());
+        assertNull(leido.getNumeroCodigo());
+    }
+
+    @Test
+    public void facturaSinPago() throws IOException {
+        Factura original = facturaConLineas();
+        Factura leida = idaYVuelta(CodecBinario.FACTURA, original);
+
+        assertMismaFactura(original, leida);
+        assertNull(leida.getPago());
+        assertEquals(original.getCliente().getCedula(), leida.getCliente().getCedula());
+        assertTrue(leida.getLinea(1).getProducto() instanceof ProductoPerecedero);
+    }
+
+    @Test
+    public void facturaSinCliente() throws IOException {
+        Factura original = new Factura(7, new Date(1_700_000_000_000L), null, new ArrayList<>(), null,
+            0, 0.0, 0, 0, false, null, null, null);
+        Factura leida = idaYVuelta(CodecBinario.FACTURA, original);
+
+        assertMismaFactura(original, leida);
+        assertNull(leida.getCliente());
+    }
+
+    @Test
+    public void facturaPagadaEnDolares() throws IOException {
+        Factura original = facturaConLineas();
+        assertTrue(original.registrarPago(new Pago(100, Moneda.DOLARES, 512.37)));
+        Factura leida = idaYVuelta(CodecBinario.FACTURA, original);
+
+        assertMismaFactura(original, leida);
+        Pago pago = original.getPago();
+        Pago otro = leida.getPago();
+        assertEquals(pago.getNumeroPago(), otro.getNumeroPago());
+        assertEquals(pago.getFechaHora(), otro.getFechaHora());
+        assertEquals(pago.getMontoCentimos(), otro.getMontoCentimos());
+        assertEquals(Moneda.DOLARES, otro.getMoneda());
+        assertEquals(TipoPago.CONTADO, otro.getTipoPago());
+        assertEquals(pago.getTipoCambio(), otro.getTipoCambio(), 0.0);
+        assertEquals(pago.getMontoEnColonesCentimos(), otro.getMontoEnColonesCentimos());
+        assertNull(otro.getTarjetaCredito());
+    }
+
+    @Test
+    public void facturaAnuladaConservaMotivoYFecha() throws IOException {
+        Factura original = facturaConLineas();
+        assertTrue(original.anular("Cliente desistió"));
+        assertMismaFactura(original, idaYVuelta(CodecBinario.FACTURA, original));
+    }
+
+    @Test
+    public void tarjetaSoloGuardaLosUltimosCuatroDigitos() throws IOException {
+        Factura original = facturaConLineas();
+        TarjetaCredito tarjeta = new TarjetaCredito(NUMERO_VISA, "Ana Peña", "12/35", CODIGO_SEGURIDAD);
+        assertTrue(original.registrarPago(new Pago(original.getTotal(), tarjeta)));
+
+        byte[] datos = escribir(CodecBinario.FACTURA, original);
+        String contenido = new String(datos, StandardCharsets.ISO_8859_1);
+        assertFalse("El número completo no debe llegar a disco", contenido.contains(NUMERO_VISA));
+        assertFalse("El código de seguridad no debe llegar a disco", contenido.contains(CODIGO_SEGURIDAD));
+
+        TarjetaCredito leida = leer(CodecBinario.FACTURA, datos).getPago().getTarjetaCredito();
+        assertNotNull(leida);
+        assertEquals("1111", leida.getUltimosDigitos());
+        assertEquals(tarjeta.getNumeroEnmascarado(), leida.getNumeroEnmascarado());
+        assertEquals("Ana Peña", leida.getNombreTitular());
+        assertEquals(YearMonth.of(2035, 12), leida.getFechaVencimiento());
+        assertEquals(Tarjeta.VISA, leida.getTipoTarjeta());
+        assertNull(leida.getCodigoSeguridad());
+    }
+
+    @Test
+    public void leeRegistrosDeLaVersionUnoDescartandoDatosSensibles() throws IOException {
+        LocalDateTime fechaPago = LocalDateTime.of(2024, 3, 5, 10, 15, 30);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(1);
+            out.writeInt(55);
+            out.writeLong(1_709_633_730_000L);
+            // Cliente (sin indicador de presencia en la versión 1)
+            out.writeLong(303330444L);
+            out.writeUTF("Marta");
+            out.writeByte(TipoCliente.OCASIONALES.ordinal());
+            out.writeBoolean(false);
+            out.writeInt(0);
+            out.writeBoolean(false);
+            // Una línea con un producto no perecedero de precio double
+            out.writeInt(1);
+            out.writeInt(1);
+            out.writeInt(2);
+            out.writeByte(0);
+            out.writeInt(9);
+            out.writeBoolean(true);
+            out.writeUTF("Café");
+            out.writeBoolean(false);
+            out.writeDouble(1000.10);
+            out.writeByte(0);
+            out.writeInt(4);
+            out.writeBoolean(false);
+            // Pago con tarjeta, con número completo y código de seguridad
+            out.writeBoolean(true);
+            out.writeInt(8);
+            out.writeLong(fechaPago.toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(0);
+            out.writeDouble(2000.20);
+            out.writeByte(Moneda.COLONES.ordinal());
+            out.writeByte(TipoPago.CREDITO.ordinal());
+            out.writeDouble(1.0);
+            out.writeDouble(2000.20);
+            out.writeBoolean(true);
+            out.writeUTF(NUMERO_VISA);
+            out.writeUTF("Marta");
+            out.writeInt(2030);
+            out.writeByte(6);
+            out.writeUTF(CODIGO_SEGURIDAD);
+            out.writeByte(Tarjeta.VISA.ordinal());
+            // Totales
+            out.writeDouble(0.0);
+            out.writeDouble(0.0);
+            out.writeDouble(2000.20);
+            out.writeDouble(2000.20);
+            out.writeBoolean(true);
+            out.writeBoolean(false);
+            out.writeBoolean(false);
+            out.writeBoolean(false);
+        }
+
+        Factura leida = leer(CodecBinario.FACTURA, bytes.toByteArray());
+        assertEquals(55, leida.getNumeroFactura());
+        assertEquals("Marta", leida.getCliente().getNombre());
+        assertEquals(100010L, leida.getLinea(0).getProducto().getPrecioCentimos());
+        assertEquals(200020L, leida.getTotalCentimos());
+        assertEquals(200020L, leida.getPago().getMontoEnColonesCentimos());
+        assertEquals(fechaPago, leida.getPago().getFechaHora());
+
+        TarjetaCredito tarjeta = leida.getPago().getTarjetaCredito();
+        assertEquals("1111", tarjeta.getNumeroTarjeta());
+        assertNull(tarjeta.getCodigoSeguridad());
+    }
+
+    @Test(expected = StreamCorruptedException.class)
+    public void rechazaVersionesDesconocidas() throws IOException {
+        byte[] datos = escribir(CodecBinario.CLIENTE, cliente());
+        datos[0] = (byte) (CodecBinario.VERSION + 1);
+        leer(CodecBinario.CLIENTE, datos);
+    }
+
+    @Test
+    public void escribirDosVecesProduceLosMismosBytes() throws IOException {
+        Factura factura = facturaConLineas();
+        assertArrayEquals(escribir(CodecBinario.FACTURA, factura), escribir(CodecBinario.FACTURA, factura));
+    }
+
+    @Test
+    public void variasFacturasSeguidasEnElMismoFlujo() throws IOException {
+        List<Factura> facturas = new ArrayList<>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            for (int i = 0; i < 5; i++) {
+                Factura factura = facturaConLineas();
+                facturas.add(factura);
+                CodecBinario.FACTURA.escribir(out, factura);
+            }
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (Factura factura : facturas) {
+            assertMismaFactura(factura, CodecBinario.FACTURA.leer(in));
+        }
+        assertEquals(0, in.available());
+    }
+}
@@ -0,0 +1,63 @@
+package com.facturacion.model;
+
+import java.util.Random;
+
+/**
+ * Compara el cálculo de totales de factura en céntimos enteros con
+ * {@link Dinero} contra el cálculo con {@code double} que se usaba antes:
+ * para cada línea se multiplica el precio por la cantidad y se aplica el
+ * impuesto, y se acumulan subtotal, impuesto y total. Además del tiempo se
+ * muestra la diferencia en céntimos entre los dos totales.
+ *
+ * Uso: {@code java com.facturacion.model.DineroBenchmark [lineas] [rondas]}
+ */
+public class DineroBenchmark {
+
+    private static final double PORCENTAJE_IMPUESTO = 13.0;
+
+    public static void main(String[] args) {
+        int cantidad = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int rondas = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Random random = new Random(42);
+        double[] precios = new double[cantidad];
+        long[] preciosCentimos = new long[cantidad];
+        int[] cantidades = new int[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            preciosCentimos[i] = 1 + random.nextInt(5_000_000);
+            precios[i] = Dinero.aMonto(preciosCentimos[i]);
+            cantidades[i] = 1 + random.nextInt(20);
+        }
+
+        System.out.printf("%d líneas, %d rondas%n", cantidad, rondas);
+        for (int ronda = 1; ronda <= rondas; ronda++) {
+            long inicio = System.nanoTime();
+            double subtotal = 0;
+            double impuesto = 0;
+            for (int i = 0; i < cantidad; i++) {
+                double subtotalLinea = precios[i] * cantidades[i];
+                subtotal += subtotalLinea;
+                impuesto += subtotalLinea * PORCENTAJE_IMPUESTO / 100.0;
+            }
+            double total = subtotal + impuesto;
+            long conDouble = System.nanoTime() - inicio;
+
+            inicio = System.nanoTime();
+            long subtotalCentimos = 0;
+            long impuestoCentimos = 0;
+            for (int i = 0; i < cantidad; i++) {
+                long subtotalLinea = Dinero.multiplicar(preciosCentimos[i], cantidades[i]);
+                subtotalCentimos = Math.addExact(subtotalCentimos, subtotalLinea);
+                impuestoCentimos = Math.addExact(impuestoCentimos,
+                    Dinero.porcentaje(subtotalLinea, PORCENTAJE_IMPUESTO));
+            }
+            long totalCentimos = Math.addExact(subtotalCentimos, impuestoCentimos);
+            long conCentimos = System.nanoTime() - inicio;
+
+            System.out.printf("Ronda %d  double: %d ms, total %.2f | céntimos: %d ms, total %s"
+                + " | diferencia: %d céntimos%n",
+                ronda, conDouble / 1_000_000, total, conCentimos / 1_000_000, Dinero.formatear(totalCentimos),
+                totalCentimos - Math.round(total * 100));
+        }
+    }
+}
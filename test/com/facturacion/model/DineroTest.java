@@ -0,0 +1,122 @@
+package com.facturacion.model;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Locale;
+import org.junit.Test;
+
+/**
+ * Pruebas del redondeo, el desborde y el formato de los montos en céntimos.
+ */
+public class DineroTest {
+
+    @Test
+    public void deMontoRedondeaAlCentimoMasCercano() {
+        assertEquals(123_456, Dinero.deMonto(1234.56));
+        assertEquals(1, Dinero.deMonto(0.005));
+        assertEquals(0, Dinero.deMonto(0.004));
+        assertEquals(-123_456, Dinero.deMonto(-1234.56));
+        assertEquals(1_999, Dinero.deMonto(19.99));
+        assertEquals(0, Dinero.deMonto(-0.0));
+        for (long centimos = -100_000; centimos <= 100_000; centimos += 7) {
+            assertEquals(centimos, Dinero.deMonto(Dinero.aMonto(centimos)));
+        }
+    }
+
+    @Test
+    public void porcentajeRedondeaLasMitadesHaciaArriba() {
+        assertEquals(7, Dinero.porcentaje(50, 13.0));
+        assertEquals(130_000, Dinero.porcentaje(1_000_000, 13.0));
+        assertEquals(1, Dinero.porcentaje(10, 5.0));
+        assertEquals(0, Dinero.porcentaje(9, 5.0));
+        assertEquals(-6, Dinero.porcentaje(-50, 13.0));
+        for (long centimos = 0; centimos < 20_000; centimos += 13) {
+            long esperado = BigDecimal.valueOf(centimos).multiply(BigDecimal.valueOf(13))
+                .divide(BigDecimal.valueOf(100), 0, RoundingMode.HALF_UP).longValueExact();
+            assertEquals(esperado, Dinero.porcentaje(centimos, 13.0));
+        }
+    }
+
+    @Test
+    public void convertirAplicaElTipoDeCambio() {
+        assertEquals(2_561_850, Dinero.convertir(5_000, 512.37));
+        assertEquals(10, Dinero.convertir(5_123, 1 / 512.37));
+        assertEquals(0, Dinero.convertir(0, 512.37));
+    }
+
+    @Test
+    public void convertirInversoDivideEntreElTipoDeCambio() {
+        assertEquals(5_000, Dinero.convertirInverso(2_561_850, 512.37));
+        assertEquals(10, Dinero.convertirInverso(5_123, 512.37));
+        assertEquals(-10, Dinero.convertirInverso(-5_123, 512.37));
+        assertEquals(0, Dinero.convertirInverso(0, 512.37));
+        for (long centimos = 0; centimos < 200_000; centimos += 17) {
+            assertEquals(centimos, Dinero.convertirInverso(Dinero.convertir(centimos, 2.0), 2.0));
+        }
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void convertirInversoSinTipoDeCambioNoSaturaEnSilencio() {
+        Dinero.convertirInverso(100, 0.0);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void convertirInversoRechazaNaN() {
+        Dinero.convertirInverso(100, Double.NaN);
+    }
+
+    @Test
+    public void pagoEnDolaresSeConvierteConDinero() {
+        Pago pago = new Pago(50.0, Moneda.DOLARES, 512.37);
+        assertEquals(2_561_850, pago.getMontoEnColonesCentimos());
+        assertEquals(25_618.50, pago.getMontoEnMoneda(Moneda.COLONES), 0.0);
+        assertEquals(1_234.56, new Pago(1_234.56, Moneda.COLONES, 1.0).getMontoEnMoneda(Moneda.DOLARES), 0.0);
+        assertEquals(0, Moneda.COLONES.deColonesCentimos(0));
+        assertEquals(12_345, Moneda.COLONES.deColonesCentimos(12_345));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void multiplicarDetectaElDesborde() {
+        Dinero.multiplicar(Long.MAX_VALUE / 2, 3);
+    }
+
+    @Test
+    public void multiplicarEnElLimiteNoDesborda() {
+        assertEquals(Long.MAX_VALUE - 1, Dinero.multiplicar((Long.MAX_VALUE - 1) / 2, 2));
+        assertEquals(-300, Dinero.multiplicar(100, -3));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void deMontoFueraDeRangoNoSaturaEnSilencio() {
+        Dinero.deMonto(1e17);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void deMontoRechazaNaN() {
+        Dinero.deMonto(Double.NaN);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void convertirFueraDeRangoNoSaturaEnSilencio() {
+        Dinero.convertir(Long.MAX_VALUE / 10, 600);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void porcentajeInfinitoSeRechaza() {
+        Dinero.porcentaje(100, Double.POSITIVE_INFINITY);
+    }
+
+    @Test
+    public void formatearCoincideConStringFormat() {
+        long[] valores = {0, 5, -5, 99, 100, 123_456, -123_456, 100_000_000, 99_999_999_999L};
+        for (long centimos : valores) {
+            assertEquals(String.format(Locale.US, "%.2f", centimos / 100.0), Dinero.formatear(centimos));
+            assertEquals(String.format(Locale.US, "%,.2f", centimos / 100.0), Dinero.formatear(centimos, true));
+        }
+        assertEquals("-92233720368547758.08", Dinero.formatear(Long.MIN_VALUE));
+        assertEquals("92,233,720,368,547,758.07", Dinero.formatear(Long.MAX_VALUE, true));
+        assertEquals(Moneda.COLONES.getSimbolo() + "1,234.50", Dinero.formatear(123_450, Moneda.COLONES));
+    }
+}
@@ -0,0 +1,60 @@
+package com.facturacion.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/**
+ * Pruebas de la actualización de cantidades de una línea y los totales de su factura.
+ */
+public class LineaDetalleTest {
+
+    private static Factura facturaConUnaLinea() {
+        Factura factura = new Factura(new Cliente(1L, "Ana Rojas", TipoCliente.OCASIONALES, null));
+        factura.agregarProducto(new ProductoNoPerecedero("Arroz", null, 1000, Impuesto.values()[0], 100, null), 2);
+        return factura;
+    }
+
+    @Test
+    public void cambiarLaCantidadActualizaLosTotalesDeLaFactura() {
+        Factura factura = facturaConUnaLinea();
+        LineaDetalle linea = factura.getLinea(0);
+
+        assertTrue(linea.setCantidadProducto(5));
+        assertEquals(linea.getTotalLineaCentimos(), factura.getTotalCentimos());
+    }
+
+    @Test
+    public void noSePuedeCambiarLaCantidadEnUnaFacturaPagada() {
+        Factura factura = facturaConUnaLinea();
+        LineaDetalle linea = factura.getLinea(0);
+        assertTrue(factura.registrarPago(new Pago(factura.getTotal(), Moneda.COLONES, 1.0)));
+        long total = factura.getTotalCentimos();
+
+        try {
+            linea.setCantidadProducto(10);
+            fail("Se esperaba IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals(total, factura.getTotalCentimos());
+            assertEquals(2, linea.getCantidadProducto());
+        }
+    }
+
+    @Test
+    public void noSePuedeCambiarLaCantidadEnUnaFacturaAnulada() {
+        Factura factura = facturaConUnaLinea();
+        LineaDetalle linea = factura.getLinea(0);
+        assertTrue(factura.anular("Error de digitación"));
+        long total = factura.getTotalCentimos();
+
+        try {
+            linea.incrementarCantidad();
+            fail("Se esperaba IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals(total, factura.getTotalCentimos());
+            assertEquals(2, linea.getCantidadProducto());
+        }
+    }
+}
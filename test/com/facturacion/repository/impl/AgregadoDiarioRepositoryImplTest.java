@@ -0,0 +1,175 @@
+package com.facturacion.repository.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.facturacion.model.Cliente;
+import com.facturacion.model.Factura;
+import com.facturacion.model.Impuesto;
+import com.facturacion.model.Moneda;
+import com.facturacion.model.Pago;
+import com.facturacion.model.ProductoNoPerecedero;
+import com.facturacion.model.TipoCliente;
+import com.facturacion.model.TipoPago;
+import com.facturacion.repository.ResumenFactura;
+import com.facturacion.repository.TotalesVentas;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Pruebas del diario de agregados diarios: registro idempotente por factura y
+ * estado, y recuperación de los estados al reabrir el diario.
+ */
+public class AgregadoDiarioRepositoryImplTest {
+
+    private Path directorio;
+    private Path archivo;
+    private AgregadoDiarioRepositoryImpl agregados;
+
+    @Before
+    public void abrir() throws IOException {
+        directorio = Files.createTempDirectory("agregados");
+        archivo = directorio.resolve("ventas.log");
+        agregados = new AgregadoDiarioRepositoryImpl(archivo);
+    }
+
+    @After
+    public void cerrar() throws IOException {
+        agregados.close();
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            for (Path path : (Iterable<Path>) archivos::iterator) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(directorio);
+    }
+
+    private void reabrir() throws IOException {
+        agregados.close();
+        agregados = new AgregadoDiarioRepositoryImpl(archivo);
+    }
+
+    private static Factura factura(double precio) {
+        Factura factura = new Factura(new Cliente(1L, "Cliente", TipoCliente.OCASIONALES, null));
+        factura.agregarProducto(new ProductoNoPerecedero("Producto", null, precio, Impuesto.values()[0], 100, null), 2);
+        return factura;
+    }
+
+    private TotalesVentas totalesDeHoy() {
+        Date hoy = new Date();
+        return agregados.obtenerTotales(hoy, hoy);
+    }
+
+    @Test
+    public void registrarDosVecesElMismoEstadoNoDuplica() {
+        Factura factura = factura(1000);
+        agregados.registrar(factura);
+        agregados.registrar(factura);
+
+        assertEquals(1, totalesDeHoy().getCantidadFacturas());
+        assertEquals(factura.getTotal(), totalesDeHoy().getTotalVentas(), 0.001);
+        assertEquals(ResumenFactura.Estado.PENDIENTE, agregados.obtenerEstadoRegistrado(factura.getNumeroFactura()));
+    }
+
+    @Test
+    public void elPagoMueveLaFacturaAlGrupoDeSuTipoDePago() {
+        Factura factura = factura(1000);
+        agregados.registrar(factura);
+        assertTrue(factura.registrarPago(new Pago(factura.getTotal(), Moneda.COLONES, 1.0)));
+        agregados.registrar(factura);
+        agregados.registrar(factura);
+
+        Date hoy = new Date();
+        assertEquals(1, totalesDeHoy().getCantidadFacturas());
+        assertEquals(0, agregados.obtenerTotales(hoy, hoy, null, null).getCantidadFacturas());
+        assertEquals(1, agregados.obtenerTotales(hoy, hoy, TipoPago.CONTADO, Moneda.COLONES).getCantidadFacturas());
+        assertEquals(ResumenFactura.Estado.PAGADA, agregados.obtenerEstadoRegistrado(factura.getNumeroFactura()));
+    }
+
+    @Test
+    public void unaFacturaSinRegistroPrevioSeRegistraEnSuEstadoActual() {
+        Factura pagada = factura(500);
+        assertTrue(pagada.registrarPago(new Pago(pagada.getTotal(), Moneda.COLONES, 1.0)));
+        Factura anulada = factura(700);
+        assertTrue(anulada.anular("Error de digitación"));
+
+        agregados.registrar(pagada);
+        agregados.registrar(anulada);
+
+        assertEquals(1, totalesDeHoy().getCantidadFacturas());
+        assertEquals(pagada.getTotal(), totalesDeHoy().getTotalVentas(), 0.001);
+        assertEquals(ResumenFactura.Estado.ANULADA, agregados.obtenerEstadoRegistrado(anulada.getNumeroFactura()));
+    }
+
+    @Test
+    public void laAnulacionDejaLosAgregadosComoEstaban() {
+        Factura vigente = factura(333.33);
+        Factura anulada = factura(1234.56);
+        agregados.registrar(vigente);
+        agregados.registrar(anulada);
+        assertTrue(anulada.anular("Devolución"));
+        agregados.registrar(anulada);
+        agregados.registrar(anulada);
+
+        assertEquals(1, totalesDeHoy().getCantidadFacturas());
+        assertEquals(vigente.getTotal(), totalesDeHoy().getTotalVentas(), 0.0);
+        assertEquals(vigente.calcularTotalImpuestos(), totalesDeHoy().getTotalImpuestos(), 0.0);
+    }
+
+    @Test
+    public void losEstadosSobrevivenAlReabrir() throws IOException {
+        Factura factura = factura(1000);
+        agregados.registrar(factura);
+        reabrir();
+
+        assertFalse(agregados.estaVacio());
+        assertEquals(ResumenFactura.Estado.PENDIENTE, agregados.obtenerEstadoRegistrado(factura.getNumeroFactura()));
+        agregados.registrar(factura);
+        assertEquals(1, totalesDeHoy().getCantidadFacturas());
+    }
+
+    @Test
+    public void reconstruirRegistraLosEstadosYCompactaElDiario() throws IOException {
+        Factura pendiente = factura(100);
+        Factura anulada = factura(200);
+        assertTrue(anulada.anular("Prueba"));
+        agregados.reconstruir(Stream.of(pendiente, anulada));
+        reabrir();
+
+        assertEquals(ResumenFactura.Estado.PENDIENTE, agregados.obtenerEstadoRegistrado(pendiente.getNumeroFactura()));
+        assertEquals(ResumenFactura.Estado.ANULADA, agregados.obtenerEstadoRegistrado(anulada.getNumeroFactura()));
+        assertNull(agregados.obtenerEstadoRegistrado(anulada.getNumeroFactura() + 1));
+        agregados.registrar(pendiente);
+        assertEquals(1, totalesDeHoy().getCantidadFacturas());
+    }
+
+    @Test
+    public void unRegistroIncompletoSeDescartaAlReabrir() throws IOException {
+        Factura factura = factura(1000);
+        agregados.registrar(factura);
+        long tamano = Files.size(archivo);
+        Factura otra = factura(2000);
+        agregados.registrar(otra);
+        agregados.close();
+        try (FileChannel canal = FileChannel.open(archivo,
+                StandardOpenOption.WRITE)) {
+            canal.truncate(Files.size(archivo) - 3);
+        }
+        agregados = new AgregadoDiarioRepositoryImpl(archivo);
+
+        assertEquals(tamano, Files.size(archivo));
+        assertNull(agregados.obtenerEstadoRegistrado(otra.getNumeroFactura()));
+        agregados.registrar(otra);
+        assertEquals(2, totalesDeHoy().getCantidadFacturas());
+    }
+}
@@ -0,0 +1,101 @@
+package com.facturacion.repository.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import com.facturacion.model.Cliente;
+import com.facturacion.model.TipoCliente;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Pruebas de la caché de clientes: copias independientes y detección de
+ * escrituras propias y externas.
+ */
+public class ClienteRepositoryCacheTest {
+
+    /** Repositorio que cuenta las lecturas individuales que llegan al disco. */
+    private static class RepositorioContado extends ClienteRepositoryImpl {
+        final AtomicInteger lecturas = new AtomicInteger();
+
+        @Override
+        public Optional<Cliente> buscarPorCedula(long cedula) {
+            lecturas.incrementAndGet();
+            return super.buscarPorCedula(cedula);
+        }
+    }
+
+    private RepositorioContado repositorio;
+    private ClienteRepositoryCache cache;
+
+    @Before
+    public void abrir() {
+        repositorio = new RepositorioContado();
+        repositorio.eliminarTodos();
+        cache = new ClienteRepositoryCache(repositorio, Paths.get(ClienteRepositoryImpl.CLIENTES_DIR), 2);
+    }
+
+    @After
+    public void cerrar() throws IOException {
+        cache.close();
+        repositorio.eliminarTodos();
+    }
+
+    @Test
+    public void modificarUnClienteObtenidoNoAlteraLaCache() {
+        cache.guardar(new Cliente(1L, "Ana Rojas", TipoCliente.OCASIONALES, null));
+
+        Cliente obtenido = cache.buscarPorCedula(1L).get();
+        obtenido.setNombre("Otro nombre");
+
+        Cliente otraVez = cache.buscarPorCedula(1L).get();
+        assertNotSame(obtenido, otraVez);
+        assertEquals("Ana Rojas", otraVez.getNombre());
+        assertEquals("Ana Rojas", cache.buscarTodos().get(0).getNombre());
+        assertEquals(0, repositorio.lecturas.get());
+    }
+
+    @Test
+    public void lasEscriturasPropiasNoInvalidanLaCache() throws InterruptedException {
+        Cliente cliente = cache.guardar(new Cliente(1L, "Ana Rojas", TipoCliente.OCASIONALES, null));
+        for (int i = 0; i < 5; i++) {
+            cliente.agregarPuntos(10);
+            cache.actualizar(cliente);
+        }
+        Thread.sleep(500);
+
+        assertEquals(50, cache.buscarPorCedula(1L).get().getPuntos());
+        assertEquals(0, repositorio.lecturas.get());
+    }
+
+    @Test
+    public void unaEscrituraExternaInvalidaLaEntrada() throws InterruptedException {
+        cache.guardar(new Cliente(1L, "Ana Rojas", TipoCliente.OCASIONALES, null));
+        new ClienteRepositoryImpl().guardar(new Cliente(1L, "Ana Rojas Mora", TipoCliente.OCASIONALES, null));
+
+        long limite = System.currentTimeMillis() + 5000;
+        while (cache.buscarPorCedula(1L).get().getNombre().equals("Ana Rojas")
+                && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+        }
+        assertEquals("Ana Rojas Mora", cache.buscarPorCedula(1L).get().getNombre());
+        assertTrue(repositorio.lecturas.get() > 0);
+    }
+
+    @Test
+    public void losClientesDescartadosSeLeenDelRepositorio() {
+        for (long cedula = 1; cedula <= 3; cedula++) {
+            cache.guardar(new Cliente(cedula, "Cliente " + cedula, TipoCliente.OCASIONALES, null));
+        }
+
+        assertEquals("Cliente 1", cache.buscarPorCedula(1L).get().getNombre());
+        assertEquals(1, repositorio.lecturas.get());
+        assertEquals(3, cache.buscarTodos().size());
+    }
+}
@@ -0,0 +1,67 @@
+package com.facturacion.repository.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.facturacion.model.Cliente;
+import com.facturacion.model.TipoCliente;
+import com.facturacion.repository.ClienteRepository;
+import com.facturacion.repository.Pagina;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Pruebas de la paginación de clientes con el índice de nombres persistente.
+ */
+public class ClienteRepositoryImplTest {
+
+    private ClienteRepositoryImpl repositorio;
+
+    @Before
+    public void abrir() {
+        repositorio = new ClienteRepositoryImpl();
+        repositorio.eliminarTodos();
+        repositorio.guardar(new Cliente(30L, "carla", TipoCliente.OCASIONALES, null));
+        repositorio.guardar(new Cliente(10L, "Beatriz", TipoCliente.OCASIONALES, null));
+        repositorio.guardar(new Cliente(20L, "Andrés", TipoCliente.OCASIONALES, null));
+    }
+
+    @After
+    public void cerrar() {
+        repositorio.eliminarTodos();
+    }
+
+    private static List<String> nombres(ClienteRepository repositorio, ClienteRepository.Orden orden, int limite) {
+        List<String> nombres = new ArrayList<>();
+        String cursor = null;
+        do {
+            Pagina<Cliente> pagina = repositorio.buscarPagina(orden, cursor, limite);
+            for (Cliente cliente : pagina.getElementos()) {
+                nombres.add(cliente.getNombre());
+            }
+            cursor = pagina.getSiguienteCursor();
+        } while (cursor != null);
+        return nombres;
+    }
+
+    @Test
+    public void paginaPorNombreYPorCedula() {
+        assertEquals(List.of("Andrés", "Beatriz", "carla"), nombres(repositorio, ClienteRepository.Orden.NOMBRE, 2));
+        assertEquals(List.of("Beatriz", "Andrés", "carla"), nombres(repositorio, ClienteRepository.Orden.CEDULA, 2));
+    }
+
+    @Test
+    public void losCambiosSeReflejanAlReabrir() {
+        Cliente beatriz = repositorio.buscarPorCedula(10L).get();
+        beatriz.setNombre("Zoila");
+        repositorio.actualizar(beatriz);
+        repositorio.eliminar(20L);
+
+        ClienteRepositoryImpl reabierto = new ClienteRepositoryImpl();
+        assertEquals(List.of("carla", "Zoila"), nombres(reabierto, ClienteRepository.Orden.NOMBRE, 1));
+        assertNull(reabierto.buscarPagina(ClienteRepository.Orden.CEDULA, null, 5).getSiguienteCursor());
+    }
+}
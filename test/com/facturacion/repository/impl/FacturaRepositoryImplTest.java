@@ -0,0 +1,136 @@
+package com.facturacion.repository.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.facturacion.model.Cliente;
+import com.facturacion.model.Factura;
+import com.facturacion.model.Impuesto;
+import com.facturacion.model.Producto;
+import com.facturacion.model.ProductoNoPerecedero;
+import com.facturacion.model.TipoCliente;
+import com.facturacion.repository.impl.FacturaRepositoryImpl.ModoAlmacenamiento;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Pruebas del almacenamiento de facturas en segmentos particionados por día.
+ */
+public class FacturaRepositoryImplTest {
+
+    private static final Path FACTURAS_DIR = Paths.get("data", "facturas");
+    private static final long UN_DIA = 24L * 60 * 60 * 1000;
+
+    private final Producto producto = new ProductoNoPerecedero("Arroz", null, 1500.0,
+        Impuesto.values()[0], 1_000, null);
+
+    @Before
+    public void limpiar() throws IOException {
+        borrarFacturas();
+    }
+
+    @After
+    public void borrar() throws IOException {
+        borrarFacturas();
+    }
+
+    private static void borrarFacturas() throws IOException {
+        if (!Files.exists(FACTURAS_DIR)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(FACTURAS_DIR)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static Path ultimoSegmento() throws IOException {
+        try (Stream<Path> paths = Files.walk(FACTURAS_DIR.resolve("particiones"))) {
+            return paths
+                .filter(path -> path.getFileName().toString().startsWith("seg_"))
+                .reduce((a, b) -> b)
+                .orElseThrow();
+        }
+    }
+
+    private Factura nuevaFactura(long cedula) {
+        Factura factura = new Factura(new Cliente(cedula, "Cliente " + cedula, TipoCliente.OCASIONALES, null));
+        factura.agregarProducto(producto, 1);
+        return factura;
+    }
+
+    @Test
+    public void segmentosSobrevivenAlReabrir() {
+        FacturaRepositoryImpl repositorio = new FacturaRepositoryImpl(ModoAlmacenamiento.SEGMENTOS);
+        Factura primera = repositorio.guardar(nuevaFactura(1L));
+        Factura segunda = repositorio.guardar(nuevaFactura(2L));
+        segunda.agregarProducto(producto, 2);
+        repositorio.guardar(segunda);
+
+        FacturaRepositoryImpl reabierto = new FacturaRepositoryImpl(ModoAlmacenamiento.SEGMENTOS);
+
+        assertEquals(1, reabierto.buscarPorNumero(primera.getNumeroFactura()).orElseThrow()
+            .getLineasDetalle().get(0).getCantidadProducto());
+        assertEquals(3, reabierto.buscarPorNumero(segunda.getNumeroFactura()).orElseThrow()
+            .getLineasDetalle().get(0).getCantidadProducto());
+        assertEquals(2, reabierto.buscarDelDia().size());
+        Date ayer = new Date(System.currentTimeMillis() - UN_DIA);
+        assertTrue(reabierto.buscarPorRangoFechas(ayer, ayer).isEmpty());
+        assertEquals(List.of(1L), reabierto.buscarPorCliente(1L).stream()
+            .map(factura -> factura.getCliente().getCedula()).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void colaCorruptaConservaLaVersionAnterior() throws IOException {
+        FacturaRepositoryImpl repositorio = new FacturaRepositoryImpl(ModoAlmacenamiento.SEGMENTOS);
+        Factura factura = repositorio.guardar(nuevaFactura(3L));
+        Path segmento = ultimoSegmento();
+        long tamanoValido = Files.size(segmento);
+
+        // Una nueva versión cuyo contenido quedó en ceros tras una caída
+        try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.WRITE)) {
+            ByteBuffer registro = ByteBuffer.allocate(12 + 64);
+            registro.putInt(factura.getNumeroFactura()).putInt(64).putInt(0x0BADC0DE).position(0);
+            canal.write(registro, tamanoValido);
+        }
+
+        FacturaRepositoryImpl reabierto = new FacturaRepositoryImpl(ModoAlmacenamiento.SEGMENTOS);
+
+        assertEquals(1, reabierto.buscarPorNumero(factura.getNumeroFactura()).orElseThrow()
+            .getLineasDetalle().size());
+        assertEquals(1, reabierto.buscarDelDia().size());
+        assertEquals(tamanoValido, Files.size(segmento));
+    }
+
+    @Test
+    public void resumenesConservanElNombreGuardadoEnLaFactura() {
+        FacturaRepositoryImpl repositorio = new FacturaRepositoryImpl(ModoAlmacenamiento.SEGMENTOS);
+        repositorio.guardar(nuevaFactura(4L));
+        Factura renombrada = nuevaFactura(4L);
+        renombrada.getCliente().setNombre("Cliente renombrado");
+        repositorio.guardar(renombrada);
+        repositorio.guardar(nuevaFactura(4L));
+
+        FacturaRepositoryImpl reabierto = new FacturaRepositoryImpl(ModoAlmacenamiento.SEGMENTOS);
+        List<String> nombres = new ArrayList<>();
+        Date hoy = new Date();
+        reabierto.recorrerResumenes(hoy, hoy, resumen -> nombres.add(resumen.getNombreCliente()));
+
+        assertEquals(List.of("Cliente 4", "Cliente renombrado", "Cliente 4"), nombres);
+    }
+}
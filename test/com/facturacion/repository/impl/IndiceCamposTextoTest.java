@@ -0,0 +1,119 @@
+package com.facturacion.repository.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Pruebas del índice persistente de campos de texto.
+ */
+public class IndiceCamposTextoTest {
+
+    private Path directorio;
+    private Path archivo;
+    private IndiceCamposTexto indice;
+
+    @Before
+    public void abrir() throws IOException {
+        directorio = Files.createTempDirectory("textos");
+        archivo = directorio.resolve("textos.idx");
+        indice = new IndiceCamposTexto(archivo);
+    }
+
+    @After
+    public void cerrar() throws IOException {
+        indice.close();
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            for (Path path : (Iterable<Path>) archivos::iterator) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(directorio);
+    }
+
+    private void reabrir() throws IOException {
+        indice.close();
+        indice = new IndiceCamposTexto(archivo);
+    }
+
+    private Map<Long, String[]> contenido() {
+        Map<Long, String[]> campos = new HashMap<>();
+        indice.recorrer(campos::put);
+        return campos;
+    }
+
+    @Test
+    public void conservaLosCamposAlReabrir() throws IOException {
+        indice.registrar(1, "Café molido", null);
+        indice.registrar(2, "Piña", "Dulce");
+        indice.registrar(1, "Café en grano", "Tostado");
+        indice.eliminar(2);
+        reabrir();
+
+        Map<Long, String[]> campos = contenido();
+        assertEquals(1, indice.cantidad());
+        assertArrayEquals(new String[] {"Café en grano", "Tostado"}, campos.get(1L));
+    }
+
+    @Test
+    public void unRegistroSinCambiosNoEscribe() throws IOException {
+        indice.registrar(1, "Arroz", null);
+        long tamano = Files.size(archivo);
+        indice.registrar(1, "Arroz", null);
+        indice.eliminar(7);
+
+        assertEquals(tamano, Files.size(archivo));
+    }
+
+    @Test
+    public void descartaUnaEntradaIncompleta() throws IOException {
+        indice.registrar(1, "Arroz");
+        indice.registrar(2, "Frijoles");
+        long tamano = Files.size(archivo);
+        indice.close();
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.WRITE)) {
+            canal.truncate(tamano - 3);
+        }
+        indice = new IndiceCamposTexto(archivo);
+
+        assertEquals(1, indice.cantidad());
+        assertArrayEquals(new String[] {"Arroz"}, contenido().get(1L));
+    }
+
+    @Test
+    public void compactarConservaLasEntradasVigentes() throws IOException {
+        indice.registrar(1, "Arroz");
+        for (int i = 0; i < 1100; i++) {
+            indice.registrar(2, "Vuelta " + i);
+        }
+        assertTrue(Files.size(archivo) < 200 * 20);
+        reabrir();
+
+        assertEquals(2, indice.cantidad());
+        assertArrayEquals(new String[] {"Vuelta 1099"}, contenido().get(2L));
+    }
+
+    @Test
+    public void recortaLosTextosLargos() throws IOException {
+        StringBuilder largo = new StringBuilder();
+        for (int i = 0; i < 20_000; i++) {
+            largo.append('ñ');
+        }
+        indice.registrar(1, largo.toString());
+        reabrir();
+
+        assertEquals(8000, contenido().get(1L)[0].length());
+    }
+}
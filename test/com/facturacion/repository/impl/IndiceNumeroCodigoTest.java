@@ -0,0 +1,132 @@
+package com.facturacion.repository.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Pruebas del índice persistente de números de código.
+ */
+public class IndiceNumeroCodigoTest {
+
+    private Path directorio;
+    private Path archivo;
+    private IndiceNumeroCodigo indice;
+
+    @Before
+    public void abrir() throws IOException {
+        directorio = Files.createTempDirectory("numeros");
+        archivo = directorio.resolve("numeros.idx");
+        indice = new IndiceNumeroCodigo(archivo);
+    }
+
+    @After
+    public void cerrar() throws IOException {
+        indice.close();
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            for (Path path : (Iterable<Path>) archivos::iterator) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(directorio);
+    }
+
+    private void reabrir() throws IOException {
+        indice.close();
+        indice = new IndiceNumeroCodigo(archivo);
+    }
+
+    @Test
+    public void buscaPorNumeroNormalizado() throws IOException {
+        assertTrue(indice.isVacio());
+        indice.registrar(1, " 7441000000017 ");
+
+        assertFalse(indice.isVacio());
+        assertEquals(Integer.valueOf(1), indice.buscar("7441000000017"));
+        assertNull(indice.buscar("7441000000024"));
+        assertNull(indice.buscar("  "));
+    }
+
+    @Test
+    public void cambiarElNumeroLiberaElAnterior() throws IOException {
+        indice.registrar(1, "111");
+        indice.registrar(1, "222");
+        reabrir();
+
+        assertNull(indice.buscar("111"));
+        assertEquals(Integer.valueOf(1), indice.buscar("222"));
+    }
+
+    @Test
+    public void alEliminarAlTitularElNumeroPasaAlOtroProducto() throws IOException {
+        indice.registrar(1, "111");
+        indice.registrar(2, "111");
+        assertEquals(Integer.valueOf(2), indice.buscar("111"));
+
+        indice.eliminar(2);
+        assertEquals(Integer.valueOf(1), indice.buscar("111"));
+        indice.eliminar(1);
+        assertNull(indice.buscar("111"));
+    }
+
+    @Test
+    public void alCambiarElNumeroDelTitularElAnteriorPasaAlOtroProducto() throws IOException {
+        indice.registrar(1, "111");
+        indice.registrar(2, "111");
+        indice.registrar(3, "111");
+        indice.registrar(3, "333");
+        assertEquals(Integer.valueOf(2), indice.buscar("111"));
+
+        indice.eliminar(1);
+        assertEquals(Integer.valueOf(2), indice.buscar("111"));
+        reabrir();
+        assertEquals(Integer.valueOf(2), indice.buscar("111"));
+        assertEquals(Integer.valueOf(3), indice.buscar("333"));
+    }
+
+    @Test
+    public void losNumerosCompartidosSobrevivenAlReabrir() throws IOException {
+        indice.registrar(1, "111");
+        indice.registrar(2, "111");
+        reabrir();
+
+        indice.eliminar(2);
+        assertEquals(Integer.valueOf(1), indice.buscar("111"));
+    }
+
+    @Test
+    public void compactarConservaTitularesYNumerosCompartidos() throws IOException {
+        indice.registrar(1, "111");
+        indice.registrar(2, "111");
+        // Suficientes cambios para forzar la compactación del archivo
+        for (int i = 0; i < 1100; i++) {
+            indice.registrar(3, "vuelta-" + i);
+        }
+        assertTrue(Files.size(archivo) < 100 * 20);
+        reabrir();
+
+        assertEquals(Integer.valueOf(2), indice.buscar("111"));
+        assertEquals(Integer.valueOf(3), indice.buscar("vuelta-1099"));
+        indice.eliminar(2);
+        assertEquals(Integer.valueOf(1), indice.buscar("111"));
+    }
+
+    @Test
+    public void limpiarVaciaElArchivo() throws IOException {
+        indice.registrar(1, "111");
+        indice.limpiar();
+        reabrir();
+
+        assertTrue(indice.isVacio());
+        assertNull(indice.buscar("111"));
+    }
+}
@@ -0,0 +1,85 @@
+package com.facturacion.repository.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Pruebas del índice de trigramas para la búsqueda de productos por texto.
+ */
+public class IndiceTrigramasTest {
+
+    private IndiceTrigramas indice;
+
+    @Before
+    public void armar() {
+        indice = new IndiceTrigramas();
+        indice.poner(1, "Café molido", "Tueste oscuro");
+        indice.poner(2, "Piña en almíbar", "Fruta enlatada");
+        indice.poner(3, "Cacao en polvo", null);
+        indice.poner(4, "Pingüino de peluche", "Juguete");
+    }
+
+    @Test
+    public void laBusquedaNoDistingueTildesNiMayusculas() {
+        assertEquals(List.of(1), indice.buscar("cafe"));
+        assertEquals(List.of(1), indice.buscar("CAFÉ"));
+        assertEquals(List.of(2), indice.buscar("pina"));
+        assertEquals(List.of(2), indice.buscar("piña"));
+        assertEquals(List.of(4), indice.buscar("pinguino"));
+        assertEquals(List.of(2), indice.buscar("almibar"));
+    }
+
+    @Test
+    public void buscaEnCadaCampoPorSeparado() {
+        assertEquals(List.of(1), indice.buscar("oscuro"));
+        assertEquals(List.of(2), indice.buscar("enlatada"));
+        // "molido tueste" sólo aparecería al unir el nombre con la descripción
+        assertTrue(indice.buscar("molido tueste").isEmpty());
+    }
+
+    @Test
+    public void losTrigramasDebenAparecerSeguidos() {
+        indice.poner(5, "abcxbcd");
+
+        assertTrue(indice.buscar("abcd").isEmpty());
+        assertEquals(List.of(5), indice.buscar("xbcd"));
+    }
+
+    @Test
+    public void lasConsultasCortasRecorrenLosTextos() {
+        assertEquals(List.of(1, 3), indice.buscar("ca"));
+        assertEquals(List.of(2, 4), indice.buscar("Pi"));
+        assertEquals(List.of(4), indice.buscar("gü"));
+        assertEquals(List.of(4), indice.buscar("j"));
+        assertTrue(indice.buscar("").isEmpty());
+        assertTrue(indice.buscar(null).isEmpty());
+    }
+
+    @Test
+    public void reindexarReemplazaLosTextosAnteriores() {
+        indice.poner(1, "Té verde", null);
+
+        assertTrue(indice.buscar("cafe").isEmpty());
+        assertTrue(indice.buscar("oscuro").isEmpty());
+        assertEquals(List.of(1), indice.buscar("te verde"));
+        assertEquals(List.of(3), indice.buscar("ca"));
+    }
+
+    @Test
+    public void quitarYLimpiarSacanLosTextosDelIndice() {
+        indice.quitar(2);
+
+        assertTrue(indice.buscar("pina").isEmpty());
+        assertEquals(List.of(4), indice.buscar("pi"));
+        assertEquals(List.of(3), indice.buscar("en polvo"));
+
+        indice.quitar(99);
+        indice.limpiar();
+        assertTrue(indice.buscar("cacao").isEmpty());
+        assertTrue(indice.buscar("ca").isEmpty());
+    }
+}
@@ -0,0 +1,111 @@
+package com.facturacion.repository.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import com.facturacion.model.Codec;
+import com.facturacion.model.CodecBinario;
+import com.facturacion.model.Impuesto;
+import com.facturacion.model.Producto;
+import com.facturacion.model.ProductoNoPerecedero;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Pruebas de la conciliación de los índices de productos al abrir el repositorio.
+ */
+public class ProductoRepositoryImplTest {
+
+    private static final Path PRODUCTOS_DIR = Paths.get("data", "productos");
+
+    /** Codec que cuenta los productos leídos de disco. */
+    private static final class CodecContado implements Codec<Producto> {
+        int lecturas;
+
+        @Override
+        public void escribir(DataOutput out, Producto valor) throws IOException {
+            CodecBinario.PRODUCTO.escribir(out, valor);
+        }
+
+        @Override
+        public Producto leer(DataInput in) throws IOException {
+            lecturas++;
+            return CodecBinario.PRODUCTO.leer(in);
+        }
+    }
+
+    @Before
+    public void limpiar() {
+        new ProductoRepositoryImpl().eliminarTodos();
+    }
+
+    @After
+    public void borrar() {
+        new ProductoRepositoryImpl().eliminarTodos();
+    }
+
+    private static Producto producto(String nombre, String numeroCodigo) {
+        return new ProductoNoPerecedero(nombre, null, 1000, Impuesto.values()[0], 10, numeroCodigo);
+    }
+
+    private static void truncar(String archivo, long tamano) throws IOException {
+        try (FileChannel canal = FileChannel.open(PRODUCTOS_DIR.resolve(archivo), StandardOpenOption.WRITE)) {
+            canal.truncate(tamano);
+        }
+    }
+
+    private static long tamano(String archivo) throws IOException {
+        return Files.size(PRODUCTOS_DIR.resolve(archivo));
+    }
+
+    @Test
+    public void unCatalogoSinNumerosDeCodigoNoSeReleeAlAbrir() {
+        ProductoRepositoryImpl repositorio = new ProductoRepositoryImpl();
+        for (int i = 0; i < 20; i++) {
+            repositorio.guardar(producto("Producto " + i, null));
+        }
+
+        CodecContado codec = new CodecContado();
+        new ProductoRepositoryImpl(codec);
+
+        assertEquals(0, codec.lecturas);
+    }
+
+    @Test
+    public void unaEscrituraInterrumpidaAntesDeLosIndicesSeRecuperaAlAbrir() throws IOException {
+        ProductoRepositoryImpl repositorio = new ProductoRepositoryImpl();
+        repositorio.guardar(producto("Arroz", "7441000000017"));
+        long tamanoNumeros = tamano("numeros_codigo.idx");
+        long tamanoTextos = tamano("textos.idx");
+        Producto frijoles = repositorio.guardar(producto("Frijoles", "7441000000024"));
+
+        // El archivo del producto se escribió, pero no sus entradas en los índices
+        truncar("numeros_codigo.idx", tamanoNumeros);
+        truncar("textos.idx", tamanoTextos);
+
+        ProductoRepositoryImpl reabierto = new ProductoRepositoryImpl();
+        Optional<Producto> encontrado = reabierto.buscarPorNumeroCodigo("7441000000024");
+        assertEquals(frijoles.getCodigo(), encontrado.orElseThrow().getCodigo());
+        assertEquals(2, reabierto.buscarTodos().size());
+    }
+
+    @Test
+    public void elIndiceDeNumerosPerdidoSeReconstruye() throws IOException {
+        ProductoRepositoryImpl repositorio = new ProductoRepositoryImpl();
+        Producto arroz = repositorio.guardar(producto("Arroz", "7441000000017"));
+
+        Files.delete(PRODUCTOS_DIR.resolve("numeros_codigo.idx"));
+
+        ProductoRepositoryImpl reabierto = new ProductoRepositoryImpl();
+        assertEquals(arroz.getCodigo(), reabierto.buscarPorNumeroCodigo("7441000000017").orElseThrow().getCodigo());
+    }
+}
@@ -0,0 +1,159 @@
+package com.facturacion.repository.impl;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Pruebas del registro de solo-anexado por segmentos.
+ */
+public class RegistroSegmentosTest {
+
+    private Path directorio;
+    private RegistroSegmentos registro;
+
+    @Before
+    public void abrir() throws IOException {
+        directorio = Files.createTempDirectory("segmentos");
+        registro = new RegistroSegmentos(directorio, 256);
+    }
+
+    @After
+    public void cerrar() throws IOException {
+        registro.close();
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            for (Path path : (Iterable<Path>) archivos::iterator) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(directorio);
+    }
+
+    private void reabrir() throws IOException {
+        registro.close();
+        registro = new RegistroSegmentos(directorio, 256);
+    }
+
+    private static byte[] bytes(String texto) {
+        return texto.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Path ultimoSegmento() throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos.sorted().reduce((a, b) -> b).orElseThrow();
+        }
+    }
+
+    private List<String> recorrerCursor() {
+        List<String> textos = new ArrayList<>();
+        try (RegistroSegmentos.Cursor cursor = registro.abrirCursor()) {
+            while (cursor.hasNext()) {
+                textos.add(new String(cursor.next(), StandardCharsets.UTF_8));
+            }
+        }
+        return textos;
+    }
+
+    @Test
+    public void reabrirConservaLaVersionMasReciente() throws IOException {
+        for (int i = 0; i < 20; i++) {
+            registro.anexar(i % 5, bytes("versión " + i));
+        }
+        reabrir();
+
+        assertEquals(5, registro.claves().size());
+        for (int clave = 0; clave < 5; clave++) {
+            assertArrayEquals(bytes("versión " + (15 + clave)), registro.leer(clave));
+        }
+        assertNull(registro.leer(99));
+        assertEquals(5, recorrerCursor().size());
+    }
+
+    @Test
+    public void registroRellenoConCerosSeDescartaAlReabrir() throws IOException {
+        registro.anexar(1, bytes("buena"));
+        registro.anexar(2, bytes("otra"));
+        Path segmento = ultimoSegmento();
+        long tamanoValido = Files.size(segmento);
+
+        // Encabezado completo de la clave 1 cuyo contenido quedó en ceros,
+        // como el espacio reservado por el sistema de archivos antes de una caída
+        try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.WRITE)) {
+            ByteBuffer encabezado = ByteBuffer.allocate(12 + 8);
+            encabezado.putInt(1).putInt(8).putInt(0x12345678).flip();
+            canal.write(encabezado, tamanoValido);
+        }
+        reabrir();
+
+        assertArrayEquals(bytes("buena"), registro.leer(1));
+        assertEquals(List.of("buena", "otra"), recorrerCursor());
+        assertEquals(tamanoValido, Files.size(segmento));
+
+        registro.anexar(1, bytes("nueva"));
+        reabrir();
+        assertArrayEquals(bytes("nueva"), registro.leer(1));
+    }
+
+    @Test
+    public void registroConDatosAlteradosTruncaDesdeAhi() throws IOException {
+        registro.anexar(1, bytes("primera"));
+        long tamanoValido = Files.size(ultimoSegmento());
+        registro.anexar(1, bytes("segunda"));
+        registro.anexar(2, bytes("posterior"));
+        Path segmento = ultimoSegmento();
+
+        try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.WRITE)) {
+            canal.write(ByteBuffer.wrap(bytes("X")), tamanoValido + 12);
+        }
+        reabrir();
+
+        assertArrayEquals(bytes("primera"), registro.leer(1));
+        assertNull(registro.leer(2));
+        assertEquals(tamanoValido, Files.size(segmento));
+    }
+
+    @Test
+    public void encabezadoIncompletoSeTrunca() throws IOException {
+        registro.anexar(7, bytes("completo"));
+        Path segmento = ultimoSegmento();
+        long tamanoValido = Files.size(segmento);
+        try (FileChannel canal = FileChannel.open(segmento, StandardOpenOption.WRITE)) {
+            canal.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 7, 0}), tamanoValido);
+        }
+        reabrir();
+
+        assertArrayEquals(bytes("completo"), registro.leer(7));
+        assertEquals(tamanoValido, Files.size(segmento));
+    }
+
+    @Test
+    public void abreNuevosSegmentosAlLlenarse() throws IOException {
+        for (int i = 0; i < 40; i++) {
+            registro.anexar(i, bytes("registro número " + i));
+        }
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            assertFalse(archivos.count() < 2);
+        }
+        reabrir();
+
+        List<String> textos = recorrerCursor();
+        assertEquals(40, textos.size());
+        assertEquals("registro número 0", textos.get(0));
+        assertEquals("registro número 39", textos.get(39));
+    }
+}
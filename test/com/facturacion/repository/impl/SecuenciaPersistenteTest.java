@@ -0,0 +1,123 @@
+package com.facturacion.repository.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Pruebas de la secuencia persistente: ningún número se entrega dos veces,
+ * ni al reabrirla ni con dos instancias reservando bloques del mismo archivo.
+ */
+public class SecuenciaPersistenteTest {
+
+    private static final int TAMANO_BLOQUE = 10;
+
+    private Path directorio;
+    private Path archivo;
+
+    @Before
+    public void crear() throws IOException {
+        directorio = Files.createTempDirectory("secuencia");
+        archivo = directorio.resolve("prueba.seq");
+    }
+
+    @After
+    public void borrar() throws IOException {
+        Files.deleteIfExists(archivo);
+        Files.delete(directorio);
+    }
+
+    private SecuenciaPersistente abrir(int valorInicial) {
+        return new SecuenciaPersistente(archivo, TAMANO_BLOQUE, () -> valorInicial);
+    }
+
+    @Test
+    public void empiezaEnElValorInicialYSoloLoConsultaAlCrear() throws IOException {
+        try (SecuenciaPersistente secuencia = abrir(500)) {
+            assertEquals(500, secuencia.siguiente());
+            assertEquals(501, secuencia.siguiente());
+        }
+        try (SecuenciaPersistente secuencia = abrir(1)) {
+            assertEquals(500 + TAMANO_BLOQUE, secuencia.siguiente());
+        }
+    }
+
+    @Test
+    public void losNumerosNoSeRepitenAlReabrir() throws IOException {
+        Set<Integer> entregados = new HashSet<>();
+        for (int apertura = 0; apertura < 5; apertura++) {
+            try (SecuenciaPersistente secuencia = abrir(1)) {
+                // Unos números de más que el bloque, y el resto del bloque se pierde
+                for (int i = 0; i < TAMANO_BLOQUE + 3; i++) {
+                    assertTrue(entregados.add(secuencia.siguiente()));
+                }
+            }
+        }
+        assertEquals(5 * (TAMANO_BLOQUE + 3), entregados.size());
+    }
+
+    @Test
+    public void dosInstanciasReservanBloquesDistintos() throws IOException {
+        Set<Integer> entregados = new HashSet<>();
+        try (SecuenciaPersistente primera = abrir(1); SecuenciaPersistente segunda = abrir(1)) {
+            for (int i = 0; i < 10 * TAMANO_BLOQUE; i++) {
+                assertTrue(entregados.add(primera.siguiente()));
+                assertTrue(entregados.add(segunda.siguiente()));
+                if (i % 3 == 0) {
+                    assertTrue(entregados.add(segunda.siguiente()));
+                }
+            }
+        }
+        try (SecuenciaPersistente reabierta = abrir(1)) {
+            int siguiente = reabierta.siguiente();
+            assertTrue(entregados.stream().allMatch(numero -> numero < siguiente));
+        }
+    }
+
+    @Test
+    public void variosHilosNoRecibenElMismoNumero() throws Exception {
+        int hilos = 8;
+        int porHilo = 1_000;
+        Set<Integer> entregados = ConcurrentHashMap.newKeySet();
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        try (SecuenciaPersistente secuencia = abrir(1)) {
+            List<Future<Boolean>> resultados = new ArrayList<>();
+            for (int h = 0; h < hilos; h++) {
+                resultados.add(ejecutor.submit(() -> {
+                    boolean unicos = true;
+                    for (int i = 0; i < porHilo; i++) {
+                        unicos &= entregados.add(secuencia.siguiente());
+                    }
+                    return unicos;
+                }));
+            }
+            for (Future<Boolean> resultado : resultados) {
+                assertTrue(resultado.get());
+            }
+        } finally {
+            ejecutor.shutdown();
+            ejecutor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        assertEquals(hilos * porHilo, entregados.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rechazaUnBloqueVacio() {
+        new SecuenciaPersistente(archivo, 0, () -> 1);
+    }
+}
@@ -0,0 +1,144 @@
+package com.facturacion.service.impl;
+
+import com.facturacion.model.TipoPago;
+import com.facturacion.repository.FacturaRepository;
+import com.facturacion.repository.ResumenFactura;
+import com.facturacion.service.ClienteService;
+import com.facturacion.service.ProductoService;
+import java.lang.reflect.Proxy;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * Mide la acumulación de totales de ventas con
+ * {@link FacturaServiceImpl#acumularEnParalelo} en pools de 1, 2, 4 y 8
+ * hilos, junto al recorrido secuencial. Los resúmenes se generan en memoria
+ * para medir sólo la acumulación y no la lectura del almacén.
+ *
+ * Uso: {@code java com.facturacion.service.impl.AcumulacionParalelaBenchmark [resumenes] [rondas]}
+ */
+public class AcumulacionParalelaBenchmark {
+
+    private static final long DIA = 24L * 60 * 60 * 1000;
+    private static final long INICIO = 1_700_000_000_000L;
+    private static final int[] HILOS = {1, 2, 4, 8};
+
+    /** Resumen de factura con valores fijos. */
+    private static final class ResumenFijo implements ResumenFactura {
+        final long fecha;
+        final double subtotal;
+        final double impuesto;
+        final Estado estado;
+
+        ResumenFijo(long fecha, double subtotal, double impuesto, Estado estado) {
+            this.fecha = fecha;
+            this.subtotal = subtotal;
+            this.impuesto = impuesto;
+            this.estado = estado;
+        }
+
+        @Override public int getNumeroFactura() { return 0; }
+        @Override public long getFechaMillis() { return fecha; }
+        @Override public long getCedulaCliente() { return 0; }
+        @Override public String getNombreCliente() { return ""; }
+        @Override public double getSubtotal() { return subtotal; }
+        @Override public double getImpuesto() { return impuesto; }
+        @Override public double getDescuento() { return 0; }
+        @Override public double getTotal() { return subtotal + impuesto; }
+        @Override public Estado getEstado() { return estado; }
+        @Override public TipoPago getTipoPago() { return null; }
+    }
+
+    public static void main(String[] args) {
+        int cantidad = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int rondas = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        FacturaServiceImpl servicio = new FacturaServiceImpl(repositorioDeResumenes(generarResumenes(cantidad)),
+            sinUso(ClienteService.class), sinUso(ProductoService.class));
+        Date inicio = new Date(INICIO);
+        Date fin = new Date(INICIO + 365 * DIA);
+        ForkJoinPool[] pools = new ForkJoinPool[HILOS.length];
+        for (int i = 0; i < HILOS.length; i++) {
+            pools[i] = new ForkJoinPool(HILOS[i]);
+        }
+
+        System.out.printf("%d resúmenes, %d rondas, %d procesadores%n",
+            cantidad, rondas, Runtime.getRuntime().availableProcessors());
+        try {
+            for (int ronda = 1; ronda <= rondas; ronda++) {
+                long inicioMedicion = System.nanoTime();
+                double total = servicio.calcularTotales(inicio, fin, false).getTotalVentas();
+                StringBuilder linea = new StringBuilder(String.format("Ronda %d  secuencial: %d ms",
+                    ronda, (System.nanoTime() - inicioMedicion) / 1_000_000));
+
+                for (int i = 0; i < HILOS.length; i++) {
+                    inicioMedicion = System.nanoTime();
+                    double totalParalelo = servicio.acumularEnParalelo(inicio, fin, pools[i]).getTotalVentas();
+                    long tiempo = System.nanoTime() - inicioMedicion;
+                    if (totalParalelo != total) {
+                        throw new IllegalStateException("El total en paralelo no coincide con el secuencial");
+                    }
+                    linea.append(String.format(" | %d hilos: %d ms", HILOS[i], tiempo / 1_000_000));
+                }
+                System.out.println(linea);
+            }
+        } finally {
+            for (ForkJoinPool pool : pools) {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static ResumenFijo[] generarResumenes(int cantidad) {
+        Random random = new Random(42);
+        ResumenFactura.Estado[] estados = ResumenFactura.Estado.values();
+        ResumenFijo[] resumenes = new ResumenFijo[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            double subtotal = random.nextInt(10_000_000) / 100.0;
+            resumenes[i] = new ResumenFijo(INICIO + (long) i * 365 * DIA / cantidad, subtotal,
+                Math.round(subtotal * 13) / 100.0, estados[random.nextInt(estados.length)]);
+        }
+        return resumenes;
+    }
+
+    /**
+     * Repositorio que sólo responde a las consultas de resúmenes que usa la acumulación.
+     */
+    @SuppressWarnings("unchecked")
+    private static FacturaRepository repositorioDeResumenes(ResumenFijo[] resumenes) {
+        return (FacturaRepository) Proxy.newProxyInstance(FacturaRepository.class.getClassLoader(),
+            new Class<?>[] {FacturaRepository.class}, (proxy, metodo, args) -> {
+                switch (metodo.getName()) {
+                    case "contarResumenes":
+                        return resumenes.length;
+                    case "recorrerResumenes":
+                        long desde = ((Date) args[0]).getTime();
+                        long hasta = ((Date) args[1]).getTime();
+                        int posicionDesde = args.length == 5 ? (Integer) args[2] : 0;
+                        int posicionHasta = args.length == 5 ? Math.min((Integer) args[3], resumenes.length)
+                                                             : resumenes.length;
+                        Consumer<ResumenFactura> consumidor = (Consumer<ResumenFactura>) args[args.length - 1];
+                        for (int i = posicionDesde; i < posicionHasta; i++) {
+                            if (resumenes[i].fecha >= desde && resumenes[i].fecha < hasta) {
+                                consumidor.accept(resumenes[i]);
+                            }
+                        }
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(metodo.getName());
+                }
+            });
+    }
+
+    /**
+     * Servicio que la acumulación no usa; cualquier llamada falla.
+     */
+    private static <T> T sinUso(Class<T> tipo) {
+        return tipo.cast(Proxy.newProxyInstance(tipo.getClassLoader(), new Class<?>[] {tipo},
+            (proxy, metodo, args) -> {
+                throw new UnsupportedOperationException(metodo.getName());
+            }));
+    }
+}
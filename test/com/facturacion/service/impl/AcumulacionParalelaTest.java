@@ -0,0 +1,171 @@
+package com.facturacion.service.impl;
+
+import static org.junit.Assert.assertEquals;
+
+import com.facturacion.model.TipoPago;
+import com.facturacion.repository.FacturaRepository;
+import com.facturacion.repository.ResumenFactura;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Pruebas de la acumulación en paralelo: para cualquier rango el resultado
+ * debe ser exactamente el del recorrido secuencial.
+ */
+public class AcumulacionParalelaTest {
+
+    private static final long DIA = 24L * 60 * 60 * 1000;
+    private static final long INICIO = 1_700_000_000_000L;
+    private static final int CANTIDAD = 5 * AcumulacionParalela.UMBRAL + 123;
+
+    private static ResumenFijo[] resumenes;
+    private static FacturaRepository repositorio;
+    private static ForkJoinPool pool;
+
+    /** Resumen de factura con valores fijos. */
+    private static final class ResumenFijo implements ResumenFactura {
+        final int numero;
+        final long fecha;
+        final double subtotal;
+        final double impuesto;
+        final double descuento;
+        final Estado estado;
+
+        ResumenFijo(int numero, long fecha, double subtotal, double impuesto, double descuento, Estado estado) {
+            this.numero = numero;
+            this.fecha = fecha;
+            this.subtotal = subtotal;
+            this.impuesto = impuesto;
+            this.descuento = descuento;
+            this.estado = estado;
+        }
+
+        @Override public int getNumeroFactura() { return numero; }
+        @Override public long getFechaMillis() { return fecha; }
+        @Override public long getCedulaCliente() { return numero; }
+        @Override public String getNombreCliente() { return ""; }
+        @Override public double getSubtotal() { return subtotal; }
+        @Override public double getImpuesto() { return impuesto; }
+        @Override public double getDescuento() { return descuento; }
+        @Override public double getTotal() { return subtotal + impuesto - descuento; }
+        @Override public Estado getEstado() { return estado; }
+        @Override public TipoPago getTipoPago() { return null; }
+    }
+
+    @BeforeClass
+    public static void generarResumenes() {
+        Random random = new Random(42);
+        ResumenFactura.Estado[] estados = ResumenFactura.Estado.values();
+        resumenes = new ResumenFijo[CANTIDAD];
+        for (int i = 0; i < CANTIDAD; i++) {
+            double subtotal = random.nextInt(10_000_000) / 100.0;
+            resumenes[i] = new ResumenFijo(i + 1, INICIO + random.nextInt(60) * DIA + random.nextInt((int) DIA),
+                subtotal, Math.round(subtotal * 13) / 100.0, random.nextInt(3) == 0 ? subtotal / 20 : 0,
+                estados[random.nextInt(estados.length)]);
+        }
+        repositorio = repositorioDeResumenes(resumenes);
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void cerrarPool() {
+        pool.shutdown();
+    }
+
+    /**
+     * Repositorio que sólo responde a las consultas de resúmenes que usa la
+     * acumulación; el resto de las operaciones no se necesitan en estas pruebas.
+     */
+    @SuppressWarnings("unchecked")
+    private static FacturaRepository repositorioDeResumenes(ResumenFijo[] resumenes) {
+        return (FacturaRepository) Proxy.newProxyInstance(FacturaRepository.class.getClassLoader(),
+            new Class<?>[] {FacturaRepository.class}, (proxy, metodo, args) -> {
+                switch (metodo.getName()) {
+                    case "contarResumenes":
+                        return resumenes.length;
+                    case "recorrerResumenes":
+                        long desde = ((Date) args[0]).getTime();
+                        long hasta = ((Date) args[1]).getTime();
+                        int posicionDesde = args.length == 5 ? (Integer) args[2] : 0;
+                        int posicionHasta = args.length == 5 ? Math.min((Integer) args[3], resumenes.length)
+                                                             : resumenes.length;
+                        Consumer<ResumenFactura> consumidor = (Consumer<ResumenFactura>) args[args.length - 1];
+                        for (int i = posicionDesde; i < posicionHasta; i++) {
+                            if (resumenes[i].fecha >= desde && resumenes[i].fecha < hasta) {
+                                consumidor.accept(resumenes[i]);
+                            }
+                        }
+                        return null;
+                    default:
+                        throw new UnsupportedOperationException(metodo.getName());
+                }
+            });
+    }
+
+    private static AcumuladorVentas secuencial(Date inicio, Date fin) {
+        AcumuladorVentas acumulador = new AcumuladorVentas();
+        repositorio.recorrerResumenes(inicio, fin, acumulador::agregar);
+        return acumulador;
+    }
+
+    private static AcumuladorVentas paralelo(Date inicio, Date fin) {
+        return pool.invoke(new AcumulacionParalela(repositorio, inicio, fin, 0, repositorio.contarResumenes()));
+    }
+
+    private static void assertMismoResultado(AcumuladorVentas esperado, AcumuladorVentas obtenido) {
+        assertEquals(esperado.getCantidadFacturas(), obtenido.getCantidadFacturas());
+        assertEquals(esperado.getCantidadAnuladas(), obtenido.getCantidadAnuladas());
+        assertEquals(esperado.getCantidadPagadas(), obtenido.getCantidadPagadas());
+        // Los montos se acumulan en céntimos: la igualdad es exacta
+        assertEquals(esperado.getTotalVentas(), obtenido.getTotalVentas(), 0.0);
+        assertEquals(esperado.getTotalImpuestos(), obtenido.getTotalImpuestos(), 0.0);
+        assertEquals(esperado.getTotalDescuentos(), obtenido.getTotalDescuentos(), 0.0);
+    }
+
+    @Test
+    public void todoElRangoDaLoMismoQueElRecorridoSecuencial() {
+        Date inicio = new Date(INICIO);
+        Date fin = new Date(INICIO + 60 * DIA);
+        AcumuladorVentas esperado = secuencial(inicio, fin);
+
+        assertEquals(CANTIDAD, esperado.getCantidadFacturas());
+        assertMismoResultado(esperado, paralelo(inicio, fin));
+    }
+
+    @Test
+    public void unRangoParcialDaLoMismoQueElRecorridoSecuencial() {
+        for (int dia = 0; dia < 60; dia += 7) {
+            Date inicio = new Date(INICIO + dia * DIA);
+            Date fin = new Date(INICIO + (dia + 3) * DIA + DIA / 2);
+            assertMismoResultado(secuencial(inicio, fin), paralelo(inicio, fin));
+        }
+    }
+
+    @Test
+    public void unRangoSinFacturasDaCero() {
+        Date inicio = new Date(INICIO - 10 * DIA);
+        AcumuladorVentas resultado = paralelo(inicio, new Date(INICIO));
+
+        assertEquals(0, resultado.getCantidadFacturas());
+        assertEquals(0.0, resultado.getTotalVentas(), 0.0);
+    }
+
+    @Test
+    public void unAlmacenMenorQueElUmbralNoSeDivide() {
+        ResumenFijo[] pocos = Arrays.copyOf(resumenes, 10);
+        FacturaRepository chico = repositorioDeResumenes(pocos);
+        Date inicio = new Date(INICIO);
+        Date fin = new Date(INICIO + 60 * DIA);
+
+        AcumuladorVentas esperado = new AcumuladorVentas();
+        chico.recorrerResumenes(inicio, fin, esperado::agregar);
+        assertMismoResultado(esperado, pool.invoke(new AcumulacionParalela(chico, inicio, fin, 0, pocos.length)));
+    }
+}
@@ -0,0 +1,77 @@
+package com.facturacion.service.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.facturacion.model.Impuesto;
+import com.facturacion.model.Producto;
+import com.facturacion.model.ProductoNoPerecedero;
+import com.facturacion.repository.impl.ProductoRepositoryImpl;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Pruebas de la caché de precios: capacidad acotada e invalidación por
+ * cualquier escritura en el repositorio.
+ */
+public class CachePreciosTest {
+
+    private ProductoRepositoryImpl repositorio;
+    private CachePrecios cache;
+    private final List<Producto> productos = new ArrayList<>();
+
+    @Before
+    public void abrir() {
+        repositorio = new ProductoRepositoryImpl();
+        repositorio.eliminarTodos();
+        cache = new CachePrecios(repositorio, 3);
+        repositorio.agregarOyente(cache);
+        for (int i = 0; i < 5; i++) {
+            productos.add(repositorio.guardar(
+                new ProductoNoPerecedero("Producto " + i, null, 1000 + i, Impuesto.values()[0], 10, null)));
+        }
+    }
+
+    @After
+    public void cerrar() {
+        repositorio.eliminarTodos();
+    }
+
+    @Test
+    public void noGuardaMasPreciosQueSuCapacidad() {
+        for (Producto producto : productos) {
+            assertEquals(producto.getPrecioCentimos(), cache.obtener(producto.getCodigo()).getNetoCentimos());
+        }
+        assertEquals(3, cache.tamano());
+        assertNull(cache.obtener(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void unaEscrituraDirectaEnElRepositorioInvalidaElPrecio() {
+        Producto producto = productos.get(0);
+        cache.obtener(producto.getCodigo());
+
+        producto.setPrecio(2500);
+        repositorio.actualizar(producto);
+
+        assertEquals(250_000, cache.obtener(producto.getCodigo()).getNetoCentimos());
+    }
+
+    @Test
+    public void ajustarElInventarioEliminarYLimpiarInvalidan() {
+        for (int i = 0; i < 3; i++) {
+            cache.obtener(productos.get(i).getCodigo());
+        }
+
+        repositorio.actualizarInventario(productos.get(0).getCodigo(), -1);
+        assertEquals(2, cache.tamano());
+        repositorio.eliminar(productos.get(1).getCodigo());
+        assertEquals(1, cache.tamano());
+        assertNull(cache.obtener(productos.get(1).getCodigo()));
+        repositorio.eliminarTodos();
+        assertEquals(0, cache.tamano());
+    }
+}
@@ -0,0 +1,76 @@
+package com.facturacion.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+
+/**
+ * Compara {@link EscritorReporte} con líneas armadas con {@code String.format}
+ * al escribir un reporte de ventas a un Writer que descarta la salida, de modo
+ * que sólo se mide el formateo.
+ *
+ * Uso: {@code java com.facturacion.util.EscritorReporteBenchmark [lineas] [rondas]}
+ */
+public class EscritorReporteBenchmark {
+
+    /** Writer que descarta lo escrito y sólo cuenta los caracteres. */
+    private static final class WriterNulo extends Writer {
+        long caracteres;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            caracteres += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            caracteres += len;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int cantidad = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rondas = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        LocalDate primerDia = LocalDate.of(2024, 1, 1);
+
+        System.out.printf("%d líneas, %d rondas%n", cantidad, rondas);
+        for (int ronda = 1; ronda <= rondas; ronda++) {
+            WriterNulo destino = new WriterNulo();
+            long inicio = System.nanoTime();
+            for (int i = 0; i < cantidad; i++) {
+                destino.write(String.format("%d,%s,%s,%.2f,%.2f\n", i + 1, primerDia.plusDays(i % 366),
+                    "Cliente " + (i % 1000), montoDe(i), montoDe(i) * 0.13));
+            }
+            long conFormat = System.nanoTime() - inicio;
+            long caracteresFormat = destino.caracteres;
+
+            destino = new WriterNulo();
+            inicio = System.nanoTime();
+            EscritorReporte escritor = new EscritorReporte(destino);
+            for (int i = 0; i < cantidad; i++) {
+                escritor.entero(i + 1).caracter(',')
+                    .fecha(primerDia.plusDays(i % 366)).caracter(',')
+                    .texto("Cliente ").entero(i % 1000).caracter(',')
+                    .monto(montoDe(i)).caracter(',')
+                    .monto(montoDe(i) * 0.13).nuevaLinea();
+            }
+            escritor.flush();
+            long conEscritor = System.nanoTime() - inicio;
+
+            System.out.printf("Ronda %d  String.format: %d ms (%,d caracteres) | EscritorReporte: %d ms (%,d caracteres)%n",
+                ronda, conFormat / 1_000_000, caracteresFormat, conEscritor / 1_000_000, destino.caracteres);
+        }
+    }
+
+    private static double montoDe(int i) {
+        return (i * 7919L % 10_000_000) / 100.0;
+    }
+}
@@ -0,0 +1,126 @@
+package com.facturacion.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Pruebas del escritor de reportes: cada número y fecha debe quedar igual que
+ * con {@code String.format}, también cuando cruza el límite del búfer.
+ */
+public class EscritorReporteTest {
+
+    private static final long[] LIMITES = {
+        0, 1, -1, 9, 10, 99, 100, 999, 1000, -1000, 999_999, 1_000_000, 123_456_789,
+        Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1
+    };
+
+    private interface Escritura {
+        void escribir(EscritorReporte escritor) throws IOException;
+    }
+
+    private static String escribir(Escritura escritura) throws IOException {
+        StringWriter destino = new StringWriter();
+        EscritorReporte escritor = new EscritorReporte(destino);
+        escritura.escribir(escritor);
+        escritor.flush();
+        return destino.toString();
+    }
+
+    /** Monto en céntimos como lo escribe {@code String.format("%.2f")}, sin pasar por double. */
+    private static String formatoCentimos(long centimos, boolean miles) {
+        String signo = centimos < 0 ? "-" : "";
+        long unidades = Math.abs(centimos / 100);
+        long resto = Math.abs(centimos % 100);
+        return signo + String.format(Locale.US, miles ? "%,d.%02d" : "%d.%02d", unidades, resto);
+    }
+
+    @Test
+    public void losEnterosCoincidenConStringFormat() throws IOException {
+        for (long valor : LIMITES) {
+            assertEquals(String.format(Locale.US, "%d", valor), escribir(e -> e.entero(valor)));
+            assertEquals(String.format(Locale.US, "%,d", valor), escribir(e -> e.enteroConMiles(valor)));
+        }
+    }
+
+    @Test
+    public void losCentimosCoincidenConStringFormat() throws IOException {
+        for (long valor : LIMITES) {
+            assertEquals(formatoCentimos(valor, false), escribir(e -> e.centimos(valor)));
+            assertEquals(formatoCentimos(valor, true), escribir(e -> e.centimosConMiles(valor)));
+        }
+    }
+
+    @Test
+    public void losMontosCoincidenConStringFormat() throws IOException {
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            long centimos = random.nextLong() % 1_000_000_000_000L;
+            double monto = centimos / 100.0;
+            assertEquals(String.format(Locale.US, "%.2f", monto), escribir(e -> e.monto(monto)));
+            assertEquals(String.format(Locale.US, "%,.2f", monto), escribir(e -> e.montoConMiles(monto)));
+        }
+        assertEquals(String.format(Locale.US, "%.2f", 0.005), escribir(e -> e.monto(0.005)));
+        // String.format conserva el signo de un negativo que redondea a cero ("-0.00"); el escritor no
+        assertEquals("0.00", escribir(e -> e.monto(-0.004)));
+    }
+
+    @Test
+    public void lasFechasCoincidenConStringFormat() throws IOException {
+        for (LocalDate fecha : new LocalDate[] {LocalDate.of(2024, 1, 5), LocalDate.of(999, 12, 31),
+                LocalDate.of(5, 7, 9), LocalDate.of(2000, 10, 10)}) {
+            assertEquals(String.format("%04d-%02d-%02d", fecha.getYear(), fecha.getMonthValue(), fecha.getDayOfMonth()),
+                escribir(e -> e.fecha(fecha)));
+        }
+    }
+
+    @Test
+    public void unReporteMayorQueElBuferEsIgualAlArmadoConStringFormat() throws IOException {
+        Random random = new Random(11);
+        long[] centimos = new long[5_000];
+        for (int i = 0; i < centimos.length; i++) {
+            centimos[i] = random.nextInt(100_000_000) - 1_000_000;
+        }
+
+        StringBuilder esperado = new StringBuilder();
+        for (int i = 0; i < centimos.length; i++) {
+            esperado.append(String.format(Locale.US, "%d;Línea %d;%.2f;%,.2f%n", i, i, centimos[i] / 100.0, centimos[i] / 100.0)
+                .replace(System.lineSeparator(), "\n"));
+        }
+        String obtenido = escribir(e -> {
+            for (int i = 0; i < centimos.length; i++) {
+                e.entero(i).caracter(';').texto("Línea ").entero(i).caracter(';')
+                    .centimos(centimos[i]).caracter(';').centimosConMiles(centimos[i]).nuevaLinea();
+            }
+        });
+
+        assertEquals(esperado.toString(), obtenido);
+    }
+
+    @Test
+    public void escapaCamposCsvYCadenasJson() throws IOException {
+        assertEquals("simple", escribir(e -> e.campoCsv("simple")));
+        assertEquals("\"a,b\"", escribir(e -> e.campoCsv("a,b")));
+        assertEquals("\"dice \"\"hola\"\"\"", escribir(e -> e.campoCsv("dice \"hola\"")));
+        assertEquals("", escribir(e -> e.campoCsv(null)));
+
+        assertEquals("\"a\\\"b\\\\c\\nd\\u0001\"", escribir(e -> e.cadenaJson("a\"b\\c\nd\u0001")));
+        assertEquals("null", escribir(e -> e.cadenaJson(null)));
+    }
+
+    @Test
+    public void elFlujoDeBytesSeCodificaEnUtf8() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (EscritorReporte escritor = new EscritorReporte(bytes)) {
+            escritor.texto("Año ").centimosConMiles(123_456_789);
+        }
+        assertEquals("Año 1,234,567.89", new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,55 @@
+package com.facturacion.util;
+
+import com.facturacion.model.Moneda;
+import java.io.IOException;
+
+/**
+ * Compara {@link NumeroALetras} con la conversión por recursión y
+ * concatenación de cadenas de {@link NumeroALetrasIngenuo}, que trabaja como
+ * el convertidor anterior. El convertidor se mide de dos formas: creando una
+ * cadena por monto y escribiendo en un mismo {@link StringBuilder} reutilizado.
+ *
+ * Uso: {@code java com.facturacion.util.NumeroALetrasBenchmark [montos] [rondas]}
+ */
+public class NumeroALetrasBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int cantidad = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int rondas = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        long[] montos = new long[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            // Montos repartidos hasta mil millones de colones, con céntimos
+            montos[i] = (i * 499_979L % 1_000_000_000L) * 100 + i % 100;
+        }
+
+        System.out.printf("%d montos, %d rondas%n", cantidad, rondas);
+        for (int ronda = 1; ronda <= rondas; ronda++) {
+            long caracteres = 0;
+            long inicio = System.nanoTime();
+            for (long centimos : montos) {
+                caracteres += NumeroALetrasIngenuo.convertirCentimos(centimos, Moneda.COLONES).length();
+            }
+            long ingenuo = System.nanoTime() - inicio;
+
+            inicio = System.nanoTime();
+            for (long centimos : montos) {
+                caracteres += NumeroALetras.convertirCentimos(centimos, Moneda.COLONES).length();
+            }
+            long cadena = System.nanoTime() - inicio;
+
+            StringBuilder destino = new StringBuilder(128);
+            inicio = System.nanoTime();
+            for (long centimos : montos) {
+                destino.setLength(0);
+                NumeroALetras.escribir(centimos, Moneda.COLONES, destino);
+                caracteres += destino.length();
+            }
+            long reutilizado = System.nanoTime() - inicio;
+
+            System.out.printf("Ronda %d  concatenación: %.0f ns/monto | convertirCentimos: %.0f ns/monto"
+                + " | escribir en StringBuilder: %.0f ns/monto (%d caracteres)%n",
+                ronda, (double) ingenuo / cantidad, (double) cadena / cantidad, (double) reutilizado / cantidad,
+                caracteres);
+        }
+    }
+}
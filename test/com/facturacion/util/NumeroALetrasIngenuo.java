@@ -0,0 +1,115 @@
+package com.facturacion.util;
+
+import com.facturacion.model.Moneda;
+
+/**
+ * Conversión de montos a letras escrita de la forma más directa posible
+ * (recursión y concatenación de cadenas, sin tablas precalculadas), que sirve
+ * de referencia independiente para comprobar {@link NumeroALetras}.
+ */
+final class NumeroALetrasIngenuo {
+
+    private NumeroALetrasIngenuo() {
+    }
+
+    static String convertirCentimos(long centimos, Moneda moneda) {
+        String signo = "";
+        if (centimos < 0) {
+            signo = "MENOS ";
+            centimos = -centimos;
+        }
+        long entero = centimos / 100;
+        long fraccion = centimos % 100;
+
+        String texto = signo + (entero == 0 ? "CERO" : letras(entero));
+        if (entero >= 1_000_000 && entero % 1_000_000 == 0) {
+            texto += " DE";
+        }
+        if (moneda == Moneda.DOLARES) {
+            texto += entero == 1 ? " DÓLAR" : " DÓLARES";
+        } else {
+            texto += entero == 1 ? " COLÓN" : " COLONES";
+        }
+        return texto + " CON " + (fraccion < 10 ? "0" : "") + fraccion + "/100";
+    }
+
+    /**
+     * Letras de un número positivo.
+     */
+    private static String letras(long n) {
+        if (n >= 1_000_000_000_000L) {
+            long billones = n / 1_000_000_000_000L;
+            return (billones == 1 ? "UN BILLÓN" : letras(billones) + " BILLONES") + resto(n % 1_000_000_000_000L);
+        }
+        if (n >= 1_000_000) {
+            long millones = n / 1_000_000;
+            return (millones == 1 ? "UN MILLÓN" : letras(millones) + " MILLONES") + resto(n % 1_000_000);
+        }
+        if (n >= 1_000) {
+            long miles = n / 1_000;
+            return (miles == 1 ? "MIL" : letras(miles) + " MIL") + resto(n % 1_000);
+        }
+        if (n == 100) {
+            return "CIEN";
+        }
+        if (n > 100) {
+            return centena((int) (n / 100)) + resto(n % 100);
+        }
+        return menorACien((int) n);
+    }
+
+    private static String resto(long n) {
+        return n == 0 ? "" : " " + letras(n);
+    }
+
+    private static String centena(int c) {
+        switch (c) {
+            case 1: return "CIENTO";
+            case 5: return "QUINIENTOS";
+            case 7: return "SETECIENTOS";
+            case 9: return "NOVECIENTOS";
+            default: return menorACien(c) + "CIENTOS";
+        }
+    }
+
+    private static String menorACien(int n) {
+        switch (n) {
+            case 1: return "UN";
+            case 2: return "DOS";
+            case 3: return "TRES";
+            case 4: return "CUATRO";
+            case 5: return "CINCO";
+            case 6: return "SEIS";
+            case 7: return "SIETE";
+            case 8: return "OCHO";
+            case 9: return "NUEVE";
+            case 10: return "DIEZ";
+            case 11: return "ONCE";
+            case 12: return "DOCE";
+            case 13: return "TRECE";
+            case 14: return "CATORCE";
+            case 15: return "QUINCE";
+            case 16: return "DIECISÉIS";
+            case 20: return "VEINTE";
+            case 21: return "VEINTIÚN";
+            case 22: return "VEINTIDÓS";
+            case 23: return "VEINTITRÉS";
+            case 26: return "VEINTISÉIS";
+            case 30: return "TREINTA";
+            case 40: return "CUARENTA";
+            case 50: return "CINCUENTA";
+            case 60: return "SESENTA";
+            case 70: return "SETENTA";
+            case 80: return "OCHENTA";
+            case 90: return "NOVENTA";
+            default:
+                if (n < 20) {
+                    return "DIECI" + menorACien(n - 10);
+                }
+                if (n < 30) {
+                    return "VEINTI" + menorACien(n - 20);
+                }
+                return menorACien(n / 10 * 10) + " Y " + menorACien(n % 10);
+        }
+    }
+}
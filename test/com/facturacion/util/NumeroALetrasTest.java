@@ -0,0 +1,162 @@
+package com.facturacion.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.facturacion.model.Moneda;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * Pruebas de la conversión de montos a letras en colones y dólares. Además de
+ * los casos escritos a mano, se compara con {@link NumeroALetrasIngenuo} en un
+ * rango contiguo y en un barrido hasta 10^9. El recorrido completo de 0 a
+ * 10^9 tarda varios minutos y sólo se ejecuta con {@code -Dpruebas.largas=true}.
+ */
+public class NumeroALetrasTest {
+
+    private static final long MIL_MILLONES = 1_000_000_000L;
+
+    private static String colones(long unidades) {
+        return NumeroALetras.convertirCentimos(unidades * 100, Moneda.COLONES);
+    }
+
+    @Test
+    public void unidadesDecenasYCentenas() {
+        assertEquals("CERO COLONES CON 00/100", colones(0));
+        assertEquals("UN COLÓN CON 00/100", colones(1));
+        assertEquals("QUINCE COLONES CON 00/100", colones(15));
+        assertEquals("VEINTIÚN COLONES CON 00/100", colones(21));
+        assertEquals("VEINTIDÓS COLONES CON 00/100", colones(22));
+        assertEquals("TREINTA COLONES CON 00/100", colones(30));
+        assertEquals("CUARENTA Y UN COLONES CON 00/100", colones(41));
+        assertEquals("NOVENTA Y NUEVE COLONES CON 00/100", colones(99));
+        assertEquals("CIEN COLONES CON 00/100", colones(100));
+        assertEquals("CIENTO UN COLONES CON 00/100", colones(101));
+        assertEquals("QUINIENTOS COLONES CON 00/100", colones(500));
+        assertEquals("NOVECIENTOS NOVENTA Y NUEVE COLONES CON 00/100", colones(999));
+    }
+
+    @Test
+    public void milesMillonesYBillones() {
+        assertEquals("MIL COLONES CON 00/100", colones(1_000));
+        assertEquals("MIL UN COLONES CON 00/100", colones(1_001));
+        assertEquals("DOS MIL COLONES CON 00/100", colones(2_000));
+        assertEquals("VEINTIÚN MIL CIEN COLONES CON 00/100", colones(21_100));
+        assertEquals("CIEN MIL COLONES CON 00/100", colones(100_000));
+        assertEquals("NOVECIENTOS NOVENTA Y NUEVE MIL NOVECIENTOS NOVENTA Y NUEVE COLONES CON 00/100",
+            colones(999_999));
+        assertEquals("UN MILLÓN DE COLONES CON 00/100", colones(1_000_000));
+        assertEquals("UN MILLÓN CIEN COLONES CON 00/100", colones(1_000_100));
+        assertEquals("DOS MILLONES DE COLONES CON 00/100", colones(2_000_000));
+        assertEquals("VEINTIÚN MILLONES MIL COLONES CON 00/100", colones(21_001_000));
+        assertEquals("MIL MILLONES DE COLONES CON 00/100", colones(1_000_000_000));
+        assertEquals("UN BILLÓN DE COLONES CON 00/100", colones(1_000_000_000_000L));
+        assertEquals("DOS BILLONES UN MILLÓN UN COLONES CON 00/100", colones(2_000_001_000_001L));
+    }
+
+    @Test
+    public void losCentimosSeEscribenConDosCifras() {
+        assertEquals("CERO COLONES CON 01/100", NumeroALetras.convertirCentimos(1, Moneda.COLONES));
+        assertEquals("CERO COLONES CON 50/100", NumeroALetras.convertirCentimos(50, Moneda.COLONES));
+        assertEquals("MIL DOSCIENTOS VEINTIÚN COLONES CON 99/100", NumeroALetras.convertirCentimos(122_199, Moneda.COLONES));
+        assertEquals("MIL DOSCIENTOS VEINTIÚN COLONES CON 50/100", NumeroALetras.convertir(1221.5));
+    }
+
+    @Test
+    public void dolaresEnSingularYPlural() {
+        assertEquals("UN DÓLAR CON 00/100", NumeroALetras.convertirCentimos(100, Moneda.DOLARES));
+        assertEquals("DOS DÓLARES CON 25/100", NumeroALetras.convertir(2.25, Moneda.DOLARES));
+        assertEquals("CERO DÓLARES CON 99/100", NumeroALetras.convertirCentimos(99, Moneda.DOLARES));
+        assertEquals("UN MILLÓN DE DÓLARES CON 00/100", NumeroALetras.convertirCentimos(100_000_000, Moneda.DOLARES));
+    }
+
+    @Test
+    public void montosNegativosYExtremos() {
+        assertEquals("MENOS UN COLÓN CON 50/100", NumeroALetras.convertirCentimos(-150, Moneda.COLONES));
+        assertEquals("NOVENTA Y DOS MIL DOSCIENTOS TREINTA Y TRES BILLONES SETECIENTOS VEINTE MIL "
+            + "TRESCIENTOS SESENTA Y OCHO MILLONES QUINIENTOS CUARENTA Y SIETE MIL SETECIENTOS CINCUENTA Y OCHO "
+            + "COLONES CON 07/100", NumeroALetras.convertirCentimos(Long.MAX_VALUE, Moneda.COLONES));
+        assertEquals("MENOS " + NumeroALetras.convertirCentimos(Long.MAX_VALUE, Moneda.DOLARES),
+            NumeroALetras.convertirCentimos(-Long.MAX_VALUE, Moneda.DOLARES));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void longMinValueEstaFueraDeRango() {
+        NumeroALetras.convertirCentimos(Long.MIN_VALUE, Moneda.COLONES);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rechazaMonedaNula() {
+        NumeroALetras.convertirCentimos(100, null);
+    }
+
+    @Test
+    public void elTextoNoTieneEspaciosDeMasEnNingunMonto() throws IOException {
+        Random random = new Random(5);
+        for (int i = 0; i < 100_000; i++) {
+            long centimos = i < 50_000 ? i * 37L : random.nextLong() >>> random.nextInt(64);
+            for (Moneda moneda : Moneda.values()) {
+                String texto = NumeroALetras.convertirCentimos(centimos, moneda);
+                assertFalse(texto, texto.contains("  "));
+                assertFalse(texto, texto.startsWith(" "));
+                assertTrue(texto, texto.matches("[A-ZÁÉÍÓÚ ]+ CON \\d{2}/100"));
+
+                StringWriter destino = new StringWriter();
+                NumeroALetras.escribir(centimos, moneda, destino);
+                assertEquals(texto, destino.toString());
+            }
+        }
+    }
+
+    private static void assertIgualQueLaReferencia(long centimos, Moneda moneda) {
+        assertEquals(NumeroALetrasIngenuo.convertirCentimos(centimos, moneda),
+            NumeroALetras.convertirCentimos(centimos, moneda));
+    }
+
+    @Test
+    public void coincideConLaReferenciaEnUnRangoContiguo() {
+        for (long unidades = 0; unidades <= 2_000_000; unidades++) {
+            assertIgualQueLaReferencia(unidades * 100 + unidades % 100, Moneda.COLONES);
+        }
+        for (long centimos = -10_000; centimos <= 10_000; centimos++) {
+            assertIgualQueLaReferencia(centimos, Moneda.DOLARES);
+        }
+    }
+
+    @Test
+    public void coincideConLaReferenciaEnUnBarridoHastaMilMillones() {
+        for (long unidades = 0; unidades <= MIL_MILLONES; unidades += 997) {
+            assertIgualQueLaReferencia(unidades * 100 + unidades % 100, Moneda.COLONES);
+        }
+        assertIgualQueLaReferencia(MIL_MILLONES * 100, Moneda.COLONES);
+    }
+
+    @Test
+    public void coincideConLaReferenciaEnMontosGrandesYNegativos() {
+        Random random = new Random(11);
+        for (int i = 0; i < 200_000; i++) {
+            long centimos = random.nextLong() >> random.nextInt(64);
+            if (centimos != Long.MIN_VALUE) {
+                assertIgualQueLaReferencia(centimos, i % 2 == 0 ? Moneda.COLONES : Moneda.DOLARES);
+            }
+        }
+        assertIgualQueLaReferencia(Long.MAX_VALUE, Moneda.COLONES);
+    }
+
+    /**
+     * Recorrido completo de 0 a 10^9 unidades. Ejecución larga: sólo con
+     * {@code -Dpruebas.largas=true}.
+     */
+    @Test
+    public void coincideConLaReferenciaEnTodoElRangoHastaMilMillones() {
+        Assume.assumeTrue(Boolean.getBoolean("pruebas.largas"));
+        for (long unidades = 0; unidades <= MIL_MILLONES; unidades++) {
+            assertIgualQueLaReferencia(unidades * 100 + unidades % 100, Moneda.COLONES);
+        }
+    }
+}
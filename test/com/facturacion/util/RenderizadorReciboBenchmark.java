@@ -0,0 +1,118 @@
+package com.facturacion.util;
+
+import com.facturacion.model.Cliente;
+import com.facturacion.model.Factura;
+import com.facturacion.model.Impuesto;
+import com.facturacion.model.LineaDetalle;
+import com.facturacion.model.Moneda;
+import com.facturacion.model.Pago;
+import com.facturacion.model.Producto;
+import com.facturacion.model.ProductoNoPerecedero;
+import com.facturacion.model.TipoCliente;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compara {@link RenderizadorRecibo} con el recibo armado con cadenas de
+ * {@code String.format} que se usaba antes en Factura, LineaDetalle y Pago.
+ *
+ * Uso: {@code java com.facturacion.util.RenderizadorReciboBenchmark [facturas] [rondas]}
+ */
+public class RenderizadorReciboBenchmark {
+
+    public static void main(String[] args) {
+        int cantidad = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int rondas = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        List<Factura> facturas = generarFacturas(cantidad);
+
+        System.out.printf("%d facturas, %d rondas%n", cantidad, rondas);
+        for (int ronda = 1; ronda <= rondas; ronda++) {
+            long caracteres = 0;
+            long inicio = System.nanoTime();
+            for (Factura factura : facturas) {
+                caracteres += reciboConFormat(factura).length();
+            }
+            long conFormat = System.nanoTime() - inicio;
+
+            inicio = System.nanoTime();
+            for (Factura factura : facturas) {
+                caracteres += RenderizadorRecibo.para(FormatoRecibo.MM_80).renderizarTexto(factura).length();
+            }
+            long texto = System.nanoTime() - inicio;
+
+            inicio = System.nanoTime();
+            for (Factura factura : facturas) {
+                caracteres += RenderizadorRecibo.para(FormatoRecibo.MM_80).renderizarEscPos(factura).length;
+            }
+            long escPos = System.nanoTime() - inicio;
+
+            System.out.printf("Ronda %d  String.format: %.1f us/recibo | renderizador texto: %.1f us/recibo"
+                + " | ESC/POS: %.1f us/recibo (%d caracteres)%n",
+                ronda, conFormat / 1000.0 / cantidad, texto / 1000.0 / cantidad, escPos / 1000.0 / cantidad, caracteres);
+        }
+    }
+
+    private static List<Factura> generarFacturas(int cantidad) {
+        Producto[] productos = new Producto[50];
+        for (int i = 0; i < productos.length; i++) {
+            productos[i] = new ProductoNoPerecedero("Producto número " + i, null, 750 + i * 37.25,
+                Impuesto.values()[i % Impuesto.values().length], 1_000_000, null);
+        }
+        List<Factura> facturas = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            Factura factura = new Factura(new Cliente(100_000_000L + i, "Cliente " + i, TipoCliente.OCASIONALES, null));
+            for (int j = 0; j < 1 + i % 10; j++) {
+                factura.agregarProducto(productos[(i + j * 7) % productos.length], 1 + j);
+            }
+            if (i % 2 == 0) {
+                factura.registrarPago(new Pago(factura.getTotal() + 1000, Moneda.COLONES, 1.0));
+            }
+            facturas.add(factura);
+        }
+        return facturas;
+    }
+
+    /**
+     * Recibo como lo armaban los toString de Factura y LineaDetalle antes del renderizador.
+     */
+    private static String reciboConFormat(Factura factura) {
+        SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy HH:mm:ss");
+        StringBuilder sb = new StringBuilder();
+        sb.append("========================================\n");
+        sb.append("FACTURA #").append(String.format("%06d", factura.getNumeroFactura())).append("\n");
+        sb.append("Fecha: ").append(sdf.format(factura.getFechaFactura())).append("\n");
+        sb.append("Cliente: ").append(factura.getCliente().getNombre()).append(" (")
+            .append(factura.getCliente().getTipo()).append(")\n");
+        sb.append("----------------------------------------\n");
+        sb.append(String.format("%-4s %-30s %8s %10s %10s\n", "#", "DESCRIPCIÓN", "CANT", "PRECIO", "TOTAL"));
+        for (LineaDetalle linea : factura.getLineasDetalle()) {
+            sb.append(String.format("%d. %-40s %4d x %8.2f %8.2f %8.2f %8.2f",
+                linea.getNumeroLinea(),
+                linea.getProducto().getNombre().substring(0, Math.min(40, linea.getProducto().getNombre().length())),
+                linea.getCantidadProducto(),
+                linea.getProducto().getPrecio(),
+                linea.getSubtotal(),
+                linea.getImpuesto(),
+                linea.getTotalLinea())).append("\n");
+        }
+        sb.append("----------------------------------------\n");
+        sb.append(String.format("SUBTOTAL: %35.2f\n", factura.getSubtotal()));
+        sb.append(String.format("IMPUESTO: %35.2f\n", factura.calcularTotalImpuestos()));
+        sb.append("----------------------------------------\n");
+        sb.append(String.format("TOTAL: %40.2f\n", factura.getTotal()));
+        sb.append("----------------------------------------\n");
+        if (factura.isPagada()) {
+            sb.append("ESTADO: PAGADA\n");
+            sb.append("MÉTODO: ").append(factura.getPago().getTipoPago()).append("\n");
+            double vuelto = factura.getPago().getMontoEnColones() - factura.getTotal();
+            if (vuelto > 0) {
+                sb.append(String.format("VUELTO: %36.2f\n", vuelto));
+            }
+        } else {
+            sb.append("ESTADO: PENDIENTE\n");
+        }
+        sb.append("========================================\n");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,167 @@
+package com.facturacion.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.facturacion.model.Cliente;
+import com.facturacion.model.Dinero;
+import com.facturacion.model.Factura;
+import com.facturacion.model.Impuesto;
+import com.facturacion.model.Moneda;
+import com.facturacion.model.Pago;
+import com.facturacion.model.ProductoNoPerecedero;
+import com.facturacion.model.TarjetaCredito;
+import com.facturacion.model.TipoCliente;
+import com.facturacion.model.TipoPago;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import org.junit.Test;
+
+/**
+ * Pruebas del recibo en texto y ESC/POS para cada formato de papel.
+ */
+public class RenderizadorReciboTest {
+
+    private static final Charset IBM850 = Charset.forName("IBM850");
+
+    private static Factura factura(String nombreProducto, double precio, int cantidad) {
+        Factura factura = new Factura(new Cliente(1L, "Begoña Muñoz", TipoCliente.OCASIONALES, null));
+        factura.agregarProducto(new ProductoNoPerecedero(nombreProducto, null, precio, Impuesto.values()[1], 1000, null), cantidad);
+        factura.agregarProducto(new ProductoNoPerecedero("Café", null, 2500, Impuesto.values()[0], 1000, null), 1);
+        return factura;
+    }
+
+    private static void assertRenglonesCaben(String texto, FormatoRecibo formato) {
+        for (String renglon : texto.split("\n")) {
+            assertTrue("Renglón de " + renglon.length() + " columnas en " + formato + ": " + renglon,
+                renglon.length() <= formato.getColumnas());
+        }
+    }
+
+    @Test
+    public void losRenglonesNoExcedenElAnchoDelPapel() {
+        Factura factura = factura("Producto con un nombre larguísimo que no cabe en ningún formato de papel",
+            98_765_432.10, 999);
+        assertTrue(factura.registrarPago(new Pago(factura.getTotal(), Moneda.COLONES, 1.0)));
+        for (FormatoRecibo formato : FormatoRecibo.values()) {
+            assertRenglonesCaben(new RenderizadorRecibo(formato).renderizarTexto(factura), formato);
+        }
+    }
+
+    @Test
+    public void elReciboIncluyeEncabezadoTotalesYEstado() {
+        Factura factura = factura("Arroz", 1850.35, 3);
+        String recibo = new RenderizadorRecibo(FormatoRecibo.MM_80).renderizarTexto(factura);
+
+        assertTrue(recibo.contains(String.format("FACTURA #%06d", factura.getNumeroFactura())));
+        assertTrue(recibo.contains("Cliente: Begoña Muñoz"));
+        assertTrue(recibo.contains("Arroz"));
+        assertTrue(recibo.contains(Dinero.formatear(factura.getTotalCentimos(), true)));
+        assertTrue(recibo.contains(NumeroALetras.convertirCentimos(factura.getTotalCentimos(), Moneda.COLONES)
+            .split(" ")[0]));
+        assertTrue(recibo.contains("ESTADO: PENDIENTE"));
+    }
+
+    @Test
+    public void elReciboYElComprobanteMuestranElMismoMetodoDePago() {
+        Factura factura = factura("Arroz", 1850.35, 3);
+        Pago pago = new Pago(factura.getTotal(), Moneda.COLONES, 1.0);
+        assertTrue(factura.registrarPago(pago));
+        RenderizadorRecibo renderizador = new RenderizadorRecibo(FormatoRecibo.MM_80);
+        String metodo = "MÉTODO: " + TipoPago.CONTADO.getDescripcion() + "\n";
+
+        assertTrue(renderizador.renderizarTexto(factura).contains(metodo));
+        assertTrue(renderizador.renderizarPago(pago).contains(metodo));
+    }
+
+    @Test
+    public void losFormatosAngostosUsanDosRenglonesPorLinea() {
+        Factura factura = factura("Arroz", 1850.35, 3);
+        String angosta = new RenderizadorRecibo(FormatoRecibo.MM_58).renderizarLinea(factura.getLinea(0));
+        String ancha = new RenderizadorRecibo(FormatoRecibo.A4).renderizarLinea(factura.getLinea(0));
+
+        assertEquals(2, angosta.split("\n").length);
+        assertEquals(1, ancha.split("\n").length);
+        assertTrue(angosta.endsWith(Dinero.formatear(factura.getLinea(0).getTotalLineaCentimos(), true) + "\n"));
+        assertTrue(ancha.trim().endsWith(Dinero.formatear(factura.getLinea(0).getTotalLineaCentimos(), true)));
+    }
+
+    @Test
+    public void elPagoEnDolaresMuestraElTipoDeCambio() {
+        Factura factura = factura("Arroz", 1850.35, 3);
+        Pago pago = new Pago(50, Moneda.DOLARES, 512.37);
+        assertTrue(factura.registrarPago(pago));
+        String comprobante = new RenderizadorRecibo(FormatoRecibo.MM_80).renderizarPago(pago);
+
+        assertTrue(comprobante.contains("PAGO #" + pago.getNumeroPago()));
+        assertTrue(comprobante.contains("TIPO DE CAMBIO:"));
+        assertTrue(comprobante.contains("512.37"));
+        assertTrue(comprobante.contains(Dinero.formatear(pago.getMontoEnColonesCentimos(), true)));
+        assertRenglonesCaben(comprobante, FormatoRecibo.MM_80);
+    }
+
+    @Test
+    public void elPagoConTarjetaSoloMuestraLosUltimosDigitos() {
+        Factura factura = factura("Arroz", 1850.35, 3);
+        Pago pago = new Pago(factura.getTotal(), new TarjetaCredito("4111111111111111", "Begoña", "12/35", "123"));
+        assertTrue(factura.registrarPago(pago));
+
+        for (FormatoRecibo formato : FormatoRecibo.values()) {
+            RenderizadorRecibo renderizador = new RenderizadorRecibo(formato);
+            String comprobante = renderizador.renderizarPago(pago) + renderizador.renderizarTexto(factura);
+            assertTrue(comprobante.contains("1111"));
+            assertFalse(comprobante.contains("4111111111111111"));
+            assertRenglonesCaben(comprobante, formato);
+        }
+    }
+
+    @Test
+    public void elMismoRenderizadorProduceRecibosIndependientes() {
+        RenderizadorRecibo renderizador = new RenderizadorRecibo(FormatoRecibo.MM_58);
+        Factura primera = factura("Arroz", 1850.35, 3);
+        Factura segunda = factura("Frijoles", 1200, 2);
+
+        String esperado = new RenderizadorRecibo(FormatoRecibo.MM_58).renderizarTexto(primera);
+        renderizador.renderizarTexto(segunda);
+        assertEquals(esperado, renderizador.renderizarTexto(primera));
+    }
+
+    @Test
+    public void paraDevuelveLaMismaInstanciaEnElMismoHilo() {
+        assertSame(RenderizadorRecibo.para(FormatoRecibo.A4), RenderizadorRecibo.para(FormatoRecibo.A4));
+    }
+
+    @Test
+    public void escPosInicializaCodificaEnPagina850YCorta() throws IOException {
+        Factura factura = factura("Piña", 1000, 1);
+        RenderizadorRecibo renderizador = new RenderizadorRecibo(FormatoRecibo.MM_80);
+        byte[] bytes = renderizador.renderizarEscPos(factura);
+
+        assertArrayEquals(new byte[] {0x1B, 0x40, 0x1B, 0x74, 2}, Arrays.copyOf(bytes, 5));
+        assertArrayEquals(new byte[] {0x1D, 0x56, 0x42, 0x03}, Arrays.copyOfRange(bytes, bytes.length - 4, bytes.length));
+        assertTrue(new String(bytes, IBM850).contains("Piña"));
+
+        ByteArrayOutputStream flujo = new ByteArrayOutputStream();
+        renderizador.renderizarEscPos(factura, flujo);
+        assertArrayEquals(bytes, flujo.toByteArray());
+    }
+
+    @Test
+    public void escPosContieneLosMismosRenglonesQueElTexto() {
+        Factura factura = factura("Arroz", 1850.35, 3);
+        RenderizadorRecibo renderizador = new RenderizadorRecibo(FormatoRecibo.MM_58);
+        String texto = renderizador.renderizarTexto(factura);
+        String escPos = new String(renderizador.renderizarEscPos(factura), IBM850);
+        for (String comando : new String[] {"\u001B@", "\u001Bt\u0002", "\u001BE\u0001", "\u001BE\u0000",
+                "\u001Ba\u0001", "\u001Ba\u0000", "\u001DVB\u0003"}) {
+            escPos = escPos.replace(comando, "");
+        }
+
+        assertEquals(texto, escPos);
+    }
+}
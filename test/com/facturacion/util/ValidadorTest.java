@@ -0,0 +1,86 @@
+package com.facturacion.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+/**
+ * Pruebas de las reglas precompiladas de {@link Validador}.
+ */
+public class ValidadorTest {
+
+    private static class Persona {
+        final String nombre;
+        final int edad;
+
+        Persona(String nombre, int edad) {
+            this.nombre = nombre;
+            this.edad = edad;
+        }
+    }
+
+    private static class Empleado extends Persona {
+        final String puesto;
+
+        Empleado(String nombre, int edad, String puesto) {
+            super(nombre, edad);
+            this.puesto = puesto;
+        }
+    }
+
+    private static final Validador<Persona> VALIDADOR = Validador.<Persona>nuevo()
+        .requerido(p -> p.nombre, "El nombre es obligatorio")
+        .regla(p -> p.edad >= 0, p -> "Edad inválida: " + p.edad)
+        .cuando(Empleado.class, Validador.<Empleado>nuevo()
+            .requerido(e -> e.puesto, "El puesto es obligatorio"));
+
+    @Test
+    public void unValidadorSinReglasAceptaCualquierObjeto() {
+        assertTrue(Validador.nuevo().esValido("cualquier cosa"));
+        assertEquals(Collections.emptyList(), Validador.<String>nuevo().violaciones(""));
+    }
+
+    @Test
+    public void devuelveTodasLasViolacionesEnOrdenDeDeclaracion() {
+        assertEquals(Arrays.asList("El nombre es obligatorio", "Edad inválida: -1"),
+            VALIDADOR.violaciones(new Persona("  ", -1)));
+        assertTrue(VALIDADOR.esValido(new Persona("Ana", 30)));
+    }
+
+    @Test
+    public void lasReglasDelSubtipoSoloSeAplicanASusInstancias() {
+        assertTrue(VALIDADOR.esValido(new Persona("Ana", 30)));
+        assertEquals(Collections.singletonList("El puesto es obligatorio"),
+            VALIDADOR.violaciones(new Empleado("Ana", 30, null)));
+    }
+
+    @Test
+    public void validarLanzaUnaViolacionPorLinea() {
+        try {
+            VALIDADOR.validar(new Empleado(null, -5, ""));
+            fail("Se esperaba IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals("El nombre es obligatorio\nEdad inválida: -5\nEl puesto es obligatorio", e.getMessage());
+        }
+    }
+
+    @Test
+    public void agregarReglasNoModificaElValidadorOriginal() {
+        Validador<Persona> base = Validador.<Persona>nuevo().regla(p -> p.edad < 100, "Demasiado mayor");
+        Validador<Persona> extendido = base.regla(p -> p.edad > 10, "Demasiado joven");
+
+        Persona nino = new Persona("Luis", 5);
+        assertTrue(base.esValido(nino));
+        assertFalse(extendido.esValido(nino));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rechazaObjetosNulos() {
+        VALIDADOR.violaciones(null);
+    }
+}